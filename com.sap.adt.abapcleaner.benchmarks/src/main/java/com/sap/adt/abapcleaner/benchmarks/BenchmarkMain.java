@@ -0,0 +1,94 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.HashMap;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import com.sap.adt.abapcleaner.base.Language;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+import com.sap.adt.abapcleaner.rulebase.RuleID;
+
+/**
+ * Runs the JMH benchmarks (accepting the usual JMH command line options, e.g. a benchmark name pattern or '-p ruleID=...')
+ * and then reports the throughput of tokenizer, parser and diff in MB/s, and the time of each Rule in ns per Command.
+ */
+public class BenchmarkMain {
+	private static final String PARAM_LANGUAGE = "language";
+	private static final String PARAM_CORPUS_SIZE = "corpusSize_kB";
+	private static final String PARAM_RULE_ID = "ruleID";
+	private static final String PARAM_ALGORITHM = "algorithm";
+
+	private static final HashMap<String, Corpus> corpora = new HashMap<>();
+	private static final HashMap<String, Integer> commandCounts = new HashMap<>();
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		Collection<RunResult> results = new Runner(new CommandLineOptions(args)).run();
+		printSummary(results, System.out);
+	}
+
+	private static void printSummary(Collection<RunResult> results, PrintStream out) {
+		BenchmarkSetup.initialize();
+		Profile profile = Profile.createDefault();
+
+		out.println();
+		out.println("Summary:");
+		for (RunResult runResult : results) {
+			BenchmarkParams params = runResult.getParams();
+			Result<?> result = runResult.getPrimaryResult();
+			double time_ms = getMillisec(result.getScore(), result.getScoreUnit());
+			if (Double.isNaN(time_ms) || time_ms <= 0.0)
+				continue;
+
+			String benchmarkName = params.getBenchmark();
+			benchmarkName = benchmarkName.substring(benchmarkName.lastIndexOf('.', benchmarkName.lastIndexOf('.') - 1) + 1);
+			int corpusSize_kB = Integer.parseInt(params.getParam(PARAM_CORPUS_SIZE));
+
+			String ruleIDName = params.getParam(PARAM_RULE_ID);
+			if (ruleIDName != null) {
+				RuleID ruleID = RuleID.valueOf(ruleIDName);
+				Language language = RuleBenchmark.getCorpusLanguage(profile.getRule(ruleID));
+				int commandCount = getCommandCount(language, corpusSize_kB);
+				double timePerCommand_ns = time_ms * 1000000.0 / Math.max(commandCount, 1);
+				out.println(String.format("%-60s %12.1f ns/command", benchmarkName + " " + ruleIDName, timePerCommand_ns));
+
+			} else {
+				String languageName = params.getParam(PARAM_LANGUAGE);
+				Language language = (languageName == null) ? Language.ABAP : Language.valueOf(languageName);
+				String algorithmName = params.getParam(PARAM_ALGORITHM);
+				String label = benchmarkName + " " + language.toString() + ((algorithmName == null) ? "" : " " + algorithmName);
+				double throughput_MBps = getCorpus(language, corpusSize_kB).getSize_MB() / (time_ms / 1000.0);
+				out.println(String.format("%-60s %12.2f MB/s", label, throughput_MBps));
+			}
+		}
+	}
+
+	private static double getMillisec(double score, String scoreUnit) {
+		if (scoreUnit.startsWith("ns/"))
+			return score / 1000000.0;
+		else if (scoreUnit.startsWith("us/"))
+			return score / 1000.0;
+		else if (scoreUnit.startsWith("ms/"))
+			return score;
+		else if (scoreUnit.startsWith("s/"))
+			return score * 1000.0;
+		else // throughput modes are not used by these benchmarks
+			return Double.NaN;
+	}
+
+	private static Corpus getCorpus(Language language, int corpusSize_kB) {
+		// the corpus is generated deterministically, so it is identical to the one that was used in the benchmark fork
+		return corpora.computeIfAbsent(language.toString() + corpusSize_kB, key -> Corpus.generate(language, corpusSize_kB));
+	}
+
+	private static int getCommandCount(Language language, int corpusSize_kB) {
+		return commandCounts.computeIfAbsent(language.toString() + corpusSize_kB, key -> getCorpus(language, corpusSize_kB).getCommandCount());
+	}
+}
@@ -0,0 +1,20 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.io.File;
+
+import com.sap.adt.abapcleaner.programbase.Program;
+
+/**
+ * Initializes the (headless) program environment for the benchmarks, using a separate work directory,
+ * so that the benchmarks neither read nor change the settings and profiles of an ABAP cleaner installation.
+ */
+public class BenchmarkSetup {
+	private static final String WORK_DIR_NAME = "abapcleaner-benchmarks";
+
+	public static synchronized void initialize() {
+		if (Program.wasInitialized())
+			return;
+		String workDir = new File(System.getProperty("java.io.tmpdir"), WORK_DIR_NAME).getAbsolutePath();
+		Program.initialize(null, workDir);
+	}
+}
@@ -0,0 +1,126 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.base.Language;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.Obfuscator;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxAfterChanges;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+import com.sap.adt.abapcleaner.rulebase.Rule;
+
+/**
+ * Synthetic, scalable corpus of ABAP or DDL sources for the benchmarks, which is generated from the code examples of all Rules.
+ * To scale the corpus to the requested size without repeating identical sources, the examples are added in different variants
+ * which the {@link Obfuscator} creates with different settings: identifiers and literals change, while the syntax structure remains.
+ * For the same language and size, the generated corpus is always the same, so benchmark results can be compared.
+ */
+public class Corpus {
+	/** number of obfuscation variants, in which each variant number encodes the obfuscation settings in its bits */
+	private static final int VARIANT_COUNT = 8;
+
+	public final Language language;
+	public final String[] sources;
+	public final long totalBytes;
+	public final int totalLineCount;
+
+	public static Corpus generate(Language language, int targetSize_kB) {
+		ArrayList<String> examples = getExamples(language);
+		if (examples.isEmpty())
+			throw new IllegalArgumentException("no examples found for language " + language.toString());
+
+		long targetBytes = Math.max(targetSize_kB, 1) * 1024L;
+		ArrayList<String> sources = new ArrayList<>();
+		long totalBytes = 0;
+		int variant = 0;
+		while (totalBytes < targetBytes) {
+			for (String example : examples) {
+				String source = createVariant(language, example, variant % VARIANT_COUNT);
+				if (source == null)
+					continue;
+				sources.add(source);
+				totalBytes += source.getBytes(StandardCharsets.UTF_8).length;
+				if (totalBytes >= targetBytes)
+					break;
+			}
+			++variant;
+		}
+		return new Corpus(language, sources.toArray(new String[0]), totalBytes);
+	}
+
+	private static ArrayList<String> getExamples(Language language) {
+		// use a LinkedHashSet to remove duplicates while keeping the (deterministic) Rule order
+		LinkedHashSet<String> examples = new LinkedHashSet<>();
+		for (Rule rule : Profile.createDefault().getAllRules()) {
+			for (Language supportedLanguage : rule.getSupportedLanguages()) {
+				if (supportedLanguage == language) {
+					examples.add(rule.getExample());
+					break;
+				}
+			}
+		}
+		return new ArrayList<>(examples);
+	}
+
+	private static String createVariant(Language language, String example, int variant) {
+		if (variant == 0)
+			return example;
+		boolean commandScope = (variant & 1) != 0;
+		boolean createShortNames = (variant & 2) != 0;
+		boolean obfuscateLiterals = (variant & 4) != 0;
+		Obfuscator obfuscator = Obfuscator.createFor(language, commandScope, createShortNames, false, false, false, obfuscateLiterals);
+		try {
+			return obfuscator.obfuscate(example).toString();
+		} catch (ParseException | UnexpectedSyntaxAfterChanges e) {
+			return null;
+		}
+	}
+
+	private Corpus(Language language, String[] sources, long totalBytes) {
+		this.language = language;
+		this.sources = sources;
+		this.totalBytes = totalBytes;
+
+		int lineCount = 0;
+		for (String source : sources) {
+			++lineCount;
+			for (int pos = source.indexOf('\n'); pos >= 0; pos = source.indexOf('\n', pos + 1))
+				++lineCount;
+		}
+		this.totalLineCount = lineCount;
+	}
+
+	public final double getSize_MB() {
+		return totalBytes / (1024.0 * 1024.0);
+	}
+
+	public final ParseParams getParseParams(int sourceIndex) {
+		return ParseParams.createForWholeCode("source" + String.valueOf(sourceIndex), sources[sourceIndex], ABAP.NEWEST_RELEASE);
+	}
+
+	/** parses all sources of the corpus; sources that cannot be parsed are skipped */
+	public final Code[] parseAll() {
+		ArrayList<Code> codes = new ArrayList<>(sources.length);
+		for (int i = 0; i < sources.length; ++i) {
+			try {
+				codes.add(Code.parse(null, getParseParams(i)));
+			} catch (ParseException e) {
+				// skip this source
+			}
+		}
+		return codes.toArray(new Code[0]);
+	}
+
+	/** returns the total number of Commands in the sources of the corpus */
+	public final int getCommandCount() {
+		int commandCount = 0;
+		for (Code code : parseAll())
+			commandCount += code.commandCount;
+		return commandCount;
+	}
+}
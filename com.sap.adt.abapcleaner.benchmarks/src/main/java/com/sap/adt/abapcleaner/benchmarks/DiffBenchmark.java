@@ -0,0 +1,113 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.base.Language;
+import com.sap.adt.abapcleaner.comparer.CompareDoc;
+import com.sap.adt.abapcleaner.comparer.DiffAlgorithm;
+import com.sap.adt.abapcleaner.comparer.DiffDoc;
+import com.sap.adt.abapcleaner.comparer.DisplayLine;
+import com.sap.adt.abapcleaner.comparer.TextEdits;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.programbase.CleanException;
+import com.sap.adt.abapcleaner.programbase.CompareException;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+
+/**
+ * Measures {@link CompareDoc#compareTo(CompareDoc, com.sap.adt.abapcleaner.programbase.IProgress, DiffAlgorithm) CompareDoc.compareTo()} 
+ * for a single document that contains all sources of the corpus, before and after a cleanup with the default Profile;
+ * {@link BenchmarkMain} converts the result into MB/s. Before measuring, the setup checks that the {@link DiffDoc}s of all 
+ * algorithms transform the old document into the same new document, so a faster algorithm cannot hide a wrong result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffBenchmark {
+	@Param
+	public DiffAlgorithm algorithm;
+
+	@Param({ "1024" })
+	public int corpusSize_kB;
+
+	private ArrayList<DisplayLine> oldLines;
+	private ArrayList<DisplayLine> newLines;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkSetup.initialize();
+		Corpus corpus = Corpus.generate(Language.ABAP, corpusSize_kB);
+		Profile profile = Profile.createDefault();
+
+		oldLines = new ArrayList<>();
+		newLines = new ArrayList<>();
+		for (Code code : corpus.parseAll()) {
+			ArrayList<DisplayLine> oldCodeLines = code.toDisplayLines();
+			try {
+				profile.executeRules(code, ABAP.NO_RELEASE_RESTRICTION);
+			} catch (CleanException e) {
+				// as in an interactive cleanup, skip sources on which a Rule fails
+				continue;
+			}
+			oldLines.addAll(oldCodeLines);
+			newLines.addAll(code.toDisplayLines());
+		}
+
+		checkOutput();
+	}
+
+	/** throws an IllegalStateException if the edits from the DiffDoc of any algorithm do not transform the old lines into the new lines, 
+	 * or if they produce a different result than the edits from the DiffDoc of this benchmark's algorithm */
+	private void checkOutput() {
+		String[] expTexts = getTexts(newLines);
+		String[] firstActTexts = null;
+		for (DiffAlgorithm checkAlgorithm : DiffAlgorithm.values()) {
+			DiffDoc diffDoc;
+			try {
+				diffDoc = CompareDoc.createFromDisplayLines(oldLines).compareTo(CompareDoc.createFromDisplayLines(newLines), null, checkAlgorithm);
+			} catch (CompareException e) {
+				throw new IllegalStateException("Comparison with " + checkAlgorithm + " failed: " + e.getMessage());
+			}
+			String[] actTexts = applyEdits(getTexts(oldLines), diffDoc.toTextEdits());
+			if (!Arrays.equals(expTexts, actTexts))
+				throw new IllegalStateException("The DiffDoc of " + checkAlgorithm + " does not reproduce the cleaned code.");
+			if (firstActTexts != null && !Arrays.equals(firstActTexts, actTexts))
+				throw new IllegalStateException("The DiffDocs of " + algorithm + " and " + checkAlgorithm + " produce different results.");
+			if (checkAlgorithm == algorithm)
+				firstActTexts = actTexts;
+		}
+	}
+
+	private static String[] getTexts(ArrayList<DisplayLine> lines) {
+		String[] texts = new String[lines.size()];
+		for (int i = 0; i < texts.length; ++i)
+			texts[i] = lines.get(i).getText();
+		return texts;
+	}
+
+	private static String[] applyEdits(String[] oldTexts, TextEdits edits) {
+		ArrayList<String> texts = new ArrayList<>(Arrays.asList(oldTexts));
+		// apply the hunks from last to first, because their line numbers refer to the old text
+		for (int i = edits.getHunkCount() - 1; i >= 0; --i) {
+			TextEdits.Hunk hunk = edits.getHunk(i);
+			texts.subList(hunk.startLine - 1, hunk.endLine).clear();
+			texts.addAll(hunk.startLine - 1, Arrays.asList(hunk.lines));
+		}
+		return texts.toArray(new String[0]);
+	}
+
+	@Benchmark
+	public DiffDoc compare() throws CompareException {
+		// CompareDocs keep the matches that were found, therefore they must be created for each comparison
+		CompareDoc oldDoc = CompareDoc.createFromDisplayLines(oldLines);
+		CompareDoc newDoc = CompareDoc.createFromDisplayLines(newLines);
+		return oldDoc.compareTo(newDoc, null, algorithm);
+	}
+}
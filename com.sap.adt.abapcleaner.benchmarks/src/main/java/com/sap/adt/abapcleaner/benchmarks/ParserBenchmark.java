@@ -0,0 +1,43 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sap.adt.abapcleaner.base.Language;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+
+/**
+ * Measures {@link Code#parse(com.sap.adt.abapcleaner.programbase.IProgress, com.sap.adt.abapcleaner.parser.ParseParams) Code.parse()}
+ * for all sources of the corpus; {@link BenchmarkMain} converts the result into MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+	@Param({ "ABAP", "DDL" })
+	public Language language;
+
+	@Param({ "1024" })
+	public int corpusSize_kB;
+
+	private Corpus corpus;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkSetup.initialize();
+		corpus = Corpus.generate(language, corpusSize_kB);
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) throws ParseException {
+		for (int i = 0; i < corpus.sources.length; ++i) {
+			blackhole.consume(Code.parse(null, corpus.getParseParams(i)));
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.base.Language;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxAfterChanges;
+import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxBeforeChanges;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+import com.sap.adt.abapcleaner.rulebase.Rule;
+import com.sap.adt.abapcleaner.rulebase.RuleID;
+
+/**
+ * Measures the execution of a single Rule (with its default configuration) on all sources of the corpus, 
+ * which are freshly parsed before each invocation; {@link BenchmarkMain} converts the result into ns per Command. 
+ * By default, all Rules are measured; use the JMH option '-p ruleID=...' to select Rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+	@Param
+	public RuleID ruleID;
+
+	@Param({ "256" })
+	public int corpusSize_kB;
+
+	private Rule rule;
+	private Corpus corpus;
+	private Code[] codes;
+
+	/** returns the language of the corpus on which the supplied Rule is measured */
+	static Language getCorpusLanguage(Rule rule) {
+		for (Language language : rule.getSupportedLanguages()) {
+			if (language == Language.ABAP)
+				return Language.ABAP;
+		}
+		return Language.DDL;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkSetup.initialize();
+		rule = Profile.createDefault().getRule(ruleID);
+		corpus = Corpus.generate(getCorpusLanguage(rule), corpusSize_kB);
+	}
+
+	@Setup(Level.Invocation)
+	public void parse() {
+		codes = corpus.parseAll();
+	}
+
+	@Benchmark
+	public Code[] execute() {
+		for (Code code : codes) {
+			try {
+				rule.executeIfAllowedOn(code, ABAP.NO_RELEASE_RESTRICTION);
+			} catch (UnexpectedSyntaxBeforeChanges | UnexpectedSyntaxAfterChanges e) {
+				// continue with the next source, as the cleanup would do
+			}
+		}
+		return codes;
+	}
+}
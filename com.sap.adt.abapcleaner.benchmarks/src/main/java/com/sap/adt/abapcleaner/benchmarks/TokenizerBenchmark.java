@@ -0,0 +1,48 @@
+package com.sap.adt.abapcleaner.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sap.adt.abapcleaner.base.Language;
+import com.sap.adt.abapcleaner.parser.Token;
+import com.sap.adt.abapcleaner.parser.Tokenizer;
+import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxException;
+
+/**
+ * Measures {@link Tokenizer#getNext()} for all sources of the corpus; {@link BenchmarkMain} converts the result into MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+	@Param({ "ABAP", "DDL" })
+	public Language language;
+
+	@Param({ "1024" })
+	public int corpusSize_kB;
+
+	private Corpus corpus;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkSetup.initialize();
+		corpus = Corpus.generate(language, corpusSize_kB);
+	}
+
+	@Benchmark
+	public void tokenize(Blackhole blackhole) throws UnexpectedSyntaxException {
+		for (String source : corpus.sources) {
+			Tokenizer tokenizer = new Tokenizer(source, 1, null);
+			Token token = tokenizer.getNext();
+			while (token != null) {
+				blackhole.consume(token);
+				token = tokenizer.getNext();
+			}
+		}
+	}
+}
@@ -5,7 +5,8 @@ import com.sap.adt.abapcleaner.programbase.*;
 import com.sap.adt.abapcleaner.rulebase.*;
 
 class BackgroundJob extends Job {
-	private JobProgress latestProgress;
+	// batch Jobs may report progress from several worker threads
+	private volatile JobProgress latestProgress;
 
 	BackgroundJob(ParseParams parseParams, CleanupParams cleanupParams) {
       super(parseParams, cleanupParams);
@@ -13,6 +14,9 @@ class BackgroundJob extends Job {
    BackgroundJob(IBatchJob batchJob, String batchDir, String[] batchPaths) {
       super(batchJob, batchDir, batchPaths);
    }
+   BackgroundJob(IBatchJob batchJob, String batchDir, String[] batchPaths, int threadCount) {
+      super(batchJob, batchDir, batchPaths, threadCount);
+   }
 
    @Override
    protected Task createTask(ParseParams parseParams) {
@@ -2,39 +2,113 @@ package com.sap.adt.abapcleaner.gui;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.sap.adt.abapcleaner.base.StringUtil;
 import com.sap.adt.abapcleaner.programbase.CommandLineArgs;
+import com.sap.adt.abapcleaner.programbase.DaemonLoad;
+import com.sap.adt.abapcleaner.programbase.DaemonProtocol;
 import com.sap.adt.abapcleaner.programbase.Program;
 
 /**
  * Handles daemonization of the application: finds a free port, prints it to stdout,
  * and starts listening for commands on that port.
+ * 
+ * Commands that are tagged with a request ID are executed concurrently on a bounded thread pool, so a slow cleanup 
+ * does not block --ping or --status on the same connection; their output is buffered and written as a whole, 
+ * followed by the end marker with the request ID, so the client can map it to the request. 
+ * Commands without a request ID are processed in sequence, because the client can only map their responses by order. 
+ * 
+ * Clients are handled on virtual threads, while commands with a request ID are executed on a pool of as many platform 
+ * threads as commands may be in flight, so the parser that each thread keeps for the syntax check is reused by subsequent 
+ * commands. The number of cleanup commands that are executed at the same time is limited by {@link DaemonLoad}; 
+ * if too many commands are already in flight or queued, further commands are immediately answered with 
+ * {@link DaemonLoad#BUSY_RESPONSE} and the usual end marker. 
+ * 
+ * Besides the line protocol, clients may transfer source code and profile data in-band, cp. {@link DaemonProtocol}.
  */
 public class DaemonManager {
 	private ServerSocket serverSocket;
 	private Thread listenerThread;
 	private volatile boolean running = false;
 
+	/** virtual threads that read the commands of each connected client */
+	private ExecutorService clientExecutor;
+	/** fixed pool of platform threads that execute CLI commands with a request ID, shared by all clients; 
+	 * the pool size equals the maximum number of commands in flight, cp. {@link #load} */
+	private ExecutorService commandExecutor;
+	/** single thread that executes interactive cleanup with a request ID, because SWT requires all UI to run on the same thread */
+	private ExecutorService uiExecutor;
+
 	/** idle time before auto-shutdown; 0 = no timeout */
 	private int idleTimeOut_s;
 
 	private LocalDateTime startTime;
-	private LocalDateTime lastCommandTime;
+	private volatile LocalDateTime lastCommandTime;
 
 	/**
 	 * the number of currently active command handlers; used to prevent auto-shutdown while long-running commands
 	 * (esp. interactive cleanup) are still being processed
 	 */
-	private int activeHandlerCount = 0;
+	private final AtomicInteger activeHandlerCount = new AtomicInteger();
+
+	/** limits the number of cleanup commands in flight and records their latency */
+	private DaemonLoad load;
+
+	/** a command line received from a client, with the request ID (if any) separated from the other arguments */
+	private static class ClientCommand {
+		/** the request ID, which is added to the end marker of the response, or null if no request ID was supplied */
+		final String requestId;
+		/** the arguments without the request ID */
+		final String[] args;
+		/** true if the source code and/or profile data were transferred in-band, cp. {@link DaemonProtocol} */
+		final boolean isFramed;
+		final boolean isInteractive;
+
+		/** separates the (first) request ID from the supplied arguments of a command line */
+		static ClientCommand parse(String[] lineArgs) {
+			List<String> argsWithoutRequestId = new ArrayList<>();
+			String requestId = null;
+			for (int i = 0; i < lineArgs.length; i++) {
+				if (requestId == null && lineArgs[i].equals(CommandLineArgs.OPT_DAEMON_REQUEST_ID) && i + 1 < lineArgs.length) {
+					requestId = lineArgs[i + 1];
+					++i; // skip the request ID value in argsWithoutRequestId
+				} else {
+					argsWithoutRequestId.add(lineArgs[i]);
+				}
+			}
+			return new ClientCommand(requestId, argsWithoutRequestId.toArray(new String[0]), false);
+		}
+
+		ClientCommand(String requestId, String[] args, boolean isFramed) {
+			this.requestId = requestId;
+			this.args = args;
+			this.isFramed = isFramed;
+			boolean isInteractive = false;
+			for (String arg : args) {
+				if (arg.equals(CommandLineArgs.OPT_INTERACTIVE)) {
+					isInteractive = true;
+					break;
+				}
+			}
+			this.isInteractive = isInteractive;
+		}
+	}
 	
 	/**
 	 * called when --daemonize is sent via CLI (see {@link CommandLineArgs})
 	 */
-	public void startDaemon(PrintStream out, int idleTimeOut_s) throws IOException {
+	public void startDaemon(PrintStream out, int idleTimeOut_s, int maxInFlight, int maxQueued) throws IOException {
 		// bind to port 0; the OS assigns a free port automatically
 		serverSocket = new ServerSocket(0);
 		int assignedPort = serverSocket.getLocalPort();
@@ -43,6 +117,19 @@ public class DaemonManager {
 		startTime = LocalDateTime.now();
 		lastCommandTime = startTime;
 
+		if (maxInFlight <= 0)
+			maxInFlight = DaemonLoad.getDefaultMaxInFlight();
+		if (maxQueued < 0)
+			maxQueued = maxInFlight * DaemonLoad.DEFAULT_MAX_QUEUED_PER_SLOT;
+		load = DaemonLoad.create(maxInFlight, maxQueued);
+
+		// client connections mostly wait for input, so virtual threads are sufficient; by contrast, commands keep expensive 
+		// thread-local state (esp. the parser for the syntax check), so they are executed on a bounded pool of reused threads, 
+		// while further admitted commands wait in the queue of the pool
+		clientExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(Program.PRODUCT_NAME + " daemon-client-", 1).factory());
+		commandExecutor = Executors.newFixedThreadPool(maxInFlight, createThreadFactory(Program.PRODUCT_NAME + " daemon-command-"));
+		uiExecutor = Executors.newSingleThreadExecutor(createThreadFactory(Program.PRODUCT_NAME + " daemon-ui-"));
+
 		listenerThread = new Thread(this::acceptLoop, Program.PRODUCT_NAME + " daemon-acceptor");
 		listenerThread.setDaemon(true);
 		listenerThread.start();
@@ -58,10 +145,8 @@ public class DaemonManager {
 			try {
 				Socket clientSocket = serverSocket.accept();
 
-				// handle each client in its own thread
-				Thread clientThread = new Thread(() -> handleClient(clientSocket), Program.PRODUCT_NAME + " daemon-client-" + clientSocket.getPort());
-				clientThread.setDaemon(true);
-				clientThread.start();
+				// read the commands of each client on its own thread
+				clientExecutor.execute(() -> handleClient(clientSocket));
 
 			} catch (IOException e) {
 				if (running) {
@@ -72,17 +157,86 @@ public class DaemonManager {
 	}
 
 	private void handleClient(Socket clientSocket) {
-		try (BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+		// read bytes rather than chars, because in the framed mode of the protocol, command lines may be followed by bodies
+		try (InputStream inputStream = clientSocket.getInputStream();
 				// PrintWriter out = new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream()), true)
 				PrintStream out = new PrintStream(clientSocket.getOutputStream(), true)) {
 
 			// printInfo("Client connected: " + clientSocket.getRemoteSocketAddress());
 
+			DaemonProtocol.FramedInput in = new DaemonProtocol.FramedInput(inputStream);
+			List<Future<?>> pendingCommands = new ArrayList<>();
 			String line;
 			while ((line = in.readLine()) != null) {
-				++activeHandlerCount;
-				processCommand(line, out);
-				--activeHandlerCount;
+				ClientCommand parsedCommand = ClientCommand.parse(StringUtil.splitArgs(line));
+
+				// in the framed mode, read the source code and/or profile data that directly follow the command line
+				if (DaemonProtocol.hasBodies(parsedCommand.args)) {
+					try {
+						parsedCommand = new ClientCommand(parsedCommand.requestId, DaemonProtocol.readBodies(parsedCommand.args, in), true);
+					} catch (IOException e) {
+						// the stream cannot be synchronized anymore, therefore close the connection
+						printResponse("ERROR: " + e.getMessage(), out, parsedCommand.requestId, true);
+						break;
+					}
+				}
+				final ClientCommand command = parsedCommand;
+
+				// admit cleanup commands only if the limits for commands in flight and in the queue are not exceeded;
+				// otherwise, respond immediately, so the client can retry later
+				DaemonLoad.Ticket ticket = null;
+				if (isLimitedCommand(command)) {
+					ticket = load.tryAdmit();
+					if (ticket == null) {
+						printResponse(load.getBusyResponse(), out, command.requestId, command.isFramed);
+						continue;
+					}
+				}
+				final DaemonLoad.Ticket admittedTicket = ticket;
+				
+				activeHandlerCount.incrementAndGet();
+				ExecutorService executor = getConcurrentExecutor(command);
+				Future<?> pendingCommand = null;
+				if (executor != null) {
+					pendingCommands.removeIf(Future::isDone);
+					try {
+						pendingCommand = executor.submit(() -> {
+							try {
+								if (awaitSlot(admittedTicket, command, out))
+									processCommandBuffered(command, out);
+							} finally {
+								finish(admittedTicket);
+								activeHandlerCount.decrementAndGet();
+							}
+						});
+						pendingCommands.add(pendingCommand);
+					} catch (RejectedExecutionException e) {
+						// the daemon is being stopped; process the command in sequence below
+					}
+				}
+				if (pendingCommand == null) {
+					// even in sequence, the response must be written as a whole, because concurrent commands that were 
+					// submitted earlier may write their responses at the same time
+					try {
+						if (awaitSlot(admittedTicket, command, out))
+							processCommandBuffered(command, out);
+					} finally {
+						finish(admittedTicket);
+						activeHandlerCount.decrementAndGet();
+					}
+				}
+			}
+
+			// before the connection is closed, wait for the responses to concurrent commands to be written
+			for (Future<?> pendingCommand : pendingCommands) {
+				try {
+					pendingCommand.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (ExecutionException e) {
+					printErr("Command error: " + e.getCause());
+				}
 			}
 
 		} catch (IOException e) {
@@ -97,32 +251,68 @@ public class DaemonManager {
 		}
 	}
 
-	/**
-	 * Dispatch commands received over the socket.
-	 */
-	private void processCommand(String command, PrintStream out) {
-		if (command == null) {
-			printErr("ERROR: null command");
-			return;
+	/** returns true if the command is a CLI command that is subject to the limits of {@link #load}; 
+	 * daemon control commands are cheap and therefore never limited, while interactive cleanup is already executed 
+	 * in sequence on the UI thread and may wait for user input for a long time */
+	private boolean isLimitedCommand(ClientCommand command) {
+		return (load != null) && !command.isInteractive && command.args.length > 1;
+	}
+
+	/** waits until the admitted command may be executed; returns false (after responding to the client) 
+	 * if the waiting thread was interrupted */
+	private boolean awaitSlot(DaemonLoad.Ticket ticket, ClientCommand command, PrintStream out) {
+		if (ticket == null)
+			return true;
+		try {
+			load.awaitSlot(ticket);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			printResponse("ERROR: command was canceled, because the daemon is stopping", out, command.requestId, command.isFramed);
+			return false;
 		}
+	}
 
-		String[] args = StringUtil.splitArgs(command);
-		
-		// extract the request ID, if any; the request ID will be added to the end marker of the response,
-		// so the caller can map the response to the request
-		List<String> argsWithoutRequestId = new ArrayList<>();
-		String requestId = null;
-		for (int i = 0; i < args.length; i++) {
-			if (requestId == null && args[i].equals(CommandLineArgs.OPT_DAEMON_REQUEST_ID) && i + 1 < args.length) {
-				requestId = args[i + 1];
-				++i; // skip the request ID value in argsWithoutRequestId
-			} else {
-				argsWithoutRequestId.add(args[i]);
-			}
+	private void finish(DaemonLoad.Ticket ticket) {
+		if (ticket != null)
+			load.finish(ticket);
+	}
+
+	/** returns the executor for a CLI command with a request ID, which can therefore be executed concurrently to 
+	 * subsequent commands; returns null for commands that must be processed in sequence, esp. if no request ID was supplied, 
+	 * or for daemon control commands, which are cheap and therefore answered immediately */
+	private ExecutorService getConcurrentExecutor(ClientCommand command) {
+		if (command.requestId == null || command.args.length == 1)
+			return null;
+		return command.isInteractive ? uiExecutor : commandExecutor;
+	}
+
+	/** processes the command with a private output buffer, which is then written as a whole under the lock of the 
+	 * output stream, so the responses of several commands on the same connection are never mixed; 
+	 * in the framed mode, this is already ensured by the frames */
+	private void processCommandBuffered(ClientCommand command, PrintStream out) {
+		if (command.isFramed) {
+			processCommand(command, out);
+			return;
 		}
-		if (requestId != null) {
-			args = argsWithoutRequestId.toArray(new String[0]);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (PrintStream bufferOut = new PrintStream(buffer, true)) {
+			processCommand(command, bufferOut);
+		}
+		synchronized (out) {
+			out.write(buffer.toByteArray(), 0, buffer.size());
+			out.flush();
 		}
+	}
+
+	/**
+	 * Dispatch commands received over the socket.
+	 */
+	private void processCommand(ClientCommand command, PrintStream out) {
+		// the request ID, if any, will be added to the end marker of the response, so the caller can map the response to the request
+		String[] args = command.args;
+		String requestId = command.requestId;
+		boolean isFramed = command.isFramed;
 
 		// for testing: 
 		// String requestIdInfo = (requestId != null) ? "#" + requestId : "";
@@ -143,6 +333,9 @@ public class DaemonManager {
 				String status = "Status: daemon running since " + startTime;
 				status += ", idle for " + java.time.Duration.between(lastCommandTime, LocalDateTime.now()).getSeconds() + " seconds";
 				status += (idleTimeOut_s > 0) ? " (idle timeout: " + idleTimeOut_s + " seconds)" : " (no idle timeout)";
+				status += ", " + FrmMain.getDaemonProfileCache().getStatistics();
+				if (load != null)
+					status += ", " + load.getStatistics();
 				response = status;
 				break;
 				
@@ -160,7 +353,14 @@ public class DaemonManager {
 
 			default: // treat as a CLI command
 				updateLastCommandTime();
-				FrmMain.handleCLI(args, true, out, System.err);
+				if (isFramed) {
+					// write the output in frames that are tagged with the request ID, and may therefore be streamed
+					try (PrintStream frameOut = new PrintStream(new DaemonProtocol.FrameOutputStream(out, requestId), false, StandardCharsets.UTF_8)) {
+						FrmMain.handleCLI(args, true, frameOut, System.err);
+					}
+				} else {
+					FrmMain.handleCLI(args, true, out, System.err);
+				}
 				// a final out.println(); should already be ensured by FrmMain.handleCLI()
 				response = null;
 				updateLastCommandTime(); // again, esp. for interactive cleanup, which might have taken a long time
@@ -178,7 +378,7 @@ public class DaemonManager {
 
 	/** returns true while the daemon is running; checks for idle timeout */
 	public boolean isRunning(boolean checkIdleTimeout) {
-		if (running && checkIdleTimeout && idleTimeOut_s > 0 && activeHandlerCount == 0) {
+		if (running && checkIdleTimeout && idleTimeOut_s > 0 && activeHandlerCount.get() == 0) {
 			// check for timeout - isRunning() is regularly polled by FrmMain.handleCLI() while the daemon is running
 			LocalDateTime now = LocalDateTime.now();
 			if (lastCommandTime.plusSeconds(idleTimeOut_s).isBefore(now)) {
@@ -199,20 +399,52 @@ public class DaemonManager {
 		} catch (IOException e) {
 			printErr("Error closing server socket: " + e.getMessage());
 		}
+		if (commandExecutor != null) {
+			commandExecutor.shutdown();
+		}
+		if (uiExecutor != null) {
+			uiExecutor.shutdown();
+		}
+		if (clientExecutor != null) {
+			clientExecutor.shutdown();
+		}
+	}
+
+	private static ThreadFactory createThreadFactory(String namePrefix) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
 	}
 
 	private void printResponse(String message, PrintStream out, String requestId) {
-		if (!StringUtil.isNullOrEmpty(message)) {
-			out.println(message);
-		}
+		printResponse(message, out, requestId, false);
+	}
 
+	/** prints the message and the end marker; for a command in the framed mode of the protocol (cp. {@link DaemonProtocol}), 
+	 * the message is written as a frame, because the client expects the whole output of such a command in frames */
+	private void printResponse(String message, PrintStream out, String requestId, boolean isFramed) {
 		// if a request ID was provided, add it to the end marker, so the caller can map the response to the request
 		String endMarker = CommandLineArgs.DAEMON_RESPONSE_END_MARKER;
 		if (requestId != null) {
 			endMarker += " " + requestId;
 		}
-		out.println(endMarker);
-		out.flush();
+		// responses of concurrent commands are written to the same stream (cp. processCommandBuffered())
+		synchronized (out) {
+			if (!StringUtil.isNullOrEmpty(message)) {
+				if (isFramed) {
+					try (PrintStream frameOut = new PrintStream(new DaemonProtocol.FrameOutputStream(out, requestId), false, StandardCharsets.UTF_8)) {
+						frameOut.println(message);
+					}
+				} else {
+					out.println(message);
+				}
+			}
+			out.println(endMarker);
+			out.flush();
+		}
 	}
 
 	private void printInfo(String message) {
@@ -5,6 +5,10 @@ import java.io.PrintStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.eclipse.wb.swt.SWTResourceManager;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jface.action.Action;
@@ -90,6 +94,7 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 	private MenuItem mmuHighlightWritePositions;
 	private MenuItem mmuHighlightAssignmentOperators;
 	private MenuItem mmuExtras;
+	private MenuItem mmuExtrasProfileRulesOnFolder;
 
 	private CodeDisplay codeDisplay;
 
@@ -127,10 +132,29 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 
 	private RuleStats[] usedRules;
 
+	/** intermediate results of the latest cleanup, from which refreshCode() continues if only the Profile configuration was changed */
+	private final CleanupSnapshots cleanupSnapshots = CleanupSnapshots.create();
+
 	private int suspendItemCheck;
 
    private static final DaemonManager daemonManager = new DaemonManager();
    private static int daemonUiStartCount = 0;
+   /** Profiles built from --profiledata, which the daemon receives again with each cleanup request */
+   private static final ProfileCache daemonProfileCache = ProfileCache.create(ProfileCache.DEFAULT_CAPACITY);
+
+   static ProfileCache getDaemonProfileCache() { return daemonProfileCache; }
+   
+   /** results of command-line cleanups, which are reused if the same source is cleaned again with the same profile and parameters */
+   private static CleanupResultCache commandLineResultCache;
+
+   /** returns the result cache for the supplied command-line cleanup, or null if it was disabled with --nocache */
+   static synchronized CleanupResultCache getCommandLineResultCache(CommandLineArgs commandLineArgs) {
+   	if (commandLineArgs.noCache)
+   		return null;
+   	if (commandLineResultCache == null)
+   		commandLineResultCache = CleanupResultCache.create(CleanupResultCache.getDefaultDir(Persistency.get()));
+   	return commandLineResultCache;
+   }
    
 	/**
 	 * Launch the application.
@@ -173,7 +197,7 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 					err.println("Error: Already running in daemon mode. Cannot start another daemon.");
 				} else {
 	            // start the daemon and keep the application alive while the daemon is running
-	            daemonManager.startDaemon(out, commandLineArgs.daemonIdleTimeOut_s);
+	            daemonManager.startDaemon(out, commandLineArgs.daemonIdleTimeOut_s, commandLineArgs.daemonMaxInFlight, commandLineArgs.daemonMaxQueued);
 	            while (daemonManager.isRunning(true)) {
 	                Thread.sleep(1000);
 	            }
@@ -194,7 +218,7 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		}
 	}
 	
-	private static void initialize() {
+	private static synchronized void initialize() {
 		if (!Program.wasInitialized()) {
 			Program.initialize(null, "");
 		}
@@ -206,6 +230,22 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 			// if no profile option was specified, use the program defaults (NOT the profile named 'default', which might be changed)
 			profile = Profile.createDefault();
 
+		} else if (commandLineArgs.profileData != null && commandLineArgs.fromDaemon) {
+			// the daemon receives the same profile data with each request, therefore reuse the Profile built for an earlier request
+			String profileCacheKey = ProfileCache.getKey(commandLineArgs.profileData, commandLineArgs.workspaceDir);
+			try {
+				profile = daemonProfileCache.acquire(profileCacheKey, commandLineArgs.profileData);
+			} catch (IOException ex) {
+				out.println(ex.getMessage());
+				return;
+			}
+			try {
+				cleanAutomatically(commandLineArgs, out, err, profile);
+			} finally {
+				daemonProfileCache.release(profileCacheKey, profile);
+			}
+			return;
+
 		} else if (commandLineArgs.profileData != null) {
 			// if a profile path was supplied (and its contents read), or profile data was supplied directly use this data
 			try (ISettingsReader reader = TextSettingsReader.createFromString(commandLineArgs.profileData, Program.TECHNICAL_VERSION)) {
@@ -216,44 +256,177 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 			}
 		} // otherwise, leave profile null for now, as commandLineArgs.profileName (or otherwise, the last profile) will be used
 
+		cleanAutomatically(commandLineArgs, out, err, profile);
+	}
+
+	private static void cleanAutomatically(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, Profile profile) {
+		// measure the execution of each rule only if requested, summing up the measurements for all files
+		RuleProfiler ruleProfiler = commandLineArgs.usesRuleProfiler() ? RuleProfiler.create() : null;
+
 		if (commandLineArgs.isInSingleSourceMode()) {
-			cleanSingleSourceAutomatically(commandLineArgs, out, err, profile);
+			cleanSingleSourceAutomatically(commandLineArgs, out, err, profile, ruleProfiler);
+		} else {
+			cleanMultiSourceAutomatically(commandLineArgs, out, err, profile, ruleProfiler);
+		}
+
+		if (ruleProfiler != null) 
+			writeRuleProfile(commandLineArgs, out, err, ruleProfiler);
+
+		// report how the CamelCase names were loaded (from the binary or the text resources), unless this would mix with the cleaned code 
+		if (commandLineArgs.showStats && !commandLineArgs.fromDaemon && !commandLineArgs.writesResultCodeToOutput()) {
+			String loadSummaries = CamelCaseNames.getLoadSummaries();
+			if (!StringUtil.isNullOrEmpty(loadSummaries))
+				out.print(loadSummaries);
+		}
+	}
+
+	private static void writeRuleProfile(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, RuleProfiler ruleProfiler) {
+		if (commandLineArgs.showRuleProfile) {
+			// if the cleaned code is written to the output, write the table to the error stream to keep the cleaned code intact
+			PrintStream tableStream = commandLineArgs.writesResultCodeToOutput() ? err : out;
+			tableStream.print(ruleProfiler.toTable(System.lineSeparator()));
+			tableStream.println();
+		}
+		if (commandLineArgs.ruleProfilePath != null) {
+			Persistency persistency = Persistency.get();
+			persistency.ensureDirectoryExistsForPath(commandLineArgs.ruleProfilePath);
+			if (!persistency.writeAllTextToFile(commandLineArgs.ruleProfilePath, ruleProfiler.toJson())) {
+				err.println("Rule profile could not be saved to " + commandLineArgs.ruleProfilePath);
+			}
+		}
+	}
+
+	private static void cleanMultiSourceAutomatically(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, Profile profile, RuleProfiler ruleProfiler) {
+		FileStateIndex fileStateIndex = commandLineArgs.incremental ? loadFileStateIndex(commandLineArgs, profile) : null;
+
+		if (commandLineArgs.isParallel()) {
+			cleanMultiSourceInParallel(commandLineArgs, out, err, profile, ruleProfiler, fileStateIndex);
 		} else {
-			cleanMultiSourceAutomatically(commandLineArgs, out, err, profile);
+			for (String sourcePath : commandLineArgs.sourcePaths) {
+				CleanupResult result = cleanSourceFile(commandLineArgs, sourcePath, profile, ruleProfiler, fileStateIndex);
+				writeMultiSourceResult(commandLineArgs, out, err, sourcePath, result, fileStateIndex);
+			}
+		}
+
+		if (fileStateIndex != null) {
+			if (!fileStateIndex.save())
+				err.println("File index could not be saved to " + fileStateIndex.getPath());
+			if (commandLineArgs.showStats)
+				out.println(fileStateIndex.getStatistics());
+		}
+	}
+
+	/** loads the index of the file states from the last run with the same source and target directory, 
+	 * or returns null if the profile cannot be determined (in which case cleanAutomatically() reports an error for each file) */
+	private static FileStateIndex loadFileStateIndex(CommandLineArgs commandLineArgs, Profile profile) {
+		initialize();
+
+		MainSettings settings = new MainSettings(commandLineArgs.workspaceDir);
+		settings.initialize(commandLineArgs.workspaceDir);
+		settings.load();
+
+		if (profile == null) { // use profileName or otherwise lastProfile, as cleanAutomatically() does
+			String findProfileName = (commandLineArgs.profileName == null) ? settings.getLastProfileName() : commandLineArgs.profileName;
+			profile = getProfileByName(settings, new StringBuilder(), findProfileName);
+			if (!StringUtil.isNullOrEmpty(findProfileName) && !findProfileName.equals(profile.name))
+				return null;
 		}
+
+		// statistics are not part of the target files, therefore --stats and --usedrules do not invalidate the index
+		String settingsKey = CleanupResultCache.getSettingsKey(commandLineArgs.abapRelease, null, null, profile, settings.getReleaseRestriction(), 
+																				 false, false, commandLineArgs.lineSeparator);
+		if (settingsKey == null)
+			return null;
+		String path = FileStateIndex.getDefaultPath(Persistency.get(), commandLineArgs.sourceDir, commandLineArgs.targetDir);
+		return FileStateIndex.load(path, settingsKey);
 	}
 
-	private static void cleanMultiSourceAutomatically(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, Profile profile) {
+	/** cleans the files on a pool of commandLineArgs.threadCount worker threads, each with its own copy of the profile; 
+	 * results are written in the same order (and with the same output) as in the serial case */
+	private static void cleanMultiSourceInParallel(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, Profile profile, RuleProfiler ruleProfiler, 
+			FileStateIndex fileStateIndex) {
+		// Rule instances must not be shared between threads; if profile == null, cleanAutomatically() loads a new 
+		// profile instance for each file anyway
+		final ThreadLocal<Profile> workerProfile = ThreadLocal.withInitial(() -> (profile == null) ? null : Profile.createCopy(profile));
+
+		ExecutorService executor = Executors.newFixedThreadPool(commandLineArgs.threadCount);
+		try {
+			ArrayList<Future<CleanupResult>> futures = new ArrayList<>();
+			for (String sourcePath : commandLineArgs.sourcePaths) {
+				futures.add(executor.submit(() -> cleanSourceFile(commandLineArgs, sourcePath, workerProfile.get(), ruleProfiler, fileStateIndex)));
+			}
+
+			// consume the results in the order of the source paths, while the remaining files are still being cleaned
+			for (int i = 0; i < futures.size(); ++i) {
+				String sourcePath = commandLineArgs.sourcePaths[i];
+				CleanupResult result;
+				try {
+					result = futures.get(i).get();
+				} catch (ExecutionException e) {
+					result = CleanupResult.createError(String.valueOf(e.getCause()));
+				}
+				writeMultiSourceResult(commandLineArgs, out, err, sourcePath, result, fileStateIndex);
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			err.println("Cleanup of multiple files interrupted.");
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static CleanupResult cleanSourceFile(CommandLineArgs commandLineArgs, String sourcePath, Profile profile, RuleProfiler ruleProfiler, 
+			FileStateIndex fileStateIndex) {
 		Persistency persistency = Persistency.get();
-		int baseSourcePathLength = commandLineArgs.sourceDir.length();
+		String sourceFolderFile = sourcePath.substring(commandLineArgs.sourceDir.length());
+		String targetPath = (fileStateIndex == null) ? null : persistency.combinePaths(commandLineArgs.targetDir, sourceFolderFile);
+
+		// in incremental mode, skip the file if neither the source file nor the target file changed since the last run 
+		if (fileStateIndex != null && fileStateIndex.isUpToDate(sourceFolderFile, sourcePath, targetPath))
+			return CleanupResult.createUpToDate();
+
 		String sourceDir = persistency.addDirSep(commandLineArgs.sourceDir);
-		
-		for (String sourcePath : commandLineArgs.sourcePaths) {
-			String sourceName = sourcePath.startsWith(sourceDir) ? persistency.getPathWithoutExtension(sourcePath.substring(sourceDir.length())) 
-					: persistency.getFileNameWithoutExtension(sourcePath);
-			String sourceCode = persistency.readAllTextFromFile(sourcePath);
-
-			CleanupResult result = cleanAutomatically(sourceName, sourceCode, commandLineArgs.abapRelease, 
-												commandLineArgs.cleanupRange, commandLineArgs.cleanupRangeExpandMode, commandLineArgs.workspaceDir, 
-												profile, commandLineArgs.profileName, commandLineArgs.showStatsOrUsedRules(), commandLineArgs.lineSeparator);
-			if (result == null) {
-				err.println("Cleanup for file " + sourcePath + " cancelled.");
-				continue;
-			} else if (result.hasErrorMessage()) {
-				err.println("Errors during clean-up of file: " + sourcePath);
-				err.println(result.errorMessage);
-				continue;
-			}
+		String sourceName = sourcePath.startsWith(sourceDir) ? persistency.getPathWithoutExtension(sourcePath.substring(sourceDir.length())) 
+				: persistency.getFileNameWithoutExtension(sourcePath);
+		String sourceCode = persistency.readAllTextFromFile(sourcePath);
+
+		// the file may have been touched without changing its content (e.g. by a checkout)
+		if (fileStateIndex != null && fileStateIndex.isUpToDate(sourceFolderFile, sourcePath, sourceCode, targetPath))
+			return CleanupResult.createUpToDate();
 
-			String sourceFolderFile = sourcePath.substring(baseSourcePathLength);
-			writeCleanUpResult(commandLineArgs, out, err, result, sourceFolderFile, persistency.combinePaths(commandLineArgs.targetDir, sourceFolderFile));
+		return cleanAutomatically(sourceName, sourceCode, commandLineArgs.abapRelease, 
+										  commandLineArgs.cleanupRange, commandLineArgs.cleanupRangeExpandMode, commandLineArgs.workspaceDir, 
+										  profile, commandLineArgs.profileName, commandLineArgs.showStatsOrUsedRules(), false, commandLineArgs.lineSeparator,
+										  getCommandLineResultCache(commandLineArgs), ruleProfiler);
+	}
+
+	private static void writeMultiSourceResult(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, String sourcePath, CleanupResult result, 
+			FileStateIndex fileStateIndex) {
+		if (result == null) {
+			err.println("Cleanup for file " + sourcePath + " cancelled.");
+			return;
+		} else if (result.hasErrorMessage()) {
+			err.println("Errors during clean-up of file: " + sourcePath);
+			err.println(result.errorMessage);
+			return;
+		} else if (result.isUpToDate()) {
+			return;
 		}
+
+		String sourceFolderFile = sourcePath.substring(commandLineArgs.sourceDir.length());
+		String targetPath = Persistency.get().combinePaths(commandLineArgs.targetDir, sourceFolderFile);
+		writeCleanUpResult(commandLineArgs, out, err, result, sourceFolderFile, targetPath);
+		if (fileStateIndex != null)
+			fileStateIndex.update(sourceFolderFile, sourcePath, targetPath);
 	}
 
-	private static void cleanSingleSourceAutomatically(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, Profile profile) {
+	private static void cleanSingleSourceAutomatically(CommandLineArgs commandLineArgs, PrintStream out, PrintStream err, Profile profile, RuleProfiler ruleProfiler) {
 		CleanupResult result = cleanAutomatically(commandLineArgs.sourceName, commandLineArgs.sourceCode, commandLineArgs.abapRelease, 
 											commandLineArgs.cleanupRange, commandLineArgs.cleanupRangeExpandMode, commandLineArgs.workspaceDir, 
-											profile, commandLineArgs.profileName, commandLineArgs.showStatsOrUsedRules(), commandLineArgs.lineSeparator);
+											profile, commandLineArgs.profileName, commandLineArgs.showStatsOrUsedRules(), commandLineArgs.outputEdits, 
+											commandLineArgs.lineSeparator, getCommandLineResultCache(commandLineArgs), ruleProfiler);
 		
 		writeCleanUpResult(commandLineArgs, out, err, result, null, commandLineArgs.targetPath);
 	}
@@ -303,10 +476,12 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 			}
 		} // otherwise, errors were already handled by the caller
 		
-		// the main output is either the whole code document or the cleanup result of the line selection
+		// the main output is either the whole code document, the cleanup result of the line selection, or the line edits
 		String output = null;
 		if (result.hasCleanedCode()) {
-			if (commandLineArgs.partialResult && result.hasLineSelection()) {
+			if (commandLineArgs.outputEdits) {
+				output = result.getEdits();
+			} else if (commandLineArgs.partialResult && result.hasLineSelection()) {
 				output = result.getSelectedText();
 			} else {
 				output = result.getCleanedCode();
@@ -334,7 +509,8 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 			// do nothing: this option is used if only the potential cleanup result is needed, using  .showStatsOrUsedRules()
 		} else if (commandLineArgs.writesResultCodeToOutput()) {
 			out.print(output);
-			if (commandLineArgs.fromDaemon) {
+			// the edits already end with a line separator, or are empty if the code was not changed 
+			if (commandLineArgs.fromDaemon && !commandLineArgs.outputEdits) {
 				out.println(); // ensure a final line separator, otherwise the daemon client may miss the stop mark
 			}
 		} else {
@@ -344,7 +520,9 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 				// for abapGit, ensure a final line separator
 				if (output.length() > 0 && commandLineArgs.lineSeparator.indexOf(output.charAt(output.length() - 1)) < 0)
 					output += commandLineArgs.lineSeparator;
-				persistency.writeAllTextToFile(targetPath, output);
+				// do not rewrite an identical target file, so its modification time remains unchanged for build tools and incremental runs
+				if (!persistency.fileExists(targetPath) || !output.equals(persistency.readAllTextFromFile(targetPath)))
+					persistency.writeAllTextToFile(targetPath, output);
 			}
 		}
 	}
@@ -355,6 +533,19 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 	public static CleanupResult cleanAutomatically(String sourceName, String sourceCode, String abapRelease, 
 				CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode, String workspaceDir,
 				Profile profile, String profileName, boolean provideRuleStats, String lineSeparator) {
+		
+		return cleanAutomatically(sourceName, sourceCode, abapRelease, cleanupRange, cleanupRangeExpandMode, workspaceDir, 
+										  profile, profileName, provideRuleStats, false, lineSeparator, null, null);
+	}
+
+	/** Same as {@link #cleanAutomatically(String, String, String, CleanupRange, CleanupRangeExpandMode, String, Profile, String, boolean, String)}, 
+	 * but additionally provides the minimal line edits as JSON (if provideEdits is true), 
+	 * reuses a result from the supplied resultCache (if not null), if the same source was already cleaned with the same profile and parameters, 
+	 * and measures the execution of each rule in the supplied ruleProfiler (if not null) */
+	private static CleanupResult cleanAutomatically(String sourceName, String sourceCode, String abapRelease, 
+				CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode, String workspaceDir,
+				Profile profile, String profileName, boolean provideRuleStats, boolean provideEdits, String lineSeparator, 
+				CleanupResultCache resultCache, RuleProfiler ruleProfiler) {
 
 		initialize();
 
@@ -387,8 +578,22 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		if (cleanupRangeExpandMode == null) // use user setting from the UI
 			cleanupRangeExpandMode = settings.getCleanupRangeExpandMode();
 		
-		BackgroundJob job = new BackgroundJob(ParseParams.createForCleanupRange(sourceName, sourceCode, abapRelease, cleanupRange, cleanupRangeExpandMode),
-				CleanupParams.createForProfile(profile, false, settings.getReleaseRestriction()));
+		// if the same source was already cleaned with the same profile and parameters, skip parsing and cleanup entirely
+		// (unless the rules shall be measured)
+		if (ruleProfiler != null)
+			resultCache = null;
+		String resultCacheKey = null;
+		if (resultCache != null) {
+			resultCacheKey = CleanupResultCache.getKey(sourceName, sourceCode, abapRelease, cleanupRange, cleanupRangeExpandMode, 
+																	 profile, settings.getReleaseRestriction(), provideRuleStats, provideEdits, lineSeparator);
+			CleanupResult cachedResult = resultCache.get(resultCacheKey);
+			if (cachedResult != null)
+				return cachedResult;
+		}
+
+		// since only the cleaned code is needed, large code documents need not be parsed in detail outside the cleanup range
+		BackgroundJob job = new BackgroundJob(ParseParams.createForRangeLimitedCleanup(sourceName, sourceCode, abapRelease, cleanupRange, cleanupRangeExpandMode),
+				CleanupParams.createForProfile(profile, false, settings.getReleaseRestriction(), null, ruleProfiler));
 		job.run();
 		Task result = job.getResult();
 
@@ -403,6 +608,10 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 				}
 				cleanupResult.setStats(result, stats.toString());
 			}
+			if (provideEdits) 
+				cleanupResult.setEdits(result.getResultingDiffDoc().toTextEdits());
+			if (resultCache != null)
+				resultCache.put(resultCacheKey, cleanupResult);
 			return cleanupResult;
 
 		} else if (job.wasCancelled()) {
@@ -915,7 +1124,7 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		mmuExtrasTestActiveRulesOnFolder.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				testDirectory(new CleanupBatchJob(CleanupParams.createForProfile(curProfile, false, ABAP.NO_RELEASE_RESTRICTION)));
+				testDirectory(new CleanupBatchJob(CleanupParams.createForProfile(curProfile, false, ABAP.NO_RELEASE_RESTRICTION, null, createRuleProfilerForFolderTest())));
 			}
 		});
 		mmuExtrasTestActiveRulesOnFolder.setText("Test Active Rules on All Files in &Folder...");
@@ -924,11 +1133,14 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		mmuExtrasTestAllRulesOnFolder.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				testDirectory(new CleanupBatchJob(CleanupParams.createForProfile(curProfile, true, ABAP.NO_RELEASE_RESTRICTION)));
+				testDirectory(new CleanupBatchJob(CleanupParams.createForProfile(curProfile, true, ABAP.NO_RELEASE_RESTRICTION, null, createRuleProfilerForFolderTest())));
 			}
 		});
 		mmuExtrasTestAllRulesOnFolder.setText("Test All Rules on All Files in &Folder...");
 
+		mmuExtrasProfileRulesOnFolder = new MenuItem(menuExtras, SWT.CHECK);
+		mmuExtrasProfileRulesOnFolder.setText("Measure Rules when Testing on All Files in Folder");
+
 		MenuItem mmuExtrasStressTestAllRulesOnFolder = new MenuItem(menuExtras, SWT.CASCADE);
 		mmuExtrasStressTestAllRulesOnFolder.setText("Stress-Test All Rules on All Files in Folder...");
 
@@ -1828,7 +2040,7 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		String abapRelease = (newAbapRelease != null) ? newAbapRelease : codeDisplay.getAbapRelease();
 
 		BackgroundJob job = new BackgroundJob(ParseParams.createForCleanupRange(sourceName, sourceCode, abapRelease, cleanupRange, cleanupRangeExpandMode),
-				CleanupParams.createForProfile(curProfile, false, settings.getReleaseRestriction()));
+				CleanupParams.createForProfile(curProfile, false, settings.getReleaseRestriction(), cleanupSnapshots));
 		Task result = runJobWithProgressUiIfNeeded(job);
 
 		resultCode = null;
@@ -1985,6 +2197,11 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		return CleanupParams.createForProfile(useProfile, true, ABAP.NO_RELEASE_RESTRICTION);
 	}
 
+	/** returns a RuleProfiler if the user chose to measure the Rules when testing on all files in a folder, otherwise null */
+	private RuleProfiler createRuleProfilerForFolderTest() {
+		return mmuExtrasProfileRulesOnFolder.getSelection() ? RuleProfiler.create() : null;
+	}
+
 	private void testDirectory(IBatchJob batchJob) {
 		String dir = showDirDialog(defaultCodeDirectory, batchJob.getDescription());
 		String[] paths = getAllPaths(dir, FileType.CODE, true, true);
@@ -1997,7 +2214,7 @@ public class FrmMain implements IUsedRulesDisplay, ISearchControls, IChangeTypeC
 		String title = batchJob.getTitle(codeFileInfo);
 		detailedResult.append(title + System.lineSeparator() + System.lineSeparator());
 
-		BackgroundJob job = new BackgroundJob(batchJob, dir, paths);
+		BackgroundJob job = new BackgroundJob(batchJob, dir, paths, Runtime.getRuntime().availableProcessors());
 		FrmProgress frmProgress = new FrmProgress();
 		frmProgress.open(job);
 		detailedResult.append(job.getBatchDetails());
@@ -231,8 +231,8 @@ public final class ABAP {
    private final static HashSet<String> abapKeywords = initializeAbapKeywords();
 
    // lazy instantiation with initializeKeywordCollocations():
-   private static HashSet<String> abapKeywordCollocations;
-   private static HashSet<String> abapKeywordCollocationStarts;
+   private static volatile HashSet<String> abapKeywordCollocations;
+   private static volatile HashSet<String> abapKeywordCollocationStarts;
 
 	// cp. https://help.sap.com/doc/abapdocu_latest_index_htm/latest/en-US/abenabap_loops.htm
    public final static String[] loopKeywords = new String[] { "LOOP", "DO", "WHILE", "SELECT", "PROVIDE" }; 
@@ -366,7 +366,11 @@ public final class ABAP {
 		return true;
 	}
 	
-	private static void initializeKeywordCollocations() {
+	private static synchronized void initializeKeywordCollocations() {
+		// another thread may have completed the initialization while this thread was waiting for the lock
+		if (abapKeywordCollocations != null && abapKeywordCollocationStarts != null)
+			return;
+
 		String[] keywordCollocationsInCommands = getKeywordCollocationsInCommands();
 		String[] keywordCollocationsInAdditions = getKeywordCollocationsInAdditions();
 	   abapKeywordCollocations = initializeAbapKeywordCollocations(keywordCollocationsInCommands, keywordCollocationsInAdditions);
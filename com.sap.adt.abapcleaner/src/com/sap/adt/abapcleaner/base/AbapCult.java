@@ -36,7 +36,7 @@ public final class AbapCult {
 
 	public static boolean stringStartsWith(String text, String substring, boolean ignoreCase) {
 		if (ignoreCase)
-			return (substring.length() <= text.length() && text.substring(0, substring.length()).equalsIgnoreCase(substring));
+			return text.regionMatches(true, 0, substring, 0, substring.length());
 		else
 			return text.startsWith(substring);
 	}
@@ -57,29 +57,41 @@ public final class AbapCult {
 
 	public static boolean stringEndsWith(String text, String substring, boolean ignoreCase) {
 		if (ignoreCase)
-			return (substring.length() <= text.length() && text.substring(text.length() - substring.length()).equalsIgnoreCase(substring));
+			return text.regionMatches(true, text.length() - substring.length(), substring, 0, substring.length());
 		else
 			return text.endsWith(substring);
 	}
 
 	public static int indexOf(String text, String substring, int startIndex, boolean ignoreCase) {
-		if (ignoreCase)
-			return text.toUpperCase().indexOf(substring.toUpperCase(), startIndex);
-		else
+		if (ignoreCase) {
+			// compare in place rather than creating upper-case copies of both Strings
+			int length = substring.length();
+			int maxIndex = text.length() - length;
+			for (int index = Math.max(startIndex, 0); index <= maxIndex; ++index) {
+				if (text.regionMatches(true, index, substring, 0, length))
+					return index;
+			}
+			return (length == 0) ? text.length() : -1;
+		} else
 			return text.indexOf(substring, startIndex);
 	}
 
 	public static int lastIndexOf(String text, String substring, int startIndex, boolean ignoreCase) {
-		if (ignoreCase)
-			return text.toUpperCase().lastIndexOf(substring.toUpperCase(), startIndex);
-		else
+		if (ignoreCase) {
+			int length = substring.length();
+			for (int index = Math.min(startIndex, text.length() - length); index >= 0; --index) {
+				if (text.regionMatches(true, index, substring, 0, length))
+					return index;
+			}
+			return -1;
+		} else
 			return text.lastIndexOf(substring, startIndex);
 	}
 
 	public static boolean stringContainsAt(String text, int start, String textBit, boolean ignoreCase) {
 		if (text == null || textBit == null)
 			return false;
-		return (start + textBit.length() <= text.length()) && stringEquals(text.substring(start, start + textBit.length()), textBit, ignoreCase);
+		return text.regionMatches(ignoreCase, start, textBit, 0, textBit.length());
 	}
 
 	public static String toLower(String value) {
@@ -504,8 +504,10 @@ public final class DDL {
 		if (StringUtil.isNullOrEmpty(text) || pos >= text.length())
 			return false;
 
-		char c = text.charAt(pos);
-		
+		return isCharAllowedForIdentifier(text.charAt(pos), isFirstChar);
+	}
+
+	public static boolean isCharAllowedForIdentifier(char c, boolean isFirstChar) {
 		if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '/') { // '_' at start is allowed for aliases, but e.g. not for fields 
 			return true;
 		
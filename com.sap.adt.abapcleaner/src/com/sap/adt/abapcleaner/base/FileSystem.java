@@ -8,12 +8,19 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.EnumSet;
 
 public class FileSystem implements IFileSystem {
 	public static FileSystem create() {
@@ -39,6 +46,17 @@ public class FileSystem implements IFileSystem {
 		return (new File(path)).lastModified();
 	}
 
+	@Override
+	public void setLastModified(String path, long lastModified) {
+		(new File(path)).setLastModified(lastModified);
+	}
+
+	@Override
+	public long getFileSize(String path) {
+		File file = new File(path);
+		return file.isFile() ? file.length() : -1;
+	}
+
 	@Override
 	public boolean deleteFile(String path) {
 		return (new File(path)).delete();
@@ -113,24 +131,64 @@ public class FileSystem implements IFileSystem {
 		return dirFile.exists() && dirFile.isDirectory();
 	}
 
+	/** returns the absolute paths of the matching files, sorted by path; in recursive mode, 
+	 * the sub-directories of the supplied directory are walked in parallel */
 	@Override
 	public String[] getFilesInDirectory(String path, String searchPattern, boolean recursive) {
-		File dir = new File(path);
+		Path dir = Paths.get(path).toAbsolutePath();
 		ArrayList<String> paths = new ArrayList<>();
-		addFiles(dir, searchPattern, recursive, paths);
+		ArrayList<Path> subDirs = new ArrayList<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+			for (Path entry : entries) {
+				BasicFileAttributes attributes = readAttributes(entry);
+				if (attributes == null) 
+					continue;
+				if (recursive && attributes.isDirectory())
+					subDirs.add(entry);
+				else if (attributes.isRegularFile() && matchesPattern(entry.getFileName().toString(), searchPattern))
+					paths.add(entry.toString());
+			}
+		} catch (IOException | DirectoryIteratorException e) {
+			return new String[0];
+		}
+
+		// walk the sub-directories in parallel, since for large checkouts, the walk is dominated by file system latency  
+		subDirs.parallelStream().map(subDir -> getFilesInTree(subDir, searchPattern)).forEachOrdered(paths::addAll);
+
+		paths.sort(null);
 		return StringUtil.toStringArray(paths);
 	}
 
-	private void addFiles(File dir, String searchPattern, boolean recursive, ArrayList<String> paths) {
-		File[] files = dir.listFiles(); 
-		if (files == null)
-			return;
-		for (File file : files) {
-			if (recursive && file.isDirectory())
-				addFiles(file, searchPattern, recursive, paths);
-			else if (file.isFile() && matchesPattern(file.getName(), searchPattern))
-				paths.add(file.getAbsolutePath());
+	private static BasicFileAttributes readAttributes(Path path) {
+		try {
+			return Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private ArrayList<String> getFilesInTree(Path dir, String searchPattern) {
+		ArrayList<String> paths = new ArrayList<>();
+		try {
+			// follow symbolic links like File.isDirectory() did; cycles are reported to visitFileFailed()
+			Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+					if (attributes.isRegularFile() && matchesPattern(file.getFileName().toString(), searchPattern))
+						paths.add(file.toString());
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e) {
+					// skip files and directories that cannot be accessed, as File.listFiles() did
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			// return the files found so far
 		}
+		return paths;
 	}
 
 	private boolean matchesPattern(String fileName, String searchPattern) {
@@ -7,6 +7,9 @@ public interface IFileSystem {
    // File
 	public boolean fileExists(String path);
 	public long getLastModified(String path);
+	public void setLastModified(String path, long lastModified);
+	/** returns the size of the file in bytes, or -1 if the file does not exist */
+	public long getFileSize(String path);
 	public boolean deleteFile(String path);
 	public boolean renameFile(String sourcePath, String destPath);
 	public boolean copyFile(String sourcePath, String destPath);
@@ -245,4 +245,12 @@ public class PersistencyBase {
 	public long getLastModified(String path) {
 		return fileSystem.getLastModified(path);
 	}
+
+	public void setLastModified(String path, long lastModified) {
+		fileSystem.setLastModified(path, lastModified);
+	}
+
+	public long getFileSize(String path) {
+		return fileSystem.getFileSize(path);
+	}
 }
@@ -14,6 +14,17 @@ import java.util.*;
 public class CompareDoc {
    private static final double MATCH_THRESHOLD_IN_SEQUENCE = 0.3;
    private static final double MATCH_THRESHOLD_OUT_OF_SEQUENCE = 0.3;
+   /** maximum product of the line counts of an unmatched range, up to which {@link DiffAlgorithm#PATIENCE} searches it for similar lines out of sequence */
+   private static final int MAX_SIMILARITY_RANGE_SIZE = 200 * 200;
+
+   /** minimum line count of the larger document, from which {@link #compareTo(CompareDoc, IProgress)} uses {@link DiffAlgorithm#PATIENCE}, 
+    * because {@link DiffAlgorithm#RADIUS_SEARCH} may require quadratic runtime for such documents */
+   public static final int MIN_LINE_COUNT_FOR_PATIENCE = 10_000;
+
+   /** returns the algorithm with which {@link #compareTo(CompareDoc, IProgress)} compares documents with the supplied line counts */
+   public static DiffAlgorithm getAlgorithmFor(int lineCountA, int lineCountB) {
+      return (Math.max(lineCountA, lineCountB) >= MIN_LINE_COUNT_FOR_PATIENCE) ? DiffAlgorithm.PATIENCE : DiffAlgorithm.RADIUS_SEARCH;
+   }
 
    private ArrayList<CompareLine> lines = new ArrayList<CompareLine>();
 
@@ -43,11 +54,38 @@ public class CompareDoc {
 
 
 	/**
-	 * 
+	 * compares this document with the other one, using the algorithm returned by {@link #getAlgorithmFor(int, int)}
 	 * @param other
 	 * @param progress  may be null
 	 */
    public final DiffDoc compareTo(CompareDoc other, IProgress progress) throws CompareException {
+      if (other == null)
+         throw new NullPointerException("other");
+      return compareTo(other, progress, getAlgorithmFor(lines.size(), other.lines.size()));
+   }
+
+	/**
+	 * 
+	 * @param other
+	 * @param progress  may be null
+	 * @param algorithm  the algorithm with which matching lines are found
+	 */
+   public final DiffDoc compareTo(CompareDoc other, IProgress progress, DiffAlgorithm algorithm) throws CompareException {
+      if (other == null)
+         throw new NullPointerException("other");
+
+      if (progress != null)
+         progress.report(TaskType.COMPARER, 0.0);
+
+      // find pairs of matching (or otherwise, at least similar) lines
+      boolean completed = (algorithm == DiffAlgorithm.PATIENCE) ? matchByPatience(other, progress) : matchByRadiusSearch(other, progress);
+      if (!completed)
+         return null;
+
+      return createDiffDoc(other);
+   }
+
+   private boolean matchByRadiusSearch(CompareDoc other, IProgress progress) throws CompareException {
       // algorithm: 
       // - starting from items (1, 1), match consecutively; if items do not match, slowly increase search radius (+0, +1, +2, ...) 
       //   and find matches for any(!) two unmatched items within the radius; once they are found, continue with radius = 0 
@@ -58,24 +96,17 @@ public class CompareDoc {
       // - create list of line pairs (including unmatched lines with a non-line on the other side) with line status equal / changed / deleted / added 
       // - for matched (but not completely identical) lines/words (incl. whitespace!), calculate where to highlight differences left/right 
 
-      if (other == null)
-         throw new NullPointerException("other");
-
       int maxA = lines.size();
       int maxB = other.lines.size();
       HashMap<String, Integer> lineScopeA = new HashMap<String, Integer>();
       HashMap<String, Integer> lineScopeB = new HashMap<String, Integer>();
 
-      if (progress != null)
-         progress.report(TaskType.COMPARER, 0.0);
-
-      // find pairs of matching (or otherwise, at least similar) lines
       int indexA = 0;
       int indexB = 0;
       try {
          while (indexA < maxA && indexB < maxB) {
             if (progress != null && progress.isCancellationPending())
-               return null;
+               return false;
             if (progress != null)
                progress.report(TaskType.COMPARER, (indexA + indexB) / (double)(maxA + maxB));
 
@@ -153,11 +184,15 @@ public class CompareDoc {
       } catch (RuntimeException ex) {
          throw new CompareException(indexA, indexB, ex);
       }
+      return true;
+   }
 
-      // create resulting DiffDoc  
+   private DiffDoc createDiffDoc(CompareDoc other) throws CompareException {
+      int maxA = lines.size();
+      int maxB = other.lines.size();
       DiffDoc result = new DiffDoc();
-      indexA = 0;
-      indexB = 0;
+      int indexA = 0;
+      int indexB = 0;
       try {
          while (indexA < maxA || indexB < maxB) {
             CompareLine lineA = (indexA < maxA) ? lines.get(indexA) : null;
@@ -208,6 +243,226 @@ public class CompareDoc {
       }
    }
 
+   private boolean matchByPatience(CompareDoc other, IProgress progress) throws CompareException {
+      // algorithm: 
+      // - match the lines at the start and the end of a range in sequence, as long as they are direct matches
+      // - within the rest of the range, use lines that occur exactly once on both sides as anchors, and keep the longest 
+      //   sequence of anchors that has the same order on both sides (patience diff); then repeat this for the ranges between the anchors;
+      //   if a range contains no unique lines, use the first line that occurs on both sides as an anchor if the range is small, 
+      //   otherwise match the common lines greedily in sequence, so the ranges do not only shrink by one line per pass
+      // - for items not matched by this, search for similar lines between the anchors, but only if the unmatched range is small; 
+      //   in large ranges, only match similar lines in sequence from the start and the end of the range, so runtime stays linear
+
+      int maxA = lines.size();
+      int maxB = other.lines.size();
+      int[] matchIndexOfA = new int[maxA];
+      Arrays.fill(matchIndexOfA, -1);
+
+      ArrayDeque<int[]> ranges = new ArrayDeque<int[]>();
+      ranges.push(new int[] { 0, maxA, 0, maxB });
+      int matchedCount = 0;
+      int startA = 0;
+      int startB = 0;
+      try {
+         while (!ranges.isEmpty()) {
+            if (progress != null && progress.isCancellationPending())
+               return false;
+
+            int[] range = ranges.pop();
+            startA = range[0];
+            int endA = range[1];
+            startB = range[2];
+            int endB = range[3];
+
+            // match the lines at the start and the end of the range in sequence
+            while (startA < endA && startB < endB && isDirectMatchInSequence(lines.get(startA), other.lines.get(startB))) {
+               matchIndexOfA[startA++] = startB++;
+               ++matchedCount;
+            }
+            while (startA < endA && startB < endB && isDirectMatchInSequence(lines.get(endA - 1), other.lines.get(endB - 1))) {
+               matchIndexOfA[--endA] = --endB;
+               ++matchedCount;
+            }
+            if (startA == endA || startB == endB)
+               continue;
+
+            // match the anchors and process the ranges between them 
+            int[] anchors = findAnchors(startA, endA, startB, endB, other);
+            int prevA = startA;
+            int prevB = startB;
+            for (int i = 0; i < anchors.length; i += 2) {
+               int anchorA = anchors[i];
+               int anchorB = anchors[i + 1];
+               matchIndexOfA[anchorA] = anchorB;
+               ++matchedCount;
+               if (prevA < anchorA && prevB < anchorB)
+                  ranges.push(new int[] { prevA, anchorA, prevB, anchorB });
+               prevA = anchorA + 1;
+               prevB = anchorB + 1;
+            }
+            if (anchors.length > 0 && prevA < endA && prevB < endB)
+               ranges.push(new int[] { prevA, endA, prevB, endB });
+
+            if (progress != null)
+               progress.report(TaskType.COMPARER, 2 * matchedCount / (double)(maxA + maxB));
+         }
+      } catch (RuntimeException ex) {
+         throw new CompareException(startA, startB, ex);
+      }
+
+      // set the matches and find similar lines between them
+      int prevA = 0;
+      int prevB = 0;
+      try {
+         for (int indexA = 0; indexA <= maxA; ++indexA) {
+            int indexB = (indexA < maxA) ? matchIndexOfA[indexA] : maxB;
+            if (indexB < 0)
+               continue;
+            if (prevA < indexA && prevB < indexB)
+               findSimilarLinesInRange(prevA, indexA, prevB, indexB, other);
+            if (indexA < maxA)
+               lines.get(indexA).setMatch(other.lines.get(indexB));
+            prevA = indexA + 1;
+            prevB = indexB + 1;
+         }
+      } catch (RuntimeException ex) {
+         throw new CompareException(prevA, prevB, ex);
+      }
+      return true;
+   }
+
+   private static boolean isDirectMatchInSequence(CompareLine lineA, CompareLine lineB) {
+      return lineA.matchesCurrentOrOriginalCommand(lineB) && lineA.simplifiedText.equals(lineB.simplifiedText);
+   }
+
+   /** returns the anchor line pairs for the supplied range as { indexA0, indexB0, indexA1, indexB1, ... } in ascending order */
+   private int[] findAnchors(int startA, int endA, int startB, int endB, CompareDoc other) {
+      // count the occurrences of each line on both sides, remembering the first index: { countA, indexA, countB, indexB }; 
+      // just like in the radius search, empty lines are not matched out of sequence
+      HashMap<String, int[]> occurrences = new HashMap<String, int[]>();
+      for (int indexA = startA; indexA < endA; ++indexA) {
+         String compareString = lines.get(indexA).getCompareString();
+         if (StringUtil.isNullOrEmpty(compareString))
+            continue;
+         int[] occurrence = occurrences.get(compareString);
+         if (occurrence == null) {
+            occurrence = new int[] { 0, indexA, 0, -1 };
+            occurrences.put(compareString, occurrence);
+         }
+         ++occurrence[0];
+      }
+      for (int indexB = startB; indexB < endB; ++indexB) {
+         int[] occurrence = occurrences.get(other.lines.get(indexB).getCompareString());
+         if (occurrence != null && occurrence[2]++ == 0)
+            occurrence[3] = indexB;
+      }
+
+      // collect the lines that are unique on both sides in the order of side A
+      int[] uniqueA = new int[endA - startA];
+      int[] uniqueB = new int[endA - startA];
+      int uniqueCount = 0;
+      int firstCommonA = -1;
+      for (int indexA = startA; indexA < endA; ++indexA) {
+         int[] occurrence = occurrences.get(lines.get(indexA).getCompareString());
+         if (occurrence == null || occurrence[2] == 0) 
+            continue;
+         if (firstCommonA < 0)
+            firstCommonA = indexA;
+         if (occurrence[0] == 1 && occurrence[2] == 1) {
+            uniqueA[uniqueCount] = indexA;
+            uniqueB[uniqueCount] = occurrence[3];
+            ++uniqueCount;
+         }
+      }
+      if (uniqueCount == 0) {
+         if (firstCommonA < 0)
+            return new int[0];
+         else if ((long)(endA - startA) * (endB - startB) > MAX_SIMILARITY_RANGE_SIZE)
+            return findAnchorsInSequence(firstCommonA, endA, startB, endB, other);
+         return new int[] { firstCommonA, occurrences.get(lines.get(firstCommonA).getCompareString())[3] };
+      }
+
+      // find the longest increasing subsequence of uniqueB with patience sorting: each pile is represented by the index of its top card 
+      int[] pileTops = new int[uniqueCount];
+      int[] predecessors = new int[uniqueCount];
+      int pileCount = 0;
+      for (int i = 0; i < uniqueCount; ++i) {
+         int low = 0;
+         int high = pileCount;
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (uniqueB[pileTops[mid]] < uniqueB[i])
+               low = mid + 1;
+            else
+               high = mid;
+         }
+         predecessors[i] = (low > 0) ? pileTops[low - 1] : -1;
+         pileTops[low] = i;
+         if (low == pileCount)
+            ++pileCount;
+      }
+
+      int[] anchors = new int[2 * pileCount];
+      int uniqueIndex = pileTops[pileCount - 1];
+      for (int anchorIndex = pileCount - 1; anchorIndex >= 0; --anchorIndex) {
+         anchors[2 * anchorIndex] = uniqueA[uniqueIndex];
+         anchors[2 * anchorIndex + 1] = uniqueB[uniqueIndex];
+         uniqueIndex = predecessors[uniqueIndex];
+      }
+      return anchors;
+   }
+
+   /** returns anchor line pairs for a range without unique lines, greedily matching each line of side A with the next 
+    * occurrence of the same line on side B; since no line can be matched in the ranges between these anchors, runtime stays linear */
+   private int[] findAnchorsInSequence(int startA, int endA, int startB, int endB, CompareDoc other) {
+      HashMap<String, ArrayDeque<Integer>> indicesOfB = new HashMap<String, ArrayDeque<Integer>>();
+      for (int indexB = startB; indexB < endB; ++indexB) {
+         String compareString = other.lines.get(indexB).getCompareString();
+         if (!StringUtil.isNullOrEmpty(compareString))
+            indicesOfB.computeIfAbsent(compareString, key -> new ArrayDeque<Integer>()).add(indexB);
+      }
+
+      ArrayList<Integer> anchors = new ArrayList<Integer>();
+      int nextB = startB;
+      for (int indexA = startA; indexA < endA; ++indexA) {
+         ArrayDeque<Integer> indices = indicesOfB.get(lines.get(indexA).getCompareString());
+         if (indices == null)
+            continue;
+         while (!indices.isEmpty() && indices.peekFirst() < nextB)
+            indices.removeFirst();
+         if (indices.isEmpty()) 
+            continue;
+         int indexB = indices.removeFirst();
+         anchors.add(indexA);
+         anchors.add(indexB);
+         nextB = indexB + 1;
+      }
+
+      int[] result = new int[anchors.size()];
+      for (int i = 0; i < result.length; ++i)
+         result[i] = anchors.get(i);
+      return result;
+   }
+
+   private void findSimilarLinesInRange(int startIndexA, int maxA, int startIndexB, int maxB, CompareDoc other) {
+      if ((long)(maxA - startIndexA) * (maxB - startIndexB) <= MAX_SIMILARITY_RANGE_SIZE) {
+         findSimilarLines(startIndexA, maxA, startIndexB, maxB, other);
+         return;
+      }
+
+      // in large ranges, only match similar lines in sequence from the start and the end of the range
+      while (startIndexA < maxA && startIndexB < maxB && isSimilarInSequence(lines.get(startIndexA), other.lines.get(startIndexB))) {
+         lines.get(startIndexA++).setMatch(other.lines.get(startIndexB++));
+      }
+      while (startIndexA < maxA && startIndexB < maxB && isSimilarInSequence(lines.get(maxA - 1), other.lines.get(maxB - 1))) {
+         lines.get(--maxA).setMatch(other.lines.get(--maxB));
+      }
+   }
+
+   private static boolean isSimilarInSequence(CompareLine lineA, CompareLine lineB) {
+      return lineA.matchesCurrentOrOriginalCommand(lineB) && lineA.calcMatchRatioWith(lineB) >= MATCH_THRESHOLD_IN_SEQUENCE;
+   }
+
    private void findSimilarLines(int startIndexA, int maxA, int startIndexB, int maxB, CompareDoc other) {
       int indexA = startIndexA;
       int indexB = startIndexB;
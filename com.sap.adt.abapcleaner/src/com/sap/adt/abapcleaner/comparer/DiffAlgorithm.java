@@ -0,0 +1,26 @@
+package com.sap.adt.abapcleaner.comparer;
+
+/**
+ * <p>Enumeration of the algorithms with which {@link CompareDoc#compareTo(CompareDoc, com.sap.adt.abapcleaner.programbase.IProgress, DiffAlgorithm) CompareDoc.compareTo()}
+ * finds matching lines:</p>
+ * <ul>
+ * <li>{@link DiffAlgorithm#RADIUS_SEARCH}: from each unmatched line pair, search with growing distance for the next direct match,
+ * then search for similar lines within each unmatched range; this may require quadratic runtime if large blocks were moved</li>
+ * <li>{@link DiffAlgorithm#PATIENCE}: anchor the comparison on lines that are unique in both documents (patience diff),
+ * then search for similar lines only within small unmatched ranges</li>
+ * </ul>
+ */
+public enum DiffAlgorithm  {
+   RADIUS_SEARCH,
+   PATIENCE;
+
+   public static final int SIZE = java.lang.Integer.SIZE;
+
+   public int getValue() {
+      return this.ordinal();
+   }
+
+   public static DiffAlgorithm forValue(int value) {
+      return values()[value];
+   }
+}
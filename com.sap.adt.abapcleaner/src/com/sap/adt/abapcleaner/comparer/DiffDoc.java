@@ -67,6 +67,11 @@ public class DiffDoc {
       return result.toString();
    }
 
+   /** returns the minimal line edits that transform the left (old) side of this {@link DiffDoc} into its right (new) side */
+   public final TextEdits toTextEdits() {
+      return TextEdits.createFrom(lines);
+   }
+
    final Command getCommandAt(int lineIndex) {
       if (lineIndex < 0 || lineIndex >= getLineCount())
          return null;
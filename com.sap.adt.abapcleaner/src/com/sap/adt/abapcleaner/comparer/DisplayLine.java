@@ -22,6 +22,8 @@ public class DisplayLine {
 	// results of the comparison
 	private ArrayList<HighlightBit> highlightBits; // only for changed lines
 
+	public final Command getParentCommand() { return parentCommand; }
+
 	public final String getText() { return text; }
 
 	public final boolean isEmpty() { return text.length() == 0; }
@@ -53,6 +55,18 @@ public class DisplayLine {
 	 	return new DisplayLine(parentCommand, text, indexInDoc, textBits); 
 	}
 
+	/** creates a copy of the supplied DisplayLine (without the results of a comparison) for a copy of its parent Command */
+	public static DisplayLine createCopy(DisplayLine model, Command parentCommand) {
+		ArrayList<TextBit> textBits = null;
+		if (model.textBits != null) {
+			textBits = new ArrayList<TextBit>(model.textBits.size());
+			for (TextBit textBit : model.textBits) {
+				textBits.add(TextBit.createFromModel(textBit));
+			}
+		}
+		return new DisplayLine(parentCommand, model.text, model.indexInDoc, textBits);
+	}
+
 	private DisplayLine(Command parentCommand, String text, int indexInDoc, ArrayList<TextBit> textBits) {
 		this.parentCommand = parentCommand;
 		this.text = text;
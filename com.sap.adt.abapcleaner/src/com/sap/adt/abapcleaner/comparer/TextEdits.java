@@ -0,0 +1,114 @@
+package com.sap.adt.abapcleaner.comparer;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * <p>A compact edit script that transforms the old state of a {@link DiffDoc} (left side) into its new state (right side):
+ * each {@link Hunk} replaces a range of consecutive lines of the old text with the lines of the new text,
+ * while all lines outside of the hunks remain unchanged.</p>
+ *
+ * <p>This allows editors to only replace the lines that were actually changed by the cleanup rather than the whole document,
+ * which is faster for large documents and keeps the undo history fine-grained, cp. {@link #toJson()}.</p>
+ */
+public class TextEdits {
+	/** replaces the lines {@link #startLine} to {@link #endLine} of the old text with the {@link #lines} of the new text */
+	public static class Hunk {
+		/** 1-based number of the first line of the old text that is replaced, or before which the new lines are inserted */
+		public final int startLine;
+		/** 1-based number of the last line of the old text that is replaced, or startLine - 1 if the new lines are only inserted */
+		public final int endLine;
+		/** the replacement lines (without line separators); empty if the old lines are only deleted */
+		public final String[] lines;
+
+		private Hunk(int startLine, int endLine, String[] lines) {
+			this.startLine = startLine;
+			this.endLine = endLine;
+			this.lines = lines;
+		}
+
+		public final int getOldLineCount() { return endLine - startLine + 1; }
+	}
+
+	private final ArrayList<Hunk> hunks = new ArrayList<>();
+
+	public final boolean isEmpty() { return hunks.isEmpty(); }
+
+	public final int getHunkCount() { return hunks.size(); }
+
+	public final Hunk getHunk(int index) { return hunks.get(index); }
+
+	/** creates the edit script from the sequence of {@link DiffLine}s, combining consecutive changed lines into one {@link Hunk} */
+	static TextEdits createFrom(Iterable<DiffLine> diffLines) {
+		TextEdits edits = new TextEdits();
+
+		int oldLineCount = 0;
+		int hunkStartLine = -1;
+		ArrayList<String> hunkLines = new ArrayList<>();
+		for (DiffLine line : diffLines) {
+			if (line.status == LineStatus.EQUAL) {
+				if (hunkStartLine > 0) {
+					edits.hunks.add(new Hunk(hunkStartLine, oldLineCount, hunkLines.toArray(new String[0])));
+					hunkStartLine = -1;
+					hunkLines.clear();
+				}
+			} else if (hunkStartLine < 0) {
+				hunkStartLine = oldLineCount + 1;
+			}
+			if (line.leftLine != null)
+				++oldLineCount;
+			if (line.status != LineStatus.EQUAL && line.rightLine != null)
+				hunkLines.add(line.rightLine.getText());
+		}
+		if (hunkStartLine > 0)
+			edits.hunks.add(new Hunk(hunkStartLine, oldLineCount, hunkLines.toArray(new String[0])));
+
+		return edits;
+	}
+
+	private TextEdits() {
+	}
+
+	/**
+	 * returns the edit script as a JSON document with the 'edits' array of hunks, each with the 'startLine' and 'endLine'
+	 * of the old text (1-based, endLine = startLine - 1 for pure insertions) and the replacement 'lines';
+	 * returns an empty String if the text was not changed at all
+	 */
+	public final String toJson() {
+		if (hunks.isEmpty())
+			return "";
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"edits\": [");
+		for (int i = 0; i < hunks.size(); ++i) {
+			Hunk hunk = hunks.get(i);
+			sb.append((i == 0) ? "\n" : ",\n");
+			sb.append("    { \"startLine\": ").append(hunk.startLine);
+			sb.append(", \"endLine\": ").append(hunk.endLine);
+			sb.append(", \"lines\": [");
+			for (int j = 0; j < hunk.lines.length; ++j) {
+				sb.append((j == 0) ? " \"" : ", \"").append(escapeJson(hunk.lines[j])).append("\"");
+			}
+			sb.append((hunk.lines.length == 0) ? "] }" : " ] }");
+		}
+		sb.append("\n  ]\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private static String escapeJson(String text) {
+		StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
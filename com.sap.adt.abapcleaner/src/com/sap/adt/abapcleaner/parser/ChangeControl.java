@@ -16,7 +16,7 @@ public class ChangeControl {
 	private BitSet usedRules = new BitSet(Rule.RULE_COUNT);
 	private BitSet blockedRules = new BitSet(Rule.RULE_COUNT);
 
-	final boolean wasRuleUsed(RuleID ruleId) {
+	public final boolean wasRuleUsed(RuleID ruleId) {
 		return usedRules.get(ruleId.getValue());
 	}
 
@@ -31,6 +31,15 @@ public class ChangeControl {
 		// this.sourceTextEnd = sourceTextEnd;
 	}
 
+	private ChangeControl(ChangeControl model) {
+		usedRules = (BitSet)model.usedRules.clone();
+		blockedRules = (BitSet)model.blockedRules.clone();
+	}
+
+	final ChangeControl createCopy() {
+		return new ChangeControl(this);
+	}
+
 	final void setUsedRule(RuleID ruleId) {
 		usedRules.set(ruleId.getValue(), true);
 	}
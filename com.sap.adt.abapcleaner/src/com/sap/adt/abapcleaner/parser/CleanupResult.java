@@ -2,6 +2,7 @@ package com.sap.adt.abapcleaner.parser;
 
 import com.sap.adt.abapcleaner.base.Cult;
 import com.sap.adt.abapcleaner.base.StringUtil;
+import com.sap.adt.abapcleaner.comparer.TextEdits;
 import com.sap.adt.abapcleaner.programbase.Task;
 
 public class CleanupResult {
@@ -17,6 +18,10 @@ public class CleanupResult {
 	public int changedLineCount;
 	public int totalPocessingTime_ms;
 	public String ruleStats;
+	/** the minimal line edits as JSON (empty if the code was not changed), or null if they were not requested, cp. {@link TextEdits#toJson()} */
+	public String edits;
+	/** true if the cleanup was skipped, because the source file and its target file are up to date, cp. {@link FileStateIndex} */
+	private boolean upToDate;
 	
 	public boolean hasCleanedCode() { return (cleanedCode != null); }
 
@@ -35,6 +40,12 @@ public class CleanupResult {
 	public int getTotalProcessingTime_ms() { return totalPocessingTime_ms; }
 
 	public String getRuleStats() { return ruleStats; }
+
+	public boolean hasEdits() { return (edits != null); }
+
+	public String getEdits() { return edits; }
+
+	public boolean isUpToDate() { return upToDate; }
 	
 	static CleanupResult createForRange(String cleanedCode, int startLine, int endLine, int offset, int length) {
 		return new CleanupResult(cleanedCode, startLine, endLine, offset, length, null); 
@@ -47,6 +58,12 @@ public class CleanupResult {
 	public static CleanupResult createError(String errorMessage) {
 		return new CleanupResult(null, -1, -1, 0, 0, errorMessage); 
 	}
+
+	public static CleanupResult createUpToDate() {
+		CleanupResult result = new CleanupResult(null, -1, -1, 0, 0, null);
+		result.upToDate = true;
+		return result;
+	}
 	
 	private CleanupResult(String cleanedCode, int startLine, int endLine, int offset, int length, String errorMessage) {
 		this.cleanedCode = cleanedCode;
@@ -66,6 +83,10 @@ public class CleanupResult {
 		this.ruleStats = ruleStats; 
 	}
 
+	public void setEdits(TextEdits textEdits) {
+		this.edits = textEdits.toJson();
+	}
+
 	public String getStatsSummary() {
 		StringBuilder sb = new StringBuilder();
 		sb.append((appliedRuleCount == 1) ? "1 cleanup rule" : Cult.format(appliedRuleCount) + " cleanup rules");
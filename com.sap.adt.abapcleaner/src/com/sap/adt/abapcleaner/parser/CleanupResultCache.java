@@ -0,0 +1,337 @@
+package com.sap.adt.abapcleaner.parser;
+
+import com.sap.adt.abapcleaner.base.*;
+import com.sap.adt.abapcleaner.programbase.*;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+import com.sap.adt.abapcleaner.rulehelpers.CustomCamelCaseNames;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of {@link CleanupResult}s, which allows repeated command-line cleanups of unchanged sources
+ * (e.g. in CI or with --sourcedir) to skip parsing and cleanup entirely.
+ *
+ * The key is a hash of everything that influences the result: the source code, the Profile configuration
+ * (including custom camel case names), the ABAP release, the release restriction, the cleanup range, the requested statistics and edits, the line separator,
+ * and Program.TECHNICAL_VERSION. Each entry is stored in its own file, so concurrent cleanups can share the cache.
+ * The modification time of an entry is updated whenever it is read, so the least recently used entries are evicted 
+ * if the maximum entry count is exceeded or if they were not used for the maximum age.
+ * The processing time of a cached result is the time needed to read it from the cache, not the time of the original cleanup.
+ */
+public class CleanupResultCache {
+	public static final String DEFAULT_FOLDER = "cache";
+	public static final int DEFAULT_MAX_ENTRY_COUNT = 10000;
+	public static final int DEFAULT_MAX_AGE_DAYS = 30;
+
+	private static final String FILE_EXTENSION = ".cfj";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	private static final int REQUIRED_VERSION = 1;
+	private static final long MILLISEC_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private static final String KEY_KEY = "key";
+	private static final String KEY_CLEANED_CODE = "cleanedCode";
+	private static final String KEY_START_LINE = "startLine";
+	private static final String KEY_END_LINE = "endLine";
+	private static final String KEY_OFFSET = "offset";
+	private static final String KEY_LENGTH = "length";
+	private static final String KEY_HAS_STATS = "hasStats";
+	private static final String KEY_LINE_COUNT_IN_CLEANUP_RANGE = "lineCountInCleanupRange";
+	private static final String KEY_APPLIED_RULE_COUNT = "appliedRuleCount";
+	private static final String KEY_CHANGED_LINE_COUNT = "changedLineCount";
+	private static final String KEY_RULE_STATS = "ruleStats";
+	private static final String KEY_HAS_EDITS = "hasEdits";
+	private static final String KEY_EDITS = "edits";
+
+	private final String cacheDir;
+	private final int maxEntryCount;
+	private final long maxAge_ms;
+
+	/** the number of entries in the cache directory, or -1 if the directory was not yet checked for eviction */
+	private int entryCount = -1;
+	private int hitCount;
+	private int missCount;
+	private int evictedCount;
+
+	public final String getCacheDir() { return cacheDir; }
+
+	public final synchronized int getHitCount() { return hitCount; }
+
+	public final synchronized int getMissCount() { return missCount; }
+
+	public final synchronized int getEvictedCount() { return evictedCount; }
+
+	public final synchronized String getStatistics() {
+		return "result cache: " + Cult.format(hitCount) + " hits, " + Cult.format(missCount) + " misses, " + Cult.format(evictedCount) + " evicted";
+	}
+
+	// -------------------------------------------------------------------------
+
+	/** returns the default cache directory under the work directory of the supplied Persistency */
+	public static String getDefaultDir(Persistency persistency) {
+		return persistency.combinePaths(persistency.getWorkDir(), DEFAULT_FOLDER, "results");
+	}
+
+	public static CleanupResultCache create(String cacheDir) {
+		return new CleanupResultCache(cacheDir, DEFAULT_MAX_ENTRY_COUNT, DEFAULT_MAX_AGE_DAYS);
+	}
+
+	public static CleanupResultCache create(String cacheDir, int maxEntryCount, int maxAge_days) {
+		return new CleanupResultCache(cacheDir, maxEntryCount, maxAge_days);
+	}
+
+	private CleanupResultCache(String cacheDir, int maxEntryCount, int maxAge_days) {
+		this.cacheDir = cacheDir;
+		this.maxEntryCount = Math.max(maxEntryCount, 1);
+		this.maxAge_ms = Math.max(maxAge_days, 1) * MILLISEC_PER_DAY;
+	}
+
+	/**
+	 * returns the cache key for a cleanup with the supplied parameters, or null if the result of such a cleanup cannot be cached;
+	 * the Profile must be the one with which the cleanup will be executed
+	 */
+	public static String getKey(String sourceName, String sourceCode, String abapRelease, CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode,
+			Profile profile, int releaseRestriction, boolean provideRuleStats, boolean provideEdits, String lineSeparator) {
+		if (sourceCode == null)
+			return null;
+		String settingsKey = getSettingsKey(abapRelease, cleanupRange, cleanupRangeExpandMode, profile, releaseRestriction, provideRuleStats, provideEdits, lineSeparator);
+		return (settingsKey == null) ? null : getHash(settingsKey, sourceName, sourceCode);
+	}
+
+	/**
+	 * returns a key for all cleanup parameters except the source, or null if the result of such a cleanup cannot be cached;
+	 * the Profile must be the one with which the cleanup will be executed
+	 */
+	public static String getSettingsKey(String abapRelease, CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode,
+			Profile profile, int releaseRestriction, boolean provideRuleStats, boolean provideEdits, String lineSeparator) {
+		if (profile == null)
+			return null;
+
+		ISettingsWriter writer;
+		try {
+			writer = TextSettingsWriter.createForString(Program.TECHNICAL_VERSION, Profile.REQUIRED_VERSION);
+			profile.save(writer);
+			writer.close();
+		} catch (IOException e) {
+			return null;
+		}
+		String profileText = writer.getStringResult();
+
+		// Rules which depend on external files use the custom names that Profile.executeRules() will (re)load
+		profile.updateCustomNames();
+
+		String cleanupRangeKey = (cleanupRange == null) ? "" : cleanupRange.startLine + "-" + cleanupRange.lastLine + "-" + cleanupRange.expandRange;
+		String paramsKey = Program.TECHNICAL_VERSION + "|" + abapRelease + "|" + releaseRestriction + "|" + cleanupRangeKey
+				+ "|" + cleanupRangeExpandMode + "|" + provideRuleStats + "|" + provideEdits + "|" + StringUtil.getEscapeText(lineSeparator) + "\n";
+		return getHash(paramsKey, profileText, getCustomNamesKey(profile.customViewNames), getCustomNamesKey(profile.customFieldNames));
+	}
+
+	/** returns the SHA-256 hash of the supplied texts as a hex string, or null if SHA-256 is not available */
+	public static String getHash(String... texts) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		for (String text : texts)
+			updateDigest(digest, String.valueOf(text));
+
+		byte[] hash = digest.digest();
+		StringBuilder result = new StringBuilder(hash.length * 2);
+		for (byte b : hash)
+			result.append(String.format("%02x", b));
+		return result.toString();
+	}
+
+	private static void updateDigest(MessageDigest digest, String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		// prefix each part with its length, so different splits of the same text cannot produce the same key
+		digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+		digest.update(bytes);
+	}
+
+	private static String getCustomNamesKey(CustomCamelCaseNames customNames) {
+		return (customNames == null) ? "" : new TreeMap<>(customNames.camelCaseNames).toString();
+	}
+
+	private String getPath(String key) {
+		return Persistency.get().combinePaths(cacheDir, key + FILE_EXTENSION);
+	}
+
+	/** returns the cached result for the supplied key, or null if no valid entry was found */
+	public final CleanupResult get(String key) {
+		if (key == null)
+			return null;
+		evictIfDue();
+
+		Persistency persistency = Persistency.get();
+		String path = getPath(key);
+		long now = System.currentTimeMillis();
+		CleanupResult result = null;
+		if (persistency.fileExists(path) && !isExpired(persistency.getLastModified(path), now)) {
+			try {
+				result = read(key, persistency.readAllTextFromFile(path));
+			} catch (IOException e) {
+				// treat incomplete or outdated entries as missing; they will be overwritten by put()
+			}
+		}
+		if (result != null) {
+			// mark the entry as recently used, so it is evicted last 
+			persistency.setLastModified(path, now);
+			if (result.ruleStats != null)
+				result.totalPocessingTime_ms = (int)(System.currentTimeMillis() - now);
+		}
+		synchronized (this) {
+			if (result == null)
+				++missCount;
+			else
+				++hitCount;
+		}
+		return result;
+	}
+
+	private static CleanupResult read(String key, String content) throws IOException {
+		if (content == null)
+			return null;
+		try (ISettingsReader reader = TextSettingsReader.createFromString(content, Program.TECHNICAL_VERSION)) {
+			if (!key.equals(reader.readString(KEY_KEY)))
+				return null;
+			String cleanedCode = reader.readString(KEY_CLEANED_CODE);
+			int startLine = reader.readInt32(KEY_START_LINE);
+			int endLine = reader.readInt32(KEY_END_LINE);
+			int offset = reader.readInt32(KEY_OFFSET);
+			int length = reader.readInt32(KEY_LENGTH);
+			CleanupResult result = (startLine < 0) ? CleanupResult.createWithoutRange(cleanedCode)
+															 : CleanupResult.createForRange(cleanedCode, startLine, endLine, offset, length);
+			if (reader.readBool(KEY_HAS_STATS)) {
+				result.lineCountInCleanupRange = reader.readInt32(KEY_LINE_COUNT_IN_CLEANUP_RANGE);
+				result.appliedRuleCount = reader.readInt32(KEY_APPLIED_RULE_COUNT);
+				result.changedLineCount = reader.readInt32(KEY_CHANGED_LINE_COUNT);
+				result.ruleStats = reader.readString(KEY_RULE_STATS);
+			}
+			if (reader.readBool(KEY_HAS_EDITS)) 
+				result.edits = reader.readString(KEY_EDITS);
+			return result;
+		}
+	}
+
+	/** stores the supplied result under the supplied key; results without cleaned code (e.g. errors) are not cached */
+	public final void put(String key, CleanupResult result) {
+		if (key == null || result == null || !result.hasCleanedCode() || result.hasErrorMessage())
+			return;
+		evictIfDue();
+
+		ISettingsWriter writer;
+		try {
+			writer = TextSettingsWriter.createForString(Program.TECHNICAL_VERSION, REQUIRED_VERSION);
+			writer.write(KEY_KEY, key);
+			writer.write(KEY_CLEANED_CODE, result.cleanedCode);
+			writer.write(KEY_START_LINE, result.startLine);
+			writer.write(KEY_END_LINE, result.endLine);
+			writer.write(KEY_OFFSET, result.offset);
+			writer.write(KEY_LENGTH, result.length);
+			boolean hasStats = (result.ruleStats != null);
+			writer.write(KEY_HAS_STATS, hasStats);
+			if (hasStats) {
+				writer.write(KEY_LINE_COUNT_IN_CLEANUP_RANGE, result.lineCountInCleanupRange);
+				writer.write(KEY_APPLIED_RULE_COUNT, result.appliedRuleCount);
+				writer.write(KEY_CHANGED_LINE_COUNT, result.changedLineCount);
+				writer.write(KEY_RULE_STATS, result.ruleStats);
+			}
+			writer.write(KEY_HAS_EDITS, result.hasEdits());
+			if (result.hasEdits())
+				writer.write(KEY_EDITS, result.edits);
+			writer.close();
+		} catch (IOException e) {
+			return;
+		}
+		String content = writer.getStringResult();
+
+		// write to a temporary file first, so concurrent readers never see an incomplete entry; the name of the temporary file 
+		// must be unique across threads and processes that share the cache directory
+		Persistency persistency = Persistency.get();
+		String path = getPath(key);
+		String tempPath = persistency.combinePaths(cacheDir, key + "_" + UUID.randomUUID().toString() + TEMP_FILE_EXTENSION);
+		persistency.ensureDirectoryExists(cacheDir);
+		if (!persistency.writeAllTextToFile(tempPath, content))
+			return;
+		boolean existed = persistency.fileExists(path);
+		if (existed)
+			persistency.deleteFile(path);
+		if (!persistency.renameFile(tempPath, path)) {
+			persistency.deleteFile(tempPath);
+			return;
+		}
+		if (!existed) {
+			synchronized (this) {
+				if (entryCount >= 0)
+					++entryCount;
+			}
+		}
+	}
+
+	private boolean isExpired(long lastModified, long now) {
+		// if the file system does not provide a modification time, keep the entry until the entry count is exceeded
+		return lastModified > 0 && now - lastModified > maxAge_ms;
+	}
+
+	/** checks the cache directory when the cache is first used and whenever the maximum entry count is exceeded */
+	private synchronized void evictIfDue() {
+		if (entryCount < 0 || entryCount > maxEntryCount) {
+			evict();
+		}
+	}
+
+	/** deletes expired entries and, if the maximum entry count is still exceeded, the least recently used entries */
+	public final synchronized void evict() {
+		Persistency persistency = Persistency.get();
+		if (!persistency.directoryExists(cacheDir)) {
+			entryCount = 0;
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		String[] paths = persistency.getFilesInDirectory(cacheDir, "*" + FILE_EXTENSION);
+		ArrayList<String> remainingPaths = new ArrayList<>();
+		HashMap<String, Long> lastModifiedOfPath = new HashMap<>();
+		for (String path : paths) {
+			long lastModified = persistency.getLastModified(path);
+			if (isExpired(lastModified, now)) {
+				if (persistency.deleteFile(path))
+					++evictedCount;
+			} else {
+				remainingPaths.add(path);
+				lastModifiedOfPath.put(path, lastModified);
+			}
+		}
+
+		if (remainingPaths.size() > maxEntryCount) {
+			remainingPaths.sort((p1, p2) -> Long.compare(lastModifiedOfPath.get(p1), lastModifiedOfPath.get(p2)));
+			int deleteCount = remainingPaths.size() - maxEntryCount;
+			for (int i = 0; i < deleteCount; ++i) {
+				if (persistency.deleteFile(remainingPaths.get(i)))
+					++evictedCount;
+			}
+			remainingPaths.subList(0, deleteCount).clear();
+		}
+		entryCount = remainingPaths.size();
+	}
+
+	/** deletes all entries from the cache directory */
+	public final synchronized void clear() {
+		Persistency persistency = Persistency.get();
+		if (persistency.directoryExists(cacheDir)) {
+			for (String path : persistency.getFilesInDirectory(cacheDir, "*" + FILE_EXTENSION)) {
+				persistency.deleteFile(path);
+			}
+		}
+		entryCount = 0;
+		hitCount = 0;
+		missCount = 0;
+		evictedCount = 0;
+	}
+}
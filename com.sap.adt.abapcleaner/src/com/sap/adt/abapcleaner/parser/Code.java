@@ -6,6 +6,12 @@ import com.sap.adt.abapcleaner.rulebase.*;
 import com.sap.adt.abapcleaner.programbase.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>Represents an ABAP code document, which is returned as the result of {@link #parse(IProgress, ParseParams)} 
@@ -48,6 +54,53 @@ public class Code {
 
 	private HashMap<Integer, ChangeControl> changeControlOfSourceLineStart;
 
+	/** increased whenever a Command is created or its Tokens are changed, cp. {@link Command#getModificationEpoch()}; 
+	 * atomic, because method-local Rules may change the bodies of several methods concurrently, cp. {@link Rule#isMethodLocal()} */
+	private final AtomicInteger modificationEpoch = new AtomicInteger();
+
+	public final int getModificationEpoch() { return modificationEpoch.get(); }
+
+	final int nextModificationEpoch() { return modificationEpoch.incrementAndGet(); }
+
+	/** changes the {@link #commandCount} when Commands are added or removed, which may happen concurrently for method-local Rules */
+	final synchronized void addToCommandCount(int delta) { commandCount += delta; }
+
+	/** analysis results that are shared between Rules, cp. {@link #getRuleAnalysis(Class)} */
+	private HashMap<Class<?>, Object> ruleAnalyses;
+
+	/** minimum number of Commands that must be parsed in {@link #checkSyntax(boolean)} to make it worthwhile to use multiple threads */
+	private static final int MIN_COMMAND_COUNT_FOR_PARALLEL_SYNTAX_CHECK = 256;
+	/** number of pool threads that help the calling thread with parsing in {@link #checkSyntax(boolean)} */
+	private static final int SYNTAX_CHECK_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+	/** bounded pool of long-lived threads for {@link #checkSyntax(boolean)}, so that each of its threads creates its own 
+	 * RND Parser (cp. {@link Program#getRndParser()}) only once per process; created on first use */
+	private static ExecutorService syntaxCheckExecutor;
+
+	/** the number of erroneous RND Parser tokens for each source text and Token layout that was parsed (cp. {@link TokenTypeRefinerRnd#getRndCacheKey(Command, String)}), 
+	 * so {@link #checkSyntax(boolean)} can skip Commands that were not changed by the cleanup; filled from multiple threads */
+	private ConcurrentHashMap<String, Integer> rndErrorCountOfKey = new ConcurrentHashMap<>();
+
+	final void putRndErrorCount(String rndCacheKey, int errorTokenCount) { rndErrorCountOfKey.put(rndCacheKey, errorTokenCount); }
+
+	private static synchronized ExecutorService getSyntaxCheckExecutor() {
+		if (syntaxCheckExecutor == null) {
+			syntaxCheckExecutor = Executors.newFixedThreadPool(SYNTAX_CHECK_THREAD_COUNT, runnable -> {
+				Thread thread = new Thread(runnable, "ABAP cleaner syntax check");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return syntaxCheckExecutor;
+	}
+
+	/** if only the {@link CodeSkeleton} of the code text was parsed, the original lines of each elided block body, 
+	 * stored for the Command that ends the block (e.g. ENDMETHOD), so {@link #toString(String)} can insert them again; otherwise null */
+	private IdentityHashMap<Command, String[]> elidedBodyLines;
+
+	/** returns true if only the {@link CodeSkeleton} of the code text was parsed, cp. {@link ParseParams#limitParsingToRange} */
+	public final boolean isSkeleton() { return (elidedBodyLines != null); }
+
 	/** returns true if this Code contains classes (i.e. CLASS statements) */
 	final boolean hasClassStart() { return (classStartCount > 0); }
 
@@ -58,8 +111,71 @@ public class Code {
 	// ----------------------------------------------------------------------
 
 	public static Code parse(IProgress progress, ParseParams parseParams) throws ParseException {
-		Code code = new Code(parseParams.sourceName, parseParams.codeText, parseParams.abapRelease, parseParams.cleanupRange, parseParams.surroundingCode);
-		Parser parser = Parser.create(parseParams.codeText);
+		if (parseParams.limitParsingToRange) {
+			Code code = parseSkeleton(progress, parseParams);
+			if (code != null)
+				return code;
+		}
+		return parse(progress, parseParams, Parser.create(parseParams.codeText), parseParams.codeText);
+	}
+
+	/**
+	 * Parses only the {@link CodeSkeleton} of the code text, i.e. without the bodies of the methods etc. outside the cleanup range; 
+	 * returns null if no skeleton can be created for the code text and cleanup range, or if the whole code text must be parsed, 
+	 * because the skeleton cannot be mapped to the parse result
+	 */
+	private static Code parseSkeleton(IProgress progress, ParseParams parseParams) {
+		CodeSkeleton skeleton = CodeSkeleton.create(parseParams.codeText, parseParams.cleanupRange, parseParams.cleanupRangeExpandMode, CodeSkeleton.DEFAULT_MIN_ELIDED_LINE_COUNT);
+		if (skeleton == null)
+			return null;
+
+		Code code;
+		try {
+			code = parse(progress, parseParams, Parser.create(skeleton.getText()), parseParams.codeText);
+		} catch (ParseException e) {
+			// parse the whole code text to get the same error message as without the skeleton 
+			return null;
+		}
+		return code.attachElidedBodies(skeleton) ? code : null;
+	}
+
+	/** 
+	 * Maps the elided bodies of the supplied skeleton to the Commands that end the respective blocks; returns false if the skeleton 
+	 * does not match the parse result, or if the (expanded) cleanup range overlaps with any of the elided blocks 
+	 */
+	private boolean attachElidedBodies(CodeSkeleton skeleton) {
+		if (cleanupRange == null)
+			return false;
+
+		IdentityHashMap<Command, String[]> bodyLinesOfBlockEnd = new IdentityHashMap<>();
+		ArrayList<CodeSkeleton.ElidedBody> elidedBodies = skeleton.getElidedBodies();
+		int bodyIndex = 0;
+		Command command = firstCommand;
+		while (command != null && bodyIndex < elidedBodies.size()) {
+			CodeSkeleton.ElidedBody elidedBody = elidedBodies.get(bodyIndex);
+			if (command.getSourceLineNumStart() == elidedBody.endLineNum) {
+				Command blockStart = command.getPrevSibling();
+				if (!command.isMethodFunctionOrFormEnd() || command.getFirstTokenLineBreaks() != elidedBody.lines.length + 1
+						|| blockStart == null || blockStart.getNext() != command 
+						|| command.isInCleanupRange() || blockStart.isInCleanupRange()) {
+					return false;
+				}
+				bodyLinesOfBlockEnd.put(command, elidedBody.lines);
+				++bodyIndex;
+			} else if (command.getSourceLineNumStart() > elidedBody.endLineNum) {
+				return false;
+			}
+			command = command.getNext();
+		}
+		if (bodyIndex < elidedBodies.size())
+			return false;
+
+		elidedBodyLines = bodyLinesOfBlockEnd;
+		return true;
+	}
+
+	private static Code parse(IProgress progress, ParseParams parseParams, Parser parser, String codeText) throws ParseException {
+		Code code = new Code(parseParams.sourceName, codeText, parseParams.abapRelease, parseParams.cleanupRange, parseParams.surroundingCode);
 		parser.parse(progress, code, parseParams.lineNumOffset, parseParams.surroundingTextOffset);
 		
 		code.expandCleanupRange(parseParams.cleanupRangeExpandMode); 
@@ -80,6 +196,101 @@ public class Code {
 		this.changeControlOfSourceLineStart = (surroundingCode != null && surroundingCode.changeControlOfSourceLineStart != null) ? surroundingCode.changeControlOfSourceLineStart : new HashMap<Integer, ChangeControl>();
 	}
 
+	/**
+	 * Creates a deep copy of this Code, including its Commands, Tokens and ChangeControls, which can then be modified 
+	 * independently of this Code, e.g. to continue a cleanup from a snapshot. Commands that are no longer part of 
+	 * this Code, but still referenced (e.g. as {@link Command#originalCommand} or by the supplied additionalCommands), are copied, too. 
+	 * 
+	 * @param commandMap - receives the copy of each Command; may be used to map other references, e.g. of {@link DisplayLine}s
+	 * @param additionalCommands - further Commands to be copied, or null
+	 */
+	public final Code createCopy(Map<Command, Command> commandMap, Collection<Command> additionalCommands) {
+		Code copy = new Code(sourceName, codeText, abapRelease, cleanupRange, null);
+		copy.indentOfFirstCommand = indentOfFirstCommand;
+		copy.commandCount = commandCount;
+		copy.classStartCount = classStartCount;
+		copy.methodFunctionOrFormStartCount = methodFunctionOrFormStartCount;
+		copy.methodFunctionFormOrEventBlockStartCount = methodFunctionFormOrEventBlockStartCount;
+		copy.hasIntroductoryStatement = hasIntroductoryStatement;
+		copy.modificationEpoch.set(modificationEpoch.get());
+		// the RND Parser results only depend on the source texts and Token layouts, so they can be shared with the copy 
+		copy.rndErrorCountOfKey = rndErrorCountOfKey;
+
+		// determine all Commands that are reachable from this Code or from the additional Commands
+		ArrayDeque<Command> commandsToVisit = new ArrayDeque<>();
+		Command command = firstCommand;
+		while (command != null) {
+			commandsToVisit.add(command);
+			command = command.getNext();
+		}
+		if (additionalCommands != null) {
+			for (Command additionalCommand : additionalCommands) {
+				if (additionalCommand != null) {
+					commandsToVisit.add(additionalCommand);
+				}
+			}
+		}
+
+		// copy the ChangeControls in the same way as they are shared between Commands and Code
+		IdentityHashMap<ChangeControl, ChangeControl> changeControlMap = new IdentityHashMap<>();
+		for (Map.Entry<Integer, ChangeControl> entry : changeControlOfSourceLineStart.entrySet()) {
+			copy.changeControlOfSourceLineStart.put(entry.getKey(), changeControlMap.computeIfAbsent(entry.getValue(), ChangeControl::createCopy));
+		}
+
+		// copy the Commands and Tokens, then set their references to each other
+		IdentityHashMap<Token, Token> tokenMap = new IdentityHashMap<>();
+		ArrayList<Command> copiedCommands = new ArrayList<>();
+		while (!commandsToVisit.isEmpty()) {
+			command = commandsToVisit.poll();
+			if (commandMap.containsKey(command))
+				continue;
+			commandMap.put(command, Command.createCopy(command, copy, tokenMap, changeControlMap));
+			copiedCommands.add(command);
+			command.addReferencedCommands(commandsToVisit);
+		}
+		for (Command model : copiedCommands) {
+			commandMap.get(model).copyReferencesFrom(model, commandMap, tokenMap);
+		}
+		for (Map.Entry<Token, Token> entry : tokenMap.entrySet()) {
+			entry.getValue().copyReferencesFrom(entry.getKey(), commandMap, tokenMap);
+		}
+
+		if (elidedBodyLines != null) {
+			copy.elidedBodyLines = new IdentityHashMap<>();
+			for (Map.Entry<Command, String[]> entry : elidedBodyLines.entrySet()) {
+				copy.elidedBodyLines.put(commandMap.get(entry.getKey()), entry.getValue());
+			}
+		}
+
+		copy.firstCommand = (firstCommand == null) ? null : commandMap.get(firstCommand);
+		copy.lastCommand = (lastCommand == null) ? null : commandMap.get(lastCommand);
+		return copy;
+	}
+
+	/** returns an analysis result that was stored by a Rule with {@link #setRuleAnalysis(Class, Object)} for reuse by other Rules, 
+	 * or null if no such analysis exists for this Code; the Rule that reuses it is responsible for checking whether it is still valid */
+	public final synchronized <T> T getRuleAnalysis(Class<T> analysisClass) {
+		return (ruleAnalyses == null) ? null : analysisClass.cast(ruleAnalyses.get(analysisClass));
+	}
+
+	/** stores an analysis result for reuse by other Rules, cp. {@link #getRuleAnalysis(Class)}; such results are not copied with the Code */
+	public final synchronized void setRuleAnalysis(Class<?> analysisClass, Object analysis) {
+		if (ruleAnalyses == null)
+			ruleAnalyses = new HashMap<>();
+		ruleAnalyses.put(analysisClass, analysis);
+	}
+
+	/** returns the analysis result of the supplied class, which is created with the supplied factory and stored for reuse by other Rules 
+	 * if it does not exist yet, cp. {@link #getRuleAnalysis(Class)}; this is atomic, so Rules on multiple threads get the same instance */
+	public final synchronized <T> T getOrCreateRuleAnalysis(Class<T> analysisClass, java.util.function.Supplier<T> factory) {
+		T analysis = getRuleAnalysis(analysisClass);
+		if (analysis == null) {
+			analysis = factory.get();
+			setRuleAnalysis(analysisClass, analysis);
+		}
+		return analysis;
+	}
+
 	final void appendCommand(Command newCommand) {
 		if (firstCommand == null)
 			firstCommand = newCommand;
@@ -134,14 +345,14 @@ public class Code {
 	public String toString(String lineSeparator) {
 		boolean isDdlOrDcl = isDdlOrDcl();
 		
-		StringBuilder result = new StringBuilder();
+		// reserve the expected capacity, since growing the StringBuilder would copy very large code texts several times
+		StringBuilder result = new StringBuilder((codeText == null) ? 16 : codeText.length() + 16);
 		Command command = firstCommand;
 		boolean isInBaseInfoComment = false;
 		String useLineSeparator = lineSeparator;
 		
 		while (command != null) {
-			String commandText = command.toString(useLineSeparator); 
-			result.append(commandText);
+			appendTo(result, command, useLineSeparator);
 
 			if (isDdlOrDcl && command.isCommentLine()) {
 				if (!isInBaseInfoComment && command.firstToken.textEquals(DDL.BASE_INFO_COMMENT_START)) { 
@@ -159,6 +370,49 @@ public class Code {
 		return result.toString();
 	}
 
+	/** returns the original lines of the elided block body before the supplied Command, or null if there is none; 
+	 * throws an IllegalStateException if the (empty) lines that stand in for the body were removed from the Command, 
+	 * because the body would otherwise silently be dropped from the text */
+	private String[] getElidedBodyLines(Command command) {
+		String[] bodyLines = (elidedBodyLines == null) ? null : elidedBodyLines.get(command);
+		if (bodyLines != null && !hasLinesForElidedBody(command, bodyLines))
+			throw new IllegalStateException("the lines of an elided block body were removed before line " + Cult.format(command.getSourceLineNumStart()));
+		return bodyLines;
+	}
+
+	private static boolean hasLinesForElidedBody(Command blockEnd, String[] bodyLines) {
+		return blockEnd.getFirstTokenLineBreaks() > bodyLines.length;
+	}
+
+	/** appends the text of the supplied Command, inserting the original lines of an elided block body before it, if any */
+	private void appendTo(StringBuilder sb, Command command, String lineSeparator) {
+		String[] bodyLines = getElidedBodyLines(command);
+		if (bodyLines == null) {
+			command.appendTo(sb, lineSeparator);
+			return;
+		}
+
+		// the Command starts with the (empty) lines of the elided body, which are now replaced with the original lines
+		for (String line : bodyLines) {
+			sb.append(lineSeparator);
+			sb.append(line);
+		}
+		int commandStart = sb.length();
+		command.appendTo(sb, lineSeparator);
+		sb.delete(commandStart, commandStart + bodyLines.length * lineSeparator.length());
+	}
+
+	/** returns the length of the text of the supplied Command, including the original lines of an elided block body, if any */
+	private int getTextLength(Command command, String lineSeparator) {
+		int length = command.toString(lineSeparator).length();
+		String[] bodyLines = getElidedBodyLines(command);
+		if (bodyLines != null) {
+			for (String line : bodyLines) 
+				length += line.length();
+		}
+		return length;
+	}
+
 	public final ArrayList<DisplayLine> toDisplayLines() {
 		return toDisplayLines(0);
 	}
@@ -190,8 +444,8 @@ public class Code {
 				}
 
 				// add spaces; no TextBits are required for this
-				if (token.spacesLeft > 0)
-					line.append(StringUtil.repeatChar(' ', token.spacesLeft));
+				for (int i = 0; i < token.spacesLeft; ++i)
+					line.append(' ');
 
 				// add the Token's text, and the TextBits for coloring this text
 				int startIndex = line.length();
@@ -253,14 +507,13 @@ public class Code {
 
 		String sourceLineSep = StringUtil.inferLineSeparator(sourceCode);
 		String recompiledCodeText = this.toString(sourceLineSep);
-		if (sourceCode.equals(recompiledCodeText))
-			return null;
-
 		// in some places, a Tab is found; both SAP GUI and ADT display this as a single space
-		sourceCode = Tokenizer.removeTabs(sourceCode);
-		if (sourceCode.equals(recompiledCodeText))
+		if (equalsIgnoringTabs(sourceCode, recompiledCodeText))
 			return null;
 
+		// only for the detailed report of differences, create a copy of the source code without Tabs
+		sourceCode = sourceCode.replace('\t', ' ');
+
 		StringBuilder result = new StringBuilder();
 		String[] sourceLines = StringUtil.split(sourceCode, sourceLineSep, false);
 		String[] recompiledLines = StringUtil.split(recompiledCodeText, sourceLineSep, false);
@@ -298,6 +551,18 @@ public class Code {
 		return (result.length() == 0) ? null : result.toString();
 	}
 
+	/** returns true if the source code equals the recompiled code text, if Tabs in the source code are regarded as spaces */
+	private static boolean equalsIgnoringTabs(String sourceCode, String recompiledCodeText) {
+		if (sourceCode.length() != recompiledCodeText.length())
+			return false;
+		for (int i = 0; i < sourceCode.length(); ++i) {
+			char c = sourceCode.charAt(i);
+			if (c != recompiledCodeText.charAt(i) && (c != '\t' || recompiledCodeText.charAt(i) != ' '))
+				return false;
+		}
+		return true;
+	}
+
 	public final void addRuleUses(Rule rule, Command[] commands) {
 		if (commands != null) {
 			for (Command command : commands)
@@ -349,6 +614,15 @@ public class Code {
 		check(lastCommand == null || lastCommand.getNext() == null);
 		check(lastCommand == null || lastCommand.getNextSibling() == null);
 
+		// the Commands after elided block bodies must keep the (empty) lines that stand in for the bodies, cp. CodeSkeleton
+		if (elidedBodyLines != null) {
+			for (Map.Entry<Command, String[]> entry : elidedBodyLines.entrySet()) {
+				Command blockEnd = entry.getKey();
+				if (blockEnd.wasRemovedFromCode() || !hasLinesForElidedBody(blockEnd, entry.getValue()))
+					throw new IntegrityBrokenException(blockEnd, "the lines of an elided block body were removed");
+			}
+		}
+
 		if (!deep)
 			return;
 		
@@ -380,40 +654,83 @@ public class Code {
 	public final void checkSyntax(boolean afterCleanup) throws IntegrityBrokenException {
 		final int maxErrorLinesToReport = 10;
 		
-		TokenTypeRefinerRnd rndParser = Program.getRndParser();
-		if (rndParser == null)
+		if (Program.getRndParser() == null)
 			return;
 
-		StringBuilder sbLine = new StringBuilder();
-		int errorCommandCount = 0;
-		String firstErrorDetails = null;
-		
+		// determine the Commands that need to be parsed: Commands with a source text and Token layout that was already parsed before 
+		// (typically, because no Rule changed them) can be skipped if the number of errors found then is acceptable
+		ArrayList<Command> commandsToParse = new ArrayList<>();
+		ArrayList<String> rndSources = new ArrayList<>();
 		Command command = firstCommand;
 		while (command != null) {
 			if (command.isInCleanupRange()) {
-				RndParseResult rndParseResult;
-				try {
-					rndParseResult = rndParser.getRndParseResult(command);
-				} catch (ParseException e) {
-					throw new IntegrityBrokenException(command, e.getMessage());
-				}
-				if (rndParseResult != null) {
+				String rndSource = TokenTypeRefinerRnd.getRndSource(command);
+				if (rndSource != null) {
 					int allowedErrorCount = afterCleanup ? command.getErrorTokenCountBeforeCleanup() : 0;
-					if (rndParseResult.errorTokenCount > allowedErrorCount) {
-						++errorCommandCount;
-						if (errorCommandCount > 1)
-							sbLine.append(", ");
-						sbLine.append(Cult.format(command.getSourceLineNumStart()));
-						if (firstErrorDetails == null)
-							firstErrorDetails = rndParseResult.getFirstErrorDetails();
-						if (errorCommandCount >= maxErrorLinesToReport) {
-							break;
-						}
+					Integer knownErrorCount = rndErrorCountOfKey.get(TokenTypeRefinerRnd.getRndCacheKey(command, rndSource));
+					if (knownErrorCount == null || knownErrorCount.intValue() > allowedErrorCount) {
+						commandsToParse.add(command);
+						rndSources.add(rndSource);
 					}
 				}
 			}
 			command = command.getNext();
 		}
+
+		// parse the Commands independently of each other; for larger numbers of Commands, the threads of the syntax check pool 
+		// help the current thread, each with its own RND Parser instance (cp. Program.getRndParser()), while reading the Code is thread-safe
+		int parseCount = commandsToParse.size();
+		RndParseResult[] rndParseResults = new RndParseResult[parseCount];
+		ParseException[] parseExceptions = new ParseException[parseCount];
+		if (parseCount < MIN_COMMAND_COUNT_FOR_PARALLEL_SYNTAX_CHECK) {
+			parseCommands(commandsToParse, rndSources, 0, 1, rndParseResults, parseExceptions);
+		} else {
+			final int step = SYNTAX_CHECK_THREAD_COUNT + 1;
+			ArrayList<Future<?>> futures = new ArrayList<>();
+			ExecutorService executor = getSyntaxCheckExecutor();
+			for (int threadIndex = 1; threadIndex < step; ++threadIndex) {
+				final int startIndex = threadIndex;
+				futures.add(executor.submit(() -> parseCommands(commandsToParse, rndSources, startIndex, step, rndParseResults, parseExceptions)));
+			}
+			parseCommands(commandsToParse, rndSources, 0, step, rndParseResults, parseExceptions);
+			try {
+				for (Future<?> future : futures)
+					future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IntegrityBrokenException(this, "syntax check was interrupted");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException)e.getCause();
+				throw new IntegrityBrokenException(this, "syntax check failed: " + e.getCause().getMessage());
+			}
+		}
+
+		// evaluate the results in the sequence of the Commands
+		StringBuilder sbLine = new StringBuilder();
+		int errorCommandCount = 0;
+		String firstErrorDetails = null;
+		for (int index = 0; index < parseCount; ++index) {
+			command = commandsToParse.get(index);
+			if (parseExceptions[index] != null) 
+				throw new IntegrityBrokenException(command, parseExceptions[index].getMessage());
+
+			RndParseResult rndParseResult = rndParseResults[index];
+			if (rndParseResult != null) {
+				int allowedErrorCount = afterCleanup ? command.getErrorTokenCountBeforeCleanup() : 0;
+				if (rndParseResult.errorTokenCount > allowedErrorCount) {
+					++errorCommandCount;
+					if (errorCommandCount > 1)
+						sbLine.append(", ");
+					sbLine.append(Cult.format(command.getSourceLineNumStart()));
+					if (firstErrorDetails == null)
+						firstErrorDetails = rndParseResult.getFirstErrorDetails();
+					if (errorCommandCount >= maxErrorLinesToReport) {
+						break;
+					}
+				}
+			}
+		}
 		if (errorCommandCount > 0) {
 			String message = (errorCommandCount == 1) ? "line " : "lines ";
 			message += sbLine.toString() + ": syntax error" + (afterCleanup ? " after cleanup" : "");
@@ -426,7 +743,20 @@ public class Code {
 		}
 	}
 	
-	final ChangeControl getChangeControl(int sourceTextStart, int sourceTextEnd) {
+	/** parses the Commands at startIndex, startIndex + step, startIndex + 2 * step etc. with the RND Parser of the current thread */
+	private static void parseCommands(ArrayList<Command> commands, ArrayList<String> rndSources, int startIndex, int step, 
+			RndParseResult[] rndParseResults, ParseException[] parseExceptions) {
+		TokenTypeRefinerRnd rndParser = Program.getRndParser();
+		for (int index = startIndex; index < commands.size(); index += step) {
+			try {
+				rndParseResults[index] = rndParser.getRndParseResult(commands.get(index), rndSources.get(index));
+			} catch (ParseException e) {
+				parseExceptions[index] = e;
+			}
+		}
+	}
+
+	final synchronized ChangeControl getChangeControl(int sourceTextStart, int sourceTextEnd) {
 		if (changeControlOfSourceLineStart.containsKey(sourceTextStart)) 
 			return changeControlOfSourceLineStart.get(sourceTextStart);
 		ChangeControl newChangeControl = new ChangeControl(sourceTextStart, sourceTextEnd);
@@ -528,7 +858,7 @@ public class Code {
 
 		// determine the char and line range of the selection that was cleaned up 
 		while (command != null) {
-			int commandLength = command.toString(lineSeparator).length();
+			int commandLength = getTextLength(command, lineSeparator);
 
 			// since Rules like IfBlockAtLineEndRule / IfBlockAtMethodEndRule may change the sequence of Commands, 
 			// it is not guaranteed that the Commands that are in the cleanup range are still consecutive; 
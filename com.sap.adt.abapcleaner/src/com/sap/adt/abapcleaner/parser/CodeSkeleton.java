@@ -0,0 +1,299 @@
+package com.sap.adt.abapcleaner.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import com.sap.adt.abapcleaner.base.AbapCult;
+
+/**
+ * <p>Skeleton of a large code document for the cleanup of a small {@link CleanupRange}: the bodies of all METHOD, FORM and FUNCTION
+ * blocks that do not overlap with the cleanup range are replaced with empty lines, so that only the skeleton (i.e. class definitions,
+ * declarations, method frames etc.) and the blocks in the cleanup range must be parsed and analyzed by the Rules,
+ * while the line numbers of all Commands remain the same as in the whole code document.</p>
+ *
+ * <p>The skeleton is determined with a lightweight structural pre-scan that only identifies string literals, comments and statement ends.
+ * Whenever this pre-scan cannot be sure about the structure (e.g. for native SQL, AMDP methods, or string templates that span
+ * multiple lines), no skeleton is created and the whole code document is parsed. Block bodies are only replaced if their lines are
+ * reproduced unchanged by {@link Code#toString(String)} (i.e. without Tabs and without trailing whitespace after code),
+ * so that {@link Code#toString(String)} can insert the original lines again, cp. {@link #getElidedBodies()}.</p>
+ */
+public class CodeSkeleton {
+	/** minimum number of lines that must be replaced to make the skeleton worthwhile */
+	public static final int DEFAULT_MIN_ELIDED_LINE_COUNT = 200;
+
+	private static final String[] blockStartKeywords = new String[] { "METHOD", "FORM", "FUNCTION" };
+	private static final String[] blockEndKeywords = new String[] { "ENDMETHOD", "ENDFORM", "ENDFUNCTION" };
+
+	/** the original lines of a block body that were replaced with empty lines in the skeleton */
+	public static class ElidedBody {
+		/** the 1-based number of the line on which the block end (e.g. ENDMETHOD) starts */
+		public final int endLineNum;
+		/** the original lines of the block body, i.e. of the lines before {@link #endLineNum} */
+		public final String[] lines;
+
+		private ElidedBody(int endLineNum, String[] lines) {
+			this.endLineNum = endLineNum;
+			this.lines = lines;
+		}
+
+		/** returns the total length of the original lines (without line separators) */
+		public final int getTextLength() {
+			int length = 0;
+			for (String line : lines)
+				length += line.length();
+			return length;
+		}
+	}
+
+	/** a statement found by the pre-scan */
+	private static class Statement {
+		final int startLineIndex;
+		final String firstWord;
+		/** true if the statement starts at the beginning of its line (after whitespace) */
+		final boolean startsLine;
+		int endLineIndex = -1;
+		/** true if nothing but whitespace or a comment follows the period that ends this statement */
+		boolean endsLine;
+		/** the (upper case) words of the statement outside of literals and string templates */
+		final ArrayList<String> words = new ArrayList<>();
+
+		Statement(int startLineIndex, String firstWord, boolean startsLine) {
+			this.startLineIndex = startLineIndex;
+			this.firstWord = firstWord;
+			this.startsLine = startsLine;
+		}
+	}
+
+	private final String text;
+	private final ArrayList<ElidedBody> elidedBodies;
+
+	/** returns the text of the skeleton, which has the same lines as the original text, except that block bodies are replaced with empty lines */
+	public final String getText() { return text; }
+
+	public final ArrayList<ElidedBody> getElidedBodies() { return elidedBodies; }
+
+	public final int getElidedLineCount() {
+		int count = 0;
+		for (ElidedBody elidedBody : elidedBodies)
+			count += elidedBody.lines.length;
+		return count;
+	}
+
+	/**
+	 * Creates the skeleton of the supplied code text for the cleanup of the supplied range,
+	 * or returns null if no skeleton can be created or if less than minElidedLineCount lines would be replaced.
+	 * No skeleton is created for {@link CleanupRangeExpandMode#FULL_CLASS} and {@link CleanupRangeExpandMode#FULL_DOCUMENT},
+	 * since these modes expand the cleanup range beyond a single block.
+	 */
+	public static CodeSkeleton create(String codeText, CleanupRange cleanupRange, CleanupRangeExpandMode expandMode, int minElidedLineCount) {
+		if (codeText == null || cleanupRange == null)
+			return null;
+		if (cleanupRange.expandRange && (expandMode == CleanupRangeExpandMode.FULL_CLASS || expandMode == CleanupRangeExpandMode.FULL_DOCUMENT))
+			return null;
+
+		// split lines in the same way as the Tokenizer, i.e. at \n, ignoring a preceding \r
+		ArrayList<String> lines = new ArrayList<>();
+		ArrayList<String> lineEnds = new ArrayList<>();
+		int lineStart = 0;
+		while (lineStart <= codeText.length()) {
+			int lineEnd = codeText.indexOf('\n', lineStart);
+			if (lineEnd < 0) {
+				lines.add(codeText.substring(lineStart));
+				lineEnds.add("");
+				break;
+			}
+			boolean hasCr = (lineEnd > lineStart && codeText.charAt(lineEnd - 1) == '\r');
+			lines.add(codeText.substring(lineStart, hasCr ? lineEnd - 1 : lineEnd));
+			lineEnds.add(hasCr ? "\r\n" : "\n");
+			lineStart = lineEnd + 1;
+		}
+
+		ArrayList<Statement> statements = scanStatements(lines);
+		if (statements == null)
+			return null;
+
+		// determine the blocks whose bodies can be replaced
+		boolean[] isElided = new boolean[lines.size()];
+		ArrayList<ElidedBody> elidedBodies = new ArrayList<>();
+		int elidedLineCount = 0;
+		Statement blockStart = null;
+		for (Statement statement : statements) {
+			int startKeywordIndex = indexOf(blockStartKeywords, statement.firstWord);
+			int endKeywordIndex = indexOf(blockEndKeywords, statement.firstWord);
+			if (startKeywordIndex >= 0) {
+				// the statement parts of AMDP methods ('METHOD ... BY DATABASE PROCEDURE|FUNCTION') are not ABAP,
+				// and blocks must not be nested
+				if (statement.words.contains("DATABASE") || blockStart != null)
+					return null;
+				blockStart = statement;
+
+			} else if (endKeywordIndex >= 0) {
+				if (blockStart == null || indexOf(blockStartKeywords, blockStart.firstWord) != endKeywordIndex)
+					return null;
+				int bodyStartIndex = blockStart.endLineIndex + 1;
+				int bodyEndIndex = statement.startLineIndex; // exclusive
+				int blockStartLineNum = blockStart.startLineIndex + 1;
+				int blockEndLineNum = statement.endLineIndex + 1;
+				boolean overlapsCleanupRange = (blockStartLineNum <= cleanupRange.lastLine && blockEndLineNum >= cleanupRange.startLine);
+				if (!overlapsCleanupRange && blockStart.endsLine && statement.startsLine && bodyEndIndex > bodyStartIndex
+						&& areLinesReproducible(lines, bodyStartIndex, bodyEndIndex)) {
+					String[] bodyLines = new String[bodyEndIndex - bodyStartIndex];
+					for (int i = bodyStartIndex; i < bodyEndIndex; ++i) {
+						bodyLines[i - bodyStartIndex] = lines.get(i).isBlank() ? "" : lines.get(i);
+						isElided[i] = true;
+					}
+					elidedBodies.add(new ElidedBody(statement.startLineIndex + 1, bodyLines));
+					elidedLineCount += bodyLines.length;
+				}
+				blockStart = null;
+			}
+		}
+		if (elidedLineCount < Math.max(minElidedLineCount, 1))
+			return null;
+
+		StringBuilder skeletonText = new StringBuilder(codeText.length() / 2);
+		for (int i = 0; i < lines.size(); ++i) {
+			if (!isElided[i])
+				skeletonText.append(lines.get(i));
+			skeletonText.append(lineEnds.get(i));
+		}
+		return new CodeSkeleton(skeletonText.toString(), elidedBodies);
+	}
+
+	private CodeSkeleton(String text, ArrayList<ElidedBody> elidedBodies) {
+		this.text = text;
+		this.elidedBodies = elidedBodies;
+	}
+
+	private static int indexOf(String[] keywords, String word) {
+		if (word == null)
+			return -1;
+		for (int i = 0; i < keywords.length; ++i) {
+			if (keywords[i].equals(word))
+				return i;
+		}
+		return -1;
+	}
+
+	/** returns true if the supplied lines are reproduced unchanged by {@link Code#toString(String)},
+	 * which removes trailing whitespace and may replace Tabs */
+	private static boolean areLinesReproducible(ArrayList<String> lines, int startIndex, int endIndex) {
+		for (int i = startIndex; i < endIndex; ++i) {
+			String line = lines.get(i);
+			if (line.indexOf('\t') >= 0 || line.indexOf('\r') >= 0)
+				return false;
+			if (!line.isEmpty() && !line.isBlank() && Character.isWhitespace(line.charAt(line.length() - 1)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Determines the statements of the supplied lines by identifying comments, literals, string templates and periods;
+	 * returns null if the structure is unclear, e.g. for native SQL or multi-line string templates
+	 */
+	private static ArrayList<Statement> scanStatements(ArrayList<String> lines) {
+		ArrayList<Statement> statements = new ArrayList<>();
+		Statement statement = null;
+
+		for (int lineIndex = 0; lineIndex < lines.size(); ++lineIndex) {
+			String line = lines.get(lineIndex);
+			if (line.startsWith("*"))
+				continue;
+
+			// modes: 'c' = code, 't' = string template; nested templates and their embedded expressions are kept on the stack
+			ArrayDeque<Character> modes = new ArrayDeque<>();
+			boolean isLineStart = true;
+			int pos = 0;
+			while (pos < line.length()) {
+				char c = line.charAt(pos);
+				if (!modes.isEmpty() && modes.peek() == 't') {
+					if (c == '\\') {
+						pos += 2;
+						continue;
+					} else if (c == '{') {
+						modes.push('c');
+					} else if (c == '|') {
+						modes.pop();
+					}
+					++pos;
+					continue;
+				}
+
+				if (Character.isWhitespace(c)) {
+					++pos;
+					continue;
+				}
+				if (c == '"')
+					break;
+				if (c == '}' && !modes.isEmpty()) {
+					modes.pop();
+					++pos;
+					continue;
+				}
+
+				if (statement == null) {
+					String firstWord = readWord(line, pos);
+					statement = new Statement(lineIndex, firstWord, isLineStart);
+					// native SQL may contain periods and quotation marks with a different meaning
+					if (firstWord != null && firstWord.equals("EXEC"))
+						return null;
+				}
+				isLineStart = false;
+
+				if (c == '\'' || c == '`') {
+					int literalEnd = line.indexOf(c, pos + 1);
+					if (literalEnd < 0)
+						return null;
+					pos = literalEnd + 1;
+				} else if (c == '|') {
+					modes.push('t');
+					++pos;
+				} else if (c == '.' && modes.isEmpty()) {
+					statement.endLineIndex = lineIndex;
+					statement.endsLine = isRestEmptyOrComment(line, pos + 1);
+					statements.add(statement);
+					statement = null;
+					++pos;
+				} else {
+					String word = readWord(line, pos);
+					if (word == null) {
+						++pos;
+					} else {
+						if (modes.isEmpty())
+							statement.words.add(word);
+						pos += word.length();
+					}
+				}
+			}
+			// string templates and their embedded expressions that span multiple lines are not analyzed
+			if (!modes.isEmpty())
+				return null;
+		}
+		return statements;
+	}
+
+	/** returns the (upper case) ABAP word at the supplied position, or null if no word starts there */
+	private static String readWord(String line, int pos) {
+		int end = pos;
+		while (end < line.length() && isWordChar(line.charAt(end)))
+			++end;
+		return (end == pos) ? null : AbapCult.toUpper(line.substring(pos, end));
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '/' || c == '~' || c == '<' || c == '>' || c == '%' || c == '$' || c == '*';
+	}
+
+	private static boolean isRestEmptyOrComment(String line, int pos) {
+		while (pos < line.length()) {
+			char c = line.charAt(pos);
+			if (c == '"')
+				return true;
+			if (!Character.isWhitespace(c))
+				return false;
+			++pos;
+		}
+		return true;
+	}
+}
@@ -6,6 +6,7 @@ import com.sap.adt.abapcleaner.programbase.*;
 import com.sap.adt.abapcleaner.rulebase.RuleID;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>From ABAP cleaner perspective, any ABAP {@link Code} consists of a sequence of Commands.
@@ -48,7 +49,7 @@ public class Command {
 	private static LevelCloser ddlLevelCloserSelect;
 
 	// provides runtime-unique IDs of Command instances for serialization
-	private static int globalID = 0;
+	private static final AtomicInteger globalID = new AtomicInteger();
 
 	private Code parentCode;
 	private final int iD;
@@ -100,6 +101,9 @@ public class Command {
 
 	/** the number of tokens in this command that were rated with ErrorState.Erroneous by the RND Parser when the Command was first parsed */
 	private int errorCountBeforeCleanup;
+
+	/** cp. {@link #getModificationEpoch()} */
+	private int modificationEpoch;
 	
 	public final Code getParentCode() { return parentCode; }
 	final void setParentCode(Code value) { parentCode = value; }
@@ -577,7 +581,7 @@ public class Command {
 		this.firstToken = firstToken;
 		lastToken = firstToken;
 		tokenCount = 1;
-		iD = ++globalID;
+		iD = globalID.incrementAndGet();
 		this.language = language;
 		
 		this.originalCommand = originalCommand;
@@ -585,6 +589,70 @@ public class Command {
 		if (appendToCode)
 			parentCode.appendCommand(this);
 		firstToken.setParentCommand(this);
+		markModified();
+	}
+
+	/** creates a copy of the supplied Command and its Tokens (which are added to tokenMap) for the supplied copy of its parent Code; 
+	 * references to other Commands are set with {@link #copyReferencesFrom(Command, Map, Map)} */
+	static Command createCopy(Command model, Code parentCode, Map<Token, Token> tokenMap, Map<ChangeControl, ChangeControl> changeControlMap) {
+		return new Command(model, parentCode, tokenMap, changeControlMap);
+	}
+
+	private Command(Command model, Code parentCode, Map<Token, Token> tokenMap, Map<ChangeControl, ChangeControl> changeControlMap) {
+		this.parentCode = parentCode;
+		iD = globalID.incrementAndGet();
+
+		Token token = model.firstToken;
+		while (token != null) {
+			tokenMap.put(token, Token.createCopy(token));
+			if (token == model.lastToken)
+				break;
+			token = token.getNext();
+		}
+		tokenCount = model.tokenCount;
+
+		blockLevelDiff = model.blockLevelDiff;
+		initialBlockLevel = model.initialBlockLevel;
+		indentAdd = model.indentAdd;
+		sourceTextStart = model.sourceTextStart;
+		sourceTextEnd = model.sourceTextEnd;
+		sourceLineBreaksBefore = model.sourceLineBreaksBefore;
+		sourceLineNumStart = model.sourceLineNumStart;
+		sourceLineNumLast = model.sourceLineNumLast;
+		language = model.language;
+		if (model.changeControl != null)
+			changeControl = changeControlMap.computeIfAbsent(model.changeControl, ChangeControl::createCopy);
+		usedLevelOpener = model.usedLevelOpener;
+		usedLevelCloser = model.usedLevelCloser;
+		chainColonCount = model.chainColonCount;
+		errorCountBeforeCleanup = model.errorCountBeforeCleanup;
+		modificationEpoch = model.modificationEpoch;
+		isClassDefinitionStart = model.isClassDefinitionStart;
+		isClassImplementationStart = model.isClassImplementationStart;
+	}
+
+	/** sets the references of this copy to the copies of the Commands and Tokens that the model refers to (cp. {@link Code#createCopy(Map, Collection)}) */
+	final void copyReferencesFrom(Command model, Map<Command, Command> commandMap, Map<Token, Token> tokenMap) {
+		parent = (model.parent == null) ? null : commandMap.get(model.parent);
+		prev = (model.prev == null) ? null : commandMap.get(model.prev);
+		next = (model.next == null) ? null : commandMap.get(model.next);
+		prevSibling = (model.prevSibling == null) ? null : commandMap.get(model.prevSibling);
+		nextSibling = (model.nextSibling == null) ? null : commandMap.get(model.nextSibling);
+		firstChild = (model.firstChild == null) ? null : commandMap.get(model.firstChild);
+		lastChild = (model.lastChild == null) ? null : commandMap.get(model.lastChild);
+		originalCommand = (model.originalCommand == null) ? null : commandMap.get(model.originalCommand);
+		firstToken = (model.firstToken == null) ? null : tokenMap.get(model.firstToken);
+		lastToken = (model.lastToken == null) ? null : tokenMap.get(model.lastToken);
+	}
+
+	/** adds the Commands that this Command refers to (cp. {@link Code#createCopy(Map, Collection)}) */
+	final void addReferencedCommands(Collection<Command> commands) {
+		Command[] references = new Command[] { parent, prev, next, prevSibling, nextSibling, firstChild, lastChild, originalCommand };
+		for (Command reference : references) {
+			if (reference != null) {
+				commands.add(reference);
+			}
+		}
 	}
 
 	final void addNext(Command newCommand) throws UnexpectedSyntaxException {
@@ -718,7 +786,7 @@ public class Command {
 		if (child.hasChildren())
 			throw new UnexpectedSyntaxException(this, "Inserting a child command which itself has child commands is not supported!");
 
-		++parentCode.commandCount;
+		parentCode.addToCommandCount(1);
 
 		child.parentCode = parentCode;
 		if (parentCode.lastCommand == this) {
@@ -776,7 +844,7 @@ public class Command {
 		if (hasChildren())
 			throw new IntegrityBrokenException(this, "Inserting a right sibling to a command that has child commands is not supported!");
 
-		++parentCode.commandCount;
+		parentCode.addToCommandCount(1);
 
 		newCommand.parentCode = parentCode;
 		if (parentCode.lastCommand == this)
@@ -827,7 +895,7 @@ public class Command {
 		if (getClosesLevel())
 			throw new IntegrityBrokenException(this, "Inserting a left sibling to a command that closes a block is not supported!");
 
-		parentCode.commandCount += newSection.getCommandCountWithChildren();
+		parentCode.addToCommandCount(newSection.getCommandCountWithChildren());
 
 		newSection.setParentCode(parentCode);
 		if (parentCode.firstCommand == this)
@@ -888,7 +956,7 @@ public class Command {
 		if (hasChildren())
 			throw new IntegrityBrokenException(this, "Inserting a right sibling to a command that has child commands is not supported!");
 
-		parentCode.commandCount += newSection.getCommandCountWithChildren();
+		parentCode.addToCommandCount(newSection.getCommandCountWithChildren());
 
 		newSection.setParentCode(parentCode);
 		if (parentCode.lastCommand == this)
@@ -943,6 +1011,21 @@ public class Command {
 			firstToken = token;
 		lastToken = token;
 		++tokenCount;
+		markModified();
+	}
+
+	/** returns the modification epoch of this Command, i.e. the value of {@link Code#getModificationEpoch()} 
+	 * when this Command was created or its Tokens were last added, removed or changed; this is used to validate the analysis 
+	 * that declaration Rules share (together with a hash of the line breaks) and to count changed Commands in the RuleProfiler 
+	 * (together with the Rule uses); since whitespace changes are not reliably reflected, Rules must NOT use it to skip Commands */
+	public final int getModificationEpoch() { return modificationEpoch; }
+
+	/** must be called whenever the Tokens of this Command are added, removed or changed; note that direct changes to public fields 
+	 * such as {@link Token#spacesLeft} do NOT call this method, therefore Rules that depend on whitespace must not rely on it */
+	final void markModified() {
+		if (parentCode != null) {
+			modificationEpoch = parentCode.nextModificationEpoch();
+		}
 	}
 
 	final boolean canAdd(Token newToken, Command prevCommand) {
@@ -1878,12 +1961,17 @@ public class Command {
 	
 	public String toString(String lineSeparator) {
 		StringBuilder result = new StringBuilder();
+		appendTo(result, lineSeparator);
+		return result.toString();
+	}
+
+	/** appends the text of all Tokens of this Command to the supplied StringBuilder, without creating intermediate Strings */
+	final void appendTo(StringBuilder sb, String lineSeparator) {
 		Token token = firstToken;
 		while (token != null) {
-			result.append(token.toString(lineSeparator));
+			token.appendTo(sb, lineSeparator);
 			token = token.getNext();
 		}
-		return result.toString();
 	}
 
 	public String toStringForErrorMessage(boolean showLineBreaks) {
@@ -2098,7 +2186,7 @@ public class Command {
 		if (getClosesLevel())
 			throw new IntegrityBrokenException(this, "cannot insert a left sibling to a command that closes a level");
 
-		++parentCode.commandCount;
+		parentCode.addToCommandCount(1);
 
 		newCommand.parentCode = parentCode;
 		if (parentCode.firstCommand == this)
@@ -2236,7 +2324,7 @@ public class Command {
 			parentCode.firstCommand = next;
 		if (parentCode.lastCommand == this)
 			parentCode.lastCommand = prev;
-		--parentCode.commandCount;
+		parentCode.addToCommandCount(-1);
 
 		if (parent != null) {
 			if (parent.firstChild == this && parent.lastChild == this) {
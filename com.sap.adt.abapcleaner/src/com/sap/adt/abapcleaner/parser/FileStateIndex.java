@@ -0,0 +1,244 @@
+package com.sap.adt.abapcleaner.parser;
+
+import com.sap.adt.abapcleaner.base.*;
+import com.sap.adt.abapcleaner.programbase.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Persisted index of the source and target files of an incremental cleanup of multiple files (--sourcedir --incremental),
+ * which allows repeated runs to skip all files that were not changed since the last run without even reading them.</p>
+ *
+ * <p>For each source file (identified by its path relative to the source directory), the index stores the size,
+ * modification time and content hash of the source file, as well as the size and modification time of the target file
+ * that was written (or found to be up to date) for it. A source file is up to date if the cleanup settings are the same as
+ * in the last run, its target file is unchanged, and either its size and modification time or (e.g. after a checkout
+ * that only touched the file) its content hash are unchanged, cp. {@link #isUpToDate(String, String, String)} and
+ * {@link #isUpToDate(String, String, String, String)}.</p>
+ *
+ * <p>Only the files that were checked in the current run are saved, so entries of deleted files are dropped.</p>
+ */
+public class FileStateIndex {
+	public static final String DEFAULT_FOLDER = "index";
+
+	private static final String FILE_EXTENSION = ".cfj";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	private static final int REQUIRED_VERSION = 1;
+
+	private static final String KEY_SETTINGS_KEY = "settingsKey";
+	private static final String KEY_ENTRY_COUNT = "entryCount";
+	private static final String KEY_ENTRIES = "entries";
+	private static final String KEY_PATH = "path";
+	private static final String KEY_SIZE = "size";
+	private static final String KEY_LAST_MODIFIED = "lastModified";
+	private static final String KEY_CONTENT_HASH = "contentHash";
+	private static final String KEY_TARGET_SIZE = "targetSize";
+	private static final String KEY_TARGET_LAST_MODIFIED = "targetLastModified";
+
+	private static class FileState {
+		final long size;
+		final long lastModified;
+		final String contentHash;
+		final long targetSize;
+		final long targetLastModified;
+
+		FileState(long size, long lastModified, String contentHash, long targetSize, long targetLastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.contentHash = contentHash;
+			this.targetSize = targetSize;
+			this.targetLastModified = targetLastModified;
+		}
+
+		boolean isTargetUnchanged(Persistency persistency, String targetPath) {
+			return targetSize >= 0 && persistency.getFileSize(targetPath) == targetSize && persistency.getLastModified(targetPath) == targetLastModified;
+		}
+	}
+
+	private final String path;
+	private final String settingsKey;
+	/** the states from the last run; only read after loading */
+	private final HashMap<String, FileState> lastStates = new HashMap<>();
+	/** the states of the files that were checked in the current run, which will be saved */
+	private final ConcurrentHashMap<String, FileState> states = new ConcurrentHashMap<>();
+	/** the content hashes of source files that were read in the current run and must be updated after their target was written */
+	private final ConcurrentHashMap<String, String> pendingContentHashes = new ConcurrentHashMap<>();
+
+	private int checkedCount;
+	private int upToDateCount;
+
+	public final String getPath() { return path; }
+
+	public final synchronized int getCheckedCount() { return checkedCount; }
+
+	public final synchronized int getUpToDateCount() { return upToDateCount; }
+
+	public final synchronized String getStatistics() {
+		return "file index: " + Cult.format(upToDateCount) + " of " + Cult.format(checkedCount) + " files up to date";
+	}
+
+	// -------------------------------------------------------------------------
+
+	/** returns the default path of the index for the supplied source and target directory under the work directory of the supplied Persistency */
+	public static String getDefaultPath(Persistency persistency, String sourceDir, String targetDir) {
+		String fileName = CleanupResultCache.getHash(sourceDir, targetDir) + FILE_EXTENSION;
+		return persistency.combinePaths(persistency.getWorkDir(), CleanupResultCache.DEFAULT_FOLDER, DEFAULT_FOLDER, fileName);
+	}
+
+	/** returns the content hash with which source files are compared */
+	public static String getContentHash(String sourceCode) {
+		return CleanupResultCache.getHash(sourceCode);
+	}
+
+	/**
+	 * loads the index from the supplied path; if the index does not exist or was created with other cleanup settings
+	 * (cp. {@link CleanupResultCache#getSettingsKey(String, CleanupRange, CleanupRangeExpandMode, com.sap.adt.abapcleaner.rulebase.Profile, int, boolean, boolean, String)}),
+	 * all files are considered as changed
+	 */
+	public static FileStateIndex load(String path, String settingsKey) {
+		FileStateIndex index = new FileStateIndex(path, settingsKey);
+		Persistency persistency = Persistency.get();
+		if (settingsKey != null && persistency.fileExists(path)) {
+			try {
+				index.read(persistency.readAllTextFromFile(path));
+			} catch (IOException | NumberFormatException e) {
+				// treat an incomplete or outdated index as empty; it will be overwritten by save()
+				index.lastStates.clear();
+			}
+		}
+		return index;
+	}
+
+	private FileStateIndex(String path, String settingsKey) {
+		this.path = path;
+		this.settingsKey = settingsKey;
+	}
+
+	private void read(String content) throws IOException {
+		if (content == null)
+			return;
+		try (ISettingsReader reader = TextSettingsReader.createFromString(content, Program.TECHNICAL_VERSION)) {
+			if (!settingsKey.equals(reader.readString(KEY_SETTINGS_KEY)))
+				return;
+			int entryCount = reader.readInt32(KEY_ENTRY_COUNT);
+			reader.startArray(KEY_ENTRIES);
+			for (int i = 0; i < entryCount; ++i) {
+				reader.startObjectInArray();
+				String key = reader.readString(KEY_PATH);
+				long size = Long.parseLong(reader.readString(KEY_SIZE));
+				long lastModified = Long.parseLong(reader.readString(KEY_LAST_MODIFIED));
+				String contentHash = reader.readString(KEY_CONTENT_HASH);
+				long targetSize = Long.parseLong(reader.readString(KEY_TARGET_SIZE));
+				long targetLastModified = Long.parseLong(reader.readString(KEY_TARGET_LAST_MODIFIED));
+				reader.closeObjectInArray();
+				lastStates.put(key, new FileState(size, lastModified, contentHash, targetSize, targetLastModified));
+			}
+			reader.closeArray();
+		}
+	}
+
+	/**
+	 * returns true if the source file with the supplied key (i.e. its path relative to the source directory) has the same size and
+	 * modification time as in the last run, and its target file is unchanged; this check does not read the source file
+	 */
+	public final boolean isUpToDate(String key, String sourcePath, String targetPath) {
+		Persistency persistency = Persistency.get();
+		FileState lastState = lastStates.get(key);
+		boolean isUpToDate = lastState != null
+				&& persistency.getFileSize(sourcePath) == lastState.size && persistency.getLastModified(sourcePath) == lastState.lastModified
+				&& lastState.isTargetUnchanged(persistency, targetPath);
+		if (isUpToDate)
+			states.put(key, lastState);
+		countCheck(isUpToDate);
+		return isUpToDate;
+	}
+
+	/**
+	 * returns true if the source file with the supplied key has the same content as in the last run and its target file is unchanged,
+	 * to be called after {@link #isUpToDate(String, String, String)} returned false and the source file was read;
+	 * if false is returned, {@link #update(String, String, String)} must be called after the target file was written
+	 */
+	public final boolean isUpToDate(String key, String sourcePath, String sourceCode, String targetPath) {
+		Persistency persistency = Persistency.get();
+		String contentHash = getContentHash(sourceCode);
+		FileState lastState = lastStates.get(key);
+		boolean isUpToDate = lastState != null && contentHash != null && contentHash.equals(lastState.contentHash)
+				&& lastState.isTargetUnchanged(persistency, targetPath);
+		if (isUpToDate) {
+			states.put(key, new FileState(persistency.getFileSize(sourcePath), persistency.getLastModified(sourcePath), contentHash, lastState.targetSize, lastState.targetLastModified));
+			countUpToDate();
+		} else if (contentHash != null) {
+			pendingContentHashes.put(key, contentHash);
+		}
+		return isUpToDate;
+	}
+
+	/** records the current state of the source and target file after the target file was written (or found to be identical) */
+	public final void update(String key, String sourcePath, String targetPath) {
+		String contentHash = pendingContentHashes.remove(key);
+		if (contentHash == null)
+			return;
+		Persistency persistency = Persistency.get();
+		long targetSize = persistency.getFileSize(targetPath);
+		if (targetSize < 0)
+			return;
+		states.put(key, new FileState(persistency.getFileSize(sourcePath), persistency.getLastModified(sourcePath), contentHash, targetSize, persistency.getLastModified(targetPath)));
+	}
+
+	private synchronized void countCheck(boolean isUpToDate) {
+		++checkedCount;
+		if (isUpToDate)
+			++upToDateCount;
+	}
+
+	private synchronized void countUpToDate() {
+		++upToDateCount;
+	}
+
+	/** saves the states of all files that were checked in the current run; returns false if the index could not be saved */
+	public final boolean save() {
+		if (settingsKey == null)
+			return false;
+
+		ISettingsWriter writer;
+		try {
+			writer = TextSettingsWriter.createForString(Program.TECHNICAL_VERSION, REQUIRED_VERSION);
+			writer.write(KEY_SETTINGS_KEY, settingsKey);
+			TreeMap<String, FileState> sortedStates = new TreeMap<>(states);
+			writer.write(KEY_ENTRY_COUNT, sortedStates.size());
+			writer.startArray(KEY_ENTRIES);
+			for (Map.Entry<String, FileState> entry : sortedStates.entrySet()) {
+				FileState state = entry.getValue();
+				writer.startObjectInArray();
+				writer.write(KEY_PATH, entry.getKey());
+				writer.write(KEY_SIZE, String.valueOf(state.size));
+				writer.write(KEY_LAST_MODIFIED, String.valueOf(state.lastModified));
+				writer.write(KEY_CONTENT_HASH, state.contentHash);
+				writer.write(KEY_TARGET_SIZE, String.valueOf(state.targetSize));
+				writer.write(KEY_TARGET_LAST_MODIFIED, String.valueOf(state.targetLastModified));
+				writer.closeObjectInArray();
+			}
+			writer.closeArray();
+			writer.close();
+		} catch (IOException e) {
+			return false;
+		}
+		String content = writer.getStringResult();
+
+		// write to a temporary file first, so an interrupted save never leaves an incomplete index
+		Persistency persistency = Persistency.get();
+		String tempPath = path + TEMP_FILE_EXTENSION;
+		persistency.ensureDirectoryExistsForPath(path);
+		if (!persistency.writeAllTextToFile(tempPath, content))
+			return false;
+		if (persistency.fileExists(path))
+			persistency.deleteFile(path);
+		if (!persistency.renameFile(tempPath, path)) {
+			persistency.deleteFile(tempPath);
+			return false;
+		}
+		return true;
+	}
+}
@@ -16,6 +16,9 @@ public class ParseParams {
 	public final int lineNumOffset;
 	public final int surroundingTextOffset;
 	public final Code surroundingCode;
+	/** true if only the {@link CodeSkeleton} of the code document and the blocks in the cleanup range shall be parsed,
+	 * if possible; only relevant for large code documents */
+	public final boolean limitParsingToRange;
 
 	/** Create parse parameters for parsing a new ABAP code document */
 	public static ParseParams createForWholeCode(String sourceName, String codeText, String abapRelease) {
@@ -27,6 +30,13 @@ public class ParseParams {
 		return new ParseParams(sourceName, codeText, abapRelease, cleanupRange, cleanupRangeExpandMode, 1, 0, null);
 	}
 
+	/** Create parse parameters for the automatic cleanup of a cleanup range in a new ABAP code document, for which the resulting {@link Code}
+	 * is only used to retrieve the cleaned code text; for large code documents, the code outside the cleanup range is then not parsed in detail,
+	 * cp. {@link CodeSkeleton} */
+	public static ParseParams createForRangeLimitedCleanup(String sourceName, String codeText, String abapRelease, CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode) {
+		return new ParseParams(sourceName, codeText, abapRelease, cleanupRange, cleanupRangeExpandMode, 1, 0, null, true);
+	}
+
 	/** Create parse parameters for parsing a new ABAP code document inside a Unit Test */
 	public static ParseParams createForTest(String codeText, String abapRelease) {
 		return new ParseParams("test", codeText, abapRelease, null, CleanupRangeExpandMode.FULL_DOCUMENT, 1, 0, null);
@@ -43,6 +53,11 @@ public class ParseParams {
 	}
 	
 	private ParseParams(String sourceName, String codeText, String abapRelease, CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode, int lineNumOffset, int surroundingTextOffset, Code surroundingCode) {
+		this(sourceName, codeText, abapRelease, cleanupRange, cleanupRangeExpandMode, lineNumOffset, surroundingTextOffset, surroundingCode, false);
+	}
+
+	private ParseParams(String sourceName, String codeText, String abapRelease, CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode, int lineNumOffset, int surroundingTextOffset, Code surroundingCode, 
+			boolean limitParsingToRange) {
 		this.sourceName = sourceName;
 		this.codeText = codeText;
 		this.abapRelease = abapRelease;
@@ -51,5 +66,6 @@ public class ParseParams {
 		this.lineNumOffset = lineNumOffset;
 		this.surroundingTextOffset = surroundingTextOffset;
 		this.surroundingCode = surroundingCode;
+		this.limitParsingToRange = limitParsingToRange;
 	}
 }
\ No newline at end of file
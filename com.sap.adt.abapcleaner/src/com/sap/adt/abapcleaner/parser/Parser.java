@@ -1,24 +1,32 @@
 package com.sap.adt.abapcleaner.parser;
 
+import java.io.UncheckedIOException;
+
 import com.sap.adt.abapcleaner.base.*;
 import com.sap.adt.abapcleaner.programbase.*;
 
 /**
- * Parses the ABAP code string that is supplied to the {@link #Parser(String)} constructor into {@link Token}s 
+ * Parses the ABAP code string (or the {@link SourceBuffer}) that is supplied to the {@link #create(String)} method into {@link Token}s 
  * and {@link Command}s, and appends them to the {@link Code} instance which was supplied to the 
  * {@link #parse(IProgress, Code)} and {@link #parse(IProgress, Code, int, int)} methods.
  */
 class Parser {
-	private String text;
+	private SourceBuffer text;
 	private Command curCommand;
 	private Command lastCommand;
 	private Token lastToken;
 
 	static Parser create(String text) {
+		if (text == null)
+			throw new NullPointerException("text");
+		return new Parser(SourceBuffer.create(text));
+	}
+	
+	static Parser create(SourceBuffer text) {
 		return new Parser(text);
 	}
 	
-	private Parser(String text) {
+	private Parser(SourceBuffer text) {
 		if (text == null)
 			throw new NullPointerException("text");
 		this.text = text; 
@@ -29,7 +37,13 @@ class Parser {
 	}
 
 	final Code parse(IProgress progress, Code code, int lineNumOffset, int surroundingTextOffset) throws ParseException {
-		Tokenizer tokenizer = new Tokenizer(text, lineNumOffset, progress);
+		// the Tokenizer already reads the start of the text to determine its language 
+		Tokenizer tokenizer;
+		try {
+			tokenizer = new Tokenizer(text, lineNumOffset, progress);
+		} catch (UncheckedIOException ex) {
+			throw new ParseException(code, lineNumOffset, getReadErrorMessage(ex));
+		}
 		if (!tokenizer.isLanguageSupported())
 			throw new ParseException(code, "This language is not supported by " + Program.PRODUCT_NAME + "!", true);
 
@@ -47,7 +61,7 @@ class Parser {
 				if (token == null) {
 					// finalize the last Command 
 					if (curCommand != null) {
-						finalizeCommand(surroundingTextOffset + commandStart, surroundingTextOffset + text.length());
+						finalizeCommand(surroundingTextOffset + commandStart, surroundingTextOffset + tokenizer.getTextLength());
 					}
 					break;
 				}
@@ -114,10 +128,16 @@ class Parser {
 
 		} catch (UnexpectedSyntaxException ex) {
 			throw new ParseException(code, tokenizer.getLineNum(), ex);
+		} catch (UncheckedIOException ex) {
+			throw new ParseException(code, tokenizer.getLineNum(), getReadErrorMessage(ex));
 		} catch (RuntimeException ex) {
 			throw new ParseException(code, tokenizer.getLineNum(), ex.getMessage());
 		}
 	}
+
+	private static String getReadErrorMessage(UncheckedIOException ex) {
+		return "code text could not be read: " + ex.getCause().getMessage();
+	}
 	
 	private void finalizeCommand(int sourceTextStart, int sourceTextEnd) throws ParseException, UnexpectedSyntaxException {
 		curCommand.finishBuild(sourceTextStart, sourceTextEnd, lastCommand);
@@ -0,0 +1,184 @@
+package com.sap.adt.abapcleaner.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.sap.adt.abapcleaner.base.StringUtil;
+import com.sap.adt.abapcleaner.programbase.Persistency;
+import com.sap.adt.abapcleaner.programbase.Program;
+
+/**
+ * <p>Stores a binary snapshot of the ABAP RND Parser after it loaded the grammar from the resources, so that short-lived processes
+ * (e.g. one command-line call per changed file) can restore the parse tables instead of streaming and processing
+ * the grammar resource again.</p>
+ *
+ * <p>The snapshot is stored in the work directory of the {@link Persistency} and is only used if it was created with the same
+ * {@link Program#TECHNICAL_VERSION} and the same grammar release. Snapshots can only be created and restored if the parser 
+ * implementation is {@link Serializable}; if it is not, or if the snapshot cannot be restored (e.g. after an update of the parser),
+ * the parser is created normally and invalid snapshots are deleted.</p>
+ * 
+ * <p>Since the snapshot is read from the user's disk, restoring it only accepts the classes of the parser's own packages 
+ * and a fixed list of JDK classes, and limits the nesting depth, number of references and array length.</p>
+ */
+public class RndParserSnapshot {
+	public static final String DEFAULT_FOLDER = "cache";
+
+	private static final String FILE_EXTENSION = ".ser";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	private static final int FORMAT_ID = 0x52504E31; // "RPN1"
+
+	/** maximum nesting depth, number of object references and array length in a snapshot, to reject corrupted files early */
+	private static final long MAX_DEPTH = 1000;
+	private static final long MAX_REFERENCES = 50_000_000L;
+	private static final long MAX_ARRAY_LENGTH = 10_000_000L;
+
+	/** package of the RND Parser runtime, whose classes may be restored from a snapshot in addition to the package of the parser class */
+	private static final String RND_RUNTIME_PACKAGE_PREFIX = "com.sap.rnd.rndrt.";
+
+	/** JDK classes which may be restored from a snapshot as parts of the parse tables; Object and Map.Entry are needed, 
+	 * because ArrayList and HashMap check the arrays they allocate for their elements against the filter */
+	private static final Set<Class<?>> allowedJdkClasses = Set.of(Object.class, String.class, Boolean.class, Character.class, Byte.class, Short.class,
+			Integer.class, Long.class, Float.class, Double.class, Number.class, Enum.class, ArrayList.class, LinkedList.class, ArrayDeque.class,
+			HashMap.class, LinkedHashMap.class, TreeMap.class, HashSet.class, LinkedHashSet.class, TreeSet.class, BitSet.class, Map.Entry.class);
+
+	/** returns the path of the snapshot for the supplied grammar release, or null if the Persistency has no work directory */
+	public static String getPath(Persistency persistency, String grammarRelease) {
+		if (persistency == null || StringUtil.isNullOrEmpty(persistency.getWorkDir()) || StringUtil.isNullOrEmpty(grammarRelease))
+			return null;
+		return persistency.combinePaths(persistency.getWorkDir(), DEFAULT_FOLDER, "grammar", "rnd_parser_" + grammarRelease + FILE_EXTENSION);
+	}
+
+	/** returns the parser restored from the snapshot at the supplied path, or null if no compatible snapshot exists */
+	public static <T> T restore(String path, String grammarRelease, Class<T> parserClass) {
+		byte[] snapshot = read(path, parserClass);
+		if (snapshot == null)
+			return null;
+
+		T parser = restoreFromContent(snapshot, grammarRelease, parserClass);
+		if (parser == null) 
+			delete(path);
+		return parser;
+	}
+
+	/** returns the content of the snapshot at the supplied path, or null if no snapshot exists or the parser class is not {@link Serializable};
+	 * the result can be passed to {@link #restoreFromContent(byte[], String, Class)} multiple times to create independent parser instances */
+	public static byte[] read(String path, Class<?> parserClass) {
+		Persistency persistency = Persistency.get();
+		if (path == null || persistency == null || !Serializable.class.isAssignableFrom(parserClass) || !persistency.fileExists(path))
+			return null;
+		return persistency.getFileSystem().readAllBytesFromFile(path);
+	}
+
+	/** returns the parser restored from the supplied snapshot content, or null if it is incompatible or corrupted */
+	public static <T> T restoreFromContent(byte[] snapshot, String grammarRelease, Class<T> parserClass) {
+		try {
+			return fromSnapshot(snapshot, grammarRelease, parserClass);
+		} catch (IOException | ClassNotFoundException | ClassCastException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/** deletes the outdated or corrupted snapshot at the supplied path, so it will be replaced with a current one */
+	public static void delete(String path) {
+		Persistency persistency = Persistency.get();
+		if (path != null && persistency != null && persistency.fileExists(path))
+			persistency.deleteFile(path);
+	}
+
+	/** saves a snapshot of the supplied parser to the supplied path, which should be called after the parser loaded the grammar;
+	 * returns false if the parser is not {@link Serializable} or the snapshot could not be written */
+	public static boolean save(String path, String grammarRelease, Object parser) {
+		Persistency persistency = Persistency.get();
+		if (path == null || persistency == null || !(parser instanceof Serializable))
+			return false;
+
+		byte[] snapshot;
+		try {
+			snapshot = toSnapshot(grammarRelease, parser);
+		} catch (IOException | RuntimeException e) {
+			// e.g. NotSerializableException for a field of the parser
+			return false;
+		}
+
+		// write to a temporary file first, so parallel processes never read an incomplete snapshot
+		String tempPath = path + "." + String.valueOf(ProcessHandle.current().pid()) + TEMP_FILE_EXTENSION;
+		persistency.ensureDirectoryExistsForPath(path);
+		if (!persistency.getFileSystem().writeAllBytesToFile(tempPath, snapshot))
+			return false;
+		if (persistency.fileExists(path))
+			persistency.deleteFile(path);
+		if (!persistency.renameFile(tempPath, path)) {
+			persistency.deleteFile(tempPath);
+			return false;
+		}
+		return true;
+	}
+
+	static byte[] toSnapshot(String grammarRelease, Object parser) throws IOException {
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		try (DataOutputStream dataStream = new DataOutputStream(byteStream)) {
+			dataStream.writeInt(FORMAT_ID);
+			dataStream.writeInt(Program.TECHNICAL_VERSION);
+			dataStream.writeUTF(grammarRelease);
+			dataStream.writeUTF(parser.getClass().getName());
+			try (ObjectOutputStream objectStream = new ObjectOutputStream(dataStream)) {
+				objectStream.writeObject(parser);
+			}
+		}
+		return byteStream.toByteArray();
+	}
+
+	/** returns the parser from the supplied snapshot, or null if the snapshot is from a different version or grammar release */
+	static <T> T fromSnapshot(byte[] snapshot, String grammarRelease, Class<T> parserClass) throws IOException, ClassNotFoundException {
+		if (snapshot == null)
+			return null;
+		try (DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+			if (dataStream.readInt() != FORMAT_ID || dataStream.readInt() != Program.TECHNICAL_VERSION)
+				return null;
+			if (!dataStream.readUTF().equals(grammarRelease) || !dataStream.readUTF().equals(parserClass.getName()))
+				return null;
+			try (ObjectInputStream objectStream = new ObjectInputStream(dataStream)) {
+				objectStream.setObjectInputFilter(createFilter(parserClass));
+				return parserClass.cast(objectStream.readObject());
+			}
+		}
+	}
+
+	private static ObjectInputFilter createFilter(Class<?> parserClass) {
+		final String parserPackagePrefix = parserClass.getPackageName() + ".";
+		return filterInfo -> {
+			if (filterInfo.depth() > MAX_DEPTH || filterInfo.references() > MAX_REFERENCES || filterInfo.arrayLength() > MAX_ARRAY_LENGTH)
+				return ObjectInputFilter.Status.REJECTED;
+
+			Class<?> serialClass = filterInfo.serialClass();
+			while (serialClass != null && serialClass.isArray())
+				serialClass = serialClass.getComponentType();
+			if (serialClass == null || serialClass.isPrimitive())
+				return ObjectInputFilter.Status.UNDECIDED;
+
+			String className = serialClass.getName();
+			if (className.startsWith(parserPackagePrefix) || className.startsWith(RND_RUNTIME_PACKAGE_PREFIX) || allowedJdkClasses.contains(serialClass))
+				return ObjectInputFilter.Status.ALLOWED;
+			return ObjectInputFilter.Status.REJECTED;
+		};
+	}
+}
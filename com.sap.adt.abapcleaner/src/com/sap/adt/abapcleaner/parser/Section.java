@@ -105,7 +105,7 @@ public class Section {
 			getParentCode().firstCommand = getNext();
 		if (getParentCode().lastCommand == lastCommand)
 			getParentCode().lastCommand = getPrev();
-		getParentCode().commandCount -= getCommandCountWithChildren();
+		getParentCode().addToCommandCount(-getCommandCountWithChildren());
 
 		if (getParent() != null) {
 			if (getParent().getFirstChild() == firstCommand && getParent().getLastChild() == lastCommand) {
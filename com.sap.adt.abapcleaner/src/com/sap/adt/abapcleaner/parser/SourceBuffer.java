@@ -0,0 +1,229 @@
+package com.sap.adt.abapcleaner.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+/**
+ * <p>Provides the source code text for the {@link Tokenizer}, reading it in chunks from a {@link Reader},
+ * so that very large sources need not be kept in memory as a whole. Positions are always absolute positions in the source text;
+ * text before the position supplied to {@link #release(int)} may be discarded and must not be accessed anymore.</p>
+ *
+ * <p>Tab characters are returned as spaces (both by {@link #charAt(int)} and by {@link #substring(int, int)}),
+ * because both SAP GUI and ADT display a tab as a single space; only {@link #rawSubstring(int, int)} keeps them.</p>
+ */
+class SourceBuffer {
+	static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+	private static final int MIN_CHUNK_SIZE = 16;
+
+	private final Reader reader;
+	private final int expectedLength;
+	/** the chars from the absolute position bufferStart to bufferStart + bufferLength - 1 */
+	private char[] buffer;
+	private int bufferStart;
+	private int bufferLength;
+	/** chars before this absolute position may be discarded */
+	private int releasePos;
+	private boolean isEndOfText;
+
+	static SourceBuffer create(String text) {
+		return new SourceBuffer(new StringReader(text), text.length(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/** @param expectedLength - the (approximate) length of the text for progress reporting, or -1 if unknown */
+	static SourceBuffer create(Reader reader, int expectedLength) {
+		return new SourceBuffer(reader, expectedLength, DEFAULT_CHUNK_SIZE);
+	}
+
+	static SourceBuffer create(Reader reader, int expectedLength, int chunkSize) {
+		return new SourceBuffer(reader, expectedLength, chunkSize);
+	}
+
+	private SourceBuffer(Reader reader, int expectedLength, int chunkSize) {
+		if (reader == null)
+			throw new NullPointerException("reader");
+		this.reader = reader;
+		this.expectedLength = expectedLength;
+		// for short texts, do not allocate a full chunk
+		int initialSize = (expectedLength >= 0) ? Math.min(expectedLength + 1, chunkSize) : chunkSize;
+		this.buffer = new char[Math.max(initialSize, MIN_CHUNK_SIZE)];
+	}
+
+	/** returns the (approximate) length of the text that was supplied on creation, or -1 if unknown */
+	int getExpectedLength() {
+		return expectedLength;
+	}
+
+	/** returns true if the text has a char at the supplied position, reading further chunks if needed */
+	final boolean hasCharAt(int pos) {
+		return (pos - bufferStart < bufferLength) || load(pos);
+	}
+
+	/** returns the char at the supplied position (which must exist, cp. {@link #hasCharAt(int)}), returning tabs as spaces */
+	final char charAt(int pos) {
+		int index = getBufferIndex(pos); // may read a further chunk into a new buffer
+		char c = buffer[index];
+		return (c == '\t') ? ' ' : c;
+	}
+
+	/** returns the char at the supplied position (which must exist, cp. {@link #hasCharAt(int)}), including tabs */
+	final char rawCharAt(int pos) {
+		int index = getBufferIndex(pos); // may read a further chunk into a new buffer
+		return buffer[index];
+	}
+
+	/** returns the index in the buffer for the supplied absolute position, reading further chunks if needed */
+	private int getBufferIndex(int pos) {
+		if (pos < 0)
+			throw new IndexOutOfBoundsException("position " + String.valueOf(pos) + " is negative");
+		if (pos < bufferStart)
+			throw new IndexOutOfBoundsException("position " + String.valueOf(pos) + " was already released");
+		if (pos - bufferStart >= bufferLength && !load(pos))
+			throw new IndexOutOfBoundsException("position " + String.valueOf(pos) + " is beyond the end of the text");
+		return pos - bufferStart;
+	}
+
+	/** returns the length of the text, reading it to the end */
+	final int length() {
+		while (!isEndOfText)
+			load(bufferStart + bufferLength);
+		return bufferStart + bufferLength;
+	}
+
+	/** returns the text between the supplied positions, with tabs replaced by spaces */
+	final String substring(int start, int end) {
+		return rawSubstring(start, end).replace('\t', ' ');
+	}
+
+	/** returns the text between the supplied positions, including tabs */
+	final String rawSubstring(int start, int end) {
+		if (start < bufferStart)
+			throw new IndexOutOfBoundsException("position " + String.valueOf(start) + " was already released");
+		if (end > start && !hasCharAt(end - 1))
+			throw new IndexOutOfBoundsException(String.valueOf(end));
+		return new String(buffer, start - bufferStart, end - start);
+	}
+
+	/** allows chars before the supplied position to be discarded */
+	final void release(int pos) {
+		if (pos > releasePos)
+			releasePos = pos;
+	}
+
+	final boolean containsAt(int pos, String word) {
+		for (int i = 0; i < word.length(); ++i) {
+			if (!hasCharAt(pos + i) || charAt(pos + i) != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	final int indexOf(char c, int startPos) {
+		int pos = startPos;
+		while (hasCharAt(pos)) {
+			if (charAt(pos) == c)
+				return pos;
+			++pos;
+		}
+		return -1;
+	}
+
+	final int indexOf(String text, int startPos) {
+		int pos = startPos;
+		while (hasCharAt(pos)) {
+			if (containsAt(pos, text))
+				return pos;
+			++pos;
+		}
+		return -1;
+	}
+
+	/** returns the position of the first char which is not part of allowedChars */
+	final int indexOfNotAnyOf(String allowedChars, int startPos) {
+		int pos = startPos;
+		while (hasCharAt(pos) && allowedChars.indexOf(charAt(pos)) >= 0)
+			++pos;
+		return pos;
+	}
+
+	/** same as {@link com.sap.adt.abapcleaner.base.StringUtil#indexOfAny(String, char[], String[], int)} */
+	final int indexOfAny(char[] anyCharOf, String[] anyStringOf, int startPos) {
+		int pos = startPos;
+		while (hasCharAt(pos)) {
+			char c = charAt(pos);
+			for (char match : anyCharOf) {
+				if (c == match)
+					return pos;
+			}
+			if (anyStringOf != null) {
+				for (String match : anyStringOf) {
+					if (containsAt(pos, match))
+						return pos;
+				}
+			}
+			++pos;
+		}
+		return -1;
+	}
+
+	/** same as {@link com.sap.adt.abapcleaner.base.StringUtil#indexOfAny(String, char[], int, String[])} */
+	final int indexOfAny(char[] anyOf, int startPos, String[] skipTexts) {
+		int pos = startPos;
+		while (hasCharAt(pos)) {
+			// skip escape sequences like \\, \r, \n, \t etc.
+			boolean skip = false;
+			for (String skipText : skipTexts) {
+				if (containsAt(pos, skipText)) {
+					skip = true;
+					pos += skipText.length();
+					break;
+				}
+			}
+			if (!skip) {
+				char c = charAt(pos);
+				for (char match : anyOf) {
+					if (c == match)
+						return pos;
+				}
+				++pos;
+			}
+		}
+		return -1;
+	}
+
+	private boolean load(int pos) {
+		try {
+			while (pos - bufferStart >= bufferLength) {
+				if (isEndOfText)
+					return false;
+				if (bufferLength == buffer.length)
+					makeSpace();
+				int readCount = reader.read(buffer, bufferLength, buffer.length - bufferLength);
+				if (readCount < 0) {
+					isEndOfText = true;
+				} else {
+					bufferLength += readCount;
+				}
+			}
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void makeSpace() {
+		// discard released chars; if this does not free at least half of the buffer, enlarge it
+		int discardCount = Math.min(releasePos - bufferStart, bufferLength);
+		if (discardCount > 0) {
+			System.arraycopy(buffer, discardCount, buffer, 0, bufferLength - discardCount);
+			bufferStart += discardCount;
+			bufferLength -= discardCount;
+		}
+		if (bufferLength > buffer.length / 2) {
+			char[] newBuffer = new char[buffer.length * 2];
+			System.arraycopy(buffer, 0, newBuffer, 0, bufferLength);
+			buffer = newBuffer;
+		}
+	}
+}
@@ -273,6 +273,7 @@ public class Term {
 		if (parentCommand.lastToken == lastToken)
 			parentCommand.lastToken = getPrev();
 		parentCommand.tokenCount -= getTokenCountWithChildren();
+		parentCommand.markModified();
 
 		if (getParent() != null) {
 			if (getParent().getFirstChild() == firstToken && getParent().getLastChild() == lastToken) {
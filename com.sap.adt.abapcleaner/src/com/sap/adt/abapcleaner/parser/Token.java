@@ -64,7 +64,16 @@ public class Token {
 	private MemoryAccessType memoryAccessType = MemoryAccessType.UNKNOWN; // use lazy evaluation
 	
 	public final Command getParentCommand() { return parentCommand; }
-	final void setParentCommand(Command value) { parentCommand = value; }
+	final void setParentCommand(Command value) { 
+		parentCommand = value; 
+		markParentCommandModified();
+	}
+
+	private void markParentCommandModified() {
+		if (parentCommand != null) {
+			parentCommand.markModified();
+		}
+	}
 
 	public final Token getParent() { return parent; }
 	final void setParent(Token value) { parent = value; }
@@ -272,9 +281,20 @@ public class Token {
 	 * (see list of tokens classified as comparison operators in {@link ABAP#isComparisonOperator(String, boolean)}) 
 	 */
 	public final boolean textEquals(String compareText) {
+		// texts that are equal when ignoring the case always have the same length, so most comparisons can be decided here
+		if (compareText == null || compareText.length() != text.length())
+			return false;
 		return AbapCult.stringEquals(text, compareText, true);
 	}
 
+	/** returns true if the Token text equals the section of the supplied text from start (inclusive) to end (exclusive), ignoring the case */
+	private boolean textEqualsRange(String compareText, int start, int end) {
+		if (start == 0 && end == compareText.length())
+			return textEquals(compareText);
+		int length = end - start;
+		return (text.length() == length) && text.regionMatches(true, 0, compareText, start, length);
+	}
+
 	public final boolean textStartsWith(String prefix) {
 		return AbapCult.stringStartsWith(text, prefix, true);
 	}
@@ -380,6 +400,35 @@ public class Token {
 		}
 	}
 
+	/** creates a copy of the supplied Token without references to a Command or other Tokens, which are set with {@link #copyReferencesFrom(Token, Map, Map)} */
+	static Token createCopy(Token model) {
+		return new Token(model);
+	}
+
+	private Token(Token model) {
+		this.lineBreaks = model.lineBreaks;
+		this.spacesLeft = model.spacesLeft;
+		this.text = model.text;
+		this.sourceLineNum = model.sourceLineNum;
+		this.type = model.type;
+		this.closesLevel = model.closesLevel;
+		this.opensLevel = model.opensLevel;
+		this.collocationContinues = model.collocationContinues;
+		this.memoryAccessType = model.memoryAccessType;
+	}
+
+	/** sets the references of this copy to the copies of the Command and Tokens that the model refers to (cp. {@link Code#createCopy(Map, Collection)}) */
+	final void copyReferencesFrom(Token model, Map<Command, Command> commandMap, Map<Token, Token> tokenMap) {
+		parentCommand = (model.parentCommand == null) ? null : commandMap.get(model.parentCommand);
+		parent = (model.parent == null) ? null : tokenMap.get(model.parent);
+		prev = (model.prev == null) ? null : tokenMap.get(model.prev);
+		next = (model.next == null) ? null : tokenMap.get(model.next);
+		prevSibling = (model.prevSibling == null) ? null : tokenMap.get(model.prevSibling);
+		nextSibling = (model.nextSibling == null) ? null : tokenMap.get(model.nextSibling);
+		firstChild = (model.firstChild == null) ? null : tokenMap.get(model.firstChild);
+		lastChild = (model.lastChild == null) ? null : tokenMap.get(model.lastChild);
+	}
+
 	private static TokenType inferTypeFromAbapToken(String text) {
 		if (AbapCult.stringStartsWith(text, ABAP.COMMENT_SIGN_STRING)) { 
 			return TokenType.COMMENT;
@@ -548,15 +597,19 @@ public class Token {
 	
 	public String toString(String lineSeparator) {
 		StringBuilder result = new StringBuilder();
-		for (int i = 0; i < lineBreaks; ++i)
-			result.append(lineSeparator);
-		if (spacesLeft > 0)
-			result.append(StringUtil.repeatChar(' ', spacesLeft));
-		result.append(text);
-
+		appendTo(result, lineSeparator);
 		return result.toString();
 	}
 
+	/** appends the line breaks, spaces and text of this Token to the supplied StringBuilder, without creating an intermediate String */
+	final void appendTo(StringBuilder sb, String lineSeparator) {
+		for (int i = 0; i < lineBreaks; ++i)
+			sb.append(lineSeparator);
+		for (int i = 0; i < spacesLeft; ++i)
+			sb.append(' ');
+		sb.append(text);
+	}
+
 	/**
 	 * Checks whether this Token and the following siblings match the supplied sequence of texts.
 	 * Supplied texts may contain alternatives (separated with the TokenSearch.TEXT_MATCH_VARIANT_SEPARATOR |, e.g. "a|b|c"),
@@ -729,22 +782,25 @@ public class Token {
 	private Token getLastTokenOfPlainSequence(boolean siblingsOnly, boolean skipCommentsAndPragmas, String textWithSpaces) {
 		// textWithSpaces may contain spaces for several Tokens, e.g. "TRANSPORTING NO FIELDS"; 
 		// however, if it starts with a comment sign, it is treated as one text, e.g. ""#EC CHAIN_DECL_USAG" 
+		// the text bits are compared in place to avoid splitting textWithSpaces into new Strings for every call
 		final char space = ' ';
-		String[] textBits = textWithSpaces.startsWith(ABAP.COMMENT_SIGN_STRING) ? new String[] { textWithSpaces } : StringUtil.split(textWithSpaces, space, false);
-		return getLastTokenOfPlainSequence(siblingsOnly, skipCommentsAndPragmas, textBits);
-	}
-	
-	private Token getLastTokenOfPlainSequence(boolean siblingsOnly, boolean skipCommentsAndPragmas, String[] texts) {
+		boolean isComment = textWithSpaces.startsWith(ABAP.COMMENT_SIGN_STRING);
+		int length = textWithSpaces.length();
 		Token lastToken = null;
 		Token token = this;
-		for (String text : texts) {
-			if (token == null || !token.textEquals(text))
+		int start = 0;
+		while (start <= length) {
+			int end = isComment ? -1 : textWithSpaces.indexOf(space, start);
+			if (end < 0)
+				end = length;
+			if (token == null || !token.textEqualsRange(textWithSpaces, start, end))
 				return null;
 			lastToken = token;
 			if (siblingsOnly)
 				token = skipCommentsAndPragmas ? token.getNextCodeSibling() : token.nextSibling;
 			else
 				token = skipCommentsAndPragmas ? token.getNextCodeToken() : token.next;
+			start = end + 1;
 		}
 		return lastToken;
 	}
@@ -787,6 +843,7 @@ public class Token {
 		if (parentCommand.lastToken == this)
 			parentCommand.lastToken = prev;
 		--parentCommand.tokenCount;
+		parentCommand.markModified();
 
 		if (parent != null) {
 			if (parent.firstChild == this && parent.lastChild == this) {
@@ -1033,6 +1090,7 @@ public class Token {
 		}
 		
 		++parentCommand.tokenCount;
+		parentCommand.markModified();
 
 		newToken.parentCommand = parentCommand;
 		if (parentCommand.firstToken == this)
@@ -1157,6 +1215,7 @@ public class Token {
 		}
 
 		++parentCommand.tokenCount;
+		parentCommand.markModified();
 
 		newToken.parentCommand = parentCommand;
 		if (parentCommand.lastToken == (lastChild != null ? lastChild : this))
@@ -1251,6 +1310,7 @@ public class Token {
 		}
 
 		parentCommand.tokenCount += newTerm.getTokenCountWithChildren();
+		parentCommand.markModified();
 
 		newTerm.setParentCommand(parentCommand);
 		if (parentCommand.lastToken == (lastChild != null ? lastChild : this))
@@ -1311,6 +1371,7 @@ public class Token {
 		}
 		
 		parentCommand.tokenCount += newTerm.getTokenCountWithChildren();
+		parentCommand.markModified();
 
 		newTerm.setParentCommand(parentCommand);
 		if (parentCommand.firstToken == this)
@@ -1404,6 +1465,7 @@ public class Token {
 			return false;
 		this.lineBreaks = lineBreaks;
 		this.spacesLeft = spacesLeft;
+		markParentCommandModified();
 		return true;
 	}
 
@@ -1417,6 +1479,7 @@ public class Token {
 		if (this.lineBreaks == lineBreaks)
 			return false;
 		this.lineBreaks = lineBreaks;
+		markParentCommandModified();
 		return true;
 	}
 
@@ -1438,6 +1501,7 @@ public class Token {
 			spacesLeft = newSpacesLeft;
 			parentCommand.addIndent(addSpaceCount, minSpacesLeft, next, null, true);
 		}
+		markParentCommandModified();
 		return true;
 	}
 
@@ -1971,6 +2035,7 @@ public class Token {
 				parentCommand.addIndent(addSpaceCount, minSpacesLeft, next, null, true);
 			}
 		}
+		markParentCommandModified();
 		return true;
 	}
 
@@ -3333,6 +3398,7 @@ public class Token {
 		}
 
 		++parentCommand.tokenCount;
+		parentCommand.markModified();
 
 		newToken.parentCommand = parentCommand;
 		newToken.parent = this;
@@ -3362,6 +3428,7 @@ public class Token {
 		}
 
 		parentCommand.tokenCount += newTerm.getTokenCountWithChildren();
+		parentCommand.markModified();
 		newTerm.setParentCommand(parentCommand);
 		newTerm.setParent(this);
 		newTerm.firstToken.prev = this;
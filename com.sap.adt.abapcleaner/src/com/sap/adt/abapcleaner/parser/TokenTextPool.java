@@ -0,0 +1,79 @@
+package com.sap.adt.abapcleaner.parser;
+
+/**
+ * <p>Returns a shared String instance for short Token texts that occur repeatedly in the same source,  
+ * such as keywords, operators, and identifiers, so that the {@link Tokenizer} does not allocate a new String 
+ * (and char array) for each of the (often several hundred thousand) {@link Token}s of a large source.</p>
+ * 
+ * <p>The texts are looked up directly in the {@link SourceBuffer}, so a new String is only created for the first occurrence 
+ * of a text. Longer texts (e.g. comments and most literals) are rarely repeated and are therefore not pooled.</p>
+ */
+class TokenTextPool {
+	/** texts with more chars are not pooled */
+	static final int MAX_POOLED_LENGTH = 40;
+	
+	private static final int INITIAL_CAPACITY = 1024; // must be a power of 2
+
+	private String[] entries = new String[INITIAL_CAPACITY];
+	private int count;
+	
+	int getCount() { return count; }
+	
+	/** returns the text between the supplied positions of the SourceBuffer (with tabs replaced by spaces, cp. {@link SourceBuffer#substring(int, int)}), 
+	 * reusing a String instance that was already returned for the same text */
+	final String get(SourceBuffer text, int start, int end) {
+		int length = end - start;
+		if (length > MAX_POOLED_LENGTH || length <= 0 || !text.hasCharAt(end - 1))
+			return text.substring(start, end);
+		
+		// calculate the same hash code as String.hashCode()
+		int hash = 0;
+		for (int pos = start; pos < end; ++pos)
+			hash = 31 * hash + text.charAt(pos);
+		
+		int mask = entries.length - 1;
+		int index = mix(hash) & mask;
+		String entry;
+		while ((entry = entries[index]) != null) {
+			if (entry.hashCode() == hash && matches(entry, text, start, length))
+				return entry;
+			index = (index + 1) & mask;
+		}
+		
+		String newEntry = text.substring(start, end);
+		entries[index] = newEntry;
+		++count;
+		if (count * 2 > entries.length)
+			grow();
+		return newEntry;
+	}
+
+	private static boolean matches(String entry, SourceBuffer text, int start, int length) {
+		if (entry.length() != length)
+			return false;
+		for (int i = 0; i < length; ++i) {
+			if (entry.charAt(i) != text.charAt(start + i))
+				return false;
+		}
+		return true;
+	}
+	
+	private static int mix(int hash) {
+		// spread the higher bits, because the table index only uses the lower bits 
+		return hash ^ (hash >>> 16);
+	}
+	
+	private void grow() {
+		String[] oldEntries = entries;
+		entries = new String[oldEntries.length * 2];
+		int mask = entries.length - 1;
+		for (String entry : oldEntries) {
+			if (entry == null)
+				continue;
+			int index = mix(entry.hashCode()) & mask;
+			while (entries[index] != null)
+				index = (index + 1) & mask;
+			entries[index] = entry;
+		}
+	}
+}
@@ -7,6 +7,7 @@ import com.sap.adt.abapcleaner.base.ABAP;
 import com.sap.adt.abapcleaner.base.PadResourceResolver;
 import com.sap.adt.abapcleaner.base.StringUtil;
 import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.Persistency;
 
 import com.sap.adt.tools.abapsource.parser.ABAPRndParser;
 import com.sap.rnd.rndrt.Category;
@@ -50,9 +51,18 @@ public class TokenTypeRefinerRnd implements ITokenTypeRefiner {
 		CAT_WS:              <NL> #EOF#
 	 */
 
+	/** true once a snapshot of the loaded grammar was saved (or found to be unavailable) in this process */
+	private static volatile boolean snapshotChecked = false;
+	/** true once the snapshot was read from disk in this process, which is only done once, even if parsers are created on multiple threads */
+	private static boolean snapshotRead = false;
+	/** the content of a valid snapshot, from which each thread restores its own parser instance, because the parser is not thread-safe; 
+	 * null if no (valid) snapshot is available */
+	private static byte[] snapshot;
+
 	private PadResourceResolver padFileResolver;
 	private ABAPRndParser rndParser;
 	private TokenTypeRefiner internalRefiner;
+	private String snapshotPath;
 
 	public static TokenTypeRefinerRnd create() {
 		return new TokenTypeRefinerRnd();
@@ -60,11 +70,54 @@ public class TokenTypeRefinerRnd implements ITokenTypeRefiner {
 
 	private TokenTypeRefinerRnd() {
 		padFileResolver = new PadResourceResolver();
-		rndParser = new ABAPRndParser();
 		internalRefiner = TokenTypeRefiner.create();
+
+		// restore the parser with the grammar already loaded, if a compatible snapshot exists from a previous process 
+		snapshotPath = RndParserSnapshot.getPath(Persistency.get(), padFileResolver.getRelease());
+		byte[] snapshotToRestore = getSnapshot(snapshotPath);
+		rndParser = (snapshotToRestore == null) ? null : RndParserSnapshot.restoreFromContent(snapshotToRestore, padFileResolver.getRelease(), ABAPRndParser.class);
+		if (rndParser == null) {
+			if (snapshotToRestore != null)
+				discardSnapshot(snapshotPath);
+			rndParser = new ABAPRndParser();
+		} else {
+			snapshotPath = null;
+		}
+	}
+
+	private static synchronized byte[] getSnapshot(String path) {
+		if (!snapshotRead) {
+			snapshot = RndParserSnapshot.read(path, ABAPRndParser.class);
+			snapshotRead = true;
+		}
+		return snapshot;
 	}
 
-	private List<com.sap.rnd.rndrt.Token> getRndTokens(Command command) {
+	private static synchronized void discardSnapshot(String path) {
+		if (snapshot == null)
+			return;
+		snapshot = null;
+		RndParserSnapshot.delete(path);
+	}
+
+	private void saveSnapshotOnce() {
+		if (snapshotPath == null || snapshotChecked)
+			return;
+		synchronized (TokenTypeRefinerRnd.class) {
+			if (snapshotChecked)
+				return;
+			snapshotChecked = true;
+		}
+		RndParserSnapshot.save(snapshotPath, padFileResolver.getRelease(), rndParser);
+		snapshotPath = null;
+	}
+
+	/** returns the source text of the Command as it is passed to the RND Parser, or null if the Command is not parsed by the RND Parser; 
+	 * since the RND Parser result only depends on this text, it can be used as a key to cache results */
+	static String getRndSource(Command command) {
+		if (command.isCommentLine() || command.isEmpty() || !command.isAbap())
+			return null;
+
 		// get a string for this command, omitting comments and reducing whitespace to single line breaks / spaces
 		StringBuilder code = new StringBuilder();
 		Token token = command.getFirstToken();
@@ -80,21 +133,47 @@ public class TokenTypeRefinerRnd implements ITokenTypeRefiner {
 			}
 			token = token.getNext();
 		}
+		return code.toString();
+	}
+
+	/** returns the key under which the result of parsing the supplied source text (cp. {@link #getRndSource(Command)}) is cached 
+	 * for the supplied Command: besides the source text, this key contains the text length of each non-comment Token, 
+	 * because the check for a code mismatch with the RND Parser output also depends on how the text is distributed to Tokens */
+	static String getRndCacheKey(Command command, String rndSource) {
+		StringBuilder key = new StringBuilder(2 * rndSource.length());
+		key.append(rndSource).append('\u0000');
+		Token token = command.getFirstToken();
+		while (token != null) {
+			if (!token.isComment())
+				key.append(token.getTextLength()).append(',');
+			token = token.getNext();
+		}
+		return key.toString();
+	}
 
+	private List<com.sap.rnd.rndrt.Token> getRndTokens(String rndSource) {
 		// provide a current .pad file from the resources to the RND Parser, since otherwise, it will fall back to 
 		// an older .pad file version, in which newer ABAP syntax is not yet considered
-		return rndParser.parseSource(padFileResolver, code.toString());
+		List<com.sap.rnd.rndrt.Token> rndTokens = rndParser.parseSource(padFileResolver, rndSource);
+
+		// now that the grammar is loaded, save a snapshot for subsequent processes
+		if (snapshotPath != null)
+			saveSnapshotOnce();
+		return rndTokens;
 	}
 	
 	public RndParseResult getRndParseResult(Command command) throws ParseException {
-		if (command.isCommentLine() || command.isEmpty() || !command.isAbap())
-			return null;
+		String rndSource = getRndSource(command);
+		return (rndSource == null) ? null : getRndParseResult(command, rndSource);
+	}
 
+	/** parses the supplied source text, which must have been determined with {@link #getRndSource(Command)} for the supplied Command */
+	RndParseResult getRndParseResult(Command command, String rndSource) throws ParseException {
 		ArrayList<RndTokenPair> tokenPairs = new ArrayList<>();
 		int errorCount = 0;
 		Token firstErrorToken = null;
 		
-		List<com.sap.rnd.rndrt.Token> rndTokens = getRndTokens(command);
+		List<com.sap.rnd.rndrt.Token> rndTokens = getRndTokens(rndSource);
 		
 		Token token = command.getFirstToken();
 		int textOffset = 0;
@@ -158,6 +237,12 @@ public class TokenTypeRefinerRnd implements ITokenTypeRefiner {
 				throw createParseException(command, token, "code mismatch with RND Parser output at token '" + token.getText() + "' / RND token '" + rndToken.m_lexem + "'");
 			}
 		}
+
+		// remember the result for this source text and Token layout, so the syntax check after cleanup can skip Commands that remained unchanged
+		Code parentCode = command.getParentCode();
+		if (parentCode != null)
+			parentCode.putRndErrorCount(getRndCacheKey(command, rndSource), errorCount);
+
 		return new RndParseResult(tokenPairs, errorCount, firstErrorToken);
 	}
 
@@ -10,9 +10,10 @@ import com.sap.adt.abapcleaner.programbase.TaskType;
 import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxException;
 
 /**
- * <p>Creates a sequence of {@link Token}s from the code string that is supplied to the 
- * {@link #Token(String, int, int)} constructor, returning the next {@link Token} at each call of {@link #getNext()} 
- * (or null if the code string is exhausted).</p>   
+ * <p>Creates a sequence of {@link Token}s from the code string or the {@link SourceBuffer} that is supplied to the 
+ * constructor, returning the next {@link Token} at each call of {@link #getNext()} 
+ * (or null if the code string is exhausted). Text before the current read position is released from the SourceBuffer, 
+ * so a large source can be read in chunks from a {@link java.io.Reader}.</p>   
  * 
  * <p>If the caller detects that the new Token already belongs to a code section in a non-ABAP language, it must call  
  * {@link #changeToNonAbapLanguage(Token, Language, String)}.</p>
@@ -38,13 +39,15 @@ public class Tokenizer {
 
 	private final static TokenType UNKNOWN_TOKEN_TYPE = TokenType.NON_ABAP;
 	
-	static String removeTabs(String text) { 
-		// TODO: clarify whether '\u00a0' should be considered, too 
-		// in some places, a TAB is found; however, both SAP GUI and ADT display this as a single space
-		return (text == null) ? null : text.replace('\t', ' ');
-	}
-
-	private final String text;
+	/** number of chars after leading whitespace and comments which are passed to {@link Language#preview(String)}; 
+	 * this is much longer than the word sequences that are checked there */
+	private final static int PREVIEW_LOOKAHEAD = 1024;
+
+	// in some places, a TAB is found; however, both SAP GUI and ADT display this as a single space, 
+	// therefore, the SourceBuffer returns it as a space (TODO: clarify whether '\u00a0' should be considered, too)
+	private final SourceBuffer text;
+	/** provides shared String instances for repeated short Token texts like keywords, operators, and identifiers */
+	private final TokenTextPool textPool = new TokenTextPool();
 	private int lineNum;
 	private int readPos;
 	private boolean isInMultiLineComment;
@@ -64,24 +67,61 @@ public class Tokenizer {
 	int getLineNum() { return lineNum; }
 	Language getCurLanguage() { return curLanguage; }
 	
-	Tokenizer(String text, int lineNumOffset, IProgress progress) {
-		this.text = removeTabs(text);
+	public Tokenizer(String text, int lineNumOffset, IProgress progress) {
+		this(SourceBuffer.create(text), lineNumOffset, progress);
+	}
+	
+	Tokenizer(SourceBuffer text, int lineNumOffset, IProgress progress) {
+		this.text = text;
 		this.lineNum = lineNumOffset;
 		this.readPos = 0;
 		this.isInMultiLineComment = false;
 		
-		this.previewLanguage = Language.preview(text);
+		this.previewLanguage = Language.preview(getPreviewText(text));
 		this.curLanguage = previewLanguage;
 		
 		this.progress = progress;
 		this.lastReportedPos = readPos;
 		// don't report progress too often, since tokenization and parsing works at > 1 MB per second
-		this.reportSpan = Math.max(text.length() / 100 + 1, 100000);
+		this.reportSpan = Math.max(text.getExpectedLength() / 100 + 1, 100000);
 	}
 	
+	/** returns the start of the text (with tabs) up to some chars after the leading whitespace and comments, 
+	 * which suffices for {@link Language#preview(String)} to get the same result as for the whole text */
+	private static String getPreviewText(SourceBuffer text) {
+		int pos = 0;
+		boolean foundDdlComment = false;
+		while (text.hasCharAt(pos)) {
+			char c = text.rawCharAt(pos);
+			if (c == ' ' || c == '\r' || c == '\n') {
+				++pos;
+				continue;
+			}
+			if (text.containsAt(pos, "//")) {
+				foundDdlComment = true;
+			} else if (foundDdlComment || c != ABAP.COMMENT_SIGN && c != ABAP.LINE_COMMENT_SIGN) {
+				break;
+			}
+			// skip the comment up to the end of the line
+			while (text.hasCharAt(pos) && text.rawCharAt(pos) != '\r' && text.rawCharAt(pos) != '\n')
+				++pos;
+		}
+		int end = pos + PREVIEW_LOOKAHEAD;
+		if (!text.hasCharAt(end - 1))
+			end = text.length();
+		return text.rawSubstring(0, end);
+	}
+
+	/** returns the length of the text, which must only be called after {@link #getNext()} returned null */
+	int getTextLength() {
+		return text.length();
+	}
+
 	/** returns the next Token, or null if the code string is exhausted */
-	Token getNext() throws UnexpectedSyntaxException {
-		if (!isLanguageSupported() || readPos >= text.length())
+	public Token getNext() throws UnexpectedSyntaxException {
+		// text before the current position is not needed anymore
+		text.release(readPos);
+		if (!isLanguageSupported() || !text.hasCharAt(readPos))
 			return null;
 
 		// identify whitespace
@@ -89,7 +129,7 @@ public class Tokenizer {
 		int spaceCount;
 		do {
 			// count line separators (tolerating both \r\n and \n)
-			while (readPos < text.length() && lineSeparatorChars.indexOf(text.charAt(readPos)) >= 0) {
+			while (text.hasCharAt(readPos) && lineSeparatorChars.indexOf(text.charAt(readPos)) >= 0) {
 				if (text.charAt(readPos) == '\n') {
 					++lineFeedCount;
 					++lineNum;
@@ -99,36 +139,37 @@ public class Tokenizer {
 
 			// count spaces (but only those after the last line feed)
 			spaceCount = 0;
-			while (readPos < text.length() && spaceChars.indexOf(text.charAt(readPos)) >= 0) {
+			while (text.hasCharAt(readPos) && spaceChars.indexOf(text.charAt(readPos)) >= 0) {
 				++spaceCount;
 				++readPos;
 			}
 
 			// in sample code, lines never end with spaces or tabs; if such a line is encountered, ignore such trailing spaces
-		} while (readPos < text.length() && lineSeparatorChars.indexOf(text.charAt(readPos)) >= 0);
+		} while (text.hasCharAt(readPos) && lineSeparatorChars.indexOf(text.charAt(readPos)) >= 0);
 
 		// ignore final line feed
-		if (readPos == text.length() && lineFeedCount == 1 && spaceCount == 0)
+		boolean isAtTextEnd = !text.hasCharAt(readPos);
+		if (isAtTextEnd && lineFeedCount == 1 && spaceCount == 0)
 			return null;
 
 		// determine the next Token
-		char curChar = (readPos < text.length()) ? text.charAt(readPos) : ' ';
+		char curChar = isAtTextEnd ? ' ' : text.charAt(readPos);
 		boolean isAtLineStart = (readPos == 0 || (lineFeedCount > 0 && spaceCount == 0));
 
 		// common tokenization for ABAP and non-ABAP code: comments with " and *   
 		String tokenText;
 		TokenType overrideTokenType = UNKNOWN_TOKEN_TYPE;
-		if (readPos == text.length()) {
+		if (isAtTextEnd) {
 			tokenText = "";
 
 		} else if (curLanguage == Language.DDL || curLanguage == Language.DCL) {
-			if (isInMultiLineComment || curChar == DDL.COMMENT_SIGN && StringUtil.containsAt(text, readPos, DDL.ASTERISK_COMMENT_START)) {
+			if (isInMultiLineComment || curChar == DDL.COMMENT_SIGN && text.containsAt(readPos, DDL.ASTERISK_COMMENT_START)) {
 				// asterisk comment /*...*/: read up to */ or the next line break
 				tokenText = readAsteriskComment();
 				isInMultiLineComment = !tokenText.endsWith(DDL.ASTERISK_COMMENT_END);
 				overrideTokenType = TokenType.COMMENT;
 				
-			} else if (StringUtil.containsAt(text, readPos, DDL.LINE_END_COMMENT) || StringUtil.containsAt(text, readPos, DDL.LINE_END_MINUS_COMMENT)) {
+			} else if (text.containsAt(readPos, DDL.LINE_END_COMMENT) || text.containsAt(readPos, DDL.LINE_END_MINUS_COMMENT)) {
 				// line end comment: the rest of the line
 				tokenText = readDdlUntil(lineFeedChars, null);
 				
@@ -140,24 +181,24 @@ public class Tokenizer {
 					|| curChar == DDL.PARENS_OPEN || curChar == DDL.BRACE_OPEN || curChar == DDL.BRACKET_OPEN 
 					|| curChar == DDL.PARENS_CLOSE || curChar == DDL.BRACE_CLOSE || curChar == DDL.BRACKET_CLOSE) {
 				// one-char Tokens (which are all part of ddlTokenEndChars as well)
-				tokenText = text.substring(readPos, readPos + 1);
+				tokenText = textPool.get(text, readPos, readPos + 1);
 
 			} else if (ddlComparisonOpChars.indexOf(curChar) >= 0) {
 				// comparison operator or => operator
-				tokenText = StringUtil.readTillEndOfAllowedChars(text, readPos, ddlComparisonOpChars);
+				tokenText = textPool.get(text, readPos, text.indexOfNotAnyOf(ddlComparisonOpChars, readPos));
 
-			} else if (Character.isDigit(curChar)) { // || curChar == '-' && readPos + 1 < text.length() && Character.isDigit(text.charAt(readPos + 1))) {
+			} else if (Character.isDigit(curChar)) { // || curChar == '-' && text.hasCharAt(readPos + 1) && Character.isDigit(text.charAt(readPos + 1))) {
 				// number, which may start with - and may include . (however, -.5 is not possible)
 				// unlike identifiers, a number stops at / (and thus automatically at // and /*, therefore no need to supply ddlIdentifierEndStrings)
 				tokenText = readDdlUntil(ddlNumericTokenEndChars, null);
 				
-			} else if (curChar == ddlArithmeticOpDiv && !DDL.isCharAllowedForIdentifier(text, readPos + 1, true)) {
+			} else if (curChar == ddlArithmeticOpDiv && !(text.hasCharAt(readPos + 1) && DDL.isCharAllowedForIdentifier(text.charAt(readPos + 1), true))) {
 				// '/' is only a division operator if it is NOT directly followed by a char that could start an identifier
-				tokenText = Character.toString(curChar);
+				tokenText = textPool.get(text, readPos, readPos + 1);
 
 			} else if (ddlArithmeticOpCharsWithoutDiv.indexOf(curChar) >= 0) {
 				// arithmetic operator (just one char)
-				tokenText = Character.toString(curChar);
+				tokenText = textPool.get(text, readPos, readPos + 1);
 
 			} else {
 				// normal word, which includes chars from 0-9, a-z, A-Z, / for namespaces, ._@# and < after initial @
@@ -183,13 +224,13 @@ public class Tokenizer {
 				// text string literal with ` (data type string): read the whole literal, considering escape char ``
 				tokenText = readLiteralUntil(curChar, false);
 
-			} else if (curChar == ABAP.PIPE || text.charAt(readPos) == ABAP.BRACE_CLOSE) {
+			} else if (curChar == ABAP.PIPE || curChar == ABAP.BRACE_CLOSE) {
 				// string template with |: the whole template until | or {
 				tokenText = readStringTemplate();
 
 			} else if (curChar == '(' || curChar == ABAP.DOT_SIGN || curChar == ABAP.COMMA_SIGN || curChar == ABAP.COLON_SIGN) {
 				// one-char Tokens for . , : or ( as a delimiter
-				tokenText = text.substring(readPos, readPos + 1);
+				tokenText = textPool.get(text, readPos, readPos + 1);
 
 			} else {
 				// normal word, including pragma ##...
@@ -210,8 +251,8 @@ public class Tokenizer {
 			lineNum += StringUtil.instrCount(tokenText, '\n');
 		}
 		
-		if (progress != null && (lastReportedPos == 0 || readPos >= lastReportedPos + reportSpan)) {
-			progress.report(TaskType.PARSER, readPos / (double) text.length());
+		if (progress != null && text.getExpectedLength() > 0 && (lastReportedPos == 0 || readPos >= lastReportedPos + reportSpan)) {
+			progress.report(TaskType.PARSER, Math.min(readPos / (double) text.getExpectedLength(), 1.0));
 			lastReportedPos = readPos;
 		}
 
@@ -246,7 +287,7 @@ public class Tokenizer {
 				literalEnd = text.length();
 				break;
 			}
-			if (searchPos + 1 == text.length() || text.charAt(searchPos + 1) != delimiterChar) {
+			if (!text.hasCharAt(searchPos + 1) || text.charAt(searchPos + 1) != delimiterChar) {
 				literalEnd = searchPos + 1;
 				break;
 			}
@@ -258,18 +299,18 @@ public class Tokenizer {
 	   // consider the case 'literal text'(001): text field literals that are delimited with '...' (not those delimited with `...`) 
 		// may be linked to a text symbol ID, where the 'literal text' is overridden if the text symbol TEXT-001 is defined; 
 		// for our purpose, we simply consider this addition to be part of the literal, because the whole construct will never be changed
-		if (includeTextSymbolID && literalEnd < text.length() && text.charAt(literalEnd) == ABAP.TEXT_SYMBOL_ID_OPEN) {
+		if (includeTextSymbolID && text.hasCharAt(literalEnd) && text.charAt(literalEnd) == ABAP.TEXT_SYMBOL_ID_OPEN) {
 			int closePos = text.indexOf(ABAP.TEXT_SYMBOL_ID_CLOSE, literalEnd);
 			if (closePos >= 0) {
 				literalEnd = closePos + 1;
 			}
 		}
 
-		return text.substring(readPos, literalEnd);
+		return textPool.get(text, readPos, literalEnd);
 	}
 
 	private String readStringTemplate() throws UnexpectedSyntaxException {
-		int tokenEnd = StringUtil.indexOfAny(text, stringTemplateEndChars, readPos + 1, stringTemplateEscapeSequences); // skip the char at readPos
+		int tokenEnd = text.indexOfAny(stringTemplateEndChars, readPos + 1, stringTemplateEscapeSequences); // skip the char at readPos
 		tokenEnd = (tokenEnd < 0) ? text.length() : tokenEnd + 1;
 
 		return text.substring(readPos, tokenEnd);
@@ -277,10 +318,10 @@ public class Tokenizer {
 
 	private String readUntil(char[] delimiterChars, String includeDelimiters) throws UnexpectedSyntaxException {
 		// read until the first delimiter is found
-		int tokenEnd = StringUtil.indexOfAny(text, delimiterChars, readPos + 1); // skip the char at readPos
+		int tokenEnd = text.indexOfAny(delimiterChars, null, readPos + 1); // skip the char at readPos
 
 		// continue reading in case of "identifier(##)" with no spaces as in "DATA lv_chars(20) TYPE c."
-		if (tokenEnd >= 0 && text.charAt(tokenEnd) == '(' && tokenEnd + 1 < text.length() && Character.isDigit(text.charAt(tokenEnd + 1))) {
+		if (tokenEnd >= 0 && text.charAt(tokenEnd) == '(' && text.hasCharAt(tokenEnd + 1) && Character.isDigit(text.charAt(tokenEnd + 1))) {
 			tokenEnd = text.indexOf(')', tokenEnd);
 			if (tokenEnd < 0)
 				throw new UnexpectedSyntaxException("closing parenthesis not found");
@@ -292,7 +333,7 @@ public class Tokenizer {
 				++tokenEnd;
 		}
 
-		return text.substring(readPos, tokenEnd);
+		return textPool.get(text, readPos, tokenEnd);
 	}
 	
 	private String readDdlUntil(char[] delimiterChars, String[] delimiterStrings) throws UnexpectedSyntaxException {
@@ -300,10 +341,10 @@ public class Tokenizer {
 		// in the special case of an initial @, < is allowed afterwards, because annotations for CDS entities 
 		// (except for CDS view entities) may start with @< for the annotation after a list element in a comma-separated or semicolon-separated list.
 		int start = readPos + 1;
-		if (text.charAt(readPos) == DDL.ANNOTATION_SIGN && start < text.length() && text.charAt(start) == '<') {
+		if (text.charAt(readPos) == DDL.ANNOTATION_SIGN && text.hasCharAt(start) && text.charAt(start) == '<') {
 			++start;
 		}
-		int tokenEnd = StringUtil.indexOfAny(text, delimiterChars, delimiterStrings, start); 
+		int tokenEnd = text.indexOfAny(delimiterChars, delimiterStrings, start); 
 
 		if (tokenEnd < 0)
 			tokenEnd = text.length();
@@ -316,17 +357,17 @@ public class Tokenizer {
 			}
 		}
 		
-		return text.substring(readPos, tokenEnd); 
+		return textPool.get(text, readPos, tokenEnd); 
 	}
 	
 	private String readAsteriskComment() throws UnexpectedSyntaxException {
 		// determine line end position
-		int lineEnd = StringUtil.indexOfAny(text, lineFeedChars, readPos);
+		int lineEnd = text.indexOfAny(lineFeedChars, null, readPos);
 		if (lineEnd < 0)
 			lineEnd = text.length();
 		
 		// determine comment end position
-		int searchStart = readPos + (StringUtil.containsAt(text, readPos, DDL.ASTERISK_COMMENT_START) ? DDL.ASTERISK_COMMENT_START.length() : 0);  
+		int searchStart = readPos + (text.containsAt(readPos, DDL.ASTERISK_COMMENT_START) ? DDL.ASTERISK_COMMENT_START.length() : 0);  
 		int commentEnd = text.indexOf(DDL.ASTERISK_COMMENT_END, searchStart);
 		if (commentEnd < 0)
 			throw new UnexpectedSyntaxException("comment end '" + DDL.ASTERISK_COMMENT_END + "' not found");
@@ -337,7 +378,7 @@ public class Tokenizer {
 	}
 	
 	private String readNonAbap() {
-		int tokenEnd = StringUtil.indexOfAny(text, nonAbapTokenEndChars, readPos + 1); // skip the char at readPos
+		int tokenEnd = text.indexOfAny(nonAbapTokenEndChars, null, readPos + 1); // skip the char at readPos
 		if (tokenEnd < 0)
 			tokenEnd = text.length();
 		String nonAbapText = text.substring(readPos, tokenEnd);
@@ -0,0 +1,153 @@
+package com.sap.adt.abapcleaner.programbase;
+
+import com.sap.adt.abapcleaner.parser.*;
+import com.sap.adt.abapcleaner.rulebase.*;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Processes the files of a batch Job in a pipeline of stages that each run on their own thread and are connected by bounded queues:
+ * reading, parsing, cleanup, and check + compare. Therefore, reading file N+1 and comparing file N-1 may overlap with the cleanup of file N.
+ * The results are merged into the batch Job on the calling thread in the order of the batch files.
+ *
+ * Since only the cleanup stage executes Rules, the Profile can be used without being copied.
+ * Stress tests are not supported, because they repeat all stages multiple times on the same file.
+ */
+class BatchPipeline {
+	/** maximum number of files that may wait between two stages */
+	private static final int QUEUE_CAPACITY = 2;
+
+	/** number of threads for the stages that precede the merge on the calling thread */
+	private static final int STAGE_THREAD_COUNT = 4;
+
+	private static class Item {
+		private final Job.BatchFile batchFile;
+		// the log entries of each file are collected in a separate Log, which is bound to the thread that currently runs a stage
+		private final Log log;
+		private boolean continueStages = true;
+		private Throwable exception;
+
+		private Item(Job.BatchFile batchFile, Log log) {
+			this.batchFile = batchFile;
+			this.log = log;
+		}
+	}
+
+	/** marks the end of the batch in the queues */
+	private static final Item END_OF_BATCH = new Item(null, null);
+
+	private final Job job;
+	private final int fileCount;
+	private final CleanupParams cleanupParams;
+	private final String logPath;
+
+	static void run(Job job, int fileCount, CleanupParams cleanupParams) {
+		new BatchPipeline(job, fileCount, cleanupParams).run();
+	}
+
+	private BatchPipeline(Job job, int fileCount, CleanupParams cleanupParams) {
+		this.job = job;
+		this.fileCount = fileCount;
+		this.cleanupParams = cleanupParams;
+		this.logPath = Program.getLog().path;
+	}
+
+	private void run() {
+		BlockingQueue<Item> readQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		BlockingQueue<Item> parseQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		BlockingQueue<Item> cleanupQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		BlockingQueue<Item> resultQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+		ExecutorService executor = Executors.newFixedThreadPool(STAGE_THREAD_COUNT);
+		try {
+			executor.execute(() -> readFiles(readQueue));
+			executor.execute(() -> runStage(readQueue, parseQueue, task -> task.runParseStage(true)));
+			executor.execute(() -> runStage(parseQueue, cleanupQueue, task -> runCleanupStage(task)));
+			executor.execute(() -> runStage(cleanupQueue, resultQueue, task -> task.runCheckStage(StressTestType.NONE) && task.runCompareStage()));
+
+			while (true) {
+				Item item = resultQueue.take();
+				if (item == END_OF_BATCH)
+					break;
+				if (item.exception instanceof RuntimeException)
+					throw (RuntimeException)item.exception;
+				else if (item.exception instanceof Error)
+					throw (Error)item.exception;
+
+				Task task = item.batchFile.task;
+				if (item.continueStages)
+					task.finishStages();
+				Log previousLog = Program.bindLog(item.log);
+				try {
+					task.readAndFlushLog();
+				} finally {
+					Program.bindLog(previousLog);
+				}
+				if (!job.mergeBatchTaskResult(item.batchFile))
+					break;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// stop all stages, e.g. if the Job was cancelled
+			executor.shutdownNow();
+		}
+	}
+
+	private void readFiles(BlockingQueue<Item> output) {
+		try {
+			for (int batchPathIndex = 0; batchPathIndex < fileCount; ++batchPathIndex) {
+				Item item;
+				try {
+					Job.BatchFile batchFile = job.readBatchFile(batchPathIndex);
+					batchFile.task.startStages();
+					item = new Item(batchFile, Log.create(logPath));
+				} catch (RuntimeException | Error ex) {
+					item = new Item(null, null);
+					item.continueStages = false;
+					item.exception = ex;
+				}
+				output.put(item);
+			}
+			output.put(END_OF_BATCH);
+		} catch (InterruptedException e) {
+			// the pipeline was stopped
+		}
+	}
+
+	private boolean runCleanupStage(Task task) {
+		if (Task.isParseOnly(cleanupParams)) {
+			task.finishStages();
+			return false;
+		}
+		return task.runCleanupStage(StressTestType.NONE, -1, cleanupParams);
+	}
+
+	private void runStage(BlockingQueue<Item> input, BlockingQueue<Item> output, Predicate<Task> stage) {
+		try {
+			while (true) {
+				Item item = input.take();
+				if (item != END_OF_BATCH && item.continueStages) {
+					Log previousLog = Program.bindLog(item.log);
+					try {
+						item.continueStages = stage.test(item.batchFile.task);
+					} catch (RuntimeException | Error ex) {
+						item.continueStages = false;
+						item.exception = ex;
+					} finally {
+						Program.bindLog(previousLog);
+					}
+				}
+				output.put(item);
+				if (item == END_OF_BATCH)
+					return;
+			}
+		} catch (InterruptedException e) {
+			// the pipeline was stopped
+		}
+	}
+}
@@ -9,11 +9,11 @@ import com.sap.adt.abapcleaner.parser.*;
  */
 public abstract class CleanException extends ExceptionBase {
 	 private Rule rule;
-	 // private Command command;
+	 private transient Command command;
 	 // private Token token;
 
 	 Rule getRule() { return rule; }
-	 // Command getCommand() { return command; }
+	 Command getCommand() { return command; }
 	 // Token getToken() { return token; }
 
 	private static final long serialVersionUID = 1L;
@@ -22,21 +22,21 @@ public abstract class CleanException extends ExceptionBase {
 		super(severity, (token != null) ? token.getSourceName() : ((command == null) ? null : command.getSourceName()),
 				(token != null) ? token.sourceLineNum : ((command == null) ? 0 : command.getSourceLineNumStart()), inner.getMessage());
 		this.rule = rule;
-		// this.command = command;
+		this.command = (command != null || token == null) ? command : token.getParentCommand();
 		// this.token = token;
 	}
 
 	protected CleanException(ExceptionSeverity severity, Rule rule, Token token, String message) {
 		super(severity, (token == null) ? null : token.getSourceName(), (token == null) ? 0 : token.sourceLineNum, message);
 		this.rule = rule;
-		// this.command = token.parentCommand;
+		this.command = (token == null) ? null : token.getParentCommand();
 		// this.token = token;
 	}
 
 	protected CleanException(ExceptionSeverity severity, Rule rule, Command command, String message) {
 		super(severity, command.getSourceName(), command.getSourceLineNumStart(), message);
 		this.rule = rule;
-		// this.command = token.parentCommand;
+		this.command = command;
 		// this.token = null;
 	}
 
@@ -50,8 +50,8 @@ public abstract class CleanException extends ExceptionBase {
 	public final void enhanceIfMissing(Rule rule, Command command) {
 		if (this.rule == null) 
 		   this.rule = rule;
-		// if (this.command == null)
-		//    this.command = command;
+		if (this.command == null)
+		   this.command = command;
 	}
 	
 	@Override
@@ -16,7 +16,7 @@ public class CommandLineArgs {
 	// options for cleanup
 	// - input (single file)
 	private static final String OPT_SOURCE_FILE = "--sourcefile";
-	private static final String OPT_SOURCE_CODE = "--source";
+	public static final String OPT_SOURCE_CODE = "--source";
 	private static final String OPT_LINE_RANGE = "--linerange";
 	private static final String OPT_EXPAND_MODE = "--scope";
 	private static final String EXPAND_MODE_STATEMENT = "statement"; // default for CLI
@@ -29,17 +29,21 @@ public class CommandLineArgs {
 	private static final String OPT_SOURCE_DIR = "--sourcedir";
 	private static final String OPT_FILE_FILTER = "--filepattern";
 	private static final String OPT_RECURSIVE = "--recursive";
+	private static final String OPT_THREADS = "--threads";
+	private static final String OPT_PARALLEL = "--parallel";
+	private static final String OPT_INCREMENTAL = "--incremental";
 	
 	// - cleanup
 	private static final String OPT_PROFILE = "--profile";
-	private static final String OPT_PROFILE_DATA = "--profiledata";
+	public static final String OPT_PROFILE_DATA = "--profiledata";
 	private static final String OPT_PROFILE_NAME = "--profilename";
 	private static final String OPT_LAST_PROFILE = "--last-profile";
 	private static final String OPT_RELEASE = "--release";
 	private static final String OPT_WORKSPACE = "--workspace";
+	private static final String OPT_NO_CACHE = "--nocache";
 
 	// - interactive cleanup (single source only, no profile or cleanup range allowed)
-	private static final String OPT_INTERACTIVE = "--ui";
+	public static final String OPT_INTERACTIVE = "--ui";
 	private static final String OPT_TITLE = "--title";
 	private static final String OPT_READ_ONLY = "--readonly";
 	private static final String OPT_DARK_THEME = "--darktheme";
@@ -51,28 +55,39 @@ public class CommandLineArgs {
 	private static final String OPT_TARGET_DIR = "--targetdir";
 	private static final String OPT_OVERWRITE = "--overwrite";
 	private static final String OPT_CRLF = "--crlf";
+	private static final String OPT_OUTPUT = "--output";
+	private static final String OUTPUT_CODE = "code"; // default
+	private static final String OUTPUT_EDITS = "edits";
 
 	// - statistics
 	private static final String OPT_STATS = "--stats";
 	private static final String OPT_USED_RULES = "--usedrules";
+	private static final String OPT_RULE_PROFILE = "--ruleprofile";
+	private static final String OPT_RULE_PROFILE_FILE = "--ruleprofilefile";
 
 	// options for starting and using a daemon (cp. DaemonManager)
 	private static final String OPT_DAEMONIZE = "--daemonize";
 	private static final String OPT_IDLE_TIMEOUT = "--idle-timeout";
+	private static final String OPT_MAX_IN_FLIGHT = "--max-in-flight";
+	private static final String OPT_MAX_QUEUED = "--max-queued";
 	public static final String OPT_DAEMON_PING = "--ping";
 	public static final String OPT_DAEMON_STATUS = "--status";
    public static final String OPT_DAEMON_REQUEST_ID = "--request-id";
 	public static final String OPT_DAEMON_KEEPALIVE = "--keep-alive";
 	public static final String OPT_DAEMON_STOP = "--stop";
 	public static final String DAEMON_RESPONSE_END_MARKER = "<<<END>>>";
+	// - framed mode of the daemon protocol (cp. DaemonProtocol)
+	public static final String OPT_DAEMON_SOURCE_BYTES = "--sourcebytes";
+	public static final String OPT_DAEMON_PROFILE_BYTES = "--profilebytes";
+	public static final String DAEMON_RESPONSE_FRAME_MARKER = "<<<FRAME>>>";
 
 	private static final String[] allOptions = new String[] { 
-			OPT_SOURCE_FILE, OPT_SOURCE_CODE, OPT_LINE_RANGE, OPT_EXPAND_MODE, OPT_SOURCE_DIR, OPT_FILE_FILTER, OPT_RECURSIVE, 
-			OPT_PROFILE, OPT_PROFILE_DATA, OPT_PROFILE_NAME, OPT_LAST_PROFILE, OPT_RELEASE, OPT_WORKSPACE, 
+			OPT_SOURCE_FILE, OPT_SOURCE_CODE, OPT_LINE_RANGE, OPT_EXPAND_MODE, OPT_SOURCE_DIR, OPT_FILE_FILTER, OPT_RECURSIVE, OPT_THREADS, OPT_PARALLEL, OPT_INCREMENTAL, 
+			OPT_PROFILE, OPT_PROFILE_DATA, OPT_PROFILE_NAME, OPT_LAST_PROFILE, OPT_RELEASE, OPT_WORKSPACE, OPT_NO_CACHE, 
 			OPT_INTERACTIVE, OPT_TITLE, OPT_READ_ONLY, OPT_DARK_THEME,
-			OPT_TARGET_FILE, OPT_PARTIAL_RESULT, OPT_TARGET_DIR, OPT_OVERWRITE, OPT_CRLF, 
-			OPT_STATS, OPT_USED_RULES, 
-			OPT_DAEMONIZE, OPT_IDLE_TIMEOUT, OPT_DAEMON_PING, OPT_DAEMON_STATUS, OPT_DAEMON_REQUEST_ID, OPT_DAEMON_KEEPALIVE, OPT_DAEMON_STOP };
+			OPT_TARGET_FILE, OPT_PARTIAL_RESULT, OPT_TARGET_DIR, OPT_OVERWRITE, OPT_CRLF, OPT_OUTPUT, 
+			OPT_STATS, OPT_USED_RULES, OPT_RULE_PROFILE, OPT_RULE_PROFILE_FILE, 
+			OPT_DAEMONIZE, OPT_IDLE_TIMEOUT, OPT_MAX_IN_FLIGHT, OPT_MAX_QUEUED, OPT_DAEMON_PING, OPT_DAEMON_STATUS, OPT_DAEMON_REQUEST_ID, OPT_DAEMON_KEEPALIVE, OPT_DAEMON_STOP };
 
 	private static final String EXECUTABLE_NAME = ".\\abap-cleanerc.exe"; 
 	private static final char LINE_RANGE_SEP = '-';
@@ -85,11 +100,12 @@ public class CommandLineArgs {
 	private static final int OPTIONS_LINE_PREFIX_LENGTH = 20; // must be at least the length of the longest OPT_ + 1
 
 	private static final String[] optionsRequiringNextArg = new String[] { 
-			OPT_SOURCE_FILE, OPT_SOURCE_CODE, OPT_LINE_RANGE, OPT_EXPAND_MODE, OPT_SOURCE_DIR, OPT_FILE_FILTER,
+			OPT_SOURCE_FILE, OPT_SOURCE_CODE, OPT_LINE_RANGE, OPT_EXPAND_MODE, OPT_SOURCE_DIR, OPT_FILE_FILTER, OPT_THREADS,
 			OPT_PROFILE, OPT_PROFILE_DATA, OPT_PROFILE_NAME, OPT_RELEASE, OPT_WORKSPACE,
 			OPT_TITLE,
-			OPT_TARGET_FILE, OPT_TARGET_DIR, 
-			OPT_IDLE_TIMEOUT, OPT_DAEMON_REQUEST_ID };
+			OPT_TARGET_FILE, OPT_TARGET_DIR, OPT_OUTPUT, 
+			OPT_RULE_PROFILE_FILE,
+			OPT_IDLE_TIMEOUT, OPT_MAX_IN_FLIGHT, OPT_MAX_QUEUED, OPT_DAEMON_REQUEST_ID };
 
 	public static String[] getAllOptions() { return allOptions; }
 	
@@ -115,16 +131,26 @@ public class CommandLineArgs {
 		} else if (args.length == 1 && args[0].equals(OPT_VERSION)) {
 			return new CommandLineArgs(CommandLineAction.SHOW_VERSION, 0, errors.toString(), fromDaemon);
 			
-		} else if ((args.length == 1 || args.length == 3) && args[0].equals(OPT_DAEMONIZE)) {
+		} else if (args.length % 2 == 1 && args[0].equals(OPT_DAEMONIZE)) {
 			int idleTimeout_s = 0;
-			if (args.length == 3) {
-				if (args[1].equals(OPT_IDLE_TIMEOUT)) {
-					idleTimeout_s = Integer.parseInt(args[2]);
+			int maxInFlight = 0;
+			int maxQueued = -1;
+			for (int i = 1; i + 1 < args.length; i += 2) {
+				if (args[i].equals(OPT_IDLE_TIMEOUT)) {
+					idleTimeout_s = Integer.parseInt(args[i + 1]);
+				} else if (args[i].equals(OPT_MAX_IN_FLIGHT)) {
+					maxInFlight = Integer.parseInt(args[i + 1]);
+					if (maxInFlight < 1) 
+						errors.append("Invalid value for " + OPT_MAX_IN_FLIGHT + ": " + args[i + 1] + ", expected a number of at least 1").append(LINE_SEP);
+				} else if (args[i].equals(OPT_MAX_QUEUED)) {
+					maxQueued = Integer.parseInt(args[i + 1]);
+					if (maxQueued < 0) 
+						errors.append("Invalid value for " + OPT_MAX_QUEUED + ": " + args[i + 1] + ", expected a number of at least 0").append(LINE_SEP);
 				} else {
-					errors.append("Unexpected option: " + args[1] + ", expected " + OPT_IDLE_TIMEOUT).append(LINE_SEP);
+					errors.append("Unexpected option: " + args[i] + ", expected " + OPT_IDLE_TIMEOUT + ", " + OPT_MAX_IN_FLIGHT + ", or " + OPT_MAX_QUEUED).append(LINE_SEP);
 				}
 			}
-			return new CommandLineArgs(CommandLineAction.DAEMONIZE, idleTimeout_s, errors.toString(), fromDaemon);
+			return new CommandLineArgs(CommandLineAction.DAEMONIZE, idleTimeout_s, maxInFlight, maxQueued, errors.toString(), fromDaemon);
 		}
 
 		// in all other cases, cleanup is requested:
@@ -141,6 +167,10 @@ public class CommandLineArgs {
 		String[] sourcePaths = null;
 		String fileFilter = null;
 		boolean recursive = false;
+		int threadCount = 1;
+		boolean foundThreadOption = false; // true if OPT_THREADS or OPT_PARALLEL was found
+		String usedThreadArg = null;
+		boolean incremental = false;
 		
 		// - cleanup options
 		String profileData = null;
@@ -150,6 +180,7 @@ public class CommandLineArgs {
 		boolean foundProfileOption = false; // true if OPT_PROFILE, OPT_PROFILE_DATA, OPT_PROFILE_NAME or OPT_LAST_PROFILE was found
 		String usedProfileArg = null;
 		String workspaceDir = null;
+		boolean noCache = false;
 
 		// - interactive cleanup options
 		boolean interactive = false;
@@ -164,10 +195,13 @@ public class CommandLineArgs {
 		String targetDir = null;
 		boolean overwrite = false;
 		String lineSeparator = ABAP.LINE_SEP_FOR_COMMAND_LINE;
+		boolean outputEdits = false;
 		
 		// - statistics options 
 		boolean showStats = false;
 		boolean showUsedRules = false;
+		boolean showRuleProfile = false;
+		String ruleProfilePath = null;
 
 		for (int i = 0; i < args.length; ++i) {
 			String arg = args[i];
@@ -259,6 +293,28 @@ public class CommandLineArgs {
 			} else if (arg.equals(OPT_RECURSIVE)) {
 				recursive = true;
 
+			} else if (arg.equals(OPT_THREADS) || arg.equals(OPT_PARALLEL)) {
+				if (foundThreadOption) {
+					errors.append("Multiple thread arguments supplied; please use " + OPT_THREADS + " or " + OPT_PARALLEL + " only once.").append(LINE_SEP);
+				} else if (arg.equals(OPT_PARALLEL)) {
+					threadCount = Runtime.getRuntime().availableProcessors();
+				} else {
+					try {
+						threadCount = Integer.parseInt(nextArgNonNull);
+					} catch (NumberFormatException ex) {
+						threadCount = 0;
+					}
+					if (threadCount < 1) {
+						errors.append("Invalid " + OPT_THREADS + ": Expected a positive number of threads, e.g. " + OPT_THREADS + " 4").append(LINE_SEP);
+						threadCount = 1;
+					}
+				}
+				foundThreadOption = true;
+				usedThreadArg = arg;
+
+			} else if (arg.equals(OPT_INCREMENTAL)) {
+				incremental = true;
+
 				// -------------------------------------
 				// - cleanup options
 
@@ -290,6 +346,9 @@ public class CommandLineArgs {
 			} else if (arg.equals(OPT_WORKSPACE)) {
 				workspaceDir = nextArgNonNull;
 
+			} else if (arg.equals(OPT_NO_CACHE)) {
+				noCache = true;
+
 				// -------------------------------------
 				// - interactive cleanup options
 				
@@ -326,6 +385,15 @@ public class CommandLineArgs {
 			} else if (arg.equals(OPT_CRLF)) {
 				lineSeparator = "\r\n";
 
+			} else if (arg.equals(OPT_OUTPUT)) {
+				if (OUTPUT_CODE.equals(nextArgNonNull)) {
+					outputEdits = false;
+				} else if (OUTPUT_EDITS.equals(nextArgNonNull)) {
+					outputEdits = true;
+				} else {
+					errors.append("Invalid " + OPT_OUTPUT + ": Expected " + OUTPUT_CODE + " or " + OUTPUT_EDITS).append(LINE_SEP);
+				}
+
 				// -------------------------------------
 				// - statistics options
 
@@ -335,6 +403,12 @@ public class CommandLineArgs {
 			} else if (arg.equals(OPT_USED_RULES)) {
 				showUsedRules = true;
 
+			} else if (arg.equals(OPT_RULE_PROFILE)) {
+				showRuleProfile = true;
+
+			} else if (arg.equals(OPT_RULE_PROFILE_FILE)) {
+				ruleProfilePath = nextArg;
+
 			} else {
 				errors.append("Unknown option: " + arg).append(LINE_SEP);
 			}
@@ -372,6 +446,12 @@ public class CommandLineArgs {
 			if (targetDir != null) {
 				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_TARGET_DIR, sourceOption)).append(LINE_SEP);
 			}
+			if (foundThreadOption) {
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, usedThreadArg, sourceOption)).append(LINE_SEP);
+			}
+			if (incremental) {
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_INCREMENTAL, sourceOption)).append(LINE_SEP);
+			}
 		}
 
 		// check whether input options for multiple files match cleanup and output options
@@ -423,6 +503,14 @@ public class CommandLineArgs {
 			if (showUsedRules) {
 				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_USED_RULES, OPT_INTERACTIVE)).append(LINE_SEP);
 			}
+			if (ruleProfilePath != null) {
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_RULE_PROFILE_FILE, OPT_INTERACTIVE)).append(LINE_SEP);
+			}
+		}
+		
+		// check statistics options
+		if (showRuleProfile && !showStats) {
+			errors.append("Missing option: " + OPT_RULE_PROFILE + " requires " + OPT_STATS).append(LINE_SEP);
 		}
 		
 		// check output options
@@ -433,6 +521,9 @@ public class CommandLineArgs {
 				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_TARGET_DIR, OPT_SIMULATE)).append(LINE_SEP);
 			if (overwrite) 
 				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_OVERWRITE, OPT_SIMULATE)).append(LINE_SEP);
+			// without target files, there is no result to compare the source files with
+			if (incremental) 
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_INCREMENTAL, OPT_SIMULATE)).append(LINE_SEP);
 			// partialResult can be tolerated
 		
 		} else if (!overwrite) {
@@ -449,17 +540,29 @@ public class CommandLineArgs {
 			}
 		}
 		
+		// the edits refer to the lines of the whole supplied source and are only written to the standard output
+		if (outputEdits) {
+			if (sourceDir != null)
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_OUTPUT + " " + OUTPUT_EDITS, OPT_SOURCE_DIR)).append(LINE_SEP);
+			if (interactive)
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_OUTPUT + " " + OUTPUT_EDITS, OPT_INTERACTIVE)).append(LINE_SEP);
+			if (targetPath != null)
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_OUTPUT + " " + OUTPUT_EDITS, OPT_TARGET_FILE)).append(LINE_SEP);
+			if (partialResult)
+				errors.append(String.format(INVALID_OPTION_COMBO_FORMAT, OPT_OUTPUT + " " + OUTPUT_EDITS, OPT_PARTIAL_RESULT)).append(LINE_SEP);
+		}
+
 		if (sourceCode != null) {
 			// single file (including for interactive cleanup; restrictions for combinations of parameters were checked above)
 			return new CommandLineArgs(errors.toString(), fromDaemon, sourceName, sourceCode, cleanupRange, expandMode, 
-												profileData, profileName, lastProfile, abapRelease, workspaceDir, 
+												profileData, profileName, lastProfile, abapRelease, workspaceDir, noCache, 
 												interactive, title, readOnly, darkTheme,
-												simulate, targetPath, partialResult, overwrite, lineSeparator, showStats, showUsedRules);
+												simulate, targetPath, partialResult, overwrite, lineSeparator, outputEdits, showStats, showUsedRules, showRuleProfile, ruleProfilePath);
 		} else {
 			// multiple files
-			return new CommandLineArgs(errors.toString(), fromDaemon, sourceDir, sourcePaths, 
-												profileData, profileName, lastProfile, abapRelease, workspaceDir, 
-												simulate, targetDir, overwrite, lineSeparator, showStats, showUsedRules);
+			return new CommandLineArgs(errors.toString(), fromDaemon, sourceDir, sourcePaths, threadCount, incremental, 
+												profileData, profileName, lastProfile, abapRelease, workspaceDir, noCache, 
+												simulate, targetDir, overwrite, lineSeparator, showStats, showUsedRules, showRuleProfile, ruleProfilePath);
 		}
 	}
 
@@ -498,16 +601,20 @@ public class CommandLineArgs {
 		sb.append(" | " + OPT_LAST_PROFILE + " }]");
 		sb.append(" [" + OPT_RELEASE + " <num>]");
 		sb.append(" [" + OPT_WORKSPACE + " <dir>]");
+		sb.append(" [" + OPT_NO_CACHE + "]");
 		sb.append(LINE_SEP);
 		sb.append(spacePrefix);
 		sb.append(" [" + OPT_TARGET_FILE + " <path>");
 		sb.append(" [" + OPT_OVERWRITE + "]]");
 		sb.append(" [" + OPT_PARTIAL_RESULT + "]");
 		sb.append(" [" + OPT_CRLF + "]");
+		sb.append(" [" + OPT_OUTPUT + " {" + OUTPUT_CODE + " | " + OUTPUT_EDITS + "}]");
 		sb.append(LINE_SEP);
 		sb.append(spacePrefix);
 		sb.append(" [" + OPT_STATS + "]");
 		sb.append(" [" + OPT_USED_RULES + "]");
+		sb.append(" [" + OPT_RULE_PROFILE + "]");
+		sb.append(" [" + OPT_RULE_PROFILE_FILE + " <path>]");
 		sb.append(LINE_SEP + LINE_SEP);
 
 		sb.append("- Example for cleanup of single source:");
@@ -565,6 +672,9 @@ public class CommandLineArgs {
 		sb.append(" " + OPT_SOURCE_DIR + " <path>");
 		sb.append(" [" + OPT_FILE_FILTER + " <pattern>]");
 		sb.append(" [" + OPT_RECURSIVE + "]");
+		sb.append(" [{ " + OPT_THREADS + " <num>");
+		sb.append(" | " + OPT_PARALLEL + " }]");
+		sb.append(" [" + OPT_INCREMENTAL + "]");
 		sb.append(LINE_SEP);
 		sb.append(spacePrefix);
 		sb.append(" [{ " + OPT_PROFILE + " <path>");
@@ -573,6 +683,7 @@ public class CommandLineArgs {
 		sb.append(" | " + OPT_LAST_PROFILE + " }]");
 		sb.append(" [" + OPT_RELEASE + " <num>]");
 		sb.append(" [" + OPT_WORKSPACE + " <dir>]");
+		sb.append(" [" + OPT_NO_CACHE + "]");
 		sb.append(LINE_SEP);
 		sb.append(spacePrefix);
 		sb.append(" [" + OPT_TARGET_DIR + " <path>");
@@ -582,6 +693,8 @@ public class CommandLineArgs {
 		sb.append(spacePrefix);
 		sb.append(" [" + OPT_STATS + "]");
 		sb.append(" [" + OPT_USED_RULES + "]");
+		sb.append(" [" + OPT_RULE_PROFILE + "]");
+		sb.append(" [" + OPT_RULE_PROFILE_FILE + " <path>]");
 		sb.append(LINE_SEP + LINE_SEP);
 
 		sb.append("- Example for cleanup of multiple files:");
@@ -590,6 +703,7 @@ public class CommandLineArgs {
 		sb.append(" " + OPT_SOURCE_DIR + " \"C:\\temp\\source\"");
 		sb.append(" " + OPT_FILE_FILTER + " \"*.txt\"");
 		sb.append(" " + OPT_RECURSIVE);
+		sb.append(" " + OPT_THREADS + " 8");
 		sb.append(" " + OPT_PROFILE + " \"" + "C:\\temp\\profile" + profileExtension + "\"");
 		sb.append(" " + OPT_RELEASE + " \"757\"");
 		sb.append(" " + OPT_TARGET_DIR + " \"C:\\temp\\target\"");
@@ -610,6 +724,11 @@ public class CommandLineArgs {
 		sb.append(getOptionHelp(OPT_SOURCE_DIR, "Folder that contains ABAP source files (default file pattern is \"*.abap\")"));
 		sb.append(getOptionHelp(OPT_FILE_FILTER, "File pattern to look for (only relevant when " + OPT_SOURCE_DIR + " has been supplied)"));
 		sb.append(getOptionHelp(OPT_RECURSIVE, "Searches provided source directory recursively for ABAP files"));
+		sb.append(getOptionHelp(OPT_THREADS, "Number of files to be cleaned in parallel (only relevant when " + OPT_SOURCE_DIR + " has been"));
+		sb.append(getOptionHelp(null, "supplied). Output order, statistics and used rules are the same as for serial cleanup."));
+		sb.append(getOptionHelp(OPT_PARALLEL, "Cleans files in parallel, using one thread per available processor."));
+		sb.append(getOptionHelp(OPT_INCREMENTAL, "Skips files that were not changed since the last run with the same directories and settings"));
+		sb.append(getOptionHelp(null, "and whose target file was not changed either. The file states are stored in the work directory."));
 		sb.append(LINE_SEP);
 		sb.append(getOptionHelp(OPT_PROFILE, "File name of the cleanup profile to be used (extension " + profileExtension + "). From the UI,"));
 		sb.append(getOptionHelp(null, "you may use button 'Export...' from the profiles editor to create the file."));
@@ -624,6 +743,8 @@ public class CommandLineArgs {
 		sb.append(getOptionHelp(OPT_WORKSPACE, "The workspace directory or ID, used to retrieve workspace-specific settings"));
 		sb.append(getOptionHelp(null, "for the last cleanup profile to be used (" + OPT_LAST_PROFILE + "), for expanding the"));
 		sb.append(getOptionHelp(null, "line range (" + OPT_EXPAND_MODE + " " + EXPAND_MODE_USER + ") and additional release restrictions (from the UI)."));
+		sb.append(getOptionHelp(OPT_NO_CACHE, "Always clean the source, even if the same source was already cleaned with the same"));
+		sb.append(getOptionHelp(null, "profile and settings. Without this option, such results are reused from the work directory."));
 		sb.append(LINE_SEP);
 		sb.append(getOptionHelp(OPT_INTERACTIVE, "Open the UI for interactive cleanup and profile configuration"));
 		sb.append(getOptionHelp(null, "(only possible for single source input)."));
@@ -640,11 +761,17 @@ public class CommandLineArgs {
 		sb.append(getOptionHelp(OPT_PARTIAL_RESULT, "Restrict output to the cleanup result of the " + OPT_LINE_RANGE + " (if supplied)."));
 		sb.append(getOptionHelp(null, "Without this option, the cleanup result of whole code document will be returned."));
 		sb.append(getOptionHelp(OPT_CRLF, "Use CRLF = \"\\r\\n\" as line separator (default: LF = \"\\n\")."));
+		sb.append(getOptionHelp(OPT_OUTPUT, "Write the whole cleaned code (" + OUTPUT_CODE + ", default) or only the changed line ranges"));
+		sb.append(getOptionHelp(null, "as JSON (" + OUTPUT_EDITS + "; empty if nothing changed) to standard output (single source only)."));
 		sb.append(getOptionHelp(OPT_SIMULATE, "Run cleanup without writing the result code to a file or to standard output."));
 		sb.append(getOptionHelp(null, "Use this option to check the potential effect of cleanup with " + OPT_STATS + " or " + OPT_USED_RULES + "."));
 		sb.append(LINE_SEP);
 		sb.append(getOptionHelp(OPT_STATS, "Write statistical summary to standard output."));
 		sb.append(getOptionHelp(OPT_USED_RULES, "Write list of used rules to standard output."));
+		sb.append(getOptionHelp(OPT_RULE_PROFILE, "Write time, visited and changed commands, and allocated memory per rule to"));
+		sb.append(getOptionHelp(null, "standard output, sorted by time and summed up for all files (requires " + OPT_STATS + ")."));
+		sb.append(getOptionHelp(null, "If the cleaned code is written to standard output, the table is written to standard error."));
+		sb.append(getOptionHelp(OPT_RULE_PROFILE_FILE, "File name to which the same measurements per rule will be saved as JSON."));
 		sb.append(LINE_SEP + LINE_SEP);
 
 		sb.append("Starting and using a daemon:");
@@ -652,6 +779,8 @@ public class CommandLineArgs {
 		sb.append(usagePrefix);
 		sb.append(" " + OPT_DAEMONIZE);
 		sb.append(" [" + OPT_IDLE_TIMEOUT + " <seconds>]");
+		sb.append(" [" + OPT_MAX_IN_FLIGHT + " <count>]");
+		sb.append(" [" + OPT_MAX_QUEUED + " <count>]");
 		sb.append(LINE_SEP);
 		sb.append(socketWritePrefix);
 		sb.append(" " + OPT_DAEMON_PING);
@@ -666,6 +795,10 @@ public class CommandLineArgs {
 		sb.append(" [" + OPT_DAEMON_REQUEST_ID + " <id>]");
 		sb.append(LINE_SEP);
 		sb.append(socketWritePrefix);
+		sb.append(" " + OPT_DAEMON_SOURCE_BYTES + " <bytes> [" + OPT_DAEMON_PROFILE_BYTES + " <bytes>] ...");
+		sb.append(" [" + OPT_DAEMON_REQUEST_ID + " <id>] <source> [<profile>]");
+		sb.append(LINE_SEP);
+		sb.append(socketWritePrefix);
 		sb.append(" " + OPT_DAEMON_KEEPALIVE);
 		sb.append(" [" + OPT_DAEMON_REQUEST_ID + " <id>]");
 		sb.append(LINE_SEP);
@@ -709,11 +842,25 @@ public class CommandLineArgs {
 		sb.append(getOptionHelp(null, "the localhost port number to which the daemon is listening for commands."));
 		sb.append(getOptionHelp(OPT_IDLE_TIMEOUT, "Specifies the idle timeout in seconds after which the daemon will"));
 		sb.append(getOptionHelp(null, "automatically stop if no command is received. Use 0 for no idle timeout."));
+		sb.append(getOptionHelp(OPT_MAX_IN_FLIGHT, "Maximum number of cleanup commands that are executed concurrently."));
+		sb.append(getOptionHelp(null, "Default: number of processors, but at least 2."));
+		sb.append(getOptionHelp(OPT_MAX_QUEUED, "Maximum number of further cleanup commands that wait for execution;"));
+		sb.append(getOptionHelp(null, "more commands are answered with '" + DaemonLoad.BUSY_RESPONSE + ": ...'."));
+		sb.append(getOptionHelp(null, "Default: " + String.valueOf(DaemonLoad.DEFAULT_MAX_QUEUED_PER_SLOT) + " times the value of " + OPT_MAX_IN_FLIGHT + "."));
 		sb.append(LINE_SEP);
 		sb.append(getOptionHelp(OPT_DAEMON_PING, "Pings the daemon; returns 'pong' via the socket's output stream.*"));
-		sb.append(getOptionHelp(OPT_DAEMON_STATUS, "Returns the start time, idle time, and idle timeout of the daemon.*"));
+		sb.append(getOptionHelp(OPT_DAEMON_STATUS, "Returns the start time, idle time, and idle timeout of the daemon,"));
+		sb.append(getOptionHelp(null, "as well as queue depth and latency of cleanup commands.*"));
 		sb.append(getOptionHelp(OPT_SOURCE_FILE, "All cleanup commands work as described above. Responses are written"));
 		sb.append(getOptionHelp(null, "to the client socket's output stream.*"));
+		sb.append(getOptionHelp(OPT_DAEMON_SOURCE_BYTES, "Instead of " + OPT_SOURCE_FILE + " or " + OPT_SOURCE_CODE + ": The UTF-8 source code with this"));
+		sb.append(getOptionHelp(null, "number of bytes directly follows the command line. The output is then"));
+		sb.append(getOptionHelp(null, "returned in frames, each consisting of a line with '" + DAEMON_RESPONSE_FRAME_MARKER + "',"));
+		sb.append(getOptionHelp(null, "the number of bytes and the request <id> (if supplied), followed by"));
+		sb.append(getOptionHelp(null, "this number of UTF-8 bytes.*"));
+		sb.append(getOptionHelp(OPT_DAEMON_PROFILE_BYTES, "Instead of " + OPT_PROFILE_DATA + ": The UTF-8 profile data with this number"));
+		sb.append(getOptionHelp(null, "of bytes follows the command line (after the source code, if the"));
+		sb.append(getOptionHelp(null, OPT_DAEMON_SOURCE_BYTES + " option comes first)."));
 		sb.append(getOptionHelp(OPT_DAEMON_KEEPALIVE, "Resets the idle timer of the daemon; returns 'OK: ...'.*"));
 		sb.append(getOptionHelp(OPT_DAEMON_STOP, "Stops the daemon; returns 'OK: ...'.*"));
 		sb.append(LINE_SEP);
@@ -742,6 +889,10 @@ public class CommandLineArgs {
 
 	public final CommandLineAction action;
 	public final int daemonIdleTimeOut_s; // only relevant for DAEMONIZE action, otherwise 0
+	/** maximum number of cleanup commands that the daemon executes concurrently; 0 for the default, cp. {@link DaemonLoad} */
+	public final int daemonMaxInFlight; // only relevant for DAEMONIZE action
+	/** maximum number of cleanup commands that wait for execution in the daemon; -1 for the default, cp. {@link DaemonLoad} */
+	public final int daemonMaxQueued; // only relevant for DAEMONIZE action
 	public final String errors;
 	public final boolean fromDaemon;
 
@@ -754,6 +905,10 @@ public class CommandLineArgs {
 	// - input (multiple files)
 	public final String sourceDir;
 	public final String[] sourcePaths;
+	/** number of files to be cleaned in parallel (only relevant for multiple files, otherwise 1) */
+	public final int threadCount;
+	/** true to skip unchanged files, cp. {@link com.sap.adt.abapcleaner.parser.FileStateIndex} (only relevant for multiple files) */
+	public final boolean incremental;
 
 	// - cleanup
 	public final String profileData;
@@ -763,6 +918,8 @@ public class CommandLineArgs {
 	/** workspace directory, used as a key for making main window settings (profile, cleanup range, release restriction) 
 	 * workspace-specific, cp. MainSettings.CleanupSettings */
 	public final String workspaceDir;
+	/** true to neither reuse nor store results in the {@link com.sap.adt.abapcleaner.parser.CleanupResultCache} */
+	public final boolean noCache;
 
 	// - interactive cleanup (single source only)
 	/** whether to open the interactive UI with the supplied source code */
@@ -781,19 +938,29 @@ public class CommandLineArgs {
 	public final String targetDir;
 	public final boolean overwrite;
 	public final String lineSeparator;
+	/** true to write the minimal line edits as JSON instead of the cleaned code, cp. {@link com.sap.adt.abapcleaner.comparer.TextEdits#toJson()} */
+	public final boolean outputEdits;
 	
 	// - statistics
 	public final boolean showStats;
 	public final boolean showUsedRules;
+	/** true to measure the execution of each rule and write the result with the statistical summary */
+	public final boolean showRuleProfile;
+	/** null, or the path of the file to which the measurements of each rule are saved as JSON */
+	public final String ruleProfilePath;
 
 	public boolean hasErrors() { return !StringUtil.isNullOrEmpty(errors); }
 	
 	public boolean isInSingleSourceMode() { return sourceDir == null; }
 
+	public boolean isParallel() { return !isInSingleSourceMode() && threadCount > 1; }
+
 	public boolean writesResultCodeToOutput() { return !simulate && isInSingleSourceMode() && StringUtil.isNullOrEmpty(targetPath); }
 
 	public boolean showStatsOrUsedRules() { return showStats || showUsedRules; }
 
+	public boolean usesRuleProfiler() { return showRuleProfile || ruleProfilePath != null; }
+
 	// profile options were checked to be mutually exclusive
 	public boolean hasAnyProfileOption() { return hasProfileData() || hasProfileName() || useLastProfile(); }
 	public boolean hasProfileData() { return profileData != null; }
@@ -802,9 +969,16 @@ public class CommandLineArgs {
 	
 	/** constructor for non-cleanup actions (SHOW_HELP, SHOW_VERSION) */
 	private CommandLineArgs(CommandLineAction action, int timeOut_s, String errors, boolean fromDaemon) {
+		this(action, timeOut_s, 0, -1, errors, fromDaemon);
+	}
+
+	/** constructor for non-cleanup actions (SHOW_HELP, SHOW_VERSION, DAEMONIZE) */
+	private CommandLineArgs(CommandLineAction action, int timeOut_s, int maxInFlight, int maxQueued, String errors, boolean fromDaemon) {
 
 		this.action = action;
 		this.daemonIdleTimeOut_s = timeOut_s;
+		this.daemonMaxInFlight = maxInFlight;
+		this.daemonMaxQueued = maxQueued;
 		this.errors = errors;
 		this.fromDaemon = fromDaemon;
 		
@@ -814,12 +988,15 @@ public class CommandLineArgs {
 		this.cleanupRangeExpandMode = null;
 		this.sourceDir = null;
 		this.sourcePaths = null;
+		this.threadCount = 1;
+		this.incremental = false;
 
 		this.profileData = null;
 		this.profileName = null;
 		this.lastProfile = false;
 		this.abapRelease = null;
 		this.workspaceDir = null;
+		this.noCache = false;
 
 		this.interactive = false;
 		this.title = null;
@@ -832,22 +1009,27 @@ public class CommandLineArgs {
 		this.targetDir = null;
 		this.overwrite = false;
 		this.lineSeparator = null;
+		this.outputEdits = false;
 
 		this.showStats = false;
 		this.showUsedRules = false;
+		this.showRuleProfile = false;
+		this.ruleProfilePath = null;
 	}
 	
 	/** constructor for cleanup of a single file (or a line range within it), possibly opening the UI for interactive cleanup */
 	private CommandLineArgs(
 			String errors, boolean fromDaemon,
 			String sourceName, String sourceCode, CleanupRange cleanupRange, CleanupRangeExpandMode cleanupRangeExpandMode, 
-			String profileData, String profileName, boolean lastProfile, String abapRelease, String workspaceDir, 
+			String profileData, String profileName, boolean lastProfile, String abapRelease, String workspaceDir, boolean noCache, 
 			boolean interactive, String title, boolean readOnly, boolean darkTheme,
-			boolean simulate, String targetPath, boolean partialResult, boolean overwrite, String lineSeparator, 
-			boolean showStats, boolean showUsedRules) {
+			boolean simulate, String targetPath, boolean partialResult, boolean overwrite, String lineSeparator, boolean outputEdits, 
+			boolean showStats, boolean showUsedRules, boolean showRuleProfile, String ruleProfilePath) {
 
 		this.action = CommandLineAction.CLEANUP;
 		this.daemonIdleTimeOut_s = 0;
+		this.daemonMaxInFlight = 0;
+		this.daemonMaxQueued = -1;
 		this.errors = errors;
 		this.fromDaemon = fromDaemon;
 		
@@ -858,12 +1040,15 @@ public class CommandLineArgs {
 		
 		this.sourceDir = null;
 		this.sourcePaths = null;
+		this.threadCount = 1;
+		this.incremental = false;
 
 		this.profileData = profileData;
 		this.profileName = profileName;
 		this.lastProfile = lastProfile;
 		this.abapRelease = abapRelease;
 		this.workspaceDir = workspaceDir;
+		this.noCache = noCache;
 
 		this.interactive = interactive;
 		this.title = title;
@@ -876,21 +1061,26 @@ public class CommandLineArgs {
 		this.targetDir = null;
 		this.overwrite = overwrite;
 		this.lineSeparator = lineSeparator;
+		this.outputEdits = outputEdits;
 
 		this.showStats = showStats;
 		this.showUsedRules = showUsedRules;
+		this.showRuleProfile = showRuleProfile;
+		this.ruleProfilePath = ruleProfilePath;
 	}
 
 	/** constructor for cleanup of a multiple files (always entirely and without UI) */
 	private CommandLineArgs(
 			String errors, boolean fromDaemon,
-			String sourceDir, String[] sourcePaths,
-			String profileData, String profileName, boolean lastProfile, String abapRelease, String workspaceDir,
+			String sourceDir, String[] sourcePaths, int threadCount, boolean incremental,
+			String profileData, String profileName, boolean lastProfile, String abapRelease, String workspaceDir, boolean noCache,
 			boolean simulate, String targetDir, boolean overwrite, String lineSeparator, 
-			boolean showStats, boolean showUsedRules) {
+			boolean showStats, boolean showUsedRules, boolean showRuleProfile, String ruleProfilePath) {
 
 		this.action = CommandLineAction.CLEANUP;
 		this.daemonIdleTimeOut_s = 0;
+		this.daemonMaxInFlight = 0;
+		this.daemonMaxQueued = -1;
 		this.errors = errors;
 		this.fromDaemon = fromDaemon;
 
@@ -901,12 +1091,15 @@ public class CommandLineArgs {
 		
 		this.sourceDir = sourceDir;
 		this.sourcePaths = sourcePaths;
+		this.threadCount = threadCount;
+		this.incremental = incremental;
 
 		this.profileData = profileData;
 		this.profileName = profileName;
 		this.lastProfile = lastProfile;
 		this.abapRelease = abapRelease;
 		this.workspaceDir = null;
+		this.noCache = noCache;
 
 		this.interactive = false;
 		this.title = null;
@@ -919,8 +1112,11 @@ public class CommandLineArgs {
 		this.targetDir = targetDir;
 		this.overwrite = overwrite;
 		this.lineSeparator = lineSeparator;
+		this.outputEdits = false;
 
 		this.showStats = showStats;
 		this.showUsedRules = showUsedRules;
+		this.showRuleProfile = showRuleProfile;
+		this.ruleProfilePath = ruleProfilePath;
 	}
 }
@@ -0,0 +1,133 @@
+package com.sap.adt.abapcleaner.programbase;
+
+import java.util.concurrent.Semaphore;
+
+import com.sap.adt.abapcleaner.base.*;
+
+/**
+ * Limits the number of CLI commands that the daemon executes concurrently: up to {@link #maxInFlight} commands are
+ * executed at the same time, up to {@link #maxQueued} further commands wait for a free slot, and any further command
+ * is rejected, so that a burst of requests from several clients gets an immediate {@link #BUSY_RESPONSE}
+ * instead of oversubscribing CPU and memory.
+ *
+ * Additionally, the latency of each command (from admission to completion) and the queue depth are recorded
+ * for the --status response, cp. {@link #getStatistics()}.
+ */
+public class DaemonLoad {
+	/** start of the response to a command that was rejected, because too many commands are already in flight or queued */
+	public static final String BUSY_RESPONSE = "BUSY";
+
+	public static final int DEFAULT_MAX_QUEUED_PER_SLOT = 4;
+
+	private static final long NANOSEC_PER_MILLISEC = 1_000_000L;
+
+	public static int getDefaultMaxInFlight() {
+		return Math.max(Runtime.getRuntime().availableProcessors(), 2);
+	}
+
+	/** a command that was admitted by {@link DaemonLoad#tryAdmit()} */
+	public static class Ticket {
+		private final long admitTime_ns;
+		private long startTime_ns;
+		private boolean isStarted;
+		private boolean isFinished;
+
+		private Ticket(long admitTime_ns) {
+			this.admitTime_ns = admitTime_ns;
+		}
+	}
+
+	public final int maxInFlight;
+	public final int maxQueued;
+
+	/** one permit for each command that may be executed concurrently */
+	private final Semaphore slots;
+
+	private int inFlightCount;
+	private int queuedCount;
+	private int maxQueuedCount;
+	private long completedCount;
+	private long rejectedCount;
+	private long totalLatency_ns;
+	private long maxLatency_ns;
+	private long totalWait_ns;
+
+	public final synchronized int getInFlightCount() { return inFlightCount; }
+
+	public final synchronized int getQueuedCount() { return queuedCount; }
+
+	public final synchronized long getCompletedCount() { return completedCount; }
+
+	public final synchronized long getRejectedCount() { return rejectedCount; }
+
+	public static DaemonLoad create(int maxInFlight, int maxQueued) {
+		return new DaemonLoad(maxInFlight, maxQueued);
+	}
+
+	private DaemonLoad(int maxInFlight, int maxQueued) {
+		this.maxInFlight = Math.max(maxInFlight, 1);
+		this.maxQueued = Math.max(maxQueued, 0);
+		this.slots = new Semaphore(this.maxInFlight, true);
+	}
+
+	/** admits a command, if less than {@link #maxInFlight} + {@link #maxQueued} commands are currently admitted;
+	 * returns null if the command is rejected and must be answered with {@link #BUSY_RESPONSE} */
+	public final synchronized Ticket tryAdmit() {
+		if (inFlightCount + queuedCount >= maxInFlight + maxQueued) {
+			++rejectedCount;
+			return null;
+		}
+		++queuedCount;
+		maxQueuedCount = Math.max(maxQueuedCount, queuedCount);
+		return new Ticket(System.nanoTime());
+	}
+
+	/** waits until the admitted command may be executed; afterwards, {@link #finish(Ticket)} must be called in any case */
+	public final void awaitSlot(Ticket ticket) throws InterruptedException {
+		slots.acquire();
+		synchronized (this) {
+			ticket.startTime_ns = System.nanoTime();
+			ticket.isStarted = true;
+			--queuedCount;
+			++inFlightCount;
+			totalWait_ns += ticket.startTime_ns - ticket.admitTime_ns;
+		}
+	}
+
+	/** must be called when the admitted command was processed, or if it was not executed at all (e.g. if the wait was interrupted) */
+	public final void finish(Ticket ticket) {
+		synchronized (this) {
+			if (ticket.isFinished)
+				return;
+			ticket.isFinished = true;
+			if (!ticket.isStarted) {
+				--queuedCount;
+				return;
+			}
+			long latency_ns = System.nanoTime() - ticket.admitTime_ns;
+			--inFlightCount;
+			++completedCount;
+			totalLatency_ns += latency_ns;
+			maxLatency_ns = Math.max(maxLatency_ns, latency_ns);
+		}
+		slots.release();
+	}
+
+	public final String getBusyResponse() {
+		return BUSY_RESPONSE + ": too many commands in progress, please retry later (" + getLoadInfo() + ")";
+	}
+
+	private synchronized String getLoadInfo() {
+		return Cult.format(inFlightCount) + " of " + Cult.format(maxInFlight) + " in flight, "
+				+ Cult.format(queuedCount) + " of " + Cult.format(maxQueued) + " queued";
+	}
+
+	public final synchronized String getStatistics() {
+		long avgLatency_ms = (completedCount == 0) ? 0 : totalLatency_ns / completedCount / NANOSEC_PER_MILLISEC;
+		long avgWait_ms = (completedCount == 0) ? 0 : totalWait_ns / completedCount / NANOSEC_PER_MILLISEC;
+		return "commands: " + getLoadInfo() + " (max. " + Cult.format(maxQueuedCount) + " queued), "
+				+ String.valueOf(completedCount) + " completed, " + String.valueOf(rejectedCount) + " rejected as busy, "
+				+ "latency avg. " + String.valueOf(avgLatency_ms) + " ms, max. " + String.valueOf(maxLatency_ns / NANOSEC_PER_MILLISEC) + " ms, "
+				+ "queue wait avg. " + String.valueOf(avgWait_ms) + " ms";
+	}
+}
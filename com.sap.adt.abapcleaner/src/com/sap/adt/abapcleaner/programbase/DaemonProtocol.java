@@ -0,0 +1,209 @@
+package com.sap.adt.abapcleaner.programbase;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Framed mode of the daemon protocol, which allows clients to transfer the source code and profile data in-band
+ * instead of via temporary files: A command line that contains {@link CommandLineArgs#OPT_DAEMON_SOURCE_BYTES}
+ * and/or {@link CommandLineArgs#OPT_DAEMON_PROFILE_BYTES} with a byte count is directly followed by a body of that many
+ * UTF-8 bytes for each of these options (in the order in which the options appear in the command line).</p>
+ *
+ * <p>The output of such a command is returned in frames, each consisting of a line with
+ * {@link CommandLineArgs#DAEMON_RESPONSE_FRAME_MARKER}, the byte count and the request ID (if supplied), followed by
+ * that many UTF-8 bytes. Frames always end on a character boundary, so each frame can be decoded on its own. Since every frame is tagged with the request ID, the frames are written as soon as they
+ * are complete, even while other commands are processed concurrently. As in the line protocol, the response ends with
+ * a line that contains {@link CommandLineArgs#DAEMON_RESPONSE_END_MARKER} and the request ID.</p>
+ *
+ * <p>Command lines without these options are processed in the line protocol as before.</p>
+ */
+public class DaemonProtocol {
+	/** maximum size of a single body, to avoid allocating arbitrary amounts of memory for a malformed command */
+	public static final int MAX_BODY_BYTES = 256 * 1024 * 1024;
+	/** size up to which the output of a command is collected before it is written as a frame; 
+	 * a frame may be shorter, because it must not end within a multi-byte UTF-8 character */
+	public static final int RESPONSE_FRAME_BYTES = 64 * 1024;
+
+	private static final byte LF = '\n';
+	private static final byte CR = '\r';
+
+	/** reads command lines and the bodies that follow them from the input stream of a client connection */
+	public static class FramedInput {
+		private final InputStream in;
+
+		public FramedInput(InputStream in) {
+			this.in = new BufferedInputStream(in);
+		}
+
+		/** returns the next line (without line terminator), decoded as UTF-8, or null at the end of the stream */
+		public String readLine() throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int b;
+			while ((b = in.read()) >= 0 && b != LF)
+				line.write(b);
+			if (b < 0 && line.size() == 0)
+				return null;
+			byte[] bytes = line.toByteArray();
+			int length = (bytes.length > 0 && bytes[bytes.length - 1] == CR) ? bytes.length - 1 : bytes.length;
+			return new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+
+		/** returns the next byteCount bytes, decoded as UTF-8 */
+		public String readBody(int byteCount) throws IOException {
+			byte[] bytes = in.readNBytes(byteCount);
+			if (bytes.length < byteCount)
+				throw new EOFException("Connection closed after " + String.valueOf(bytes.length) + " of " + String.valueOf(byteCount) + " body bytes");
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	/** returns true if the command line announces one or several bodies, cp. {@link #readBodies(String[], FramedInput)} */
+	public static boolean hasBodies(String[] args) {
+		for (String arg : args) {
+			if (arg.equals(CommandLineArgs.OPT_DAEMON_SOURCE_BYTES) || arg.equals(CommandLineArgs.OPT_DAEMON_PROFILE_BYTES))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the bodies that follow the supplied command line and returns the command line arguments in which
+	 * {@link CommandLineArgs#OPT_DAEMON_SOURCE_BYTES} and {@link CommandLineArgs#OPT_DAEMON_PROFILE_BYTES} with their byte counts
+	 * are replaced with {@link CommandLineArgs#OPT_SOURCE_CODE} and {@link CommandLineArgs#OPT_PROFILE_DATA} with the body texts.
+	 *
+	 * @throws IOException if a byte count is invalid (in which case the stream cannot be synchronized anymore) or the stream ends prematurely;
+	 * an empty body is rejected as well, because {@link CommandLineArgs} requires a non-empty argument after the replacement option
+	 */
+	public static String[] readBodies(String[] args, FramedInput in) throws IOException {
+		String[] result = args.clone();
+		for (int i = 0; i < result.length; ++i) {
+			String replacementOption;
+			if (result[i].equals(CommandLineArgs.OPT_DAEMON_SOURCE_BYTES)) {
+				replacementOption = CommandLineArgs.OPT_SOURCE_CODE;
+			} else if (result[i].equals(CommandLineArgs.OPT_DAEMON_PROFILE_BYTES)) {
+				replacementOption = CommandLineArgs.OPT_PROFILE_DATA;
+			} else {
+				continue;
+			}
+			if (i + 1 >= result.length)
+				throw new IOException("Missing byte count after " + result[i]);
+			int byteCount;
+			try {
+				byteCount = Integer.parseInt(result[i + 1]);
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid byte count after " + result[i] + ": " + result[i + 1]);
+			}
+			if (byteCount == 0)
+				throw new IOException("Invalid byte count after " + result[i] + ": 0 (the body must not be empty)");
+			if (byteCount < 0 || byteCount > MAX_BODY_BYTES)
+				throw new IOException("Invalid byte count after " + result[i] + ": " + result[i + 1] + " (maximum: " + String.valueOf(MAX_BODY_BYTES) + ")");
+
+			result[i] = replacementOption;
+			result[i + 1] = in.readBody(byteCount);
+			++i;
+		}
+		return result;
+	}
+
+	/**
+	 * Collects the output of a command and writes it in frames to the output stream of the client connection;
+	 * the frames are written while synchronizing on that stream, so they are never mixed with the output of other commands.
+	 * Closing this stream writes the last frame, but does not close the output stream of the client connection.
+	 * If a multi-byte UTF-8 character does not fit into the current frame, its bytes are moved to the next frame.
+	 */
+	public static class FrameOutputStream extends OutputStream {
+		private final OutputStream out;
+		private final String requestId;
+		private final byte[] buffer;
+		private int count;
+
+		/** maximum length of a UTF-8 byte sequence for a single code point */
+		private static final int MAX_UTF8_CHAR_BYTES = 4;
+
+		public FrameOutputStream(OutputStream out, String requestId) {
+			this(out, requestId, RESPONSE_FRAME_BYTES);
+		}
+
+		public FrameOutputStream(OutputStream out, String requestId, int frameBytes) {
+			this.out = out;
+			this.requestId = requestId;
+			this.buffer = new byte[Math.max(frameBytes, MAX_UTF8_CHAR_BYTES)];
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length)
+				writeFrame(false);
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == buffer.length)
+					writeFrame(false);
+				int copyCount = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, copyCount);
+				count += copyCount;
+				off += copyCount;
+				len -= copyCount;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			writeFrame(false);
+		}
+
+		@Override
+		public void close() throws IOException {
+			writeFrame(true);
+		}
+
+		/** writes the collected bytes as a frame; unless this is the last frame, the bytes of an incomplete UTF-8 character 
+		 * at the end are kept for the next frame */
+		private void writeFrame(boolean isLastFrame) throws IOException {
+			int frameCount = isLastFrame ? count : getCompleteCharsByteCount();
+			if (frameCount == 0)
+				return;
+			String header = CommandLineArgs.DAEMON_RESPONSE_FRAME_MARKER + " " + String.valueOf(frameCount) + ((requestId == null) ? "" : " " + requestId) + "\n";
+			byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+			synchronized (out) {
+				out.write(headerBytes, 0, headerBytes.length);
+				out.write(buffer, 0, frameCount);
+				out.flush();
+			}
+			count -= frameCount;
+			System.arraycopy(buffer, frameCount, buffer, 0, count);
+		}
+
+		/** returns the number of collected bytes, excluding the bytes of an incomplete UTF-8 character at the end */
+		private int getCompleteCharsByteCount() {
+			// find the lead byte of the last character, skipping continuation bytes of the form 10xxxxxx
+			int minStart = Math.max(count - MAX_UTF8_CHAR_BYTES, 0);
+			for (int start = count - 1; start >= minStart; --start) {
+				int b = buffer[start] & 0xFF;
+				if ((b & 0xC0) == 0x80)
+					continue;
+				int charByteCount;
+				if (b < 0x80) {
+					charByteCount = 1;
+				} else if ((b & 0xE0) == 0xC0) {
+					charByteCount = 2;
+				} else if ((b & 0xF0) == 0xE0) {
+					charByteCount = 3;
+				} else {
+					charByteCount = 4;
+				}
+				return (start + charByteCount > count) ? start : count;
+			}
+			// invalid UTF-8, which is therefore passed on unchanged
+			return count;
+		}
+	}
+}
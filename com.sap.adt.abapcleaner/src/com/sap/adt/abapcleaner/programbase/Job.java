@@ -4,10 +4,30 @@ import com.sap.adt.abapcleaner.base.*;
 import com.sap.adt.abapcleaner.parser.*;
 import com.sap.adt.abapcleaner.rulebase.*;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class Job implements ICancelable {
 	public static final int CODE_LENGTH_TO_SHOW_PROGRESS_FORM = 1024 * 1024;
 
-	private boolean cancellationPending;
+	/** maximum number of batch files per thread that may be processed or waiting to be merged at the same time */
+	private static final int PENDING_BATCH_TASKS_PER_THREAD = 2;
+
+	/** a single file of a batch Job with the Task that processes it; the result is passed to IBatchJob.addTaskResult() */
+	static class BatchFile {
+		private final String sourceCode;
+		private final String sourceName;
+		final Task task;
+		
+		private BatchFile(String sourceCode, String sourceName, Task task) {
+			this.sourceCode = sourceCode;
+			this.sourceName = sourceName;
+			this.task = task;
+		}
+	}
+
+	private volatile boolean cancellationPending;
 
 	// data provided to the constructor
 	// - for single file processing only:
@@ -16,6 +36,7 @@ public class Job implements ICancelable {
 	private final IBatchJob batchJob;
 	private final String batchDir;
 	private final String[] batchPaths;
+	private final int batchThreadCount;
 	// - for both single file and batch processing:
 	private final StressTestParams stressTestParams;
 	private final CleanupParams cleanupParams;
@@ -61,7 +82,11 @@ public class Job implements ICancelable {
 	}
 
 	public static Job createForBatch(IBatchJob batchJob, String batchDir, String[] batchPaths) {
-		return new Job(batchJob, batchDir, batchPaths);
+		return new Job(batchJob, batchDir, batchPaths, 1);
+	}
+
+	public static Job createForBatch(IBatchJob batchJob, String batchDir, String[] batchPaths, int threadCount) {
+		return new Job(batchJob, batchDir, batchPaths, threadCount);
 	}
 
 	/**
@@ -75,12 +100,22 @@ public class Job implements ICancelable {
 		batchJob = null;
 		batchDir = null;
 		batchPaths = null;
+		batchThreadCount = 1;
 	}
 
 	/**
 	 * Creates a test Job for batch-processing of all provided files
 	 */
 	protected Job(IBatchJob batchJob, String batchDir, String[] batchPaths) {
+		this(batchJob, batchDir, batchPaths, 1);
+	}
+
+	/**
+	 * Creates a test Job for batch-processing of all provided files, processing up to threadCount files in parallel; 
+	 * with a single thread, the reading, parsing, cleanup and comparison of subsequent files overlap in a pipeline 
+	 * (cp. BatchPipeline), unless a stress test is executed
+	 */
+	protected Job(IBatchJob batchJob, String batchDir, String[] batchPaths, int threadCount) {
 		this.parseParams = null;
 		this.stressTestParams = batchJob.getStressTestParams();
 		this.cleanupParams = batchJob.getCleanupParams();
@@ -88,6 +123,7 @@ public class Job implements ICancelable {
 		this.batchJob = batchJob;
 		this.batchDir = batchDir;
 		this.batchPaths = batchPaths;
+		this.batchThreadCount = Math.max(threadCount, 1);
 	}
 
 	public final void cancel() {
@@ -120,27 +156,22 @@ public class Job implements ICancelable {
 	}
 
 	private void runBatchJob() {
-		Persistency persistency = Persistency.get();
-		final String extension = persistency.getExtension(FileType.CODE); // e.g. ".txt"
-
 		Stopwatch stopwatch = Stopwatch.createAndStart();
 		batchJob.initialize(); 
 
 		Program.getLog().flush();
 
-		for (int batchPathIndex = 0; batchPathIndex < batchPaths.length; ++batchPathIndex) {
-			String path = batchPaths[batchPathIndex];
-			String sourceCode = persistency.readAllTextFromFile(path);
-			String sourceName = StringUtil.removeSuffix(path.substring(batchDir.length()), extension, true);
-
-			Task task = createTask(ParseParams.createForWholeCode(sourceName, sourceCode, ABAP.NEWEST_RELEASE), batchPathIndex, batchPaths.length);
-			task.run(batchJob.getStressTestParams(), batchJob.getCleanupParams(), true);
-			task.readAndFlushLog();
-			if (task.wasCancelled()) {
-				wasCancelled = true; 
-				break;
-			} 
-			batchJob.addTaskResult(sourceCode, sourceName, task);
+		if (batchThreadCount > 1 && batchPaths.length > 1) {
+			runBatchTasksInParallel();
+		} else if (stressTestParams == null && batchPaths.length > 1) {
+			// if files cannot be processed in parallel, at least let the stages of subsequent files overlap
+			BatchPipeline.run(this, batchPaths.length, cleanupParams);
+		} else {
+			for (int batchPathIndex = 0; batchPathIndex < batchPaths.length; ++batchPathIndex) {
+				if (!mergeBatchTaskResult(runBatchTask(batchPathIndex, cleanupParams))) {
+					break;
+				}
+			}
 		}
 
 		batchJob.finish(stopwatch.getElapsedTimeMs(), wasCancelled); 
@@ -149,6 +180,61 @@ public class Job implements ICancelable {
 		batchDetails = batchJob.getDetails();
 	}
 
+	private void runBatchTasksInParallel() {
+		// each worker thread needs its own copy of the profile, because Rule instances must not be shared between threads
+		final ThreadLocal<CleanupParams> workerCleanupParams = ThreadLocal.withInitial(() -> (cleanupParams == null) ? null : cleanupParams.createCopyForWorker());
+
+		ForkJoinPool pool = new ForkJoinPool(batchThreadCount);
+		ArrayDeque<ForkJoinTask<BatchFile>> pendingTasks = new ArrayDeque<>();
+		int nextBatchPathIndex = 0;
+		try {
+			for (int batchPathIndex = 0; batchPathIndex < batchPaths.length; ++batchPathIndex) {
+				// limit the number of pending files, so finished results do not pile up while an earlier file is still processed
+				while (nextBatchPathIndex < batchPaths.length && pendingTasks.size() < batchThreadCount * PENDING_BATCH_TASKS_PER_THREAD) {
+					final int submitIndex = nextBatchPathIndex;
+					pendingTasks.add(pool.submit(() -> runBatchTask(submitIndex, workerCleanupParams.get())));
+					++nextBatchPathIndex;
+				}
+
+				// merge the results in the order of the batchPaths, so IBatchJob receives them as in serial processing
+				if (!mergeBatchTaskResult(pendingTasks.poll().join())) {
+					break;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private BatchFile runBatchTask(int batchPathIndex, CleanupParams cleanupParams) {
+		BatchFile batchFile = readBatchFile(batchPathIndex);
+		batchFile.task.run(stressTestParams, cleanupParams, true);
+		// the log must be read on the same thread that ran the Task (cp. Program.getLog())
+		batchFile.task.readAndFlushLog();
+		return batchFile;
+	}
+
+	final BatchFile readBatchFile(int batchPathIndex) {
+		Persistency persistency = Persistency.get();
+		final String extension = persistency.getExtension(FileType.CODE); // e.g. ".txt"
+
+		String path = batchPaths[batchPathIndex];
+		String sourceCode = persistency.readAllTextFromFile(path);
+		String sourceName = StringUtil.removeSuffix(path.substring(batchDir.length()), extension, true);
+
+		Task task = createTask(ParseParams.createForWholeCode(sourceName, sourceCode, ABAP.NEWEST_RELEASE), batchPathIndex, batchPaths.length);
+		return new BatchFile(sourceCode, sourceName, task);
+	}
+
+	final boolean mergeBatchTaskResult(BatchFile result) {
+		if (result.task.wasCancelled()) {
+			wasCancelled = true; 
+			return false;
+		} 
+		batchJob.addTaskResult(result.sourceCode, result.sourceName, result.task);
+		return true;
+	}
+
 	protected Task createTask(ParseParams parseParams, int batchIndex, int batchCount) {
 		return Task.createForBatch(this, parseParams, batchIndex, batchCount);
 	}
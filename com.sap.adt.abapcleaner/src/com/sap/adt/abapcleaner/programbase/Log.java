@@ -78,7 +78,10 @@ public class Log {
 	final void flush() {
 		if (text.length() > 0) {
 			if (path != null) { 
-				Persistency.get().appendToFile(path, text.toString());
+				// the Log instances of several threads may write to the same file (cp. Program.getLog())
+				synchronized (Log.class) {
+					Persistency.get().appendToFile(path, text.toString());
+				}
 			}
 			clear();
 		}
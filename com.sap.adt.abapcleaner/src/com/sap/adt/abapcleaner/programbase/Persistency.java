@@ -4,7 +4,7 @@ import com.sap.adt.abapcleaner.base.*;
 import java.util.*;
 
 public class Persistency extends PersistencyBase {
-	protected static Persistency singleInstance;
+	protected static volatile Persistency singleInstance;
 
 	public static Persistency get() {
 		// do NOT instantiate here, thus forcing a call to Persistency.create() or, for tests, PersistencyDouble.create()
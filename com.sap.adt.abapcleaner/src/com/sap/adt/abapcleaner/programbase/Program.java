@@ -26,8 +26,11 @@ public final class Program {
 	public static final String DOCUMENTATION_BASE_URL = "https://github.com/SAP/abap-cleaner/blob/main/";
 
 	private static boolean showDevFeatures;
-	private static Log log;
-	private static ITokenTypeRefiner tokenTypeRefiner;
+	// each thread collects its own log entries, so they can be attributed to the Task that is processed on this thread
+	private static final ThreadLocal<Log> log = new ThreadLocal<>();
+	// the RND Parser is not known to be thread-safe, therefore each thread gets its own token type refiner 
+	// (cp. parallel cleanup of multiple files with CommandLineArgs.threadCount > 1)
+	private static final ThreadLocal<ITokenTypeRefiner> tokenTypeRefiner = ThreadLocal.withInitial(() -> TokenTypeRefinerRnd.create());
 	private static boolean wasInitialized;
 	
 	public static boolean showDevFeatures() { return showDevFeatures; }
@@ -51,8 +54,8 @@ public final class Program {
 		persistency.ensureDirectoryExists(workDir);
 
 		showDevFeatures = persistency.fileExists(workDir, "devfeatures"); 
-		log = null;
-		wasInitialized = false;
+		log.remove();
+		wasInitialized = true;
 	}
 	
 	public static String getVersion() {
@@ -95,21 +98,33 @@ public final class Program {
 	}
 
 	public static Log getLog() {
-		if (log == null) 
-			log = Log.create(Persistency.get().getSavePath(FileType.ERROR_LOG));
-		return log; 
+		Log threadLog = log.get();
+		if (threadLog == null) {
+			threadLog = Log.create(Persistency.get().getSavePath(FileType.ERROR_LOG));
+			log.set(threadLog);
+		}
+		return threadLog; 
+	}
+
+	/** binds the supplied Log to the current thread (or removes the binding for null) and returns the previously bound Log */
+	static Log bindLog(Log threadLog) {
+		Log previousLog = log.get();
+		if (threadLog == null)
+			log.remove();
+		else
+			log.set(threadLog);
+		return previousLog;
 	}
 
 	public static void setLogForTesting() {
-		if (log != null)
-			log.flush();
-		log = Log.createNonPersistentForTesting();
+		Log threadLog = log.get();
+		if (threadLog != null)
+			threadLog.flush();
+		log.set(Log.createNonPersistentForTesting());
 	}
 
 	public static ITokenTypeRefiner getTokenTypeRefiner() {
-		if (tokenTypeRefiner == null)
-			tokenTypeRefiner = TokenTypeRefinerRnd.create();
-		return tokenTypeRefiner; 
+		return tokenTypeRefiner.get(); 
 	}
 	
 	public static TokenTypeRefinerRnd getRndParser() {
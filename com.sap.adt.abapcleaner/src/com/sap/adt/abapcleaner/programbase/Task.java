@@ -24,6 +24,11 @@ public class Task implements IProgress {
 	private DiffDoc resultingDiffDoc;
 	private String parseCheckErrorsInTestMode;
 
+	// state that is passed between the stages of run(); cp. runParseStage() etc.
+	private ArrayList<DisplayLine> oldCodeDisplayLines;
+	private String stressTestInfo = "";
+	private int startRuleIndex;
+
 	private int lineCountInCleanupRange;
 	private int appliedRuleCount;
 	private int changedLineCount;
@@ -151,10 +156,58 @@ public class Task implements IProgress {
 	}
 	
 	public final boolean run(StressTestType stressTestType, int insertAfterTokenIndex, CleanupParams cleanupParams, boolean testMode) {
-		success = false;
+		startStages();
 
-		lastReportedTask = TaskType.NONE;
+		// if only the Profile configuration changed since the last cleanup of the same code, continue from a snapshot of that cleanup; 
+		// otherwise, parse the code
+		boolean restored = false;
+		if (stressTestType == StressTestType.NONE && insertAfterTokenIndex < 0 && !testMode && !isParseOnly(cleanupParams) && cleanupParams.snapshots != null)
+			restored = restoreFromSnapshot(cleanupParams.snapshots, cleanupParams);
+
+		if (!restored && !runParseStage(testMode))
+			return false;
+
+		// parse only?
+		if (isParseOnly(cleanupParams)) {
+			finishStages();
+			return true;
+		}
+
+		if (!runCleanupStage(stressTestType, insertAfterTokenIndex, cleanupParams))
+			return false;
+		if (!runCheckStage(stressTestType))
+			return false;
+
+		// compare (not necessary during stress test, which focuses on cleanup and integrity)
+		if (stressTestType == StressTestType.NONE && !runCompareStage())
+			return false;
+
+		finishStages();
+		return true;
+	}
 
+	// -------------------------------------------------------------------------
+	// the following stages are called in sequence by run(), but may also be called by a pipeline that executes 
+	// each stage on a different thread (cp. BatchPipeline); a stage returns false if the subsequent stages must be skipped 
+	
+	static boolean isParseOnly(CleanupParams cleanupParams) {
+		return (cleanupParams == null || !cleanupParams.executeCleanup());
+	}
+	
+	final void startStages() {
+		success = false;
+		lastReportedTask = TaskType.NONE;
+		oldCodeDisplayLines = null;
+		stressTestInfo = "";
+		startRuleIndex = 0;
+	}
+	
+	final void finishStages() {
+		oldCodeDisplayLines = null;
+		success = true;
+	}
+	
+	final boolean runParseStage(boolean testMode) {
 		// parse
 		Stopwatch stopwatch = Stopwatch.createAndStart();
 		try {
@@ -190,19 +243,31 @@ public class Task implements IProgress {
 		if (testMode)
 			parseCheckErrorsInTestMode = resultingCode.compareWithSource(parseParams.codeText, 10); // null if recompiled code matches source text
 
-		// parse only?
-		if (cleanupParams == null || !cleanupParams.executeCleanup()) {
-			success = true;
-			return true;
-		}
+		return true;
+	}
 
-		// oldCodeDisplayLines must be retrieved now, before Rules are executed
-		stopwatch.resetAndStart();
-		ArrayList<DisplayLine> oldCodeDisplayLines = resultingCode.toDisplayLines(parseParams.lineNumOffset - 1);
+	private boolean restoreFromSnapshot(CleanupSnapshots snapshots, CleanupParams cleanupParams) {
+		Stopwatch stopwatch = Stopwatch.createAndStart();
+		CleanupSnapshots.RestoredState restoredState = snapshots.restore(parseParams, cleanupParams);
+		if (restoredState == null)
+			return false;
+		resultingCode = restoredState.code;
+		oldCodeDisplayLines = restoredState.oldCodeDisplayLines;
+		lineCountInCleanupRange = restoredState.lineCountInCleanupRange;
+		startRuleIndex = restoredState.startRuleIndex;
+		parseTimeMs += stopwatch.getElapsedTimeMs();
+		return true;
+	}
+
+	final boolean runCleanupStage(StressTestType stressTestType, int insertAfterTokenIndex, CleanupParams cleanupParams) {
+		// oldCodeDisplayLines must be retrieved now, before Rules are executed (unless they were restored from a snapshot)
+		Stopwatch stopwatch = Stopwatch.createAndStart();
+		if (oldCodeDisplayLines == null)
+			oldCodeDisplayLines = resultingCode.toDisplayLines(parseParams.lineNumOffset - 1);
 		compareTimeMs += stopwatch.getElapsedTimeMs();
 
 		// stress test: in each Command, insert a comment, pragma, or colon after the Token with the given index 
-		String stressTestInfo = "";
+		stressTestInfo = "";
 		if (insertAfterTokenIndex >= 0) {
 			stressTestInfo = " [stress test: inserted " + stressTestType.description + " after token #" + String.valueOf(insertAfterTokenIndex) + "]";
 			try {
@@ -227,7 +292,10 @@ public class Task implements IProgress {
 				cleanupParams.rule.executeIfAllowedOn(resultingCode, cleanupParams.releaseRestriction);
 			} else {
 				appliedRuleCount = cleanupParams.profile.getActiveRuleCount();
-				cleanupParams.profile.executeRules(resultingCode, cleanupParams.releaseRestriction, cleanupParams.executeAllRules, this);
+				CleanupSnapshots snapshots = (insertAfterTokenIndex < 0) ? cleanupParams.snapshots : null;
+				if (snapshots != null)
+					snapshots.startCleanup(parseParams, cleanupParams, oldCodeDisplayLines, lineCountInCleanupRange, startRuleIndex);
+				cleanupParams.profile.executeRules(resultingCode, cleanupParams.releaseRestriction, cleanupParams.executeAllRules, this, startRuleIndex, snapshots, cleanupParams.ruleProfiler);
 			}
 		} catch (CleanException ex) {
 			Rule rule = cleanupParams.rule;
@@ -244,9 +312,12 @@ public class Task implements IProgress {
 			return false;
 		}
 		cleanupTimeMs += stopwatch.getElapsedTimeMs();
+		return true;
+	}
 		
+	final boolean runCheckStage(StressTestType stressTestType) {
 		// check: test referential integrity and syntax
-		stopwatch.resetAndStart();
+		Stopwatch stopwatch = Stopwatch.createAndStart();
 		try {
 			resultingCode.testReferentialIntegrity(true, this);
 			if (stressTestType != StressTestType.COLON) {
@@ -262,32 +333,32 @@ public class Task implements IProgress {
 			return false;
 		}
 		checkTimeMs += stopwatch.getElapsedTimeMs();
+		return true;
+	}
 
-		// compare (not necessary during stress test, which focuses on cleanup and integrity)
-		if (stressTestType == StressTestType.NONE) {
-			stopwatch.resetAndStart();
-			ArrayList<DisplayLine> newCodeDisplayLines = resultingCode.toDisplayLines(parseParams.lineNumOffset - 1);
-			CompareDoc doc1 = CompareDoc.createFromDisplayLines(oldCodeDisplayLines);
-			CompareDoc doc2 = CompareDoc.createFromDisplayLines(newCodeDisplayLines);
-			try {
-				resultingDiffDoc = doc1.compareTo(doc2, this);
-				changedLineCount = resultingDiffDoc.getChangedLineCount(); 
-			} catch (CompareException ex) {
-				ex.addToLog(stressTestInfo);
-				compareError = ex.getLineAndMessage(stressTestInfo);
-				return false;
-			}
-			if (parentJob.isCancellationPending(true)) {
-				wasCancelled = true;
-				return false;
-			}
-			compareTimeMs += stopwatch.getElapsedTimeMs();
+	final boolean runCompareStage() {
+		Stopwatch stopwatch = Stopwatch.createAndStart();
+		ArrayList<DisplayLine> newCodeDisplayLines = resultingCode.toDisplayLines(parseParams.lineNumOffset - 1);
+		CompareDoc doc1 = CompareDoc.createFromDisplayLines(oldCodeDisplayLines);
+		CompareDoc doc2 = CompareDoc.createFromDisplayLines(newCodeDisplayLines);
+		try {
+			resultingDiffDoc = doc1.compareTo(doc2, this);
+			changedLineCount = resultingDiffDoc.getChangedLineCount(); 
+		} catch (CompareException ex) {
+			ex.addToLog(stressTestInfo);
+			compareError = ex.getLineAndMessage(stressTestInfo);
+			return false;
 		}
-
-		success = true;
+		if (parentJob.isCancellationPending(true)) {
+			wasCancelled = true;
+			return false;
+		}
+		compareTimeMs += stopwatch.getElapsedTimeMs();
 		return true;
 	}
 
+	// -------------------------------------------------------------------------
+
 	@Override
 	public void report(TaskType task, double progressRatio) {
 		int progressPercent = (int) (progressRatio * 100.0);
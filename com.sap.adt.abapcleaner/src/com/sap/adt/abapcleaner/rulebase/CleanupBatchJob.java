@@ -69,6 +69,10 @@ public class CleanupBatchJob implements IBatchJob {
 
 	@Override
 	public String getDetails() { 
-		return batchCleanupMetrics.getDetails(); 
+		String details = batchCleanupMetrics.getDetails();
+		if (details == null || cleanupParams.ruleProfiler == null)
+			return details;
+		String lineSep = System.lineSeparator();
+		return details + lineSep + cleanupParams.ruleProfiler.toTable(lineSep);
 	}
 }
@@ -10,6 +10,12 @@ public class CleanupParams {
 	
 	public final int releaseRestriction;
 
+	/** null, or the snapshots from which a cleanup of the same code may be continued after the Profile configuration was changed */
+	public final CleanupSnapshots snapshots;
+
+	/** null, or the RuleProfiler in which the execution of each Rule is measured; may be shared between worker threads */
+	public final RuleProfiler ruleProfiler;
+
 	public static CleanupParams createForParseOnly() {
 		return new CleanupParams();
 	}
@@ -22,10 +28,16 @@ public class CleanupParams {
 	}
 
 	public static CleanupParams createForProfile(Profile profile, boolean executeAllRules) {
-		return new CleanupParams(profile, executeAllRules, ABAP.NO_RELEASE_RESTRICTION);
+		return new CleanupParams(profile, executeAllRules, ABAP.NO_RELEASE_RESTRICTION, null, null);
 	}
 	public static CleanupParams createForProfile(Profile profile, boolean executeAllRules, int releaseRestriction) {
-		return new CleanupParams(profile, executeAllRules, releaseRestriction);
+		return new CleanupParams(profile, executeAllRules, releaseRestriction, null, null);
+	}
+	public static CleanupParams createForProfile(Profile profile, boolean executeAllRules, int releaseRestriction, CleanupSnapshots snapshots) {
+		return new CleanupParams(profile, executeAllRules, releaseRestriction, snapshots, null);
+	}
+	public static CleanupParams createForProfile(Profile profile, boolean executeAllRules, int releaseRestriction, CleanupSnapshots snapshots, RuleProfiler ruleProfiler) {
+		return new CleanupParams(profile, executeAllRules, releaseRestriction, snapshots, ruleProfiler);
 	}
 
 	private CleanupParams() {
@@ -33,6 +45,8 @@ public class CleanupParams {
 		this.profile = null;
 		this.executeAllRules = false;
 		this.releaseRestriction = ABAP.NO_RELEASE_RESTRICTION;
+		this.snapshots = null;
+		this.ruleProfiler = null;
 	}
 
 	private CleanupParams(Rule rule, int releaseRestriction) {
@@ -40,13 +54,30 @@ public class CleanupParams {
 		this.profile = null;
 		this.executeAllRules = false;
 		this.releaseRestriction = releaseRestriction;
+		this.snapshots = null;
+		this.ruleProfiler = null;
 	}
 
-	private CleanupParams(Profile profile, boolean executeAllRules, int releaseRestriction) {
+	private CleanupParams(Profile profile, boolean executeAllRules, int releaseRestriction, CleanupSnapshots snapshots, RuleProfiler ruleProfiler) {
 		this.rule = null;
 		this.profile = profile;
 		this.executeAllRules = executeAllRules;
 		this.releaseRestriction = releaseRestriction;
+		this.snapshots = snapshots;
+		this.ruleProfiler = ruleProfiler;
+	}
+
+	/** returns CleanupParams for a worker thread, using a copy of the profile (or rule), 
+	 * because Rule instances must not be shared between threads (while the RuleProfiler is shared to aggregate all measurements) */
+	public CleanupParams createCopyForWorker() {
+		if (profile != null) {
+			return new CleanupParams(Profile.createCopy(profile), executeAllRules, releaseRestriction, null, ruleProfiler);
+		} else if (rule != null) {
+			Profile profileCopy = Profile.createCopy(rule.parentProfile);
+			return new CleanupParams(profileCopy.getRule(rule.getID()), releaseRestriction);
+		} else {
+			return this;
+		}
 	}
 
 	public boolean executeCleanup() {
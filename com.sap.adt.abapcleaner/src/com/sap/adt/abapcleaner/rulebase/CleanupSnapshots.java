@@ -0,0 +1,203 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import com.sap.adt.abapcleaner.comparer.*;
+import com.sap.adt.abapcleaner.parser.*;
+
+import java.util.*;
+
+/**
+ * Keeps copies of the intermediate {@link Code} states of a cleanup, taken before every n-th executed Rule,
+ * so that a subsequent cleanup of the same code with a changed {@link Profile} configuration (e.g. after the user
+ * changed a single Rule in the UI) can continue from the last snapshot before the first affected Rule,
+ * instead of parsing the code again and re-executing all Rules.
+ *
+ * A Rule is considered affected if its activation or configuration changed, if its configuration was read by
+ * an earlier Rule (e.g. ChainRule is called by other Rules), or if it depends on external files.
+ */
+public class CleanupSnapshots {
+	/** number of Rule indices between two snapshots; a lower interval makes re-cleanup faster, but needs more memory */
+	public static final int DEFAULT_SNAPSHOT_INTERVAL = 10;
+
+	/** the state from which a cleanup can be continued */
+	public static class RestoredState {
+		public final Code code;
+		public final ArrayList<DisplayLine> oldCodeDisplayLines;
+		public final int lineCountInCleanupRange;
+		public final int startRuleIndex;
+
+		private RestoredState(Code code, ArrayList<DisplayLine> oldCodeDisplayLines, int lineCountInCleanupRange, int startRuleIndex) {
+			this.code = code;
+			this.oldCodeDisplayLines = oldCodeDisplayLines;
+			this.lineCountInCleanupRange = lineCountInCleanupRange;
+			this.startRuleIndex = startRuleIndex;
+		}
+	}
+
+	private static class Snapshot {
+		private final Code code;
+		private final ArrayList<DisplayLine> oldCodeDisplayLines;
+		private final int lineCountInCleanupRange;
+
+		private Snapshot(Code code, ArrayList<DisplayLine> oldCodeDisplayLines, int lineCountInCleanupRange) {
+			this.code = code;
+			this.oldCodeDisplayLines = oldCodeDisplayLines;
+			this.lineCountInCleanupRange = lineCountInCleanupRange;
+		}
+	}
+
+	private final int snapshotInterval;
+	private final TreeMap<Integer, Snapshot> snapshots = new TreeMap<>();
+
+	/** identifies the source code and the cleanup parameters (apart from the Rule configuration) for which the snapshots were taken */
+	private String sourceKey;
+	/** a copy of the Profile with which the latest cleanup was started */
+	private Profile executedProfile;
+	private boolean executedAllRules;
+	/** for each Rule index, the lowest index of a Rule that read its configuration, cp. Profile.onConfigRead() */
+	private int[] minConfigReaderIndex;
+	/** the display lines of the parsed code, which are referenced by snapshots of the current cleanup */
+	private ArrayList<DisplayLine> currentOldCodeDisplayLines;
+	private int currentLineCountInCleanupRange;
+
+	private int restoreCount;
+
+	public final synchronized int getSnapshotCount() { return snapshots.size(); }
+
+	public final synchronized int getRestoreCount() { return restoreCount; }
+
+	// -------------------------------------------------------------------------
+
+	public static CleanupSnapshots create() {
+		return new CleanupSnapshots(DEFAULT_SNAPSHOT_INTERVAL);
+	}
+
+	public static CleanupSnapshots create(int snapshotInterval) {
+		return new CleanupSnapshots(snapshotInterval);
+	}
+
+	private CleanupSnapshots(int snapshotInterval) {
+		this.snapshotInterval = Math.max(snapshotInterval, 1);
+	}
+
+	private static boolean isApplicable(ParseParams parseParams, CleanupParams cleanupParams) {
+		// code parts that are cleaned within a surrounding Code share their ChangeControls with the surrounding Code,
+		// therefore they cannot be copied independently
+		return parseParams != null && parseParams.surroundingCode == null && cleanupParams != null && cleanupParams.profile != null;
+	}
+
+	private static String getSourceKey(ParseParams parseParams, CleanupParams cleanupParams) {
+		CleanupRange cleanupRange = parseParams.cleanupRange;
+		String cleanupRangeKey = (cleanupRange == null) ? "" : cleanupRange.startLine + "-" + cleanupRange.lastLine + "-" + cleanupRange.expandRange;
+		return parseParams.sourceName + "|" + parseParams.abapRelease + "|" + cleanupRangeKey + "|" + parseParams.cleanupRangeExpandMode
+				+ "|" + parseParams.lineNumOffset + "|" + parseParams.surroundingTextOffset + "|" + cleanupParams.releaseRestriction
+				+ "|" + parseParams.codeText;
+	}
+
+	/**
+	 * returns a copy of the latest snapshot from which the cleanup with the supplied parameters can be continued,
+	 * or null if the code must be parsed and cleaned from scratch
+	 */
+	public final synchronized RestoredState restore(ParseParams parseParams, CleanupParams cleanupParams) {
+		if (!isApplicable(parseParams, cleanupParams) || executedProfile == null || snapshots.isEmpty())
+			return null;
+		if (cleanupParams.executeAllRules != executedAllRules || !getSourceKey(parseParams, cleanupParams).equals(sourceKey))
+			return null;
+
+		int firstAffectedRuleIndex = getFirstAffectedRuleIndex(cleanupParams.profile);
+		Map.Entry<Integer, Snapshot> entry = snapshots.floorEntry(firstAffectedRuleIndex);
+		if (entry == null)
+			return null;
+
+		// later snapshots are outdated, because the Rules before them will now be executed with a different configuration
+		snapshots.tailMap(entry.getKey(), false).clear();
+		++restoreCount;
+
+		Snapshot snapshot = entry.getValue();
+		IdentityHashMap<Command, Command> commandMap = new IdentityHashMap<>();
+		Code code = snapshot.code.createCopy(commandMap, getParentCommands(snapshot.oldCodeDisplayLines));
+		return new RestoredState(code, copyDisplayLines(snapshot.oldCodeDisplayLines, commandMap), snapshot.lineCountInCleanupRange, entry.getKey());
+	}
+
+	private int getFirstAffectedRuleIndex(Profile profile) {
+		Rule[] rules = profile.getAllRules();
+		Rule[] executedRules = executedProfile.getAllRules();
+		for (int ruleIndex = 0; ruleIndex < rules.length; ++ruleIndex) {
+			Rule rule = rules[ruleIndex];
+			Rule executedRule = executedRules[ruleIndex];
+			if ((rule.isActive || executedAllRules) && rule.dependsOnExternalFiles())
+				return ruleIndex;
+			if (rule.isActive != executedRule.isActive || !rule.hasSameConfigurationAs(executedRule)) {
+				// the configuration of this Rule may also have been read by an earlier Rule
+				return (minConfigReaderIndex == null) ? 0 : Math.min(ruleIndex, minConfigReaderIndex[ruleIndex]);
+			}
+		}
+		return rules.length;
+	}
+
+	/**
+	 * must be called before {@link Profile#executeRules(Code, int, boolean, com.sap.adt.abapcleaner.programbase.IProgress, int, CleanupSnapshots)}
+	 * starts with the supplied Code, which is either freshly parsed (startRuleIndex == 0) or was restored with {@link #restore(ParseParams, CleanupParams)}
+	 */
+	public final synchronized void startCleanup(ParseParams parseParams, CleanupParams cleanupParams, ArrayList<DisplayLine> oldCodeDisplayLines, int lineCountInCleanupRange, int startRuleIndex) {
+		if (!isApplicable(parseParams, cleanupParams)) {
+			clear();
+			return;
+		}
+		if (startRuleIndex == 0) {
+			snapshots.clear();
+			minConfigReaderIndex = null;
+			sourceKey = getSourceKey(parseParams, cleanupParams);
+		}
+		executedProfile = Profile.createCopy(cleanupParams.profile);
+		executedAllRules = cleanupParams.executeAllRules;
+		currentOldCodeDisplayLines = oldCodeDisplayLines;
+		currentLineCountInCleanupRange = lineCountInCleanupRange;
+	}
+
+	/** returns the array in which the Profile tracks configuration reads; entries from previous cleanups are kept, because snapshots may stem from them */
+	final synchronized int[] getMinConfigReaderIndices(int ruleCount) {
+		if (minConfigReaderIndex == null || minConfigReaderIndex.length != ruleCount) {
+			minConfigReaderIndex = new int[ruleCount];
+			Arrays.fill(minConfigReaderIndex, Integer.MAX_VALUE);
+		}
+		return minConfigReaderIndex;
+	}
+
+	/** adds a copy of the supplied Code before the Rule with the supplied index is executed, if the last snapshot is sufficiently far away */
+	final synchronized void addIfDue(int ruleIndex, Code code) {
+		if (sourceKey == null || currentOldCodeDisplayLines == null)
+			return;
+		Integer lastSnapshotIndex = snapshots.floorKey(ruleIndex);
+		if (lastSnapshotIndex != null && ruleIndex - lastSnapshotIndex < snapshotInterval)
+			return;
+
+		IdentityHashMap<Command, Command> commandMap = new IdentityHashMap<>();
+		Code codeCopy = code.createCopy(commandMap, getParentCommands(currentOldCodeDisplayLines));
+		snapshots.put(ruleIndex, new Snapshot(codeCopy, copyDisplayLines(currentOldCodeDisplayLines, commandMap), currentLineCountInCleanupRange));
+	}
+
+	private static ArrayList<Command> getParentCommands(ArrayList<DisplayLine> displayLines) {
+		ArrayList<Command> commands = new ArrayList<>(displayLines.size());
+		for (DisplayLine displayLine : displayLines) {
+			commands.add(displayLine.getParentCommand());
+		}
+		return commands;
+	}
+
+	private static ArrayList<DisplayLine> copyDisplayLines(ArrayList<DisplayLine> displayLines, Map<Command, Command> commandMap) {
+		ArrayList<DisplayLine> copies = new ArrayList<>(displayLines.size());
+		for (DisplayLine displayLine : displayLines) {
+			Command parentCommand = displayLine.getParentCommand();
+			copies.add(DisplayLine.createCopy(displayLine, (parentCommand == null) ? null : commandMap.get(parentCommand)));
+		}
+		return copies;
+	}
+
+	public final synchronized void clear() {
+		snapshots.clear();
+		sourceKey = null;
+		executedProfile = null;
+		minConfigReaderIndex = null;
+		currentOldCodeDisplayLines = null;
+	}
+}
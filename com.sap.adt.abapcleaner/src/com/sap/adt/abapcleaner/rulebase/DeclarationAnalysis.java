@@ -0,0 +1,150 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import java.util.ArrayList;
+
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.Command;
+import com.sap.adt.abapcleaner.parser.Token;
+import com.sap.adt.abapcleaner.rulehelpers.ClassInfo;
+import com.sap.adt.abapcleaner.rulehelpers.Variables;
+
+/**
+ * <p>Stores the class, method, and variable information that {@link RuleForDeclarations} reads from a {@link Code},
+ * so that subsequent declaration Rules can reuse it, cp. {@link Code#getRuleAnalysis(Class)}.</p>
+ *
+ * <p>The analysis consists of the 'frame', i.e. all Commands outside of method bodies, and a {@link MethodAnalysis} for each method.
+ * If a Command in the frame was changed (or Commands were added or removed there), the analysis must be discarded;
+ * if only the Commands inside a method body were changed, only this method must be analyzed again,
+ * cp. {@link MethodAnalysis#isValid()}. Since Rules do not change whitespace via {@link Command#getModificationEpoch()},
+ * line breaks are additionally checked with a hash value.</p>
+ */
+class DeclarationAnalysis {
+	enum EventType {
+		CLASS_DEFINITION_END,
+		CLASS_IMPLEMENTATION_START,
+		METHOD_END;
+	}
+
+	/** a point in the Code at which {@link RuleForDeclarations} calls one of its execution methods */
+	static class Event {
+		final EventType type;
+		final ClassInfo classInfo;
+		final MethodAnalysis method;
+
+		Event(EventType type, ClassInfo classInfo, MethodAnalysis method) {
+			this.type = type;
+			this.classInfo = classInfo;
+			this.method = method;
+		}
+	}
+
+	/** the local variables and their usages in a method (or FORM, FUNCTION, event block etc.) */
+	static class MethodAnalysis {
+		final Command methodStart;
+		final ClassInfo classInfo;
+		/** true if the method body can be analyzed again on its own, cp. {@link MethodPartitions#isPartitionable(Command)} */
+		final boolean isCacheable;
+
+		/** the Commands from {@link #methodStart} to its end (inclusive) at the time of the analysis; null if not cacheable */
+		private Command[] commands;
+		private int epoch;
+		private int lineBreaksHash;
+		/** null if the analysis of the method failed */
+		private Variables variables;
+
+		MethodAnalysis(Code code, Command methodStart, ClassInfo classInfo) {
+			this.methodStart = methodStart;
+			this.classInfo = classInfo;
+			this.isCacheable = MethodPartitions.isPartitionable(methodStart);
+			recordCommands(code);
+		}
+
+		/** stores the current Commands of the method, to be called before the method is analyzed (again) */
+		final void recordCommands(Code code) {
+			if (!isCacheable)
+				return;
+			ArrayList<Command> commandList = new ArrayList<>();
+			Command methodEnd = methodStart.getNextSibling();
+			for (Command command = methodStart; command != methodEnd.getNext(); command = command.getNext())
+				commandList.add(command);
+			commands = commandList.toArray(new Command[0]);
+			epoch = code.getModificationEpoch();
+			lineBreaksHash = getLineBreaksHash(commands);
+		}
+
+		/** returns true if none of the Commands of this method was changed since it was analyzed;
+		 * methods that are not cacheable are only part of a valid frame, cp. {@link DeclarationAnalysis#isFrameValid(Code)} */
+		final boolean isValid() {
+			if (!isCacheable)
+				return true;
+			if (methodStart.getNextSibling() != commands[commands.length - 1])
+				return false;
+			Command command = methodStart;
+			for (Command expCommand : commands) {
+				if (command != expCommand || command.getModificationEpoch() > epoch)
+					return false;
+				command = command.getNext();
+			}
+			return (getLineBreaksHash(commands) == lineBreaksHash);
+		}
+
+		final Variables getVariables() { return variables; }
+
+		final void setVariables(Variables variables) { this.variables = variables; }
+	}
+
+	private final ArrayList<Event> events = new ArrayList<>();
+	private final ArrayList<Command> frameCommands = new ArrayList<>();
+	private final int frameEpoch;
+	private final int frameLineBreaksHash;
+
+	static DeclarationAnalysis create(Code code) {
+		return new DeclarationAnalysis(code);
+	}
+
+	private DeclarationAnalysis(Code code) {
+		frameEpoch = code.getModificationEpoch();
+		Command command = code.firstCommand;
+		while (command != null) {
+			frameCommands.add(command);
+			command = getNextFrameCommand(command);
+		}
+		frameLineBreaksHash = getLineBreaksHash(frameCommands.toArray(new Command[0]));
+	}
+
+	/** returns the next Command outside of method bodies, skipping the bodies of cacheable methods */
+	private static Command getNextFrameCommand(Command command) {
+		return MethodPartitions.isPartitionable(command) ? command.getNextSibling() : command.getNext();
+	}
+
+	/** returns true if no Commands outside of method bodies were added, removed, or changed since the analysis */
+	final boolean isFrameValid(Code code) {
+		Command command = code.firstCommand;
+		for (Command expCommand : frameCommands) {
+			if (command != expCommand || command.getModificationEpoch() > frameEpoch)
+				return false;
+			command = getNextFrameCommand(command);
+		}
+		return (command == null && getLineBreaksHash(frameCommands.toArray(new Command[0])) == frameLineBreaksHash);
+	}
+
+	final void addEvent(Event event) {
+		events.add(event);
+	}
+
+	final ArrayList<Event> getEvents() {
+		return events;
+	}
+
+	private static int getLineBreaksHash(Command[] commands) {
+		int hash = 0;
+		for (Command command : commands) {
+			for (Token token = command.getFirstToken(); token != null; token = token.getNext()) {
+				hash = 31 * hash + token.lineBreaks;
+				if (token == command.getLastToken())
+					break;
+			}
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,115 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import com.sap.adt.abapcleaner.parser.*;
+import com.sap.adt.abapcleaner.programbase.*;
+
+/**
+ * <p>Partitions a {@link Code} document into the bodies of its METHOD, FUNCTION, and FORM implementations, 
+ * so that {@link Rule}s which are {@link Rule#isMethodLocal() method-local} can process these bodies concurrently.</p>
+ * 
+ * <p>The Commands of a body are the children of the method start Command, so changes within one body never touch 
+ * the Commands of another body. Exceptions are collected per body and thrown in the sequence of the bodies, 
+ * and {@link Code#addRuleUse(Rule, Command)} only changes the respective Command, so the result does not depend 
+ * on the order in which the bodies are processed.</p>
+ */
+public class MethodPartitions {
+	/** minimum number of bodies for which concurrent processing pays off */
+	static final int MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION = 8;
+
+	private static volatile boolean isParallelExecutionEnabled = (Runtime.getRuntime().availableProcessors() > 1);
+
+	public static void setParallelExecutionEnabled(boolean value) { isParallelExecutionEnabled = value; }
+
+	public static boolean isParallelExecutionEnabled() { return isParallelExecutionEnabled; }
+
+	/** processes one body, identified by its index */
+	interface BodyAction {
+		void execute(int bodyIndex) throws UnexpectedSyntaxAfterChanges;
+	}
+
+	/** returns the method start Commands whose bodies can be processed concurrently by the supplied Rule, 
+	 * or null if the Rule must process the Code sequentially */
+	static ArrayList<Command> getMethodStarts(Rule rule, Code code) {
+		if (!isParallelExecutionEnabled || !rule.isMethodLocal())
+			return null;
+
+		ArrayList<Command> methodStarts = new ArrayList<>();
+		Command command = code.firstCommand;
+		while (command != null) {
+			if (isPartitionable(command)) {
+				methodStarts.add(command);
+				command = command.getNextSibling();
+			} else {
+				command = command.getNext();
+			}
+		}
+		return (methodStarts.size() >= MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION) ? methodStarts : null;
+	}
+
+	/** returns true if the bodies of all METHOD, FUNCTION, and FORM implementations in the supplied Code will be processed 
+	 * concurrently by the supplied Rule, i.e. if there are enough bodies and each of them can be processed independently */
+	static boolean willExecuteAllBodiesInParallel(Rule rule, Code code) {
+		if (!isParallelExecutionEnabled || !rule.isMethodLocal())
+			return false;
+
+		int bodyCount = 0;
+		Command command = code.firstCommand;
+		while (command != null) {
+			if (command.isMethodFunctionOrFormStart()) {
+				if (!isPartitionable(command))
+					return false;
+				++bodyCount;
+				command = command.getNextSibling();
+			} else {
+				command = command.getNext();
+			}
+		}
+		return (bodyCount >= MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION);
+	}
+
+	/** returns true if the supplied Command starts a METHOD, FUNCTION, or FORM implementation whose body can be processed independently */
+	static boolean isPartitionable(Command methodStart) {
+		return methodStart.isMethodFunctionOrFormStart() && methodStart.hasChildren() && methodStart.getNextSibling() != null
+				&& methodStart.getNextSibling().isMethodFunctionOrFormEnd();
+	}
+
+	/** executes the supplied action for all bodies, concurrently if there are enough bodies, and throws the exception of the first failed body */
+	static void execute(int bodyCount, BodyAction action) throws UnexpectedSyntaxAfterChanges {
+		execute(bodyCount, true, action);
+	}
+
+	/** same as {@link #execute(int, BodyAction)}, but sequentially if allowParallel is false */
+	static void execute(int bodyCount, boolean allowParallel, BodyAction action) throws UnexpectedSyntaxAfterChanges {
+		UnexpectedSyntaxAfterChanges[] exceptions = new UnexpectedSyntaxAfterChanges[bodyCount];
+		IntStream indices = IntStream.range(0, bodyCount);
+		if (allowParallel && isParallelExecutionEnabled && bodyCount >= MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION)
+			indices = indices.parallel();
+		// if the RuleProfiler measures the current Rule execution, helper threads add their allocations to it 
+		final Thread callingThread = Thread.currentThread();
+		final AtomicLong helperAllocatedBytes = RuleProfiler.getHelperThreadAllocationCounter();
+		indices.forEach(index -> {
+			boolean isHelperThread = (helperAllocatedBytes != null && Thread.currentThread() != callingThread);
+			long allocatedBytesBefore = isHelperThread ? RuleProfiler.getCurrentThreadAllocatedBytes() : RuleProfiler.NOT_MEASURED;
+			try {
+				action.execute(index);
+			} catch (UnexpectedSyntaxAfterChanges e) {
+				exceptions[index] = e;
+			} finally {
+				if (allocatedBytesBefore >= 0) {
+					long allocatedBytesAfter = RuleProfiler.getCurrentThreadAllocatedBytes();
+					if (allocatedBytesAfter >= 0)
+						helperAllocatedBytes.addAndGet(allocatedBytesAfter - allocatedBytesBefore);
+				}
+			}
+		});
+
+		for (UnexpectedSyntaxAfterChanges exception : exceptions) {
+			if (exception != null)
+				throw exception;
+		}
+	}
+}
@@ -144,6 +144,11 @@ public class Profile {
 	private RuleGroup[] ruleGroups;
 	private final HashMap<String, Rule> ruleOfId = new HashMap<String, Rule>();
 
+	// while executeRules() runs with CleanupSnapshots, configuration reads are tracked to determine which Rules depend on 
+	// the configuration of which other Rules: for each Rule index, the lowest index of a Rule that read its configuration 
+	private int executingRuleIndex = -1;
+	private int[] minConfigReaderIndex;
+
 	@Override
 	public String toString() {
 		return name;
@@ -213,6 +218,15 @@ public class Profile {
 		}
 	}
 
+	/** creates an independent copy of the supplied profile with the same name and path, e.g. for a worker thread 
+	 * that must not share its Rule instances with other threads (cp. parallel cleanup of multiple files) */
+	public static Profile createCopy(Profile model) {
+		Profile profile = new Profile(model.name, model);
+		profile.path = model.path;
+		profile.isReadOnly = model.isReadOnly;
+		return profile;
+	}
+
 	private void initializeRules() {
 		ruleGroups = new RuleGroup[Rule.RULE_GROUP_COUNT];
 		for (int i = 0; i < Rule.RULE_GROUP_COUNT; ++i)
@@ -231,48 +245,88 @@ public class Profile {
 		executeRules(code, releaseRestriction, false, null);
 	}
 	public final void executeRules(Code code, int releaseRestriction, boolean executeInactiveRules, IProgress progress) throws CleanException {
+		executeRules(code, releaseRestriction, executeInactiveRules, progress, 0, null);
+	}
+	/**
+	 * executes the (active) Rules, starting from the Rule with the supplied index
+	 * @param startRuleIndex - 0 to execute all Rules; otherwise, the supplied Code must be the result of executing all Rules before this index, 
+	 * e.g. as restored from {@link CleanupSnapshots#restore(ParseParams, CleanupParams)}
+	 * @param snapshots - null, or the CleanupSnapshots to which the intermediate states of the Code shall be added
+	 */
+	public final void executeRules(Code code, int releaseRestriction, boolean executeInactiveRules, IProgress progress, int startRuleIndex, CleanupSnapshots snapshots) throws CleanException {
+		executeRules(code, releaseRestriction, executeInactiveRules, progress, startRuleIndex, snapshots, null);
+	}
+	/**
+	 * same as {@link #executeRules(Code, int, boolean, IProgress, int, CleanupSnapshots)}, but records time, visited and changed Commands 
+	 * and allocated bytes per Rule in the supplied RuleProfiler
+	 * @param ruleProfiler - null to execute the Rules without instrumentation
+	 */
+	public final void executeRules(Code code, int releaseRestriction, boolean executeInactiveRules, IProgress progress, int startRuleIndex, CleanupSnapshots snapshots, 
+			RuleProfiler ruleProfiler) throws CleanException {
 		// update custom camel case names
 		updateCustomNames();
 		
 		int rulesToExecuteCount = 0;
-		if (executeInactiveRules)
-			rulesToExecuteCount = rules.length;
-		else {
-			for (Rule rule : rules) {
-				if (rule.isActive) {
-					++rulesToExecuteCount;
-				}
+		for (int ruleIndex = startRuleIndex; ruleIndex < rules.length; ++ruleIndex) {
+			if (rules[ruleIndex].isActive || executeInactiveRules) {
+				++rulesToExecuteCount;
 			}
 		}
 
 		if (progress != null)
 			progress.report(TaskType.CLEANER, 0.0);
 		int executedCount = 0;
-		for (Rule rule : rules) {
-			if (!rule.isActive && !executeInactiveRules)
-				continue;
-			
-			try {
-				rule.executeIfAllowedOn(code, releaseRestriction);
-
-			} catch (CleanException ex) {
-				if (ex.severity.getValue() <= ExceptionSeverity.S1_STOP_RULE.getValue()) {
-					// add to log and continue with next rule
-					ex.addToLog();
-				} else {
-					// escalate
-					ex.enhanceIfMissing(rule, rule.commandForErrorMsg);
-					throw ex;
+		minConfigReaderIndex = (snapshots == null) ? null : snapshots.getMinConfigReaderIndices(rules.length);
+		if (ruleProfiler != null)
+			ruleProfiler.addCode();
+		try {
+			for (int ruleIndex = startRuleIndex; ruleIndex < rules.length; ++ruleIndex) {
+				Rule rule = rules[ruleIndex];
+				if (!rule.isActive && !executeInactiveRules)
+					continue;
+				
+				if (snapshots != null)
+					snapshots.addIfDue(ruleIndex, code);
+	
+				executingRuleIndex = ruleIndex;
+				try {
+					if (ruleProfiler == null) {
+						rule.executeIfAllowedOn(code, releaseRestriction);
+					} else {
+						ruleProfiler.execute(rule, code, releaseRestriction);
+					}
+	
+				} catch (CleanException ex) {
+					if (ex.severity.getValue() <= ExceptionSeverity.S1_STOP_RULE.getValue()) {
+						// add to log and continue with next rule
+						ex.addToLog();
+					} else {
+						// escalate
+						ex.enhanceIfMissing(rule, rule.commandForErrorMsg);
+						throw ex;
+					}
+				} finally {
+					executingRuleIndex = -1;
 				}
+				if (progress != null && progress.isCancellationPending())
+					return;
+				++executedCount;
+				if (progress != null)
+					progress.report(TaskType.CLEANER, executedCount / (double) rulesToExecuteCount);
 			}
-			if (progress != null && progress.isCancellationPending())
-				return;
-			++executedCount;
-			if (progress != null)
-				progress.report(TaskType.CLEANER, executedCount / (double) rulesToExecuteCount);
+		} finally {
+			minConfigReaderIndex = null;
 		}
 	}
 
+	final void onConfigRead(Rule rule) {
+		if (executingRuleIndex < 0 || minConfigReaderIndex == null)
+			return;
+		int ruleIndex = rule.getID().getValue();
+		if (executingRuleIndex < minConfigReaderIndex[ruleIndex])
+			minConfigReaderIndex[ruleIndex] = executingRuleIndex;
+	}
+
 	public void updateCustomNames() {
 		if (path == null || Persistency.get() == null)
 			return;
@@ -0,0 +1,104 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import com.sap.adt.abapcleaner.base.*;
+import com.sap.adt.abapcleaner.programbase.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * LRU cache of Profiles that were built from settings text, e.g. from the --profiledata that the daemon receives
+ * with each cleanup request. Since the Rule instances of a Profile must not be used by concurrent requests,
+ * a cached Profile is removed from the cache by {@link #acquire(String, String)} and must be returned with
+ * {@link #release(String, Profile)} after the cleanup.
+ * 
+ * The key is a hash of the profile text and the workspace directory, so a changed profile file automatically
+ * results in a new entry, while the outdated entry is eventually evicted.
+ */
+public class ProfileCache {
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private final int capacity;
+	private final LinkedHashMap<String, Profile> profiles;
+
+	private int hitCount;
+	private int missCount;
+
+	public final synchronized int getHitCount() { return hitCount; }
+
+	public final synchronized int getMissCount() { return missCount; }
+
+	public final synchronized int getSize() { return profiles.size(); }
+
+	public final synchronized String getStatistics() {
+		return "profile cache: " + Cult.format(hitCount) + " hits, " + Cult.format(missCount) + " misses, "
+				+ Cult.format(profiles.size()) + " of " + Cult.format(capacity) + " entries";
+	}
+
+	// -------------------------------------------------------------------------
+
+	public static ProfileCache create(int capacity) {
+		return new ProfileCache(capacity);
+	}
+
+	private ProfileCache(int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		// use access order, so the least recently used entry is evicted first
+		this.profiles = new LinkedHashMap<String, Profile>(this.capacity + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Profile> eldest) {
+				return size() > ProfileCache.this.capacity;
+			}
+		};
+	}
+
+	/** returns the cache key for the supplied profile text and workspace directory */
+	public static String getKey(String profileData, String workspaceDir) {
+		String content = StringUtil.isNullOrEmpty(workspaceDir) ? profileData : workspaceDir + "\n" + profileData;
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+			StringBuilder result = new StringBuilder(hash.length * 2);
+			for (byte b : hash)
+				result.append(String.format("%02x", b));
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is required on every Java platform, but if unavailable, use the content itself as the key
+			return content;
+		}
+	}
+
+	/** returns a Profile for the exclusive use of the caller, either from the cache or (if not found) newly built from the profile text */
+	public final Profile acquire(String key, String profileData) throws IOException {
+		synchronized (this) {
+			Profile profile = profiles.remove(key);
+			if (profile != null) {
+				++hitCount;
+				return profile;
+			}
+			++missCount;
+		}
+
+		// build the Profile outside of the lock, so other requests are not blocked meanwhile
+		try (ISettingsReader reader = TextSettingsReader.createFromString(profileData, Program.TECHNICAL_VERSION)) {
+			return Profile.createFromSettings(reader, "");
+		}
+	}
+
+	/** returns a Profile that was obtained with {@link #acquire(String, String)} to the cache */
+	public final synchronized void release(String key, Profile profile) {
+		if (profile != null) {
+			profiles.put(key, profile);
+		}
+	}
+
+	public final synchronized void clear() {
+		profiles.clear();
+		hitCount = 0;
+		missCount = 0;
+	}
+}
@@ -270,6 +270,11 @@ public abstract class Rule {
 	/** true if the rule depends on the content of file that are stored separately and might have changed when the focus returns */
 	public boolean dependsOnExternalFiles() { return false; }
 
+	/** true if this Rule only reads and changes Commands inside of the same METHOD, FUNCTION, or FORM implementation 
+	 * (and keeps no state in its fields while processing one of them); if so, the bodies of several implementations 
+	 * may be processed concurrently, cp. {@link MethodPartitions} */
+	protected boolean isMethodLocal() { return false; }
+
 	public abstract String getExample();
 	
 	public ConfigValue[] getConfigValues() { return new ConfigValue[] { new ConfigInfoValue(this, "(no options available for this rule)", ConfigInfoStyle.NORMAL) }; }
@@ -284,7 +289,9 @@ public abstract class Rule {
 	public String buttonClicked(ConfigValue configValue) { return null; }
 	
 	public final Profile parentProfile;
-	/** holds the Command that is currently processed in executeOn() which may be used for error messages */
+	/** holds the Command that is currently processed in executeOn() which may be used for error messages; 
+	 * only set on the calling thread, because method bodies that are processed concurrently (cp. {@link MethodPartitions}) 
+	 * attach the failing Command to the exception with {@link com.sap.adt.abapcleaner.programbase.CleanException#enhanceIfMissing(Rule, Command)} instead */
 	public Command commandForErrorMsg; 
 	public boolean isActive = isActiveByDefault();
 
@@ -309,7 +316,20 @@ public abstract class Rule {
 		return getRuleIdAndName(getID());
 	}
 
+	/** returns {@link #isActive} for the evaluation by another Rule, which therefore depends on the activation of this Rule */
+	public final boolean isActiveForOtherRule() {
+		trackConfigRead();
+		return isActive;
+	}
+
+	private void trackConfigRead() {
+		if (parentProfile != null) {
+			parentProfile.onConfigRead(this);
+		}
+	}
+
 	protected final boolean getBool(String name) {
+		trackConfigRead();
 		return getBool(settings, name);
 	}
 	private static final boolean getBool(HashMap<String, String> settings, String name) {
@@ -324,6 +344,7 @@ public abstract class Rule {
 	}
 
 	protected final int getInt(String name) {
+		trackConfigRead();
 		return getInt(settings, name);
 	}
 	private static final int getInt(HashMap<String, String> settings, String name) {
@@ -338,6 +359,7 @@ public abstract class Rule {
 	}
 
 	protected final String getString(String name) {
+		trackConfigRead();
 		return getString(settings, name);
 	}
 	private static final String getString(HashMap<String, String> settings, String name) {
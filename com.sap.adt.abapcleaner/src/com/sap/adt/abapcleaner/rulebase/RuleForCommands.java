@@ -1,5 +1,7 @@
 package com.sap.adt.abapcleaner.rulebase;
 
+import java.util.ArrayList;
+
 import com.sap.adt.abapcleaner.parser.*;
 import com.sap.adt.abapcleaner.programbase.*;
 
@@ -24,17 +26,49 @@ public abstract class RuleForCommands extends Rule {
 		if (code == null)
 			throw new NullPointerException("code");
 
-		boolean skipInsideBeginOf = skipDeclarationsInsideBeginOf();
-		boolean skipOutsideMethod = skipOutsideMethodFunctionOrForm();
-		
-		int blockLevel = 0;
-		boolean isInsideMethod = false; // for a code snippet that only covers a part of a method, this intentionally stays false
+		ArrayList<Command> methodStarts = MethodPartitions.getMethodStarts(this, code);
+		if (methodStarts == null) {
+			// for a code snippet that only covers a part of a method, isInsideMethod intentionally stays false
+			executeOnRange(code, code.firstCommand, null, false, 0, false, releaseRestriction);
+			
+		} else {
+			// process the method bodies concurrently, then all other Commands (including the method start and end Commands)
+			int[] blockLevels = getBlockLevelsOfBodies(code, methodStarts);
+			MethodPartitions.execute(methodStarts.size(), bodyIndex -> {
+				Command methodStart = methodStarts.get(bodyIndex);
+				executeOnRange(code, methodStart.getFirstChild(), methodStart.getNextSibling(), true, blockLevels[bodyIndex], false, releaseRestriction);
+			});
+			executeOnRange(code, code.firstCommand, null, false, 0, true, releaseRestriction);
+		}
+	}
 
+	/** returns the block level at the start of each method body, cp. {@link Command#getBlockLevelDiff()} */
+	private static int[] getBlockLevelsOfBodies(Code code, ArrayList<Command> methodStarts) {
+		int[] blockLevels = new int[methodStarts.size()];
+		int bodyIndex = 0;
+		int blockLevel = 0;
 		Command command = code.firstCommand;
+		while (command != null && bodyIndex < blockLevels.length) {
+			blockLevel += command.getBlockLevelDiff();
+			if (command == methodStarts.get(bodyIndex)) {
+				blockLevels[bodyIndex] = blockLevel;
+				++bodyIndex;
+			}
+			command = command.getNext();
+		}
+		return blockLevels;
+	}
+
+	/** executes the Rule on the Commands from the supplied start Command up to (excluding) the supplied end Command (or to the end of the Code)
+	 * @param skipMethodBodies - true if the children of method start Commands were already processed, cp. {@link MethodPartitions} */
+	private void executeOnRange(Code code, Command startCommand, Command endCommand, boolean isInsideMethod, int blockLevel, boolean skipMethodBodies, 
+			int releaseRestriction) throws UnexpectedSyntaxAfterChanges {
+		boolean skipInsideBeginOf = skipDeclarationsInsideBeginOf();
+		boolean skipOutsideMethod = skipOutsideMethodFunctionOrForm();
 
-		while (command != null) {
-			commandForErrorMsg = command;
+		Command command = startCommand;
 
+		while (command != null && command != endCommand) {
 			if (skipOutsideMethod) {
 				// keep track of whether the command is inside a method
 				if (command.isMethodFunctionOrFormStart()) {
@@ -49,7 +83,7 @@ public abstract class RuleForCommands extends Rule {
 			}
 			
 			// get the next Command now, in case the current command is removed from the code
-			Command nextCommand = command.getNext();
+			Command nextCommand = (skipMethodBodies && MethodPartitions.isPartitionable(command)) ? command.getNextSibling() : command.getNext();
 			int blockLevelDiff = command.getBlockLevelDiff();
 			
 			if (!isCommandBlocked(command) && (!skipInsideBeginOf || blockLevel == 0) && (!skipOutsideMethod || isInsideMethod)) {
@@ -60,6 +94,9 @@ public abstract class RuleForCommands extends Rule {
 				} catch (UnexpectedSyntaxBeforeChanges ex) {
 					// log the error and continue with next command
 					ex.addToLog();
+				} catch (UnexpectedSyntaxAfterChanges ex) {
+					ex.enhanceIfMissing(this, command);
+					throw ex;
 				}
 			}
 
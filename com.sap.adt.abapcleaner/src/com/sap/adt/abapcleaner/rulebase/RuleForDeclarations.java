@@ -1,5 +1,6 @@
 package com.sap.adt.abapcleaner.rulebase;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 
 import com.sap.adt.abapcleaner.base.*;
@@ -62,26 +63,128 @@ public abstract class RuleForDeclarations extends Rule {
 		if (code == null)
 			throw new NullPointerException("code");
 
-		CommentIdentifier commentIdentifier = new CommentIdentifier();
+		// if the method bodies will be processed concurrently, the methods are only processed after all declarations 
+		// and usages were analyzed, cp. MethodPartitions; otherwise, each method is processed right after its analysis
+		ArrayList<DeclarationAnalysis.MethodAnalysis> deferredMethods = MethodPartitions.willExecuteAllBodiesInParallel(this, code) ? new ArrayList<>() : null;
+
+		// reuse the analysis of previous Rules if no Commands outside of method bodies were changed since then; 
+		// method bodies in which Commands were changed are analyzed again individually
+		DeclarationAnalysis analysis = code.getRuleAnalysis(DeclarationAnalysis.class);
+		if (analysis != null && analysis.isFrameValid(code)) {
+			boolean skipMethods = skipLocalVariableContexts();
+			for (DeclarationAnalysis.Event event : analysis.getEvents()) {
+				if (!skipMethods && event.method != null && !event.method.isValid()) 
+					new Analyzer(code, null, releaseRestriction, null).analyzeMethod(event.method);
+				executeOnEvent(code, event, releaseRestriction, deferredMethods);
+			}
+		} else {
+			analysis = DeclarationAnalysis.create(code);
+			code.setRuleAnalysis(DeclarationAnalysis.class, analysis);
+			new Analyzer(code, analysis, releaseRestriction, deferredMethods).analyzeAll();
+		}
 
-		HashMap<String, ClassInfo> classesAndInterfaces = new HashMap<String, ClassInfo>();
-		ClassInfo curClassOrInterface = null;
+		if (deferredMethods != null) {
+			// only process the methods concurrently if all of them have a body of child Commands
+			boolean allowParallel = true;
+			for (DeclarationAnalysis.MethodAnalysis deferredMethod : deferredMethods) {
+				if (!MethodPartitions.isPartitionable(deferredMethod.methodStart)) {
+					allowParallel = false;
+					break;
+				}
+			}
+			MethodPartitions.execute(deferredMethods.size(), allowParallel, bodyIndex -> 
+					executeOn(code, deferredMethods.get(bodyIndex).methodStart, deferredMethods.get(bodyIndex).getVariables(), releaseRestriction));
+		}
+	}
+
+	private void executeOnEvent(Code code, DeclarationAnalysis.Event event, int releaseRestriction, ArrayList<DeclarationAnalysis.MethodAnalysis> deferredMethods) throws UnexpectedSyntaxAfterChanges {
+		switch (event.type) {
+			case CLASS_DEFINITION_END:
+				executeOnClassDefinition(code, event.classInfo, releaseRestriction);
+				break;
+
+			case CLASS_IMPLEMENTATION_START:
+				executeOnClassImplementation(code, event.classInfo, releaseRestriction);
+				break;
+
+			case METHOD_END:
+				// skip the method if this Rule skips all methods, or if its analysis failed
+				if (skipLocalVariableContexts() || event.method.getVariables() == null) 
+					break;
+				if (deferredMethods != null) {
+					deferredMethods.add(event.method);
+				} else {
+					executeOn(code, event.method.methodStart, event.method.getVariables(), releaseRestriction);
+				}
+				break;
+		}
+	}
+
+	/** reads class and method definitions, attributes, and local variable declarations and usages; 
+	 * the results are independent of the Rule and therefore shared in the {@link DeclarationAnalysis} */
+	private class Analyzer {
+		private final Code code;
+		/** the analysis to which events are added, or null if only a single method is analyzed again */
+		private final DeclarationAnalysis analysis;
+		private final int releaseRestriction;
+		private final ArrayList<DeclarationAnalysis.MethodAnalysis> deferredMethods;
+
+		private final CommentIdentifier commentIdentifier;
+		private final HashMap<String, ClassInfo> classesAndInterfaces = new HashMap<String, ClassInfo>();
+		private ClassInfo curClassOrInterface = null;
+		private Variables variables = new Variables(RuleForDeclarations.this, null, null); // pro forma
+		private DeclarationAnalysis.MethodAnalysis curMethod = null;
+		/** the method that is analyzed again, cp. {@link #analyzeMethod(DeclarationAnalysis.MethodAnalysis)} */
+		private DeclarationAnalysis.MethodAnalysis reanalyzedMethod = null;
 
-		Variables variables = new Variables(this, null, null); // pro forma
-		
-		Command command = code.firstCommand;
-		Command methodStart = null;
-		
 		// do NOT initialize isInMethod  with "= (!code.hasMethodFunctionOrFormStart())", because if an incomplete part 
 		// of the class declaration is processed, this will delete attributes!
-		boolean isInDefinition = false;
-		MethodVisibility methodVisibility = MethodVisibility.PUBLIC;
-		VariableAccessType variableAccessType = VariableAccessType.PUBLIC;
-		boolean isInMethod = false; 
-		boolean skipMethod = skipLocalVariableContexts();
-		BlockInfo blockInfo = new BlockInfo();
-
-		while (command != null) {
+		private boolean isInDefinition = false;
+		private MethodVisibility methodVisibility = MethodVisibility.PUBLIC;
+		private VariableAccessType variableAccessType = VariableAccessType.PUBLIC;
+		private boolean isInMethod = false; 
+		private boolean analysisFailed = false;
+		private BlockInfo blockInfo = new BlockInfo();
+
+		private Analyzer(Code code, DeclarationAnalysis analysis, int releaseRestriction, ArrayList<DeclarationAnalysis.MethodAnalysis> deferredMethods) {
+			this.code = code;
+			this.analysis = analysis;
+			this.releaseRestriction = releaseRestriction;
+			this.deferredMethods = deferredMethods;
+			this.commentIdentifier = CommentIdentifier.getFor(code);
+		}
+		
+		/** analyzes the whole Code, executing the Rule on each class and method as soon as it was analyzed */
+		private void analyzeAll() throws UnexpectedSyntaxAfterChanges {
+			Command command = code.firstCommand;
+			while (command != null) 
+				command = analyze(command);
+
+			if (!variables.isEmpty()) {
+				finishMethod();
+				variables = new Variables(RuleForDeclarations.this, null, null);
+			}
+		}
+
+		/** analyzes the body of the supplied method again, after its Commands were changed */
+		private void analyzeMethod(DeclarationAnalysis.MethodAnalysis method) throws UnexpectedSyntaxAfterChanges {
+			method.recordCommands(code);
+			curClassOrInterface = method.classInfo;
+			reanalyzedMethod = method;
+			
+			// analyze the Commands from the method start up to its end, which is always the next sibling of a cacheable method
+			Command methodEnd = method.methodStart.getNextSibling();
+			Command command = method.methodStart;
+			while (command != null) {
+				Command nextCommand = analyze(command);
+				if (command == methodEnd)
+					break;
+				command = nextCommand;
+			}
+		}
+
+		/** analyzes the supplied Command and returns the next Command to be analyzed */
+		private Command analyze(Command command) throws UnexpectedSyntaxAfterChanges {
 			// determine the current class or interface to add to its method definitions, 
 			// or later (in a class implementation section) read from them
 			if (command.isClassDefinitionStart() || command.isInterfaceStart()) {
@@ -93,18 +196,18 @@ public abstract class RuleForDeclarations extends Rule {
 
 				methodVisibility = MethodVisibility.PUBLIC;
 				variableAccessType = VariableAccessType.PUBLIC;
-				variables = new Variables(this, curClassOrInterface, null);
+				variables = new Variables(RuleForDeclarations.this, curClassOrInterface, null);
 				curClassOrInterface.setVariables(variables);
 				
 			} else if (command.isClassImplementationStart()) {
 				curClassOrInterface = classesAndInterfaces.get(getNameKey(command.getDefinedName()));
 				if (curClassOrInterface != null) 
 					curClassOrInterface.setImplementationStart(command);
-				executeOnClassImplementation(code, curClassOrInterface, releaseRestriction);
+				addEvent(new DeclarationAnalysis.Event(DeclarationAnalysis.EventType.CLASS_IMPLEMENTATION_START, curClassOrInterface, null));
 
 			} else if (command.isClassEnd() || command.isInterfaceEnd()) {
 				if (isInDefinition)
-					executeOnClassDefinition(code, curClassOrInterface, releaseRestriction);
+					addEvent(new DeclarationAnalysis.Event(DeclarationAnalysis.EventType.CLASS_DEFINITION_END, curClassOrInterface, null));
 				isInDefinition = false;
 				curClassOrInterface = null;
 			}
@@ -142,26 +245,26 @@ public abstract class RuleForDeclarations extends Rule {
 			}
 			
 			if (command.endsLocalVariableContext()) {
-				if (!skipMethod)
-					callExecuteOnMethod(code, methodStart, variables, releaseRestriction);
-				methodStart = null;
+				finishMethod();
 				isInMethod = false;
-				variables = new Variables(this, curClassOrInterface, null);
+				variables = new Variables(RuleForDeclarations.this, curClassOrInterface, null);
 			}
 			// do NOT attach the next section with "else if", since "AT SELECTION-SCREEN" may both end and start   
 			// a "local variable context" at the same time
 			if (command.startsLocalVariableContext()) {
-				if (!skipMethod)
-					callExecuteOnMethod(code, methodStart, variables, releaseRestriction);
-				methodStart = command;
+				finishMethod();
 				isInMethod = true;
-				MethodInfo curMethod = null;
+				MethodInfo curMethodInfo = null;
 				if (curClassOrInterface != null) {
-					curMethod = curClassOrInterface.getMethod(command.getDefinedName()); // may be null
+					curMethodInfo = curClassOrInterface.getMethod(command.getDefinedName()); // may be null
 				}
-				// reset skipMethod to false, unless methods are generally skipped by this Rule
-				skipMethod = skipLocalVariableContexts();
-				variables = new Variables(this, curClassOrInterface, curMethod);
+				if (reanalyzedMethod != null && reanalyzedMethod.methodStart == command) {
+					curMethod = reanalyzedMethod;
+				} else {
+					curMethod = new DeclarationAnalysis.MethodAnalysis(code, command, curClassOrInterface);
+				}
+				analysisFailed = false;
+				variables = new Variables(RuleForDeclarations.this, curClassOrInterface, curMethodInfo);
 			}
 			
 			if (isInMethod && command.firstCodeTokenIsAnyKeyword("TEST-SEAM", "TEST-INJECTION")) {
@@ -169,8 +272,7 @@ public abstract class RuleForDeclarations extends Rule {
 				// FinalVariableRule must skip this method, because variable definitions and/or usages may be out of sight
 				variables.setMethodUsesMacrosOrTestInjection();
 				// skip this section to avoid variable definitions from these sections to be moved by the LocalDeclarationOrderRule
-				command = command.getNextSibling();
-				continue;
+				return command.getNextSibling();
 
 			} else if (isInMethod && command.firstCodeTokenIsKeyword("ASSIGN")) {
 				// detect dynamic ASSIGN, e.g. 'ASSIGN ('lv_any') TO FIELD-SYMBOL(<...>).' with which we cannot be sure 
@@ -184,8 +286,7 @@ public abstract class RuleForDeclarations extends Rule {
 			} else if (command.firstCodeTokenIsKeyword("DEFINE")) {
 				// skip macro definitions (i.e. DEFINE ... END-OF-DEFINITION sections), 
 				// esp. to avoid variable definitions from these sections to be moved by the LocalDeclarationOrderRule
-				command = command.getNextSibling();
-				continue;
+				return command.getNextSibling();
 			} 
 
 			commandForErrorMsg = command;
@@ -199,8 +300,9 @@ public abstract class RuleForDeclarations extends Rule {
 						executeOnDeclarationCommand(command, null, variables, isTypeDeclaration, isConstantsDeclaration, blockInfo, variableAccessType);
 					}				
 
-				} else if (isInMethod && !skipMethod) {
+				} else if (isInMethod && !analysisFailed) {
 					// read local variable declarations or usage from the current Command
+					Command methodStart = (curMethod == null) ? null : curMethod.methodStart;
 					if (command.firstCodeTokenIsAnyKeyword(Command.declarationKeywordsInMethodsOrForms)) {
 						boolean isTypeDeclaration = command.firstCodeTokenIsAnyKeyword(typesDeclarationKeywords);
 						boolean isConstantsDeclaration = command.firstCodeTokenIsAnyKeyword(constantsDeclarationKeywords);
@@ -221,21 +323,28 @@ public abstract class RuleForDeclarations extends Rule {
 				}
 			} catch (UnexpectedSyntaxBeforeChanges ex) {
 				ex.addToLog();
-				skipMethod = true;
+				analysisFailed = true;
 			}
 
-			command = command.getNext();
+			return command.getNext();
 		}
-		if (!variables.isEmpty()) {
-			if (!skipMethod)
-				callExecuteOnMethod(code, methodStart, variables, releaseRestriction);
-			variables = new Variables(this, null, null);
+
+		/** finishes the analysis of the current method (if any), executing the Rule on it */
+		private void finishMethod() throws UnexpectedSyntaxAfterChanges {
+			DeclarationAnalysis.MethodAnalysis method = curMethod;
+			curMethod = null;
+			if (method == null || method.methodStart.startsAMDPMethod())
+				return;
+
+			method.setVariables(analysisFailed ? null : variables);
+			addEvent(new DeclarationAnalysis.Event(DeclarationAnalysis.EventType.METHOD_END, null, method));
 		}
-	}
 
-	private void callExecuteOnMethod(Code code, Command methodStart, Variables localVariables, int releaseRestriction) throws UnexpectedSyntaxAfterChanges {
-		if (methodStart != null && !methodStart.startsAMDPMethod()) {
-			executeOn(code, methodStart, localVariables, releaseRestriction);
+		private void addEvent(DeclarationAnalysis.Event event) throws UnexpectedSyntaxAfterChanges {
+			if (analysis == null)
+				return;
+			analysis.addEvent(event);
+			executeOnEvent(code, event, releaseRestriction, deferredMethods);
 		}
 	}
 
@@ -1,5 +1,7 @@
 package com.sap.adt.abapcleaner.rulebase;
 
+import java.util.ArrayList;
+
 import com.sap.adt.abapcleaner.parser.*;
 import com.sap.adt.abapcleaner.programbase.*;
 
@@ -22,12 +24,28 @@ public abstract class RuleForTokens extends Rule {
 		if (code == null)
 			throw new NullPointerException("code");
 
-		Command command = code.firstCommand;
-		while (command != null) {
-			commandForErrorMsg = command;
+		ArrayList<Command> methodStarts = MethodPartitions.getMethodStarts(this, code);
+		if (methodStarts == null) {
+			executeOnRange(code, code.firstCommand, null, false, releaseRestriction);
+
+		} else {
+			// process the method bodies concurrently, then all other Commands (including the method start and end Commands)
+			MethodPartitions.execute(methodStarts.size(), bodyIndex -> {
+				Command methodStart = methodStarts.get(bodyIndex);
+				executeOnRange(code, methodStart.getFirstChild(), methodStart.getNextSibling(), false, releaseRestriction);
+			});
+			executeOnRange(code, code.firstCommand, null, true, releaseRestriction);
+		}
+	}
 
+	/** executes the Rule on the Commands from the supplied start Command up to (excluding) the supplied end Command (or to the end of the Code)
+	 * @param skipMethodBodies - true if the children of method start Commands were already processed, cp. {@link MethodPartitions} */
+	private void executeOnRange(Code code, Command startCommand, Command endCommand, boolean skipMethodBodies, int releaseRestriction) throws UnexpectedSyntaxAfterChanges {
+		Command command = startCommand;
+		while (command != null && command != endCommand) {
 			// remember the next Command in case the rule removes the current Command from the Code
-			Command nextCommand = command.getNext();
+			boolean skipBody = skipMethodBodies && MethodPartitions.isPartitionable(command);
+			Command nextCommand = skipBody ? command.getNextSibling() : command.getNext();
 
 			if (!isCommandBlocked(command) && !skipCommand(command)) {
 				try {
@@ -46,10 +64,13 @@ public abstract class RuleForTokens extends Rule {
 				} catch (UnexpectedSyntaxBeforeChanges ex) {
 					// log the error and continue with next command
 					ex.addToLog();
+				} catch (UnexpectedSyntaxAfterChanges ex) {
+					ex.enhanceIfMissing(this, command);
+					throw ex;
 				}
 			}
 
-			command = command.wasRemovedFromCode() ? nextCommand : command.getNext();
+			command = (skipBody || command.wasRemovedFromCode()) ? nextCommand : command.getNext();
 		}
 	}
 }
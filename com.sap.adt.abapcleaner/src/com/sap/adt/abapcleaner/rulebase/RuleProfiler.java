@@ -0,0 +1,282 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.Command;
+import com.sap.adt.abapcleaner.programbase.CleanException;
+
+/**
+ * <p>Records the wall time, the number of visited and changed Commands, and the allocated bytes of each {@link Rule},
+ * aggregated over all Code documents that are cleaned with the same RuleProfiler instance,
+ * cp. {@link Profile#executeRules(Code, int, boolean, com.sap.adt.abapcleaner.programbase.IProgress, int, CleanupSnapshots, RuleProfiler)}.</p>
+ *
+ * <p>A Command counts as visited if the Rule was allowed to run on the Code, and as changed if it was created or its Tokens were changed 
+ * during the Rule execution (cp. {@link Command#getModificationEpoch()}), or if the Rule newly registered its use on the Command 
+ * (cp. {@link Code#addRuleUse(Rule, Command)}), which also covers Rules that only change whitespace.
+ * Allocated bytes include the allocations on helper threads that execute method bodies in parallel (cp. {@link MethodPartitions}); 
+ * they are only measured if the JVM supports this per thread, otherwise {@link #NOT_MEASURED} is returned.</p>
+ *
+ * <p>A RuleProfiler may be shared between worker threads. Without a RuleProfiler, Rules are executed without any instrumentation.</p>
+ */
+public class RuleProfiler {
+	public static final long NOT_MEASURED = -1;
+
+	private static final double NANOSEC_PER_MILLISEC = 1_000_000.0;
+	private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+	/** the measurements for one Rule, aggregated over all executions */
+	public static class RuleProfile {
+		public final RuleID ruleID;
+		public final String ruleName;
+		private int executionCount;
+		private long duration_ns;
+		private long visitedCommandCount;
+		private long changedCommandCount;
+		private long allocatedBytes;
+
+		private RuleProfile(RuleID ruleID, String ruleName) {
+			this.ruleID = ruleID;
+			this.ruleName = ruleName;
+		}
+
+		public int getExecutionCount() { return executionCount; }
+		public long getDuration_ns() { return duration_ns; }
+		public long getVisitedCommandCount() { return visitedCommandCount; }
+		public long getChangedCommandCount() { return changedCommandCount; }
+		/** returns the bytes allocated while executing this Rule, or {@link RuleProfiler#NOT_MEASURED} */
+		public long getAllocatedBytes() { return allocatedBytes; }
+	}
+
+	/** holds the ThreadMXBean for measuring allocated bytes, which is only initialized when a RuleProfiler is used */
+	private static class AllocationBeanHolder {
+		private static final com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+	}
+
+	/** for the Rule execution that is currently measured on this thread, the bytes allocated on helper threads; otherwise null */
+	private static final ThreadLocal<AtomicLong> helperThreadAllocatedBytes = new ThreadLocal<>();
+
+	private final RuleProfile[] ruleProfiles = new RuleProfile[RuleID.values().length];
+	private final com.sun.management.ThreadMXBean allocationBean;
+	private int codeCount;
+
+	public static RuleProfiler create() {
+		return new RuleProfiler(AllocationBeanHolder.allocationBean);
+	}
+
+	/** returns the counter to which helper threads must add the bytes they allocate on behalf of the calling thread, 
+	 * if a Rule execution is currently measured on the calling thread; otherwise null */
+	static AtomicLong getHelperThreadAllocationCounter() {
+		return helperThreadAllocatedBytes.get();
+	}
+
+	/** returns the bytes allocated by the current thread so far, or {@link #NOT_MEASURED} */
+	static long getCurrentThreadAllocatedBytes() {
+		com.sun.management.ThreadMXBean allocationBean = AllocationBeanHolder.allocationBean;
+		if (allocationBean == null)
+			return NOT_MEASURED;
+		long allocatedBytes = allocationBean.getCurrentThreadAllocatedBytes();
+		return (allocatedBytes < 0) ? NOT_MEASURED : allocatedBytes;
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		try {
+			ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+			if (threadBean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+				if (allocationBean.isThreadAllocatedMemorySupported()) {
+					if (!allocationBean.isThreadAllocatedMemoryEnabled())
+						allocationBean.setThreadAllocatedMemoryEnabled(true);
+					return allocationBean;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+			// allocated bytes will not be measured
+		}
+		return null;
+	}
+
+	private RuleProfiler(com.sun.management.ThreadMXBean allocationBean) {
+		this.allocationBean = allocationBean;
+	}
+
+	/** returns true if allocated bytes are measured on this JVM */
+	public boolean measuresAllocation() {
+		return (allocationBean != null);
+	}
+
+	/** counts a Code document that is cleaned with this RuleProfiler */
+	synchronized void addCode() {
+		++codeCount;
+	}
+
+	/** executes the supplied Rule on the supplied Code and records its measurements */
+	final void execute(Rule rule, Code code, int releaseRestriction) throws CleanException {
+		int epochBefore = code.getModificationEpoch();
+		Set<Command> commandsWithRuleUse = getCommandsWithRuleUse(rule, code);
+		int visitedCommandCount = getVisitedCommandCount(rule, code, releaseRestriction);
+		AtomicLong helperAllocatedBytes = new AtomicLong();
+		helperThreadAllocatedBytes.set(helperAllocatedBytes);
+		long allocatedBytesBefore = getAllocatedBytes();
+		long startTime_ns = System.nanoTime();
+		try {
+			rule.executeIfAllowedOn(code, releaseRestriction);
+		} finally {
+			long duration_ns = System.nanoTime() - startTime_ns;
+			long allocatedBytesAfter = getAllocatedBytes();
+			helperThreadAllocatedBytes.remove();
+			long allocatedBytes = (allocatedBytesBefore < 0 || allocatedBytesAfter < 0) ? NOT_MEASURED 
+										 : allocatedBytesAfter - allocatedBytesBefore + helperAllocatedBytes.get();
+			add(rule, duration_ns, visitedCommandCount, getChangedCommandCount(rule, code, epochBefore, commandsWithRuleUse), allocatedBytes);
+		}
+	}
+
+	private long getAllocatedBytes() {
+		return (allocationBean == null) ? NOT_MEASURED : getCurrentThreadAllocatedBytes();
+	}
+
+	private static int getVisitedCommandCount(Rule rule, Code code, int releaseRestriction) {
+		if (!Rule.isCleanupAllowedFor(rule.getRequiredAbapRelease(), code, releaseRestriction) || !rule.matchesLanguageOf(code))
+			return 0;
+
+		return code.commandCount;
+	}
+
+	private static Set<Command> getCommandsWithRuleUse(Rule rule, Code code) {
+		Set<Command> commands = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Command command = code.firstCommand; command != null; command = command.getNext()) {
+			if (command.getChangeControl().wasRuleUsed(rule.getID()))
+				commands.add(command);
+		}
+		return commands;
+	}
+
+	private static int getChangedCommandCount(Rule rule, Code code, int epochBefore, Set<Command> commandsWithRuleUseBefore) {
+		int count = 0;
+		for (Command command = code.firstCommand; command != null; command = command.getNext()) {
+			if (command.getModificationEpoch() > epochBefore 
+					|| command.getChangeControl().wasRuleUsed(rule.getID()) && !commandsWithRuleUseBefore.contains(command)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	synchronized void add(Rule rule, long duration_ns, int visitedCommandCount, int changedCommandCount, long allocatedBytes) {
+		int index = rule.getID().getValue();
+		RuleProfile ruleProfile = ruleProfiles[index];
+		if (ruleProfile == null) {
+			ruleProfile = new RuleProfile(rule.getID(), rule.getDisplayName());
+			ruleProfiles[index] = ruleProfile;
+		}
+		++ruleProfile.executionCount;
+		ruleProfile.duration_ns += duration_ns;
+		ruleProfile.visitedCommandCount += visitedCommandCount;
+		ruleProfile.changedCommandCount += changedCommandCount;
+		if (allocatedBytes < 0 || ruleProfile.allocatedBytes < 0) {
+			ruleProfile.allocatedBytes = NOT_MEASURED;
+		} else {
+			ruleProfile.allocatedBytes += allocatedBytes;
+		}
+	}
+
+	/** returns the number of Code documents that were cleaned with this RuleProfiler */
+	public synchronized int getCodeCount() {
+		return codeCount;
+	}
+
+	/** returns the measurements of all executed Rules, sorted by descending duration */
+	public synchronized RuleProfile[] getRuleProfiles() {
+		ArrayList<RuleProfile> result = new ArrayList<>();
+		for (RuleProfile ruleProfile : ruleProfiles) {
+			if (ruleProfile != null)
+				result.add(ruleProfile);
+		}
+		result.sort((a, b) -> {
+			int compare = Long.compare(b.duration_ns, a.duration_ns);
+			return (compare != 0) ? compare : Integer.compare(a.ruleID.getValue(), b.ruleID.getValue());
+		});
+		return result.toArray(new RuleProfile[0]);
+	}
+
+	/** returns the total duration of all Rule executions */
+	public synchronized long getTotalDuration_ns() {
+		long total = 0;
+		for (RuleProfile ruleProfile : ruleProfiles) {
+			if (ruleProfile != null)
+				total += ruleProfile.duration_ns;
+		}
+		return total;
+	}
+
+	/** returns a table of all executed Rules, sorted by descending duration, to be written to the console */
+	public synchronized String toTable(String lineSeparator) {
+		final String ROW_FORMAT = "%10s %6s %10s %9s %12s  %s";
+		RuleProfile[] sortedProfiles = getRuleProfiles();
+		long totalDuration_ns = getTotalDuration_ns();
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("Rule profile for " + String.valueOf(codeCount) + ((codeCount == 1) ? " code document:" : " code documents:")).append(lineSeparator);
+		sb.append(String.format(Locale.ROOT, ROW_FORMAT, "time [ms]", "%", "visited", "changed", "alloc. [MB]", "rule")).append(lineSeparator);
+		for (RuleProfile ruleProfile : sortedProfiles) {
+			double percentage = (totalDuration_ns == 0) ? 0.0 : 100.0 * ruleProfile.duration_ns / totalDuration_ns;
+			String allocated = (ruleProfile.allocatedBytes < 0) ? "-" : String.format(Locale.ROOT, "%.1f", ruleProfile.allocatedBytes / BYTES_PER_MB);
+			sb.append(String.format(Locale.ROOT, ROW_FORMAT,
+					String.format(Locale.ROOT, "%.1f", ruleProfile.duration_ns / NANOSEC_PER_MILLISEC),
+					String.format(Locale.ROOT, "%.1f", percentage),
+					String.valueOf(ruleProfile.visitedCommandCount), String.valueOf(ruleProfile.changedCommandCount),
+					allocated, ruleProfile.ruleName)).append(lineSeparator);
+		}
+		sb.append(String.format(Locale.ROOT, "%10s %6s", String.format(Locale.ROOT, "%.1f", totalDuration_ns / NANOSEC_PER_MILLISEC), "100.0"));
+		sb.append("  total").append(lineSeparator);
+		return sb.toString();
+	}
+
+	/** returns the measurements of all executed Rules as a JSON document, sorted by descending duration */
+	public synchronized String toJson() {
+		RuleProfile[] sortedProfiles = getRuleProfiles();
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"codeCount\": ").append(codeCount).append(",\n");
+		sb.append("  \"totalDurationNs\": ").append(getTotalDuration_ns()).append(",\n");
+		sb.append("  \"rules\": [");
+		for (int i = 0; i < sortedProfiles.length; ++i) {
+			RuleProfile ruleProfile = sortedProfiles[i];
+			sb.append((i == 0) ? "\n" : ",\n");
+			sb.append("    { \"ruleId\": \"").append(ruleProfile.ruleID.name()).append("\"");
+			sb.append(", \"ruleName\": \"").append(escapeJson(ruleProfile.ruleName)).append("\"");
+			sb.append(", \"executions\": ").append(ruleProfile.executionCount);
+			sb.append(", \"durationNs\": ").append(ruleProfile.duration_ns);
+			sb.append(", \"visitedCommands\": ").append(ruleProfile.visitedCommandCount);
+			sb.append(", \"changedCommands\": ").append(ruleProfile.changedCommandCount);
+			sb.append(", \"allocatedBytes\": ").append((ruleProfile.allocatedBytes < 0) ? "null" : String.valueOf(ruleProfile.allocatedBytes));
+			sb.append(" }");
+		}
+		sb.append((sortedProfiles.length == 0) ? "]\n" : "\n  ]\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private static String escapeJson(String text) {
+		StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
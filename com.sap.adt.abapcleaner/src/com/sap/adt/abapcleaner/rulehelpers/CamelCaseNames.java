@@ -7,7 +7,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -27,6 +35,9 @@ public class CamelCaseNames {
 	public static final String FIELD_NAMES_RESOURCE = "camel_case_field_names.txt";
 	public static final String VIEW_NAMES_RESOURCE = "camel_case_view_names.txt";
 
+	/** file extension of the binary images of the resources, which are generated at build time (see {@link CamelCaseNamesCompiler}) */
+	public static final String BINARY_RESOURCE_EXTENSION = ".bin";
+
 	public static final String HEADER_VIEW_NAME = "VIEW_NAME";
 	public static final String HEADER_FIELD_NAME = "FIELD_NAME";
 	public static final String HEADER_IS_APPROVED = "IS_APPROVED";
@@ -35,13 +46,20 @@ public class CamelCaseNames {
 	private static final long APPROVED_MASK   = 0x0000000080000000L;
 
 	private static final int CASE_BITS_NOT_FOUND = 0; // reserved value which cannot occur in real 'case bits'
+
+	// the binary image starts with a header of four int values (format ID, required technical version, file version, entry count),
+	// followed by the sorted long values of hashAndCaseBits, all in big-endian byte order
+	private static final int BINARY_FORMAT_ID = 0x43434E31; // "CCN1"
+	private static final int BINARY_HEADER_SIZE = 4 * Integer.BYTES;
+	private static final int REQUIRED_TECHNICAL_VERSION = 24;
+
 	private static final String LINE_SEP = System.lineSeparator();
 	private static final String TAB = "\t";
 
 	private static String[] entityPrefixLetters = null; // for view names only
 
 	private static HashSet<String> uiPrefixes = null; // for field names only
-	private static HashSet<String> entityPrefixes = null; // for view names only
+	private static volatile HashSet<String> entityPrefixes = null; // for view names only
 	private static HashSet<String> industryPrefixes = null;
 	private static HashSet<String> countryPrefixes = null;
 	private static HashSet<String> productPrefixes = null;
@@ -99,16 +117,18 @@ public class CamelCaseNames {
 	// create methods and their helper methods 
 	
 	private static CamelCaseNames createEmpty(CamelCaseNameType type) { 
-		return new CamelCaseNames(type, new long[0], 0); 
+		return new CamelCaseNames(type, LongBuffer.wrap(new long[0]), 0, CamelCaseNamesSource.TEXT_RESOURCE); 
 	}
 
-	private static void initializeHashSets() {
+	private static synchronized void initializeHashSets() {
+		// another thread may have completed the initialization while this thread was waiting for the lock
+		if (entityPrefixes != null)
+			return;
+
 		uiPrefixes = initializeHashSet( new String[] { "UICT" } ); // all added 
 
 		entityPrefixLetters = new String[] { "A", "C", "D", "E", "F", "I", "N", "P", "R" }; // must be upper case for entityPrefixExists()
 		
-		entityPrefixes = initializeHashSet(entityPrefixLetters); // for "X", see below
-
 		industryPrefixes = initializeHashSet( new String[] { 
 				"CWM", "DFS", "DSD", "EWA", "ILO", "ILS", "IMP", "INS", "ISU", "ODS", "OIL", "PPS", "PRA", "PSE", "PSM", 
 				"RFM", "SOM", "UTI" } );
@@ -149,6 +169,9 @@ public class CamelCaseNames {
 		fieldTypeSuffixes = initializeHashSet( new String[] { "E", "H" } );
 		
 		versionSuffixes = initializeHashSet( new String[] { "1", "2", "3", "4", "5", "6", "7", "8", "9" } ); // added: "1"
+
+		// entityPrefixes must be assigned last, because callers use it to check whether the initialization is complete
+		entityPrefixes = initializeHashSet(entityPrefixLetters); // for "X", see extensionPrefixes
 	}
 	
 	private static HashSet<String> initializeHashSet(String[] values) {
@@ -272,19 +295,24 @@ public class CamelCaseNames {
 		return sbSummary.toString();
 	}
 
-	public static CamelCaseNames getFieldNames() {
+	public static synchronized CamelCaseNames getFieldNames() {
 		if (fieldNames == null) 
 			fieldNames = createFromResources(CamelCaseNameType.FIELD, FIELD_NAMES_RESOURCE);
 		return fieldNames;
 	}
 	
-	public static CamelCaseNames getViewNames() {
+	public static synchronized CamelCaseNames getViewNames() {
 		if (viewNames == null) 
 			viewNames = createFromResources(CamelCaseNameType.VIEW, VIEW_NAMES_RESOURCE);
 		return viewNames;
 	}
 
 	public static CamelCaseNames createFromResources(CamelCaseNameType type, String resourceName) {
+		// use the binary image of the resource if it was generated at build time, because it can be used without parsing
+		CamelCaseNames binaryNames = createFromBinaryResource(type, getBinaryResourceName(resourceName));
+		if (binaryNames != null)
+			return binaryNames;
+
 		InputStream resourceStream = CamelCaseNames.class.getClassLoader().getResourceAsStream(resourceName);
 		BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(resourceStream, StandardCharsets.UTF_8));
 		return createFromResources(type, bufferedReader);
@@ -322,7 +350,63 @@ public class CamelCaseNames {
 		long endTime_ms = System.currentTimeMillis();
 		long loadDuration_ms = endTime_ms - startTime_ms;
 		
-		return new CamelCaseNames(type, hashAndCaseBits, loadDuration_ms);
+		return new CamelCaseNames(type, (hashAndCaseBits == null) ? null : LongBuffer.wrap(hashAndCaseBits), loadDuration_ms, CamelCaseNamesSource.TEXT_RESOURCE);
+	}
+
+	public static String getBinaryResourceName(String resourceName) {
+		int extensionPos = resourceName.lastIndexOf('.');
+		return ((extensionPos < 0) ? resourceName : resourceName.substring(0, extensionPos)) + BINARY_RESOURCE_EXTENSION;
+	}
+
+	/** returns null if the binary resource does not exist or cannot be read, so the text resource can be used instead */
+	public static CamelCaseNames createFromBinaryResource(CamelCaseNameType type, String binaryResourceName) {
+		URL resourceUrl = CamelCaseNames.class.getClassLoader().getResource(binaryResourceName);
+		if (resourceUrl == null)
+			return null;
+
+		long startTime_ms = System.currentTimeMillis();
+
+		ByteBuffer binaryImage;
+		CamelCaseNamesSource source;
+		try {
+			if (resourceUrl.getProtocol().equals("file")) {
+				// map the file into memory, so the entries are only paged in as the binary search touches them
+				try (FileChannel channel = FileChannel.open(Paths.get(resourceUrl.toURI()), StandardOpenOption.READ)) {
+					binaryImage = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				}
+				source = CamelCaseNamesSource.MAPPED_BINARY_RESOURCE;
+			} else {
+				// resources inside of a .jar file cannot be mapped, but reading them is still much faster than parsing the text resource
+				try (InputStream resourceStream = resourceUrl.openStream()) {
+					binaryImage = ByteBuffer.wrap(resourceStream.readAllBytes());
+				}
+				source = CamelCaseNamesSource.BINARY_RESOURCE;
+			}
+		} catch (IOException | URISyntaxException | IllegalArgumentException | UnsupportedOperationException e) {
+			return null;
+		}
+		return createFromBinaryImage(type, binaryImage, source, startTime_ms);
+	}
+
+	/** returns null if the supplied buffer does not contain a valid binary image, as created by {@link #toBinaryImage()} */
+	public static CamelCaseNames createFromBinaryImage(CamelCaseNameType type, ByteBuffer binaryImage) {
+		return createFromBinaryImage(type, binaryImage, CamelCaseNamesSource.BINARY_RESOURCE, System.currentTimeMillis());
+	}
+
+	private static CamelCaseNames createFromBinaryImage(CamelCaseNameType type, ByteBuffer binaryImage, CamelCaseNamesSource source, long startTime_ms) {
+		if (binaryImage.capacity() < BINARY_HEADER_SIZE || binaryImage.getInt(0) != BINARY_FORMAT_ID) 
+			return null;
+		if (Program.TECHNICAL_VERSION < binaryImage.getInt(Integer.BYTES)) 
+			return createEmpty(type);
+		int entryCount = binaryImage.getInt(3 * Integer.BYTES);
+		if (entryCount < 0 || binaryImage.capacity() < BINARY_HEADER_SIZE + (long)entryCount * Long.BYTES)
+			return null;
+
+		// the binary search is performed directly on the (mapped) buffer, without copying the entries to a long[]
+		LongBuffer hashAndCaseBits = binaryImage.slice(BINARY_HEADER_SIZE, entryCount * Long.BYTES).asLongBuffer();
+
+		long loadDuration_ms = System.currentTimeMillis() - startTime_ms;
+		return new CamelCaseNames(type, hashAndCaseBits, loadDuration_ms, source);
 	}
 
 	public static CamelCaseNames createFromTextFiles(CamelCaseNameType type, String[] paths, StringBuilder sbSummary, StringBuilder sbDetails, boolean checkStartsWithZ, boolean checkUnknownPrefixesOrSuffixes) {
@@ -433,7 +517,7 @@ public class CamelCaseNames {
 			}
 		}
 
-		return new CamelCaseNames(type, hashAndCaseBits, createDuration_ms);
+		return new CamelCaseNames(type, LongBuffer.wrap(hashAndCaseBits), createDuration_ms, CamelCaseNamesSource.TEXT_FILES);
 	}
 
 	private static int createFromTextFile(CamelCaseNameType type, String path, StringBuilder sbDetails, boolean checkStartsWithZ, boolean checkUnknownPrefixesOrSuffixes, HashMap<String, NameInfo> namesByCamelCase, HashSet<String> discardedNames) throws IOException {
@@ -783,34 +867,86 @@ public class CamelCaseNames {
 	
 	/** Each long value stores in its upper 32 bits the hash code of a (field or view) NAME, and in its lower 32 bits the 
 	 * 'case bits', with which the CamelCase representation of the name can be retrieved: the 'case bits' contain '0' for a 
-	 * lower case character, and 1 for an upper case character. The least significant bit represents the last character of the name. */
-	private long[] hashAndCaseBits;
+	 * lower case character, and 1 for an upper case character. The least significant bit represents the last character of the name. 
+	 * The values are either held in a long[] or directly in a (possibly memory-mapped) buffer of the binary resource. */
+	private LongBuffer hashAndCaseBits;
 
-	public final long createDuration_ms;
+	/** the duration of loading the resource or creating the names from text files */
+	public final long loadDuration_ms;
+	public final CamelCaseNamesSource source;
 	
-	public int getEntryCount() { return (hashAndCaseBits == null) ? -1 : hashAndCaseBits.length; }
+	public int getEntryCount() { return (hashAndCaseBits == null) ? -1 : hashAndCaseBits.limit(); }
 	
 	// -------------------------------------------------------------------------
 
-	private CamelCaseNames(CamelCaseNameType nameType, long[] hashAndCaseBits, long createDuration_ms) {
+	private CamelCaseNames(CamelCaseNameType nameType, LongBuffer hashAndCaseBits, long loadDuration_ms, CamelCaseNamesSource source) {
 		this.nameType = nameType;
 		this.hashAndCaseBits = hashAndCaseBits;
-		this.createDuration_ms = createDuration_ms;
+		this.loadDuration_ms = loadDuration_ms;
+		this.source = source;
 	}
 	
 	public void saveAsResource(String path) throws IOException {
-		final int requiredTechnicalVersion = 24;
 		final String LINE_SEP = "\n";
 
 		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8));
-		bufferedWriter.write(Integer.toString(requiredTechnicalVersion) + LINE_SEP);
+		bufferedWriter.write(Integer.toString(REQUIRED_TECHNICAL_VERSION) + LINE_SEP);
 		bufferedWriter.write(Integer.toString(Program.TECHNICAL_VERSION) + LINE_SEP);
-		bufferedWriter.write(Integer.toString(hashAndCaseBits.length) + LINE_SEP);
-		for (long hashAndCase : hashAndCaseBits) {
-			bufferedWriter.write(Long.toHexString(hashAndCase) + LINE_SEP);
+		bufferedWriter.write(Integer.toString(hashAndCaseBits.limit()) + LINE_SEP);
+		for (int i = 0; i < hashAndCaseBits.limit(); ++i) {
+			bufferedWriter.write(Long.toHexString(hashAndCaseBits.get(i)) + LINE_SEP);
 		}
 		bufferedWriter.close();
 	}
+
+	/** returns the binary image of the names, which can be read with {@link #createFromBinaryImage(CamelCaseNameType, ByteBuffer)} */
+	public ByteBuffer toBinaryImage() {
+		int entryCount = hashAndCaseBits.limit();
+		ByteBuffer binaryImage = ByteBuffer.allocate(BINARY_HEADER_SIZE + entryCount * Long.BYTES);
+		binaryImage.putInt(BINARY_FORMAT_ID);
+		binaryImage.putInt(REQUIRED_TECHNICAL_VERSION);
+		binaryImage.putInt(Program.TECHNICAL_VERSION);
+		binaryImage.putInt(entryCount);
+		for (int i = 0; i < entryCount; ++i) {
+			binaryImage.putLong(hashAndCaseBits.get(i));
+		}
+		binaryImage.flip();
+		return binaryImage;
+	}
+
+	public void saveAsBinaryResource(String path) throws IOException {
+		Files.write(Paths.get(path), toBinaryImage().array());
+	}
+
+	public String getLoadSummary() {
+		String names = (nameType == CamelCaseNameType.VIEW) ? "view names" : "field names";
+		String sourceText;
+		switch (source) {
+			case TEXT_FILES:
+				sourceText = "text files";
+				break;
+			case BINARY_RESOURCE:
+				sourceText = "binary resource";
+				break;
+			case MAPPED_BINARY_RESOURCE:
+				sourceText = "memory-mapped binary resource";
+				break;
+			default:
+				sourceText = "text resource";
+				break;
+		}
+		return "CamelCase " + names + ": " + Cult.format(Math.max(getEntryCount(), 0)) + " entries loaded from " + sourceText + " in " + Cult.fromMillisec((int) loadDuration_ms) + ".";
+	}
+
+	/** returns the load summaries of the field and view names that were loaded from the resources so far, or an empty String */
+	public static synchronized String getLoadSummaries() {
+		StringBuilder sb = new StringBuilder();
+		if (fieldNames != null) 
+			sb.append(fieldNames.getLoadSummary()).append(LINE_SEP);
+		if (viewNames != null) 
+			sb.append(viewNames.getLoadSummary()).append(LINE_SEP);
+		return sb.toString();
+	}
 	
 	public String applyCamelCaseTo(String text, boolean requireUpperAfterLower, boolean requireApproval, Profile profile) {
 		String camelCase = applyCamelCaseTo(text, getCaseBitsFor(text), requireUpperAfterLower, requireApproval);
@@ -832,10 +968,10 @@ public class CamelCaseNames {
 
 		// the required entry must be a bit higher than the searchValue 
 		int fmin = -1;
-		int fmax = hashAndCaseBits.length;
+		int fmax = hashAndCaseBits.limit();
 		while (fmin + 1 < fmax) {
 			int fmid = (fmin + fmax) / 2;
-			long midValue = hashAndCaseBits[fmid];
+			long midValue = hashAndCaseBits.get(fmid);
 			if (midValue < searchValue) {
 				fmin = fmid;
 			} else if (midValue > searchValue) {
@@ -846,10 +982,10 @@ public class CamelCaseNames {
 				break;
 			}
 		}
-		if (fmax >= hashAndCaseBits.length) 
+		if (fmax >= hashAndCaseBits.limit()) 
 			return CASE_BITS_NOT_FOUND;
 		
-		long foundHashAndCaseBits = hashAndCaseBits[fmax]; 
+		long foundHashAndCaseBits = hashAndCaseBits.get(fmax); 
 		if ((int)(foundHashAndCaseBits >> 32) == searchHash) {
 			// found a suitable entry
 			return (int)(foundHashAndCaseBits & LOWER_HALF_MASK);
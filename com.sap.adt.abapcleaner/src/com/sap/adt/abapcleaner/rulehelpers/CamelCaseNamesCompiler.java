@@ -0,0 +1,51 @@
+package com.sap.adt.abapcleaner.rulehelpers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * <p>Converts the text resources of the {@link CamelCaseNames} into binary images, which contain the sorted long values
+ * of the names and can therefore be used (or memory-mapped) at runtime without parsing,
+ * see {@link CamelCaseNames#createFromBinaryResource(CamelCaseNameType, String)}.</p>
+ *
+ * <p>This class is called at build time with the directory of the text resources and the output directory
+ * in which the binary images are created next to the copied text resources.</p>
+ */
+public class CamelCaseNamesCompiler {
+	public static void main(String[] args) {
+		if (args == null || args.length != 2) {
+			System.err.println("Usage: CamelCaseNamesCompiler <resource dir> <output dir>");
+			System.exit(1);
+			return;
+		}
+		try {
+			compile(CamelCaseNameType.FIELD, Paths.get(args[0]), Paths.get(args[1]), CamelCaseNames.FIELD_NAMES_RESOURCE);
+			compile(CamelCaseNameType.VIEW, Paths.get(args[0]), Paths.get(args[1]), CamelCaseNames.VIEW_NAMES_RESOURCE);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	public static void compile(CamelCaseNameType type, Path resourceDir, Path outputDir, String resourceName) throws IOException {
+		Path sourcePath = resourceDir.resolve(resourceName);
+		Path targetPath = outputDir.resolve(CamelCaseNames.getBinaryResourceName(resourceName));
+
+		// skip compilation if the binary image is up to date
+		if (Files.exists(targetPath) && Files.getLastModifiedTime(targetPath).compareTo(Files.getLastModifiedTime(sourcePath)) >= 0)
+			return;
+
+		BufferedReader bufferedReader = Files.newBufferedReader(sourcePath, StandardCharsets.UTF_8);
+		CamelCaseNames camelCaseNames = CamelCaseNames.createFromResources(type, bufferedReader);
+		if (camelCaseNames.getEntryCount() <= 0)
+			throw new IOException("no entries found in " + sourcePath.toString());
+
+		Files.createDirectories(outputDir);
+		camelCaseNames.saveAsBinaryResource(targetPath.toString());
+		System.out.println("Created " + targetPath.toString() + " with " + String.valueOf(camelCaseNames.getEntryCount()) + " entries.");
+	}
+}
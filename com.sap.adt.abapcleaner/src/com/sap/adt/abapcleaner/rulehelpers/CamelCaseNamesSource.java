@@ -0,0 +1,9 @@
+package com.sap.adt.abapcleaner.rulehelpers;
+
+/** the source from which {@link CamelCaseNames} were created */
+public enum CamelCaseNamesSource {
+	TEXT_FILES,
+	TEXT_RESOURCE,
+	BINARY_RESOURCE,
+	MAPPED_BINARY_RESOURCE;
+}
@@ -1,6 +1,7 @@
 package com.sap.adt.abapcleaner.rulehelpers;
 
 import com.sap.adt.abapcleaner.base.*;
+import com.sap.adt.abapcleaner.parser.Code;
 import com.sap.adt.abapcleaner.programbase.Program;
 
 import java.io.BufferedReader;
@@ -9,10 +10,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** 
  Determines whether a line-start comment contains (English / German) text or ABAP code. 
  Provides a probability and a textual description of the reasons for the decision. 
+ 
+ Since the identification only depends on the text of the line and its neighbor lines, Rules should use the instance 
+ that is shared for the whole Code, cp. {@link #getFor(Code)}, which caches the results. 
 */
 public class CommentIdentifier {
    private static final String SEP_AT_LINE_START_MARK = "B";
@@ -55,7 +60,7 @@ public class CommentIdentifier {
 
 	private final static char[] wordFreqSkipChars = new char[] { '/', '<', '>', '_', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' }; 
 
-   private static boolean isInitialized;
+   private static volatile boolean isInitialized;
    
    // lists of English and German words frequently found in comments of ABAP code
    private static HashSet<String> frequentEnglishWords;
@@ -79,7 +84,11 @@ public class CommentIdentifier {
    private static HashSet<String> abapLevelOpeners;
    private static HashSet<String> abapLevelClosers;
 
-   private HashMap<String, Integer> separatorFrequency = new HashMap<String, Integer>();
+   /** null for the shared instance, which may be used by multiple threads */
+   private final HashMap<String, Integer> separatorFrequency;
+
+   /** the identifications without reasons, if this instance is shared between Rules, cp. {@link #getFor(Code)}; otherwise null */
+   private final ConcurrentHashMap<IdentificationKey, CommentIdentification> cache;
 
    private HashSet<String> lineSamples = new HashSet<>();
 
@@ -149,11 +158,79 @@ public class CommentIdentifier {
 		}
 	}
 
+	/** the key of a cached {@link CommentIdentification} */
+	private static class IdentificationKey {
+		final String lineText;
+		final String prevLineText;
+		final String nextLineText;
+		final boolean analyzeInnerComments;
+		final Language codeLanguage;
+		final int hashCode;
+
+		IdentificationKey(String lineText, String prevLineText, String nextLineText, boolean analyzeInnerComments, Language codeLanguage) {
+			this.lineText = lineText;
+			this.prevLineText = prevLineText;
+			this.nextLineText = nextLineText;
+			this.analyzeInnerComments = analyzeInnerComments;
+			this.codeLanguage = codeLanguage;
+			this.hashCode = Objects.hash(lineText, prevLineText, nextLineText, analyzeInnerComments, codeLanguage);
+		}
+
+		@Override
+		public int hashCode() { return hashCode; }
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof IdentificationKey))
+				return false;
+			IdentificationKey other = (IdentificationKey) obj;
+			return hashCode == other.hashCode && analyzeInnerComments == other.analyzeInnerComments && codeLanguage == other.codeLanguage
+					&& Objects.equals(lineText, other.lineText) && Objects.equals(prevLineText, other.prevLineText) && Objects.equals(nextLineText, other.nextLineText);
+		}
+	}
+
+	/** a sequence of consecutive lines, each of which is only preprocessed once, even if it is used as the context of its neighbor lines */
+	private static class LineBlock {
+		final String[] texts;
+		final boolean analyzeInnerComments;
+		final Language codeLanguage;
+		private final Line[] lines;
+		private final boolean[] isPreprocessed;
+
+		LineBlock(String[] texts, boolean analyzeInnerComments, Language codeLanguage) {
+			this.texts = texts;
+			this.analyzeInnerComments = analyzeInnerComments;
+			this.codeLanguage = codeLanguage;
+			this.lines = new Line[texts.length];
+			this.isPreprocessed = new boolean[texts.length];
+		}
+
+		String getText(int index) {
+			return (index < 0 || index >= texts.length) ? null : texts[index];
+		}
+
+		Line getLine(int index) {
+			if (index < 0 || index >= texts.length)
+				return null;
+			if (!isPreprocessed[index]) {
+				lines[index] = preprocessLine(texts[index], analyzeInnerComments, codeLanguage);
+				isPreprocessed[index] = true;
+			}
+			return lines[index];
+		}
+	}
+
 	private static String getHashSetKey(String word) {
 		return word.toUpperCase(Locale.ROOT);
 	}
 
-	private static void initialize() {
+	private static synchronized void initialize() {
+		// another thread may have completed the initialization while this thread was waiting for the lock
+		if (isInitialized)
+			return;
+
 	   frequentEnglishWords = initFrequentWords("frequent_words_english.txt", false);
 	   frequentGermanWords = initFrequentWords("frequent_words_german.txt", true);
 	   
@@ -302,7 +379,22 @@ public class CommentIdentifier {
 	}
 
 	// -----------------------------------------------------------------------------------------------------------------
-	
+
+	/** returns the CommentIdentifier that is shared by all Rules which are executed on the supplied Code; 
+	 * this instance caches its results (without reasons) and may be used by multiple threads */
+	public static CommentIdentifier getFor(Code code) {
+		return code.getOrCreateRuleAnalysis(CommentIdentifier.class, () -> new CommentIdentifier(true));
+	}
+
+	public CommentIdentifier() {
+		this(false);
+	}
+
+	private CommentIdentifier(boolean isShared) {
+		separatorFrequency = isShared ? null : new HashMap<String, Integer>();
+		cache = isShared ? new ConcurrentHashMap<>() : null;
+	}
+
 	public final String filterForMode(String text, CommentIdentifierMode mode, Language codeLanguage) {
 		boolean allowLineStartComments = (mode == CommentIdentifierMode.LINE_START_COMMENTS
 								    			 || mode == CommentIdentifierMode.ALL_COMMENT_LINES);
@@ -403,11 +495,59 @@ public class CommentIdentifier {
 		return identifyComment(lineText, analyzeInnerComments, null, null, false, codeLanguage);
 	}
 	public final CommentIdentification identifyComment(String lineText, boolean analyzeInnerComments, String prevLineText, String nextLineText, boolean provideReasons, Language codeLanguage) {
+		LineBlock block = new LineBlock(new String[] { prevLineText, lineText, nextLineText }, analyzeInnerComments, codeLanguage);
+		return identifyComment(block, 1, provideReasons);
+	}
+
+	/**
+	 * Identifies all lines of a block of consecutive comment lines in one pass, using the respective previous and next line 
+	 * as the context of each line, just like {@link #identifyComment(String, boolean, String, String, boolean, Language)}; 
+	 * however, each line is only preprocessed once.
+	 * @param prevLineText - the line before the block, which is only used as the context of the first line, or null
+	 * @param lineTexts - the lines of the block to be identified
+	 * @param nextLineText - the line after the block, which is only used as the context of the last line, or null
+	 * @return the identifications of the lineTexts
+	 */
+	public final CommentIdentification[] identifyCommentBlock(String prevLineText, List<String> lineTexts, String nextLineText, boolean analyzeInnerComments, Language codeLanguage) {
+		String[] texts = new String[lineTexts.size() + 2];
+		texts[0] = prevLineText;
+		for (int i = 0; i < lineTexts.size(); ++i)
+			texts[i + 1] = lineTexts.get(i);
+		texts[texts.length - 1] = nextLineText;
+		LineBlock block = new LineBlock(texts, analyzeInnerComments, codeLanguage);
+
+		CommentIdentification[] results = new CommentIdentification[lineTexts.size()];
+		for (int i = 0; i < results.length; ++i)
+			results[i] = identifyComment(block, i + 1, false);
+		return results;
+	}
+
+	private CommentIdentification identifyComment(LineBlock block, int index, boolean provideReasons) {
+		if (cache == null || provideReasons)
+			return identifyCommentUncached(block, index, provideReasons);
+
+		IdentificationKey key = new IdentificationKey(block.getText(index), block.getText(index - 1), block.getText(index + 1), block.analyzeInnerComments, block.codeLanguage);
+		CommentIdentification result = cache.get(key);
+		if (result == null) {
+			// concurrent threads may both identify the same line, which yields the same result
+			result = identifyCommentUncached(block, index, false);
+			cache.put(key, result);
+		}
+		return result;
+	}
+
+	private CommentIdentification identifyCommentUncached(LineBlock block, int index, boolean provideReasons) {
 		// lazy instantiation of static dictionaries (including for the sake of the test suite)
 		if (!isInitialized) {
 			initialize();
 		}
 		
+		final String lineText = block.getText(index);
+		final String prevLineText = block.getText(index - 1);
+		final String nextLineText = block.getText(index + 1);
+		final boolean analyzeInnerComments = block.analyzeInnerComments;
+		final Language codeLanguage = block.codeLanguage;
+		
 		final String lineSep = System.lineSeparator();
 		final String proCodePrefix = "+ ";
 		final String proTextPrefix = "- ";
@@ -436,7 +576,7 @@ public class CommentIdentifier {
 			}
 		}
 		
-		Line line = preprocessLine(lineText, analyzeInnerComments, codeLanguage);
+		Line line = block.getLine(index);
 		int indent = line.indent;
 		// if (line == null)
 		// 	return new CommentIdentification(proCode, proText, indent, reasons, line.words);
@@ -475,8 +615,8 @@ public class CommentIdentifier {
 				return new CommentIdentification(proCode, proText, proEnglish, proGerman, indent, reasons, line.words, false);
 			}
 		}
-		Line prevLine = preprocessLine(prevLineText, analyzeInnerComments, codeLanguage);
-		Line nextLine = preprocessLine(nextLineText, analyzeInnerComments, codeLanguage);
+		Line prevLine = block.getLine(index - 1);
+		Line nextLine = block.getLine(index + 1);
 
 		for (int i = 0; i < line.getWordCount(); ++i) {
 			String word = line.words[i];
@@ -640,10 +780,8 @@ public class CommentIdentifier {
 					reasons.append(proTextPrefix + "colon : inside line").append(lineSep);
 			}
 
-			if (separatorFrequency.containsKey(key))
-				separatorFrequency.put(key, separatorFrequency.get(key) + 1);
-			else
-				separatorFrequency.put(key, 1);
+			if (separatorFrequency != null)
+				separatorFrequency.merge(key, 1, Integer::sum);
 
 			lastSep = sep;
 		}
@@ -740,13 +878,16 @@ public class CommentIdentifier {
 		final String lineSep = System.lineSeparator();
 		StringBuilder result = new StringBuilder();
 		result.append("separator (space added in front)\tfrequency").append(lineSep);
+		if (separatorFrequency == null)
+			return result.toString();
 		for (Map.Entry<String, Integer> kvp : separatorFrequency.entrySet())
 			result.append(" " + kvp.getKey() + "\t" + String.valueOf(kvp.getValue())).append(lineSep);
 		return result.toString();
 	}
 
 	public final void resetSeparatorFrequencies() {
-		separatorFrequency.clear();
+		if (separatorFrequency != null)
+			separatorFrequency.clear();
 	}
 
 	private static Line preprocessLine(String text, boolean analyzeInnerComments, Language codeLanguage) {
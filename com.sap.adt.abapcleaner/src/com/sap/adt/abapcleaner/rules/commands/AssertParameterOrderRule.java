@@ -65,7 +65,7 @@ public class AssertParameterOrderRule extends RuleForCommands {
 		}
 	}
 
-	private static ArrayList<AssertMethod> assertMethods;
+	private static volatile ArrayList<AssertMethod> assertMethods;
 
 	private static ArrayList<AssertMethod> initAssertMethods() {
 		ArrayList<AssertMethod> assertMethods = new ArrayList<>();
@@ -141,7 +141,7 @@ public class CallMethodRule extends RuleForCommands {
 
 		// if activated, remove the RECEIVING keyword by executing the ReceivingKeywordRule
 		ReceivingKeywordRule receivingKeywordRule = (ReceivingKeywordRule)parentProfile.getRule(RuleID.RECEIVING_KEYWORD);
-		if (receivingKeywordRule.isActive) {
+		if (receivingKeywordRule.isActiveForOtherRule()) {
 			Token receivingKeyword = command.getFirstToken().getLastTokenDeep(true, TokenSearch.ASTERISK, "RECEIVING");
 			if (receivingKeyword != null && receivingKeyword.isKeyword()) {
 				try {
@@ -165,7 +165,7 @@ public class DdlAlignSelectListRule extends RuleForDdlCommands {
 		AlignTable table = new AlignTable(MAX_COLUMN_COUNT);
 		ArrayList<Command> lineStartComments = new ArrayList<>();
 		ArrayList<Section> textualMultiLineComments = new ArrayList<>(); 
-		CommentIdentifier commentIdentifier = new CommentIdentifier(); 
+		CommentIdentifier commentIdentifier = CommentIdentifier.getFor(code); 
 		int indent = lastCode.getFirstTokenInLine().getStartIndexInLine() + DDL.INDENT_STEP; 
 		try {
 			command = command.getFirstChild();
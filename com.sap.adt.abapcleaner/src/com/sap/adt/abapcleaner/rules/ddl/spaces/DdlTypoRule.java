@@ -112,7 +112,7 @@ public class DdlTypoRule extends RuleForDdlCommands {
 		if (!configCorrectTypos.getValue() && !configConvertBritishToAmerican.getValue())
 			return false;
 		
-		CommentIdentifier identifier = new CommentIdentifier();
+		CommentIdentifier identifier = CommentIdentifier.getFor(code);
 
 		if (command.isDdlAnnotation()) {
 			// process annotation values
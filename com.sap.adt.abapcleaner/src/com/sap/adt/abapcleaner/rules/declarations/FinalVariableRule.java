@@ -53,6 +53,9 @@ public class FinalVariableRule extends RuleForDeclarations {
 
 	@Override
 	public boolean isActiveByDefault() { return false; }
+
+	@Override
+	protected boolean isMethodLocal() { return true; }
 	
 	@Override
    public String getExample() {
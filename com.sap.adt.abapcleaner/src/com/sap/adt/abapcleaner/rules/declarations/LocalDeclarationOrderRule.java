@@ -69,6 +69,9 @@ public class LocalDeclarationOrderRule extends RuleForDeclarations {
 
 	@Override
 	public boolean isActiveByDefault() { return false; }
+
+	@Override
+	protected boolean isMethodLocal() { return true; }
 	
 	@Override
    public String getExample() { 
@@ -48,6 +48,9 @@ public class NeedlessClearRule extends RuleForDeclarations {
 	@Override
 	public RuleID[] getDependentRules() { return new RuleID[] { RuleID.LOCAL_DECLARATION_ORDER, RuleID.CHAIN_OF_ONE, RuleID.UNUSED_VARIABLES, RuleID.INSET, RuleID.UPPER_AND_LOWER_CASE }; }
 
+	@Override
+	protected boolean isMethodLocal() { return true; }
+
 	@Override
    public String getExample() {
       return "" 
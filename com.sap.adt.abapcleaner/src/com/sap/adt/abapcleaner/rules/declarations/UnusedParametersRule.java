@@ -237,7 +237,7 @@ public class UnusedParametersRule extends RuleForDeclarations {
 		} else if (wasCommentRemoved && newMessages.isEmpty() && insertAt.getPrev() == methodStart && !methodStart.containsInnerLineBreaks(true)) {
 			// remove empty line if all (old) messages were removed and EmptyLinesWithinMethodsRule is configured to remove empty lines at method start
 			EmptyLinesWithinMethodsRule emptyLinesWithinMethodsRule = (EmptyLinesWithinMethodsRule)parentProfile.getRule(RuleID.EMPTY_LINES_WITHIN_METHODS);
-			if (emptyLinesWithinMethodsRule.isActive && emptyLinesWithinMethodsRule.getMaxEmptyLinesAtMethodStart() == 0) {
+			if (emptyLinesWithinMethodsRule.isActiveForOtherRule() && emptyLinesWithinMethodsRule.getMaxEmptyLinesAtMethodStart() == 0) {
 				if (insertAt.getFirstToken().setLineBreaks(1)) {
 					code.addRuleUse(this, insertAt);
 					code.addRuleUse(this, methodStart);
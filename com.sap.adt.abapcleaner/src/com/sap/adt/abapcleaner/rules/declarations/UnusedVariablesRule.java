@@ -36,6 +36,9 @@ public class UnusedVariablesRule extends RuleForDeclarations {
 	@Override
 	public RuleID[] getDependentRules() { return new RuleID[] { RuleID.CHAIN_OF_ONE, RuleID.UPPER_AND_LOWER_CASE, RuleID.INSET }; }
 
+	@Override
+	protected boolean isMethodLocal() { return true; }
+
 	@Override
    public String getExample() {
       return "" 
@@ -166,7 +169,6 @@ public class UnusedVariablesRule extends RuleForDeclarations {
 			// .isBlocked must be considered only at this point, NOT earlier when usage information is gathered 
 			if (isCommandBlocked(command)) 
 				continue;
-			commandForErrorMsg = command;
 
 			// determine the action to be taken; this is NOT dependent on "usedCountInSelfAssignment" (neither in active code nor comment code)
 			ChainElementAction action = getAction(varInfo);
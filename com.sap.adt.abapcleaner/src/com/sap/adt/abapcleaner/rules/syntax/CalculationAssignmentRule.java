@@ -43,6 +43,9 @@ public class CalculationAssignmentRule extends RuleForCommands {
 	@Override
 	public int getRequiredAbapRelease() { return ABAP.REQUIRED_RELEASE_754; }
 
+	@Override
+	protected boolean isMethodLocal() { return true; }
+
 	@Override
    public String getExample() {
       return "" 
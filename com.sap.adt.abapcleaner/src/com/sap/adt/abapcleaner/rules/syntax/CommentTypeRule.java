@@ -1,6 +1,7 @@
 package com.sap.adt.abapcleaner.rules.syntax;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 
 import com.sap.adt.abapcleaner.base.*;
 import com.sap.adt.abapcleaner.parser.*;
@@ -101,7 +102,7 @@ public class CommentTypeRule extends Rule {
 		if (code == null)
 			throw new NullPointerException("code");
 
-		CommentIdentifier identifier = new CommentIdentifier();
+		CommentIdentifier identifier = CommentIdentifier.getFor(code);
 
 		CommentSeparatorAction actionForLeadingAsterisks = CommentSeparatorAction.forValue(configActionForLeadingAsterisks.getValue());
 		CommentSeparatorAction actionForTrailingAsterisks = CommentSeparatorAction.forValue(configActionForTrailingAsterisks.getValue());
@@ -120,18 +121,24 @@ public class CommentTypeRule extends Rule {
 				continue;
 			}
 
-			// find end of * comment section while analyzing the comment lines up to that point
+			// find end of * comment section
 			Command startCommand = command;
+			ArrayList<String> comments = new ArrayList<>();
+			while (command != null && command.isAsteriskCommentLine() && !command.getChangeControl().isRuleBlocked(getID())) {
+				comments.add(command.getFirstToken().getText());
+				command = command.getNext();
+				commandForErrorMsg = command;
+				if (command == null || command.getFirstTokenLineBreaks() >= 2)
+					break;
+			}
+
+			// analyze the comment lines of the section in one pass, using the next * comment line (if any) as the context of the last line
+			String nextComment = (command != null && command.isAsteriskCommentLine()) ? command.getFirstToken().getText() : null;
 			int codeLineCount = 0;
 			int textLineCount = 0;
 			int autoGeneratedCount = 0;
 			int minIndent = Integer.MAX_VALUE;
-			String lastComment = null;
-			String curComment = command.getFirstToken().getText();
-			while (command != null && command.isAsteriskCommentLine() && !command.getChangeControl().isRuleBlocked(getID())) {
-				Command nextCommand = command.getNext();
-				String nextComment = (nextCommand != null && nextCommand.isAsteriskCommentLine()) ? nextCommand.getFirstToken().getText() : null;
-				CommentIdentification commentIdentification = identifier.identifyComment(curComment, false, lastComment, nextComment, false, Language.ABAP);
+			for (CommentIdentification commentIdentification : identifier.identifyCommentBlock(null, comments, nextComment, false, Language.ABAP)) {
 				if (commentIdentification.indent >= 0)
 					minIndent = Math.min(minIndent, commentIdentification.indent);
 				if (commentIdentification.isCode())
@@ -140,13 +147,6 @@ public class CommentTypeRule extends Rule {
 					++textLineCount;
 				if (commentIdentification.isAutoGenerated)
 					++autoGeneratedCount;
-
-				lastComment = curComment;
-				curComment = nextComment;
-				command = nextCommand;
-				commandForErrorMsg = command;
-				if (command == null || command.getFirstTokenLineBreaks() >= 2)
-					break;
 			}
 			if (minIndent == Integer.MAX_VALUE)
 				minIndent = 0;
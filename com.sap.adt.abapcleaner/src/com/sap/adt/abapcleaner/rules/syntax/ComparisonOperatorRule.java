@@ -36,6 +36,9 @@ public class ComparisonOperatorRule extends RuleForTokens {
 	@Override
 	public RuleID[] getDependentRules() { return new RuleID[] { RuleID.UPPER_AND_LOWER_CASE, RuleID.ALIGN_LOGICAL_EXPRESSIONS } ; }
 
+	@Override
+	protected boolean isMethodLocal() { return true; }
+
 	@Override
    public String getExample() {
       return "" 
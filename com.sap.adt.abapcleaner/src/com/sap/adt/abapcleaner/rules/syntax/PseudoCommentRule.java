@@ -17,7 +17,7 @@ import com.sap.adt.abapcleaner.rulebase.*;
 import com.sap.adt.abapcleaner.rulehelpers.CommentIdentifier;
 
 public class PseudoCommentRule extends RuleForTokens {
-   private static boolean isInitialized;
+   private static volatile boolean isInitialized;
    private static HashMap<String, String> pragmaOfPseudoComment;
 
    private final static RuleReference[] references = new RuleReference[] { 
@@ -81,7 +81,11 @@ public class PseudoCommentRule extends RuleForTokens {
 			+ LINE_SEP + "  ENDMETHOD.";
    }
 
-	private static void initialize() {
+	private static synchronized void initialize() {
+		// another thread may have completed the initialization while this thread was waiting for the lock
+		if (isInitialized)
+			return;
+
 		// read the map of pseudo comments and corresponding pragma from the resource;  
 		// if needed, this file can be updated from table SLIN_DESC (columns PSEUDO_COM and PRAGMA) by removing all 
 		// NOCOMMENT entries, and correcting the pragma 'ENHOK' into 'ENH_OK' to avoid a Syntax Check warning
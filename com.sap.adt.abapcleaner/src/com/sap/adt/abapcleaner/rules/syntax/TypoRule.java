@@ -212,7 +212,7 @@ public class TypoRule extends Rule {
 		if (!configCorrectTypos.getValue() && !configConvertBritishToAmerican.getValue())
 			return;
 
-		CommentIdentifier identifier = new CommentIdentifier();
+		CommentIdentifier identifier = CommentIdentifier.getFor(code);
 
 		Command command = code.firstCommand;
 		while (command != null) {
@@ -150,4 +150,22 @@ public class AbabCultTest {
 		assertFalse(AbapCult.stringEndsWith("abc", "a", false));
 		assertFalse(AbapCult.stringEndsWith("abc", "A", false));
 	}
+
+	@Test
+	void testSubstringLongerThanText() {
+		assertFalse(AbapCult.stringStartsWith("ab", "abc"));
+		assertFalse(AbapCult.stringEndsWith("bc", "abc"));
+		assertEquals(-1, AbapCult.indexOf("ab", "abc", 0, true));
+		assertEquals(-1, AbapCult.lastIndexOf("ab", "abc", 2, true));
+		assertFalse(AbapCult.stringContainsAt("abc", 2, "cd", true));
+		assertFalse(AbapCult.stringContainsAt("abc", -1, "ab", true));
+	}
+
+	@Test
+	void testIndexOfEmptySubstring() {
+		assertEquals("abc".indexOf("", 1), AbapCult.indexOf("abc", "", 1, true));
+		assertEquals("abc".indexOf("", 5), AbapCult.indexOf("abc", "", 5, true));
+		assertEquals("abc".lastIndexOf("", 1), AbapCult.lastIndexOf("abc", "", 1, true));
+		assertEquals("abc".lastIndexOf("", 5), AbapCult.lastIndexOf("abc", "", 5, true));
+	}
 }
@@ -102,6 +102,14 @@ public class FileSystemDouble implements IFileSystem {
 		return (fileInfo == null) ? 0 : fileInfo.lastModified;
 	}
 
+	@Override
+	public long getFileSize(String path) {
+		if (path == null)
+			return -1;
+		FileInfo fileInfo = fileInfos.get(getKey(path));
+		return (fileInfo == null) ? -1 : fileInfo.data.length;
+	}
+
 	@Override
 	public boolean deleteFile(String path) {
 		FileInfo fileInfo = fileInfos.get(getKey(path));
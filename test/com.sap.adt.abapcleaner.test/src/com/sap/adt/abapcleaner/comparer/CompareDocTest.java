@@ -0,0 +1,163 @@
+package com.sap.adt.abapcleaner.comparer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.CleanException;
+import com.sap.adt.abapcleaner.programbase.CompareException;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+
+public class CompareDocTest {
+	private static final String LINE_SEP = ABAP.LINE_SEPARATOR;
+
+	private static String buildText(String... lines) {
+		return String.join(LINE_SEP, lines);
+	}
+
+	private static DiffDoc compare(String textA, String textB, DiffAlgorithm algorithm) throws CompareException {
+		CompareDoc docA = CompareDoc.createFromText(textA, LINE_SEP);
+		CompareDoc docB = CompareDoc.createFromText(textB, LINE_SEP);
+		return docA.compareTo(docB, null, algorithm);
+	}
+
+	private static void assertSameDiff(String textA, String textB) throws CompareException {
+		String expDiff = compare(textA, textB, DiffAlgorithm.RADIUS_SEARCH).toText();
+		String actDiff = compare(textA, textB, DiffAlgorithm.PATIENCE).toText();
+		assertEquals(expDiff, actDiff);
+	}
+
+	private static int countLines(DiffDoc diffDoc, LineStatus status) {
+		int count = 0;
+		for (int i = 0; i < diffDoc.getLineCount(); ++i) {
+			if (diffDoc.getLine(i).status == status)
+				++count;
+		}
+		return count;
+	}
+
+	@Test
+	void testSameDiffForEqualText() throws CompareException {
+		String text = buildText("method any_method.", "  lv_value = 1.", "", "  lv_other = 2.", "endmethod.");
+		assertSameDiff(text, text);
+	}
+
+	@Test
+	void testSameDiffForChangedLines() throws CompareException {
+		String textA = buildText("method any_method.", "  lv_value = lv_value + 1.", "  CALL METHOD any_method( ).", "endmethod.");
+		String textB = buildText("METHOD any_method.", "  lv_value += 1.", "  any_method( ).", "ENDMETHOD.");
+		assertSameDiff(textA, textB);
+	}
+
+	@Test
+	void testSameDiffForAddedAndDeletedLines() throws CompareException {
+		String textA = buildText("method any_method.", "  data lv_unused type i.", "  lv_value = 1.", "  lv_other = 2.", "endmethod.");
+		String textB = buildText("method any_method.", "  lv_value = 1.", "", "  \" comment", "  lv_other = 2.", "  lv_third = 3.", "endmethod.");
+		assertSameDiff(textA, textB);
+	}
+
+	@Test
+	void testSameDiffForCleanup() throws CompareException, ParseException, CleanException {
+		String code = buildText(
+				"method any_method.",
+				"  data lv_value type i.",
+				"  data lv_other type i.",
+				"  lv_value = lv_value + 1.",
+				"  CALL METHOD any_method( ).",
+				"  IF NOT lv_value IS INITIAL. lv_other = 1. ENDIF.",
+				"  if lv_other = 1.",
+				"    lv_value = 2.",
+				"  endif.",
+				"endmethod.");
+		Program.setLogForTesting();
+
+		Code parsedCode = Code.parse(null, ParseParams.createForWholeCode("anyName", code, ABAP.NEWEST_RELEASE));
+		ArrayList<DisplayLine> oldDisplayLines = parsedCode.toDisplayLines();
+		Profile.createDefault().executeRules(parsedCode, ABAP.NO_RELEASE_RESTRICTION);
+		ArrayList<DisplayLine> newDisplayLines = parsedCode.toDisplayLines();
+
+		String[] diffs = new String[DiffAlgorithm.values().length];
+		for (DiffAlgorithm algorithm : DiffAlgorithm.values()) {
+			CompareDoc docA = CompareDoc.createFromDisplayLines(oldDisplayLines);
+			CompareDoc docB = CompareDoc.createFromDisplayLines(newDisplayLines);
+			diffs[algorithm.getValue()] = docA.compareTo(docB, null, algorithm).toText();
+		}
+		assertEquals(diffs[DiffAlgorithm.RADIUS_SEARCH.getValue()], diffs[DiffAlgorithm.PATIENCE.getValue()]);
+	}
+
+	@Test
+	void testAlgorithmForLineCount() {
+		assertEquals(DiffAlgorithm.RADIUS_SEARCH, CompareDoc.getAlgorithmFor(0, 0));
+		assertEquals(DiffAlgorithm.RADIUS_SEARCH, CompareDoc.getAlgorithmFor(CompareDoc.MIN_LINE_COUNT_FOR_PATIENCE - 1, 1));
+		assertEquals(DiffAlgorithm.PATIENCE, CompareDoc.getAlgorithmFor(1, CompareDoc.MIN_LINE_COUNT_FOR_PATIENCE));
+		assertEquals(DiffAlgorithm.PATIENCE, CompareDoc.getAlgorithmFor(CompareDoc.MIN_LINE_COUNT_FOR_PATIENCE, CompareDoc.MIN_LINE_COUNT_FOR_PATIENCE));
+	}
+
+	@Test
+	void testPatienceForMovedBlock() throws CompareException {
+		// move a large block of lines to the end of the document
+		final int lineCount = 2000;
+		final int blockStart = 200;
+		final int blockLength = 500;
+		String[] linesA = new String[lineCount];
+		for (int i = 0; i < lineCount; ++i)
+			linesA[i] = "  lv_value_" + String.valueOf(i) + " = " + String.valueOf(i) + ".";
+		String[] linesB = new String[lineCount];
+		int indexB = 0;
+		for (int i = 0; i < lineCount; ++i) {
+			if (i < blockStart || i >= blockStart + blockLength)
+				linesB[indexB++] = linesA[i];
+		}
+		for (int i = blockStart; i < blockStart + blockLength; ++i)
+			linesB[indexB++] = linesA[i];
+
+		DiffDoc diffDoc = compare(buildText(linesA), buildText(linesB), DiffAlgorithm.PATIENCE);
+
+		// the lines outside of the block remain equal, while the block is shown as deleted and added
+		assertEquals(lineCount - blockLength, countLines(diffDoc, LineStatus.EQUAL));
+		assertEquals(blockLength, countLines(diffDoc, LineStatus.LEFT_DELETED));
+		assertEquals(blockLength, countLines(diffDoc, LineStatus.RIGHT_ADDED));
+	}
+
+	@Test
+	void testPatienceWithoutUniqueLines() throws CompareException {
+		String textA = buildText("endif.", "endif.", "endif.", "lv_value = 1.", "lv_value = 1.");
+		String textB = buildText("endif.", "lv_value = 1.", "endif.", "lv_value = 1.");
+
+		// the longest common sequence has three lines, e.g. "endif.", "lv_value = 1.", "lv_value = 1."
+		DiffDoc diffDoc = compare(textA, textB, DiffAlgorithm.PATIENCE);
+		assertEquals(3, countLines(diffDoc, LineStatus.EQUAL));
+		assertEquals(2, countLines(diffDoc, LineStatus.LEFT_DELETED));
+		assertEquals(1, countLines(diffDoc, LineStatus.RIGHT_ADDED));
+	}
+
+	@Test
+	void testPatienceWithoutUniqueLinesInLargeRange() throws CompareException {
+		// repeat a few lines many times, and insert an additional line after each block on side B 
+		final int blockCount = 3000;
+		String[] block = new String[] { "if lv_value = 1.", "lv_value = 2.", "endif." };
+		ArrayList<String> linesA = new ArrayList<>();
+		ArrayList<String> linesB = new ArrayList<>();
+		for (int i = 0; i < blockCount; ++i) {
+			for (String line : block) {
+				linesA.add(line);
+				linesB.add(line);
+			}
+			linesB.add("clear lv_value.");
+		}
+		linesA.add("clear lv_value.");
+
+		// expect all lines of side A to be matched in sequence, rather than only being matched one at a time
+		DiffDoc diffDoc = compare(buildText(linesA.toArray(new String[0])), buildText(linesB.toArray(new String[0])), DiffAlgorithm.PATIENCE);
+		assertEquals(linesA.size(), countLines(diffDoc, LineStatus.EQUAL));
+		assertEquals(0, countLines(diffDoc, LineStatus.LEFT_DELETED));
+		assertEquals(linesB.size() - linesA.size(), countLines(diffDoc, LineStatus.RIGHT_ADDED));
+	}
+}
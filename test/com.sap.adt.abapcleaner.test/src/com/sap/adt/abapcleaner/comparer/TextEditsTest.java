@@ -0,0 +1,125 @@
+package com.sap.adt.abapcleaner.comparer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.CompareException;
+import com.sap.adt.abapcleaner.programbase.JobDouble;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.programbase.Task;
+import com.sap.adt.abapcleaner.rulebase.CleanupParams;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+
+public class TextEditsTest {
+	private static final String LINE_SEP = ABAP.LINE_SEPARATOR;
+
+	private static String buildText(String... lines) {
+		return String.join(LINE_SEP, lines);
+	}
+
+	private static TextEdits getEdits(String textA, String textB) throws CompareException {
+		CompareDoc docA = CompareDoc.createFromText(textA, LINE_SEP);
+		CompareDoc docB = CompareDoc.createFromText(textB, LINE_SEP);
+		return docA.compareTo(docB, null).toTextEdits();
+	}
+
+	/** applies the hunks from last to first, as an editor would do */
+	private static String apply(TextEdits edits, String text) {
+		ArrayList<String> lines = new ArrayList<>(Arrays.asList(text.split(LINE_SEP, -1)));
+		for (int i = edits.getHunkCount() - 1; i >= 0; --i) {
+			TextEdits.Hunk hunk = edits.getHunk(i);
+			lines.subList(hunk.startLine - 1, hunk.endLine).clear();
+			lines.addAll(hunk.startLine - 1, Arrays.asList(hunk.lines));
+		}
+		return String.join(LINE_SEP, lines);
+	}
+
+	private static void assertHunk(TextEdits edits, int index, int expStartLine, int expEndLine, String... expLines) {
+		TextEdits.Hunk hunk = edits.getHunk(index);
+		assertEquals(expStartLine, hunk.startLine);
+		assertEquals(expEndLine, hunk.endLine);
+		assertArrayEquals(expLines, hunk.lines);
+	}
+
+	@Test
+	void testUnchangedText() throws CompareException {
+		String text = buildText("method any_method.", "  lv_value = 1.", "endmethod.");
+		TextEdits edits = getEdits(text, text);
+
+		assertTrue(edits.isEmpty());
+		assertEquals("", edits.toJson());
+	}
+
+	@Test
+	void testChangedLines() throws CompareException {
+		String textA = buildText("method any_method.", "  lv_value = lv_value + 1.", "  lv_other = 2.", "endmethod.");
+		String textB = buildText("METHOD any_method.", "  lv_value += 1.", "  lv_other = 2.", "ENDMETHOD.");
+		TextEdits edits = getEdits(textA, textB);
+
+		assertEquals(2, edits.getHunkCount());
+		assertHunk(edits, 0, 1, 2, "METHOD any_method.", "  lv_value += 1.");
+		assertHunk(edits, 1, 4, 4, "ENDMETHOD.");
+		assertEquals(textB, apply(edits, textA));
+	}
+
+	@Test
+	void testAddedAndDeletedLines() throws CompareException {
+		String textA = buildText("method any_method.", "  data lv_unused type i.", "  lv_value = 1.", "  lv_other = 2.", "endmethod.");
+		String textB = buildText("method any_method.", "  lv_value = 1.", "", "  \" comment", "  lv_other = 2.", "endmethod.");
+		TextEdits edits = getEdits(textA, textB);
+
+		assertEquals(2, edits.getHunkCount());
+		assertHunk(edits, 0, 2, 2);
+		assertHunk(edits, 1, 4, 3, "", "  \" comment");
+		assertEquals(textB, apply(edits, textA));
+	}
+
+	@Test
+	void testToJson() throws CompareException {
+		String textA = buildText("method any_method.", "  lv_text = 'a'.", "endmethod.");
+		String textB = buildText("method any_method.", "  lv_text = \"b\\\".", "endmethod.");
+
+		String expJson = "{\n"
+				+ "  \"edits\": [\n"
+				+ "    { \"startLine\": 2, \"endLine\": 2, \"lines\": [ \"  lv_text = \\\"b\\\\\\\".\" ] }\n"
+				+ "  ]\n"
+				+ "}\n";
+		assertEquals(expJson, getEdits(textA, textB).toJson());
+	}
+
+	@Test
+	void testEditsOfCleanup() {
+		String code = buildText(
+				"CLASS lcl_any_class IMPLEMENTATION.",
+				"  method any_method.",
+				"    data lv_value type i.",
+				"    data lv_other type i.",
+				"    lv_value = lv_value + 1.",
+				"",
+				"",
+				"    CALL METHOD any_method( ).",
+				"    IF NOT lv_value IS INITIAL. lv_other = 1. ENDIF.",
+				"  endmethod.",
+				"ENDCLASS.");
+		Program.setLogForTesting();
+
+		Task task = Task.create(new JobDouble(0), ParseParams.createForWholeCode("anyName", code, ABAP.NEWEST_RELEASE));
+		task.run(null, CleanupParams.createForProfile(Profile.createDefault(), false, ABAP.NO_RELEASE_RESTRICTION), false);
+		assertTrue(task.getSuccess());
+
+		TextEdits edits = task.getResultingDiffDoc().toTextEdits();
+		String cleanedCode = task.getResultingCode().toString();
+		assertFalse(edits.isEmpty());
+		assertEquals(cleanedCode, apply(edits, code));
+
+		// the first and the last line remain unchanged
+		assertTrue(edits.getHunk(0).startLine > 1);
+		assertTrue(edits.getHunk(edits.getHunkCount() - 1).endLine < code.split(LINE_SEP).length);
+	}
+}
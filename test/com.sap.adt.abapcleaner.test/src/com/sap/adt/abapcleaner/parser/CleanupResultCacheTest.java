@@ -0,0 +1,192 @@
+package com.sap.adt.abapcleaner.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.programbase.PersistencyDouble;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+import com.sap.adt.abapcleaner.rulebase.Rule;
+import com.sap.adt.abapcleaner.rulebase.RuleID;
+
+public class CleanupResultCacheTest {
+	private static final String LINE_SEP = ABAP.LINE_SEPARATOR;
+	private static final String ANY_CODE = "method any_method." + LINE_SEP + "  lv_value = lv_value + 1." + LINE_SEP + "endmethod.";
+	private static final String CLEANED_CODE = "METHOD any_method." + LINE_SEP + "  lv_value += 1." + LINE_SEP + "ENDMETHOD.";
+
+	private PersistencyDouble persistency;
+	private Profile profile;
+	private CleanupResultCache cache;
+
+	@BeforeEach
+	void setUp() {
+		persistency = PersistencyDouble.create();
+		Program.initialize(persistency, "");
+		profile = Profile.createDefault();
+		cache = CleanupResultCache.create(CleanupResultCache.getDefaultDir(persistency), 3, 30);
+		cache.clear();
+	}
+
+	private String getKey(String code, Profile profile, String abapRelease, CleanupRange cleanupRange) {
+		return CleanupResultCache.getKey("anyName", code, abapRelease, cleanupRange, CleanupRangeExpandMode.FULL_DOCUMENT,
+				profile, ABAP.NO_RELEASE_RESTRICTION, true, false, LINE_SEP);
+	}
+
+	private String getKey(String code) {
+		return getKey(code, profile, ABAP.NEWEST_RELEASE, null);
+	}
+
+	@Test
+	void testKeyDependsOnCleanupParameters() {
+		String key = getKey(ANY_CODE);
+		assertEquals(key, getKey(ANY_CODE));
+
+		assertNotEquals(key, getKey(ANY_CODE + " "));
+		assertNotEquals(key, getKey(ANY_CODE, profile, "757", null));
+		assertNotEquals(key, getKey(ANY_CODE, profile, ABAP.NEWEST_RELEASE, CleanupRange.create(2, 2, false)));
+
+		Rule anyRule = profile.getRule(RuleID.ALIGN_ALIASES_FOR);
+		anyRule.isActive = !anyRule.isActive;
+		assertNotEquals(key, getKey(ANY_CODE));
+	}
+
+	@Test
+	void testPutAndGet() {
+		String key = getKey(ANY_CODE);
+		assertNull(cache.get(key));
+
+		CleanupResult result = CleanupResult.createForRange(CLEANED_CODE, 1, 2, 19, 17);
+		result.lineCountInCleanupRange = 3;
+		result.appliedRuleCount = 2;
+		result.changedLineCount = 3;
+		result.totalPocessingTime_ms = 60_000;
+		result.ruleStats = "any \"rule\" stats" + LINE_SEP;
+		cache.put(key, result);
+
+		CleanupResult cachedResult = cache.get(key);
+		assertNotNull(cachedResult);
+		assertEquals(CLEANED_CODE, cachedResult.getCleanedCode());
+		assertEquals(1, cachedResult.startLine);
+		assertEquals(2, cachedResult.endLine);
+		assertEquals(result.getSelectedText(), cachedResult.getSelectedText());
+		assertEquals(3, cachedResult.getLineCountInCleanupRange());
+		assertEquals(2, cachedResult.getAppliedRuleCount());
+		assertEquals(3, cachedResult.getChangedLineCount());
+		// the processing time of the original cleanup must not be replayed
+		assertTrue(cachedResult.getTotalProcessingTime_ms() < 60_000);
+		assertEquals(result.getRuleStats(), cachedResult.getRuleStats());
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void testPutWithoutRangeAndStats() {
+		String key = getKey(ANY_CODE);
+		cache.put(key, CleanupResult.createWithoutRange(CLEANED_CODE));
+
+		CleanupResult cachedResult = cache.get(key);
+		assertNotNull(cachedResult);
+		assertEquals(CLEANED_CODE, cachedResult.getCleanedCode());
+		assertFalse(cachedResult.hasLineSelection());
+		assertNull(cachedResult.getRuleStats());
+		assertFalse(cachedResult.hasEdits());
+	}
+
+	@Test
+	void testPutAndGetEdits() {
+		String key = getKey(ANY_CODE);
+		CleanupResult result = CleanupResult.createWithoutRange(CLEANED_CODE);
+		result.edits = "{\n  \"edits\": [\n    { \"startLine\": 1, \"endLine\": 1, \"lines\": [ \"METHOD any_method.\" ] }\n  ]\n}\n";
+		cache.put(key, result);
+
+		CleanupResult cachedResult = cache.get(key);
+		assertNotNull(cachedResult);
+		assertEquals(result.getEdits(), cachedResult.getEdits());
+
+		// an empty edit script (for unchanged code) must be distinguished from missing edits
+		String otherKey = getKey(CLEANED_CODE);
+		CleanupResult otherResult = CleanupResult.createWithoutRange(CLEANED_CODE);
+		otherResult.edits = "";
+		cache.put(otherKey, otherResult);
+		assertEquals("", cache.get(otherKey).getEdits());
+	}
+
+	@Test
+	void testErrorsAreNotCached() {
+		String key = getKey(ANY_CODE);
+		cache.put(key, CleanupResult.createError("any error"));
+
+		assertNull(cache.get(key));
+	}
+
+	@Test
+	void testCacheSharedBetweenInstances() {
+		String key = getKey(ANY_CODE);
+		cache.put(key, CleanupResult.createWithoutRange(CLEANED_CODE));
+
+		CleanupResultCache otherCache = CleanupResultCache.create(cache.getCacheDir(), 3, 30);
+		CleanupResult cachedResult = otherCache.get(key);
+		assertNotNull(cachedResult);
+		assertEquals(CLEANED_CODE, cachedResult.getCleanedCode());
+	}
+
+	@Test
+	void testEvictOldestEntries() {
+		String[] keys = new String[5];
+		for (int i = 0; i < keys.length; ++i) {
+			keys[i] = getKey(ANY_CODE + LINE_SEP + "\" comment " + String.valueOf(i));
+			cache.put(keys[i], CleanupResult.createWithoutRange(CLEANED_CODE));
+			persistency.setLastModified(persistency.combinePaths(cache.getCacheDir(), keys[i] + ".cfj"), System.currentTimeMillis() - (keys.length - i) * 1000L);
+		}
+		cache.evict();
+
+		// only the three most recent entries are expected to remain
+		assertEquals(2, cache.getEvictedCount());
+		assertNull(cache.get(keys[0]));
+		assertNull(cache.get(keys[1]));
+		for (int i = 2; i < keys.length; ++i) {
+			assertNotNull(cache.get(keys[i]));
+		}
+	}
+
+	@Test
+	void testEvictLeastRecentlyUsedEntries() {
+		// fill the cache directory with another instance that does not evict entries yet
+		CleanupResultCache otherCache = CleanupResultCache.create(cache.getCacheDir(), 10, 30);
+		String[] keys = new String[5];
+		for (int i = 0; i < keys.length; ++i) {
+			keys[i] = getKey(ANY_CODE + LINE_SEP + "\" comment " + String.valueOf(i));
+			otherCache.put(keys[i], CleanupResult.createWithoutRange(CLEANED_CODE));
+			persistency.setLastModified(persistency.combinePaths(cache.getCacheDir(), keys[i] + ".cfj"), System.currentTimeMillis() - (keys.length - i) * 1000L);
+		}
+
+		// reading the oldest entry makes it the most recently used one
+		assertNotNull(cache.get(keys[0]));
+		cache.evict();
+
+		assertEquals(2, cache.getEvictedCount());
+		assertNull(cache.get(keys[1]));
+		assertNull(cache.get(keys[2]));
+		assertNotNull(cache.get(keys[0]));
+		assertNotNull(cache.get(keys[3]));
+		assertNotNull(cache.get(keys[4]));
+	}
+
+	@Test
+	void testEvictExpiredEntries() {
+		String key = getKey(ANY_CODE);
+		cache.put(key, CleanupResult.createWithoutRange(CLEANED_CODE));
+		String path = persistency.combinePaths(cache.getCacheDir(), key + ".cfj");
+		persistency.setLastModified(path, System.currentTimeMillis() - 31L * 24 * 60 * 60 * 1000);
+
+		assertNull(cache.get(key));
+
+		cache.evict();
+		assertEquals(1, cache.getEvictedCount());
+		assertFalse(persistency.fileExists(path));
+	}
+}
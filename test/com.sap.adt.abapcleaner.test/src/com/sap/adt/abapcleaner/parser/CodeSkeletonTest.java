@@ -0,0 +1,207 @@
+package com.sap.adt.abapcleaner.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.programbase.IntegrityBrokenException;
+import com.sap.adt.abapcleaner.programbase.JobDouble;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.programbase.Task;
+import com.sap.adt.abapcleaner.rulebase.CleanupParams;
+import com.sap.adt.abapcleaner.rulebase.Profile;
+
+public class CodeSkeletonTest {
+	private static final String LINE_SEP = ABAP.LINE_SEPARATOR;
+	private static final int METHOD_COUNT = 6;
+	private static final int BODY_LINE_COUNT = 60;
+	private static final int MIN_ELIDED_LINE_COUNT = 10;
+
+	@BeforeEach
+	void setUp() {
+		Program.setLogForTesting();
+	}
+
+	/** builds a class with {@link #METHOD_COUNT} methods, each with a body of {@link #BODY_LINE_COUNT} lines;
+	 * the line of 'method method_<index>.' is 5 + index * (BODY_LINE_COUNT + 2) */
+	private static String buildClass(String specialMethodBody) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("CLASS lcl_any_class DEFINITION." + LINE_SEP);
+		sb.append("  PUBLIC SECTION." + LINE_SEP);
+		sb.append("ENDCLASS." + LINE_SEP);
+		sb.append("CLASS lcl_any_class IMPLEMENTATION." + LINE_SEP);
+		for (int methodIndex = 0; methodIndex < METHOD_COUNT; ++methodIndex) {
+			sb.append("  method method_" + String.valueOf(methodIndex) + "." + LINE_SEP);
+			for (int line = 0; line < BODY_LINE_COUNT; ++line) {
+				if (methodIndex == 1 && line == 0 && specialMethodBody != null) {
+					sb.append(specialMethodBody + LINE_SEP);
+				} else if (line % 10 == 0) {
+					sb.append(LINE_SEP);
+				} else if (line % 10 == 1) {
+					sb.append("    \" comment with \"quotes\" and 'literals' in it" + LINE_SEP);
+				} else if (line % 10 == 2) {
+					sb.append("* comment line." + LINE_SEP);
+				} else if (line % 10 == 3) {
+					sb.append("    lv_text = |template { lv_value } with \\| and { |nested.| }|." + LINE_SEP);
+				} else if (line % 10 == 4) {
+					sb.append("    lv_text = 'literal with \" and ``.' && `text.`." + LINE_SEP);
+				} else {
+					sb.append("    lv_value = lv_value + " + String.valueOf(line) + "." + LINE_SEP);
+				}
+			}
+			sb.append("  endmethod." + LINE_SEP);
+		}
+		sb.append("ENDCLASS.");
+		return sb.toString();
+	}
+
+	private static int getMethodStartLine(int methodIndex) {
+		return 5 + methodIndex * (BODY_LINE_COUNT + 2);
+	}
+
+	private static Code cleanUp(ParseParams parseParams) {
+		Task task = Task.create(new JobDouble(0), parseParams);
+		task.run(null, CleanupParams.createForProfile(Profile.createDefault(), false, ABAP.NO_RELEASE_RESTRICTION), false);
+		assertTrue(task.getSuccess());
+		return task.getResultingCode();
+	}
+
+	private static void assertSameCleanupResult(String codeText, CleanupRange cleanupRange, CleanupRangeExpandMode expandMode, boolean expIsSkeleton) {
+		Code fullCode = cleanUp(ParseParams.createForCleanupRange("anyName", codeText, ABAP.NEWEST_RELEASE, cleanupRange, expandMode));
+		Code limitedCode = cleanUp(ParseParams.createForRangeLimitedCleanup("anyName", codeText, ABAP.NEWEST_RELEASE, cleanupRange, expandMode));
+		assertFalse(fullCode.isSkeleton());
+		assertEquals(expIsSkeleton, limitedCode.isSkeleton());
+
+		for (String lineSeparator : new String[] { "\r\n", "\n" }) {
+			CleanupResult expResult = fullCode.toCleanupResult(lineSeparator);
+			CleanupResult actResult = limitedCode.toCleanupResult(lineSeparator);
+			assertEquals(expResult.getCleanedCode(), actResult.getCleanedCode());
+			assertEquals(expResult.startLine, actResult.startLine);
+			assertEquals(expResult.endLine, actResult.endLine);
+			assertEquals(expResult.offset, actResult.offset);
+			assertEquals(expResult.length, actResult.length);
+		}
+	}
+
+	@Test
+	void testCreateElidesBlocksOutsideRange() {
+		String codeText = buildClass(null);
+		int methodStartLine = getMethodStartLine(2);
+		CleanupRange cleanupRange = CleanupRange.create(methodStartLine + 5, methodStartLine + 6, true);
+
+		CodeSkeleton skeleton = CodeSkeleton.create(codeText, cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT);
+
+		assertNotNull(skeleton);
+		assertEquals(METHOD_COUNT - 1, skeleton.getElidedBodies().size());
+		assertEquals((METHOD_COUNT - 1) * BODY_LINE_COUNT, skeleton.getElidedLineCount());
+		assertEquals(codeText.split(LINE_SEP, -1).length, skeleton.getText().split(LINE_SEP, -1).length);
+		assertEquals(getMethodStartLine(0) + BODY_LINE_COUNT + 1, skeleton.getElidedBodies().get(0).endLineNum);
+		assertTrue(skeleton.getText().contains("    lv_value = lv_value + " + String.valueOf(BODY_LINE_COUNT - 1) + "."));
+	}
+
+	@Test
+	void testCreateReturnsNull() {
+		String codeText = buildClass(null);
+		CleanupRange cleanupRange = CleanupRange.create(getMethodStartLine(2), getMethodStartLine(2), true);
+
+		assertNull(CodeSkeleton.create(null, cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(codeText, null, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(codeText, cleanupRange, CleanupRangeExpandMode.FULL_CLASS, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(codeText, cleanupRange, CleanupRangeExpandMode.FULL_DOCUMENT, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(codeText, cleanupRange, CleanupRangeExpandMode.FULL_METHOD, METHOD_COUNT * BODY_LINE_COUNT));
+	}
+
+	@Test
+	void testCreateReturnsNullForUnclearStructure() {
+		CleanupRange cleanupRange = CleanupRange.create(getMethodStartLine(3), getMethodStartLine(3), true);
+
+		assertNull(CodeSkeleton.create(buildClass("    EXEC SQL."), cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(buildClass("    lv_text = |multi-line {"), cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(buildClass("    lv_text = 'unclosed."), cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT));
+		assertNull(CodeSkeleton.create(buildClass("    METHOD nested."), cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT));
+	}
+
+	@Test
+	void testCreateKeepsBodiesThatCannotBeReproduced() {
+		String codeText = buildClass("    lv_value = 1.   ").replace("  method method_4.", "  method method_4. lv_value = 1.");
+		CleanupRange cleanupRange = CleanupRange.create(getMethodStartLine(2), getMethodStartLine(2), true);
+
+		CodeSkeleton skeleton = CodeSkeleton.create(codeText, cleanupRange, CleanupRangeExpandMode.FULL_METHOD, MIN_ELIDED_LINE_COUNT);
+
+		// method_1 has trailing spaces, method_2 is in the cleanup range, and method_4 has code after METHOD
+		assertNotNull(skeleton);
+		assertEquals(METHOD_COUNT - 3, skeleton.getElidedBodies().size());
+	}
+
+	@Test
+	void testRangeLimitedCleanupInMethod() {
+		String codeText = buildClass(null);
+		int methodStartLine = getMethodStartLine(2);
+
+		assertSameCleanupResult(codeText, CleanupRange.create(methodStartLine + 5, methodStartLine + 6, true), CleanupRangeExpandMode.FULL_METHOD, true);
+		assertSameCleanupResult(codeText, CleanupRange.create(methodStartLine + 5, methodStartLine + 6, false), CleanupRangeExpandMode.FULL_METHOD, true);
+		assertSameCleanupResult(codeText, CleanupRange.create(methodStartLine, methodStartLine, true), CleanupRangeExpandMode.FULL_STATEMENT, true);
+	}
+
+	@Test
+	void testRangeLimitedCleanupAtDocumentStartAndEnd() {
+		String codeText = buildClass(null);
+		int lineCount = codeText.split(LINE_SEP, -1).length;
+
+		assertSameCleanupResult(codeText, CleanupRange.create(1, 2, true), CleanupRangeExpandMode.FULL_METHOD, true);
+		assertSameCleanupResult(codeText, CleanupRange.create(lineCount - 2, lineCount, true), CleanupRangeExpandMode.FULL_METHOD, true);
+	}
+
+	@Test
+	void testRangeLimitedCleanupWithCrLfAndLf() {
+		String codeText = buildClass(null);
+		int methodStartLine = getMethodStartLine(4);
+
+		assertSameCleanupResult(codeText.replace("\r\n", "\n"), CleanupRange.create(methodStartLine + 1, methodStartLine + 1, true), CleanupRangeExpandMode.FULL_METHOD, true);
+	}
+
+	@Test
+	void testRemovedLinesOfElidedBody() throws ParseException {
+		String codeText = buildClass(null);
+		int methodStartLine = getMethodStartLine(2);
+		CleanupRange cleanupRange = CleanupRange.create(methodStartLine + 1, methodStartLine + 1, true);
+		Code code = Code.parse(null, ParseParams.createForRangeLimitedCleanup("anyName", codeText, ABAP.NEWEST_RELEASE, cleanupRange, CleanupRangeExpandMode.FULL_METHOD));
+		assertTrue(code.isSkeleton());
+
+		// find the ENDMETHOD of the first method, the body of which was elided, and remove the lines that stand in for the body
+		int endLineNum = getMethodStartLine(0) + BODY_LINE_COUNT + 1;
+		Command blockEnd = code.firstCommand;
+		while (blockEnd.getSourceLineNumStart() != endLineNum)
+			blockEnd = blockEnd.getNext();
+		assertTrue(blockEnd.isMethodFunctionOrFormEnd());
+		blockEnd.getFirstToken().lineBreaks = BODY_LINE_COUNT;
+
+		// rather than silently dropping the body, both the integrity test and the creation of the text must fail
+		try {
+			code.testReferentialIntegrity(false);
+			fail();
+		} catch (IntegrityBrokenException e) {
+			assertTrue(e.getMessage().contains("elided block body"));
+		}
+		try {
+			code.toString();
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("elided block body"));
+		}
+	}
+
+	@Test
+	void testRangeLimitedCleanupFallsBackToWholeCode() {
+		int methodStartLine = getMethodStartLine(3);
+		CleanupRange cleanupRange = CleanupRange.create(methodStartLine + 1, methodStartLine + 1, true);
+
+		// too few lines are outside the cleanup range, the expand mode covers the whole class, or the structure is unclear
+		assertSameCleanupResult(buildClass(null), CleanupRange.create(getMethodStartLine(1), getMethodStartLine(4), true), CleanupRangeExpandMode.FULL_METHOD, false);
+		assertSameCleanupResult(buildClass(null), cleanupRange, CleanupRangeExpandMode.FULL_CLASS, false);
+		assertSameCleanupResult(buildClass("    EXEC SQL. ENDEXEC."), cleanupRange, CleanupRangeExpandMode.FULL_METHOD, false);
+	}
+}
@@ -8,12 +8,14 @@ import com.sap.adt.abapcleaner.base.StringUtil;
 import com.sap.adt.abapcleaner.programbase.IntegrityBrokenException;
 import com.sap.adt.abapcleaner.programbase.ParseException;
 import com.sap.adt.abapcleaner.programbase.TaskType;
+import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxException;
 import com.sap.adt.abapcleaner.rulebase.Profile;
 import com.sap.adt.abapcleaner.rulebase.RuleID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 
 public class CodeTest extends CodeTestBase {
 	private static final String SEP = ABAP.LINE_SEPARATOR;
@@ -51,6 +53,62 @@ public class CodeTest extends CodeTestBase {
 		assertExecSqlSectionFound(code.firstCommand.getNext(), code.lastCommand.getPrev());
 	}
 
+	@Test
+	void testCreateCopy() throws IntegrityBrokenException, UnexpectedSyntaxException {
+		buildSrc("    DATA lv_value TYPE i.");
+		buildSrc("    lv_value = lv_value + 1. \" comment");
+		buildSrc("    IF lv_value > 1.");
+		buildSrc("      CLEAR lv_value.");
+		buildSrc("    ENDIF.");
+		
+		putAnyMethodAroundSrc();
+		
+		Code code = testParseCode();
+		Command removedCommand = code.firstCommand.getNext().getNext();
+		removedCommand.removeFromCode();
+
+		IdentityHashMap<Command, Command> commandMap = new IdentityHashMap<>();
+		ArrayList<Command> additionalCommands = new ArrayList<>();
+		additionalCommands.add(removedCommand);
+		Code copy = code.createCopy(commandMap, additionalCommands);
+
+		// expect an equal, but independent copy that includes the removed Command 
+		assertEquals(code.toString(), copy.toString());
+		copy.testReferentialIntegrity(true);
+		assertNotSame(code.firstCommand, copy.firstCommand);
+		assertSame(copy, copy.firstCommand.getParentCode());
+		assertTrue(commandMap.containsKey(removedCommand));
+		assertEquals(removedCommand.toString(), commandMap.get(removedCommand).toString());
+
+		copy.firstCommand.getNext().getFirstToken().setText("TYPES", false);
+		assertNotEquals(code.toString(), copy.toString());
+		assertEquals("DATA", code.firstCommand.getNext().getFirstToken().getText());
+	}
+
+	@Test
+	void testRndSource() {
+		buildSrc("    \" comment line");
+		buildSrc("    lv_value = lv_value");
+		buildSrc("             * 2. \" comment");
+		
+		putAnyMethodAroundSrc();
+		
+		Code code = testParseCode();
+		Command commentLine = code.firstCommand.getNext();
+		Command assignment = commentLine.getNext();
+
+		// expect comments to be omitted, while line breaks and spaces are reduced to single characters
+		assertNull(TokenTypeRefinerRnd.getRndSource(commentLine));
+		assertEquals("\n lv_value = lv_value\n * 2.", TokenTypeRefinerRnd.getRndSource(assignment));
+
+		// expect the same source text for an unchanged copy, and a different one after changes
+		Code copy = code.createCopy(new IdentityHashMap<>(), null);
+		Command copiedAssignment = copy.firstCommand.getNext().getNext();
+		assertEquals(TokenTypeRefinerRnd.getRndSource(assignment), TokenTypeRefinerRnd.getRndSource(copiedAssignment));
+		copiedAssignment.getFirstToken().setText("lv_other", false);
+		assertNotEquals(TokenTypeRefinerRnd.getRndSource(assignment), TokenTypeRefinerRnd.getRndSource(copiedAssignment));
+	}
+
 	@Test
 	void testExecSqlInOneLine() {
 		buildSrc("    EXEC SQL. CONNECT TO :lv_connection_name ENDEXEC.");
@@ -656,6 +714,34 @@ public class CodeTest extends CodeTestBase {
 		}
 	}
 	
+	@Test
+	void testCheckSyntaxDetectsChangedTokenLayout() {
+		// even if the source text of a Command is unchanged and was already parsed successfully, the syntax check 
+		// must parse it again if its text is distributed differently to Tokens, and detect the mismatch with the RND Parser output 
+		Code code = createCode("lv_value = 1.");
+		Command command = code.firstCommand;
+		Token token = command.getFirstToken();
+		String rndSource = TokenTypeRefinerRnd.getRndSource(command);
+		String oldCacheKey = TokenTypeRefinerRnd.getRndCacheKey(command, rndSource);
+
+		try {
+			code.checkSyntax(false);
+			token.setText("lv_val", false);
+			token.insertRightSibling(Token.createForAbap(0, 0, "ue", token.sourceLineNum), false, true);
+		} catch (IntegrityBrokenException e) {
+			fail();
+		}
+		assertEquals(rndSource, TokenTypeRefinerRnd.getRndSource(command));
+		assertNotEquals(oldCacheKey, TokenTypeRefinerRnd.getRndCacheKey(command, rndSource));
+
+		try {
+			code.checkSyntax(true);
+			fail();
+		} catch (IntegrityBrokenException e) {
+			// expected case
+		}
+	}
+
 	private Code createCode(String codeText) {
 		try {
 			return Code.parse(null, ParseParams.createForTest(codeText, ABAP.NEWEST_RELEASE));
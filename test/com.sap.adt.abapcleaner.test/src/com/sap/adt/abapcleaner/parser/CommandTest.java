@@ -103,6 +103,33 @@ public class CommandTest {
 		assertTrue(buildCommand("lt_any[ 1 ]-inner[ 2 ]-inner_inner[ 3 ]-comp = 1.").isAssignment(false, true));
 	}
 
+	@Test
+	void testModificationEpoch() throws UnexpectedSyntaxAfterChanges {
+		Command command = buildCommand("a = b + 1. c = d.");
+		Code code = command.getParentCode();
+		int epochOfNext = command.getNext().getModificationEpoch();
+		assertTrue(command.getModificationEpoch() > 0);
+		assertTrue(epochOfNext <= code.getModificationEpoch());
+
+		// expect changes of text, whitespace, and Tokens to increase the epoch of the changed Command only 
+		int epoch = command.getModificationEpoch();
+		assertFalse(command.getFirstToken().setText("a", false));
+		assertEquals(epoch, command.getModificationEpoch());
+		command.getFirstToken().setText("e", false);
+		assertTrue(command.getModificationEpoch() > epoch);
+		assertEquals(code.getModificationEpoch(), command.getModificationEpoch());
+
+		epoch = command.getModificationEpoch();
+		command.getFirstToken().getNext().setWhitespace(0, 3);
+		assertTrue(command.getModificationEpoch() > epoch);
+
+		epoch = command.getModificationEpoch();
+		command.getLastCodeToken().getPrev().removeFromCommand();
+		assertTrue(command.getModificationEpoch() > epoch);
+
+		assertEquals(epochOfNext, command.getNext().getModificationEpoch());
+	}
+
 	@Test
 	void testIsEmpty() {
 		Command emptyCommand = buildCommand("  \" comment");
@@ -0,0 +1,178 @@
+package com.sap.adt.abapcleaner.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.programbase.PersistencyDouble;
+import com.sap.adt.abapcleaner.programbase.Program;
+
+public class FileStateIndexTest {
+	private static final String SETTINGS_KEY = "anySettingsKey";
+	private static final String OTHER_SETTINGS_KEY = "otherSettingsKey";
+	private static final String FILE_KEY = "any_class.clas.abap";
+	private static final String SOURCE_CODE = "method any_method.\r\n  lv_value = lv_value + 1.\r\nendmethod.";
+	private static final String CLEANED_CODE = "METHOD any_method.\r\n  lv_value += 1.\r\nENDMETHOD.\r\n";
+
+	private PersistencyDouble persistency;
+	private String indexPath;
+	private String sourcePath;
+	private String targetPath;
+
+	@BeforeEach
+	void setUp() {
+		persistency = PersistencyDouble.create();
+		Program.initialize(persistency, "");
+
+		String sourceDir = persistency.prepareDirectory(persistency.getWorkDir(), "source");
+		String targetDir = persistency.prepareDirectory(persistency.getWorkDir(), "target");
+		indexPath = FileStateIndex.getDefaultPath(persistency, sourceDir, targetDir);
+		sourcePath = persistency.prepareFile(sourceDir, FILE_KEY, SOURCE_CODE);
+		targetPath = persistency.combinePaths(targetDir, FILE_KEY);
+		persistency.setLastModified(sourcePath, 1000);
+	}
+
+	private void writeTarget(String code, long lastModified) {
+		persistency.writeAllTextToFile(targetPath, code);
+		persistency.setLastModified(targetPath, lastModified);
+	}
+
+	/** simulates a first run in which the file is cleaned and the target file is written */
+	private void cleanAndSave() {
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+		writeTarget(CLEANED_CODE, 2000);
+		index.update(FILE_KEY, sourcePath, targetPath);
+		assertTrue(index.save());
+	}
+
+	@Test
+	void testDefaultPathDependsOnDirectories() {
+		String path = FileStateIndex.getDefaultPath(persistency, "source", "target");
+		assertEquals(path, FileStateIndex.getDefaultPath(persistency, "source", "target"));
+		assertNotEquals(path, FileStateIndex.getDefaultPath(persistency, "source", "other"));
+		assertNotEquals(path, FileStateIndex.getDefaultPath(persistency, "sourcetarget", ""));
+	}
+
+	@Test
+	void testFirstRun() {
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+		assertEquals(1, index.getCheckedCount());
+		assertEquals(0, index.getUpToDateCount());
+	}
+
+	@Test
+	void testUnchangedFileIsUpToDate() {
+		cleanAndSave();
+
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertTrue(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertEquals(1, index.getCheckedCount());
+		assertEquals(1, index.getUpToDateCount());
+		assertTrue(index.save());
+
+		// the entry is kept when the index is saved again
+		index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertTrue(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+	}
+
+	@Test
+	void testTouchedFileIsUpToDateByContent() {
+		cleanAndSave();
+		persistency.setLastModified(sourcePath, 3000);
+
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertTrue(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+		assertEquals(1, index.getUpToDateCount());
+		assertTrue(index.save());
+
+		// the new modification time is stored, so the next run does not need to read the file
+		index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertTrue(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+	}
+
+	@Test
+	void testChangedSourceFile() {
+		cleanAndSave();
+		String changedCode = SOURCE_CODE + "\r\n";
+		persistency.writeAllTextToFile(sourcePath, changedCode);
+		persistency.setLastModified(sourcePath, 3000);
+
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, changedCode, targetPath));
+		assertEquals(0, index.getUpToDateCount());
+	}
+
+	@Test
+	void testChangedOrDeletedTargetFile() {
+		cleanAndSave();
+		writeTarget(CLEANED_CODE, 4000);
+
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+
+		persistency.deleteFile(targetPath);
+		index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+	}
+
+	@Test
+	void testChangedSettings() {
+		cleanAndSave();
+
+		FileStateIndex index = FileStateIndex.load(indexPath, OTHER_SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+	}
+
+	@Test
+	void testFileNotCheckedIsDropped() {
+		cleanAndSave();
+
+		// the file is not checked in this run, e.g. because it was deleted
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertTrue(index.save());
+
+		index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+	}
+
+	@Test
+	void testUpdateWithoutTargetFile() {
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, SOURCE_CODE, targetPath));
+		index.update(FILE_KEY, sourcePath, targetPath);
+		assertTrue(index.save());
+
+		writeTarget(CLEANED_CODE, 0);
+		index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+	}
+
+	@Test
+	void testCorruptIndex() {
+		persistency.prepareFile(indexPath, "any corrupt content");
+
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		assertFalse(index.isUpToDate(FILE_KEY, sourcePath, targetPath));
+	}
+
+	@Test
+	void testStatistics() {
+		cleanAndSave();
+
+		FileStateIndex index = FileStateIndex.load(indexPath, SETTINGS_KEY);
+		index.isUpToDate(FILE_KEY, sourcePath, targetPath);
+		index.isUpToDate("other_file.abap", sourcePath, targetPath);
+		assertEquals("file index: 1 of 2 files up to date", index.getStatistics());
+	}
+}
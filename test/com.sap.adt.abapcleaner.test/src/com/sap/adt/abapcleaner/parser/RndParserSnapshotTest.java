@@ -0,0 +1,135 @@
+package com.sap.adt.abapcleaner.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.programbase.PersistencyDouble;
+
+public class RndParserSnapshotTest {
+	private static final String ANY_RELEASE = "758";
+
+	/** serializable stand-in for the RND Parser with its loaded 'parse tables' */
+	static class ParserDouble implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final HashMap<String, int[]> tables = new HashMap<>();
+		Serializable other;
+	}
+
+	/** parser which cannot be serialized */
+	static class NonSerializableParser {
+	}
+
+	private PersistencyDouble persistency;
+	private String path;
+
+	@BeforeEach
+	void setUp() {
+		persistency = PersistencyDouble.create();
+		path = RndParserSnapshot.getPath(persistency, ANY_RELEASE);
+	}
+
+	private static ParserDouble createParser() {
+		ParserDouble parser = new ParserDouble();
+		parser.tables.put("DATA", new int[] { 1, 2, 3 });
+		parser.tables.put("METHOD", new int[] { 4, 5 });
+		return parser;
+	}
+
+	@Test
+	void testPathDependsOnRelease() {
+		assertNotNull(path);
+		assertTrue(path.startsWith(persistency.getWorkDir()));
+		assertNotEquals(path, RndParserSnapshot.getPath(persistency, "757"));
+		assertNull(RndParserSnapshot.getPath(persistency, null));
+	}
+
+	@Test
+	void testSaveAndRestore() {
+		assertTrue(RndParserSnapshot.save(path, ANY_RELEASE, createParser()));
+		assertTrue(persistency.fileExists(path));
+
+		ParserDouble restored = RndParserSnapshot.restore(path, ANY_RELEASE, ParserDouble.class);
+		assertNotNull(restored);
+		assertArrayEquals(new int[] { 1, 2, 3 }, restored.tables.get("DATA"));
+		assertArrayEquals(new int[] { 4, 5 }, restored.tables.get("METHOD"));
+	}
+
+	@Test
+	void testRestoreMissingSnapshot() {
+		assertNull(RndParserSnapshot.restore(path, ANY_RELEASE, ParserDouble.class));
+		assertNull(RndParserSnapshot.restore(null, ANY_RELEASE, ParserDouble.class));
+	}
+
+	@Test
+	void testRestoreOtherReleaseDeletesSnapshot() {
+		assertTrue(RndParserSnapshot.save(path, ANY_RELEASE, createParser()));
+
+		assertNull(RndParserSnapshot.restore(path, "757", ParserDouble.class));
+		assertFalse(persistency.fileExists(path));
+	}
+
+	@Test
+	void testRestoreCorruptedSnapshot() {
+		persistency.getFileSystem().writeAllBytesToFile(path, new byte[] { 1, 2, 3, 4, 5 });
+
+		assertNull(RndParserSnapshot.restore(path, ANY_RELEASE, ParserDouble.class));
+		assertFalse(persistency.fileExists(path));
+	}
+
+	@Test
+	void testSaveNonSerializableParser() {
+		assertFalse(RndParserSnapshot.save(path, ANY_RELEASE, new NonSerializableParser()));
+		assertFalse(persistency.fileExists(path));
+	}
+
+	@Test
+	void testReadIgnoresNonSerializableParserClass() {
+		assertTrue(RndParserSnapshot.save(path, ANY_RELEASE, createParser()));
+
+		assertNull(RndParserSnapshot.read(path, NonSerializableParser.class));
+		assertNull(RndParserSnapshot.restore(path, ANY_RELEASE, NonSerializableParser.class));
+		assertTrue(persistency.fileExists(path));
+	}
+
+	@Test
+	void testRestoreFromContentMultipleTimes() {
+		assertTrue(RndParserSnapshot.save(path, ANY_RELEASE, createParser()));
+		byte[] snapshot = RndParserSnapshot.read(path, ParserDouble.class);
+		assertNotNull(snapshot);
+
+		// each restore must create an independent parser instance
+		ParserDouble parser1 = RndParserSnapshot.restoreFromContent(snapshot, ANY_RELEASE, ParserDouble.class);
+		ParserDouble parser2 = RndParserSnapshot.restoreFromContent(snapshot, ANY_RELEASE, ParserDouble.class);
+		assertNotNull(parser1);
+		assertNotNull(parser2);
+		assertNotSame(parser1, parser2);
+		assertNull(RndParserSnapshot.restoreFromContent(snapshot, "757", ParserDouble.class));
+	}
+
+	@Test
+	void testRestoreRejectsOtherClasses() {
+		// a snapshot that contains a class outside of the allowed packages is not restored
+		ParserDouble parser = createParser();
+		parser.other = new javax.management.Attribute("anyName", "anyValue");
+		assertTrue(RndParserSnapshot.save(path, ANY_RELEASE, parser));
+
+		assertNull(RndParserSnapshot.restore(path, ANY_RELEASE, ParserDouble.class));
+		assertFalse(persistency.fileExists(path));
+	}
+
+	@Test
+	void testRestoreRejectsJdkClassesOutsideParseTables() {
+		ParserDouble parser = createParser();
+		parser.other = new java.io.File("any");
+		assertTrue(RndParserSnapshot.save(path, ANY_RELEASE, parser));
+
+		assertNull(RndParserSnapshot.restore(path, ANY_RELEASE, ParserDouble.class));
+		assertFalse(persistency.fileExists(path));
+	}
+}
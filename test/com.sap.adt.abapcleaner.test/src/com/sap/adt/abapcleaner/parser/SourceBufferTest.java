@@ -0,0 +1,212 @@
+package com.sap.adt.abapcleaner.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+
+public class SourceBufferTest {
+	private static final String SEP = ABAP.LINE_SEPARATOR;
+	private static final int SMALL_CHUNK_SIZE = 16;
+
+	private static SourceBuffer createWithSmallChunks(String text) {
+		return SourceBuffer.create(new StringReader(text), -1, SMALL_CHUNK_SIZE);
+	}
+
+	@Test
+	void testReadAcrossChunks() {
+		String text = "0123456789abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+		SourceBuffer buffer = createWithSmallChunks(text);
+
+		assertEquals(-1, buffer.getExpectedLength());
+		assertTrue(buffer.hasCharAt(0));
+		assertEquals('z', buffer.charAt(35));
+		assertEquals(text.substring(10, 50), buffer.substring(10, 50));
+		assertEquals(48, buffer.indexOf('C', 10));
+		assertEquals(46, buffer.indexOf("ABC", 0));
+		assertEquals(-1, buffer.indexOf('!', 0));
+		assertEquals(text.length(), buffer.length());
+		assertFalse(buffer.hasCharAt(text.length()));
+	}
+
+	@Test
+	void testReleaseDiscardsText() {
+		String text = "0123456789abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+		SourceBuffer buffer = createWithSmallChunks(text);
+
+		assertEquals('0', buffer.charAt(0));
+		buffer.release(30);
+		assertEquals('Z', buffer.charAt(text.length() - 1));
+		assertEquals(text.substring(30, 40), buffer.substring(30, 40));
+		try {
+			buffer.substring(0, 10);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected, because this text was already discarded
+		}
+	}
+
+	@Test
+	void testTabsReturnedAsSpaces() {
+		SourceBuffer buffer = SourceBuffer.create("a\tb\t\tc");
+
+		assertEquals(' ', buffer.charAt(1));
+		assertEquals('\t', buffer.rawCharAt(1));
+		assertEquals("a b  c", buffer.substring(0, 6));
+		assertEquals("a\tb\t\tc", buffer.rawSubstring(0, 6));
+		assertTrue(buffer.containsAt(1, " b"));
+		assertEquals(5, buffer.indexOfNotAnyOf(" b", 1));
+	}
+
+	@Test
+	void testIndexOfAny() {
+		SourceBuffer buffer = createWithSmallChunks("|text \\| with \\{ escapes { var } and // comment");
+
+		assertEquals(25, buffer.indexOfAny(new char[] { '{', '|' }, 1, new String[] { "\\|", "\\{" }));
+		assertEquals(33, buffer.indexOfAny(new char[] { '!' }, new String[] { "and" }, 0));
+		assertEquals(-1, buffer.indexOfAny(new char[] { '!' }, null, 0));
+	}
+
+	private static void assertSameCode(String sourceCode) {
+		// parse the source code once from the String and once in small chunks from a Reader
+		Code expCode;
+		Code actCode;
+		try {
+			expCode = Code.parse(null, ParseParams.createForTest(sourceCode, ABAP.NEWEST_RELEASE));
+			actCode = Code.createEmptyForTests();
+			Parser.create(createWithSmallChunks(sourceCode)).parse(null, actCode);
+		} catch (ParseException e) {
+			fail(e.getMessage());
+			return;
+		}
+
+		assertEquals(expCode.toString(), actCode.toString());
+		assertEquals(expCode.commandCount, actCode.commandCount);
+
+		Command expCommand = expCode.firstCommand;
+		Command actCommand = actCode.firstCommand;
+		while (expCommand != null) {
+			assertNotNull(actCommand);
+			assertEquals(expCommand.getLanguage(), actCommand.getLanguage());
+			assertEquals(expCommand.getSourceTextStart(), actCommand.getSourceTextStart());
+			assertEquals(expCommand.getSourceTextEnd(), actCommand.getSourceTextEnd());
+			assertEquals(expCommand.getSourceLineNumStart(), actCommand.getSourceLineNumStart());
+
+			Token expToken = expCommand.firstToken;
+			Token actToken = actCommand.firstToken;
+			while (expToken != null) {
+				assertNotNull(actToken);
+				assertEquals(expToken.text, actToken.text);
+				assertEquals(expToken.type, actToken.type);
+				assertEquals(expToken.lineBreaks, actToken.lineBreaks);
+				assertEquals(expToken.spacesLeft, actToken.spacesLeft);
+				assertEquals(expToken.sourceLineNum, actToken.sourceLineNum);
+				expToken = expToken.getNext();
+				actToken = actToken.getNext();
+			}
+			assertNull(actToken);
+
+			expCommand = expCommand.getNext();
+			actCommand = actCommand.getNext();
+		}
+		assertNull(actCommand);
+	}
+
+	@Test
+	void testParseAbapInChunks() {
+		assertSameCode(
+				  "CLASS lcl_any_class IMPLEMENTATION." + SEP
+				+ "  METHOD any_method." + SEP
+				+ "\t\tDATA lv_chars(20) TYPE c. \" comment with\ttab" + SEP
+				+ "* line comment that is long enough to span several chunks of the buffer" + SEP
+				+ "    lv_chars = 'literal with ''escaped'' quotes'(001)." + SEP
+				+ "    DATA(lv_text) = |template \\| with \\{ escapes { lv_chars WIDTH = 10 } and `more`|." + SEP
+				+ "    lv_text = `string with `` backquote` && lv_text." + SEP
+				+ "    EXEC SQL." + SEP
+				+ "      SELECT field FROM dtab WHERE a = :lv_chars" + SEP
+				+ "    ENDEXEC." + SEP
+				+ "  ENDMETHOD." + SEP
+				+ "ENDCLASS." + SEP);
+	}
+
+	@Test
+	void testParseDdlInChunks() {
+		assertSameCode(
+				  "// leading comment" + SEP
+				+ "@AbapCatalog.viewEnhancementCategory: [#NONE]" + SEP
+				+ "define view entity I_AnyEntity" + SEP
+				+ "  as select from dtab /* multi-line" + SEP
+				+ "  comment */" + SEP
+				+ "  association [0..*] to I_Other as _Other on $projection.Id = _Other.Id" + SEP
+				+ "{" + SEP
+				+ "  key\tId," + SEP
+				+ "      Amount * 2 / 3 as Result, -- comment" + SEP
+				+ "      _Other" + SEP
+				+ "}");
+	}
+
+	@Test
+	void testCharAtOutsideBuffer() {
+		SourceBuffer buffer = createWithSmallChunks("lv_value = 1. lv_other = lv_value + 2. lv_third = lv_other * 3.");
+
+		// released text that was discarded when reading further chunks
+		buffer.release(50);
+		assertEquals('*', buffer.charAt(59));
+		try {
+			buffer.charAt(0);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertFalse(e instanceof ArrayIndexOutOfBoundsException);
+		}
+
+		// negative position and position beyond the end of the text
+		for (int pos : new int[] { -1, 1000 }) {
+			try {
+				buffer.charAt(pos);
+				fail();
+			} catch (IndexOutOfBoundsException e) {
+				assertFalse(e instanceof ArrayIndexOutOfBoundsException);
+			}
+		}
+	}
+
+	/** Reader that provides the supplied text and then fails */
+	private static class FailingReader extends Reader {
+		private final StringReader textReader;
+
+		FailingReader(String text) {
+			textReader = new StringReader(text);
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			int readCount = textReader.read(buffer, offset, length);
+			if (readCount < 0)
+				throw new IOException("any read error");
+			return readCount;
+		}
+
+		@Override
+		public void close() {
+			textReader.close();
+		}
+	}
+
+	@Test
+	void testReadErrorCausesParseException() {
+		for (String text : new String[] { "", "lv_value = 1." + SEP + "lv_other = lv_value + 2." + SEP + "lv_value = " }) {
+			try {
+				Parser.create(SourceBuffer.create(new FailingReader(text), -1, SMALL_CHUNK_SIZE)).parse(null, Code.createEmptyForTests());
+				fail();
+			} catch (ParseException e) {
+				assertTrue(e.getMessage().contains("any read error"));
+			}
+		}
+	}
+}
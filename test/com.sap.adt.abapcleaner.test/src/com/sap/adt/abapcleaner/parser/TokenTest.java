@@ -2332,4 +2332,22 @@ public class TokenTest {
 		assertFalse(findToken("d").getNext().startsRhsOfAssignment());
 		assertFalse(findToken("1").startsRhsOfAssignment());
 	}
+
+	@Test
+	void testTextEqualsIgnoringCase() {
+		Token token = buildCommand("Data(lv_any) = 1.", 0);
+		assertTrue(token.textEquals("DATA("));
+		assertTrue(token.textEquals("data("));
+		assertTrue(token.textEquals("Data("));
+		assertFalse(token.textEquals("DATA"));
+		assertFalse(token.textEquals(null));
+
+		token.setText("final(", false);
+		assertFalse(token.textEquals("DATA("));
+		assertTrue(token.textEquals("FINAL("));
+
+		Token identifier = buildCommand("lv_any = 1.", 0);
+		assertTrue(identifier.textEquals("LV_ANY"));
+		assertFalse(identifier.textEquals("DATA"));
+	}
 }
@@ -0,0 +1,94 @@
+package com.sap.adt.abapcleaner.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+
+public class TokenTextPoolTest {
+	@Test
+	void testRepeatedTextsAreShared() {
+		SourceBuffer buffer = SourceBuffer.create("DATA a TYPE i. DATA b TYPE i.");
+		TokenTextPool pool = new TokenTextPool();
+
+		String data1 = pool.get(buffer, 0, 4);
+		String type1 = pool.get(buffer, 7, 11);
+		String data2 = pool.get(buffer, 15, 19);
+		String type2 = pool.get(buffer, 22, 26);
+
+		assertEquals("DATA", data1);
+		assertEquals("TYPE", type1);
+		assertSame(data1, data2);
+		assertSame(type1, type2);
+		assertEquals(2, pool.getCount());
+	}
+
+	@Test
+	void testTabsReplaced() {
+		SourceBuffer buffer = SourceBuffer.create("a\tb a b");
+		TokenTextPool pool = new TokenTextPool();
+
+		String text1 = pool.get(buffer, 0, 3);
+		String text2 = pool.get(buffer, 4, 7);
+		assertEquals("a b", text1);
+		assertSame(text1, text2);
+	}
+
+	@Test
+	void testLongTextsNotPooled() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i <= TokenTextPool.MAX_POOLED_LENGTH; ++i)
+			sb.append('x');
+		String longText = sb.toString();
+		SourceBuffer buffer = SourceBuffer.create(longText + " " + longText);
+		TokenTextPool pool = new TokenTextPool();
+
+		String text1 = pool.get(buffer, 0, longText.length());
+		String text2 = pool.get(buffer, longText.length() + 1, 2 * longText.length() + 1);
+		assertEquals(longText, text1);
+		assertEquals(longText, text2);
+		assertNotSame(text1, text2);
+		assertEquals(0, pool.getCount());
+	}
+
+	@Test
+	void testGrow() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; ++i)
+			sb.append("v" + String.valueOf(i) + " ");
+		String source = sb.toString();
+		SourceBuffer buffer = SourceBuffer.create(source + source);
+		TokenTextPool pool = new TokenTextPool();
+
+		// read all texts twice and check that the second occurrence returns the first instance
+		String[] texts = new String[5000];
+		int pos = 0;
+		for (int pass = 0; pass < 2; ++pass) {
+			for (int i = 0; i < texts.length; ++i) {
+				int end = buffer.indexOf(' ', pos);
+				String text = pool.get(buffer, pos, end);
+				assertEquals("v" + String.valueOf(i), text);
+				if (pass == 0)
+					texts[i] = text;
+				else
+					assertSame(texts[i], text);
+				pos = end + 1;
+			}
+		}
+		assertEquals(5000, pool.getCount());
+	}
+
+	@Test
+	void testParsedTokensShareTexts() throws ParseException {
+		Code code = Code.parse(null, ParseParams.createForTest("DATA lv_value TYPE i." + ABAP.LINE_SEPARATOR + "lv_value = lv_value + 1.", ABAP.NEWEST_RELEASE));
+
+		Token declaration = code.firstCommand.firstToken.getNext();
+		Token assignmentTarget = code.lastCommand.firstToken;
+		Token assignmentSource = assignmentTarget.getNext().getNext();
+		assertEquals("lv_value", declaration.getText());
+		assertSame(declaration.getText(), assignmentTarget.getText());
+		assertSame(declaration.getText(), assignmentSource.getText());
+	}
+}
@@ -224,6 +224,55 @@ public class CommandLineArgsTest {
 
 		assertFalse(args.simulate);
 		assertTrue(args.overwrite);
+		assertFalse(args.incremental);
+	}
+
+	@Test
+	void testCreateFromSourceDirIncremental() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--targetdir", "target",
+				"--incremental"} );
+
+		assertFalse(args.hasErrors());
+		assertTrue(args.incremental);
+		assertFalse(args.noCache);
+	}
+
+	@Test
+	void testCreateNoCache() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--targetdir", "target",
+				"--nocache"} );
+		assertFalse(args.hasErrors());
+		assertTrue(args.noCache);
+
+		args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--nocache"} );
+		assertFalse(args.hasErrors());
+		assertTrue(args.noCache);
+	}
+
+	@Test
+	void testCreateErrorIncremental() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--incremental"} );
+		assertErrorsContain(args, "Invalid combination: --incremental cannot be used together with --source");
+
+		args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--simulate",
+				"--incremental"} );
+		assertErrorsContain(args, "Invalid combination: --incremental cannot be used together with --simulate");
 	}
 
 	@Test
@@ -250,6 +299,87 @@ public class CommandLineArgsTest {
 		assertTrue(args.showStatsOrUsedRules());
 		assertFalse(args.showStats);
 		assertTrue(args.showUsedRules);
+		assertFalse(args.usesRuleProfiler());
+	}
+
+	@Test
+	void testCreateFromSourceDirWithRuleProfile() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--simulate", "--stats", "--ruleprofile",
+				"--ruleprofilefile", "rule_profile.json" } );
+
+		assertFalse(args.hasErrors());
+		assertTrue(args.showRuleProfile);
+		assertEquals("rule_profile.json", args.ruleProfilePath);
+		assertTrue(args.usesRuleProfiler());
+	}
+
+	@Test
+	void testCreateErrorRuleProfileWithoutStats() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--ruleprofile"} );
+
+		assertErrorsContain(args, "Missing option: --ruleprofile requires --stats");
+	}
+
+	@Test
+	void testCreateErrorInteractiveWithRuleProfileFile() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--ui",
+				"--ruleprofilefile", "rule_profile.json"} );
+
+		assertErrorsContain(args, "Invalid combination: --ruleprofilefile");
+	}
+
+	@Test
+	void testCreateWithOutputEdits() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--output", "edits"} );
+
+		assertFalse(args.hasErrors());
+		assertTrue(args.outputEdits);
+		assertTrue(args.writesResultCodeToOutput());
+
+		args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--output", "code"} );
+
+		assertFalse(args.hasErrors());
+		assertFalse(args.outputEdits);
+	}
+
+	@Test
+	void testCreateErrorWithInvalidOutput() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--output", "diff"} );
+
+		assertErrorsContain(args, "Invalid --output");
+	}
+
+	@Test
+	void testCreateErrorOutputEditsWithInvalidOptions() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--output", "edits",
+				"--targetfile", "any_target_file.txt",
+				"--partialresult"} );
+
+		assertErrorsContain(args, "Invalid combination: --output edits cannot be used together with --targetfile");
+		assertErrorsContain(args, "Invalid combination: --output edits cannot be used together with --partialresult");
+
+		persistency.prepareDirectory("src");
+		args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--output", "edits"} );
+
+		assertErrorsContain(args, "Invalid combination: --output edits cannot be used together with --sourcedir");
 	}
 
 	@Test
@@ -275,6 +405,49 @@ public class CommandLineArgsTest {
 		assertTrue(args.overwrite);
 	}
 	
+	@Test
+	void testCreateFromSourceDirWithThreads() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		persistency.prepareFile("src", "any_source2.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--threads", "4",
+				"--simulate", "--stats" } );
+
+		assertEquals(CommandLineAction.CLEANUP, args.action);
+		assertFalse(args.hasErrors());
+		assertEquals(2, args.sourcePaths.length);
+		assertEquals(4, args.threadCount);
+		assertTrue(args.isParallel());
+	}
+
+	@Test
+	void testCreateFromSourceDirWithParallel() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--parallel", 
+				"--simulate" } );
+
+		assertFalse(args.hasErrors());
+		assertEquals(Runtime.getRuntime().availableProcessors(), args.threadCount);
+	}
+
+	@Test
+	void testCreateFromSourceDirWithoutThreads() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+		
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--simulate" } );
+
+		assertFalse(args.hasErrors());
+		assertEquals(1, args.threadCount);
+		assertFalse(args.isParallel());
+	}
+
 	@Test
 	void testCreateWithProfileDataOnly() {
 		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {  
@@ -617,6 +790,42 @@ public class CommandLineArgsTest {
 		assertErrorsContain(args, "Invalid combination: --recursive");
 	}
 	
+	@Test
+	void testCreateErrorSourceCodeAndThreads() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--source", anySourceCode,
+				"--threads", "4" } );
+
+		assertErrorsContain(args, "Invalid combination: --threads");
+		assertFalse(args.isParallel());
+	}
+	
+	@Test
+	void testCreateErrorInvalidThreads() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--threads", "none" } );
+		assertErrorsContain(args, "Invalid --threads");
+
+		args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--threads", "0" } );
+		assertErrorsContain(args, "Invalid --threads");
+	}
+	
+	@Test
+	void testCreateErrorThreadsAndParallel() {
+		persistency.prepareFile("src", "any_source.abap", anySourceCode);
+
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--sourcedir", "src",
+				"--threads", "2", 
+				"--parallel" } );
+		assertErrorsContain(args, "Multiple thread arguments");
+	}
+	
 	@Test
 	void testCreateErrorSourceAndTargetDir() {
 		String sourcePath = persistency.getTempPath("any_source.txt");
@@ -780,4 +989,40 @@ public class CommandLineArgsTest {
 		assertErrorsContain(args, "Unexpected option");
 		assertErrorsContain(args, "--idle-timeout");
 	}
+
+	@Test
+	void testDaemonizeWithLoadLimits() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--daemonize",
+				"--max-queued", "0",
+				"--idle-timeout", "60",
+				"--max-in-flight", "3"} );
+
+		assertEquals(CommandLineAction.DAEMONIZE, args.action);
+		assertEquals(60, args.daemonIdleTimeOut_s);
+		assertEquals(3, args.daemonMaxInFlight);
+		assertEquals(0, args.daemonMaxQueued);
+		assertFalse(args.hasErrors());
+	}
+
+	@Test
+	void testDaemonizeWithDefaultLoadLimits() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--daemonize"} );
+
+		assertEquals(0, args.daemonMaxInFlight);
+		assertEquals(-1, args.daemonMaxQueued);
+	}
+
+	@Test
+	void testDaemonizeWithInvalidLoadLimits() {
+		CommandLineArgs args = CommandLineArgs.create(persistency, new String[] {
+				"--daemonize",
+				"--max-in-flight", "0",
+				"--max-queued", "-1"} );
+
+		assertTrue(args.hasErrors());
+		assertErrorsContain(args, "Invalid value for --max-in-flight");
+		assertErrorsContain(args, "Invalid value for --max-queued");
+	}
 }
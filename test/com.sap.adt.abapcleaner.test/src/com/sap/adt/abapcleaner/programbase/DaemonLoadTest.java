@@ -0,0 +1,94 @@
+package com.sap.adt.abapcleaner.programbase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class DaemonLoadTest {
+	@Test
+	void testAdmitUpToLimits() throws InterruptedException {
+		DaemonLoad load = DaemonLoad.create(2, 1);
+
+		DaemonLoad.Ticket ticket1 = load.tryAdmit();
+		DaemonLoad.Ticket ticket2 = load.tryAdmit();
+		DaemonLoad.Ticket ticket3 = load.tryAdmit();
+		assertNotNull(ticket1);
+		assertNotNull(ticket2);
+		assertNotNull(ticket3);
+		assertEquals(3, load.getQueuedCount());
+
+		// a fourth command exceeds both the commands in flight and the queue
+		assertNull(load.tryAdmit());
+		assertEquals(1, load.getRejectedCount());
+
+		load.awaitSlot(ticket1);
+		load.awaitSlot(ticket2);
+		assertEquals(2, load.getInFlightCount());
+		assertEquals(1, load.getQueuedCount());
+		assertNull(load.tryAdmit());
+
+		// after a command finished, the next command can be admitted
+		load.finish(ticket1);
+		assertEquals(1, load.getCompletedCount());
+		assertNotNull(load.tryAdmit());
+		assertEquals(2, load.getRejectedCount());
+	}
+
+	@Test
+	void testQueuedCommandWaitsForSlot() throws InterruptedException {
+		DaemonLoad load = DaemonLoad.create(1, 1);
+		DaemonLoad.Ticket runningTicket = load.tryAdmit();
+		DaemonLoad.Ticket waitingTicket = load.tryAdmit();
+		load.awaitSlot(runningTicket);
+
+		Thread waitingThread = new Thread(() -> {
+			try {
+				load.awaitSlot(waitingTicket);
+				load.finish(waitingTicket);
+			} catch (InterruptedException e) {
+				load.finish(waitingTicket);
+			}
+		});
+		waitingThread.start();
+		waitingThread.join(100);
+		assertTrue(waitingThread.isAlive());
+		assertEquals(1, load.getInFlightCount());
+		assertEquals(1, load.getQueuedCount());
+
+		load.finish(runningTicket);
+		waitingThread.join(10000);
+		assertFalse(waitingThread.isAlive());
+		assertEquals(2, load.getCompletedCount());
+		assertEquals(0, load.getInFlightCount());
+		assertEquals(0, load.getQueuedCount());
+	}
+
+	@Test
+	void testFinishWithoutSlot() {
+		DaemonLoad load = DaemonLoad.create(1, 0);
+		DaemonLoad.Ticket ticket = load.tryAdmit();
+
+		// finishing a command that never got a slot (e.g. after an interruption) only removes it from the queue
+		load.finish(ticket);
+		load.finish(ticket);
+		assertEquals(0, load.getQueuedCount());
+		assertEquals(0, load.getCompletedCount());
+		assertNotNull(load.tryAdmit());
+	}
+
+	@Test
+	void testResponses() throws InterruptedException {
+		DaemonLoad load = DaemonLoad.create(1, 0);
+		DaemonLoad.Ticket ticket = load.tryAdmit();
+		load.awaitSlot(ticket);
+		assertNull(load.tryAdmit());
+
+		assertTrue(load.getBusyResponse().startsWith(DaemonLoad.BUSY_RESPONSE + ": "));
+		assertTrue(load.getBusyResponse().contains("1 of 1 in flight, 0 of 0 queued"));
+
+		load.finish(ticket);
+		String statistics = load.getStatistics();
+		assertTrue(statistics.startsWith("commands: 0 of 1 in flight, 0 of 0 queued (max. 1 queued), 1 completed, 1 rejected as busy, latency avg. "));
+		assertTrue(statistics.contains("queue wait avg. "));
+	}
+}
@@ -0,0 +1,140 @@
+package com.sap.adt.abapcleaner.programbase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class DaemonProtocolTest {
+	private static final String SOURCE_CODE = "DATA lv_text TYPE string.\r\nlv_text = 'äöü \"quoted\"'.";
+	private static final String PROFILE_DATA = "{ \"profile\": 1 }";
+
+	private static DaemonProtocol.FramedInput createInput(String text) {
+		return new DaemonProtocol.FramedInput(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static int getByteCount(String text) {
+		return text.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	@Test
+	void testReadLines() throws IOException {
+		DaemonProtocol.FramedInput in = createInput("--ping\n--status --request-id ä\r\n\n--stop");
+
+		assertEquals("--ping", in.readLine());
+		assertEquals("--status --request-id ä", in.readLine());
+		assertEquals("", in.readLine());
+		assertEquals("--stop", in.readLine());
+		assertNull(in.readLine());
+	}
+
+	@Test
+	void testHasBodies() {
+		assertTrue(DaemonProtocol.hasBodies(new String[] { "--sourcebytes", "10", "--request-id", "1" }));
+		assertTrue(DaemonProtocol.hasBodies(new String[] { "--sourcefile", "a.txt", "--profilebytes", "10" }));
+		assertFalse(DaemonProtocol.hasBodies(new String[] { "--sourcefile", "a.txt", "--request-id", "1" }));
+	}
+
+	@Test
+	void testReadBodies() throws IOException {
+		String commandLine = "--sourcebytes " + getByteCount(SOURCE_CODE) + " --profilebytes " + getByteCount(PROFILE_DATA) + " --request-id 7";
+		DaemonProtocol.FramedInput in = createInput(commandLine + "\n" + SOURCE_CODE + PROFILE_DATA + "--ping\n");
+
+		String[] args = in.readLine().split(" ");
+		String[] resolvedArgs = DaemonProtocol.readBodies(args, in);
+
+		assertArrayEquals(new String[] { "--source", SOURCE_CODE, "--profiledata", PROFILE_DATA, "--request-id", "7" }, resolvedArgs);
+		// the next command line directly follows the bodies
+		assertEquals("--ping", in.readLine());
+	}
+
+	@Test
+	void testReadBodiesInOrderOfOptions() throws IOException {
+		DaemonProtocol.FramedInput in = createInput(PROFILE_DATA + SOURCE_CODE);
+		String[] args = new String[] { "--profilebytes", String.valueOf(getByteCount(PROFILE_DATA)), "--sourcebytes", String.valueOf(getByteCount(SOURCE_CODE)) };
+
+		assertArrayEquals(new String[] { "--profiledata", PROFILE_DATA, "--source", SOURCE_CODE }, DaemonProtocol.readBodies(args, in));
+	}
+
+	@Test
+	void testReadBodiesWithInvalidByteCount() {
+		String[][] invalidArgs = new String[][] { 
+			new String[] { "--sourcebytes" },
+			new String[] { "--sourcebytes", "abc" },
+			new String[] { "--sourcebytes", "-1" },
+			new String[] { "--sourcebytes", "0" },
+			new String[] { "--profilebytes", String.valueOf(DaemonProtocol.MAX_BODY_BYTES + 1L) } };
+
+		for (String[] args : invalidArgs) {
+			try {
+				DaemonProtocol.readBodies(args, createInput("any text"));
+				fail();
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains("byte count"));
+			}
+		}
+	}
+
+	@Test
+	void testReadBodiesFromClosedStream() throws IOException {
+		try {
+			DaemonProtocol.readBodies(new String[] { "--sourcebytes", "100" }, createInput("too short"));
+			fail();
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+
+	@Test
+	void testWriteFrames() throws IOException {
+		ByteArrayOutputStream socketOut = new ByteArrayOutputStream();
+		try (PrintStream frameOut = new PrintStream(new DaemonProtocol.FrameOutputStream(socketOut, "7", 8), false, StandardCharsets.UTF_8)) {
+			frameOut.print("äöü 123456");
+		}
+
+		// "äöü 123456" has 13 UTF-8 bytes, which are written in two frames of at most 8 bytes
+		String expHeader1 = "<<<FRAME>>> 8 7\n";
+		String expHeader2 = "<<<FRAME>>> 5 7\n";
+		byte[] bytes = socketOut.toByteArray();
+		assertEquals(expHeader1.length() + 8 + expHeader2.length() + 5, bytes.length);
+		assertEquals(expHeader1, new String(bytes, 0, expHeader1.length(), StandardCharsets.UTF_8));
+		assertEquals(expHeader2, new String(bytes, expHeader1.length() + 8, expHeader2.length(), StandardCharsets.UTF_8));
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(bytes, expHeader1.length(), 8);
+		body.write(bytes, expHeader1.length() + 8 + expHeader2.length(), 5);
+		assertEquals("äöü 123456", body.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testWriteFramesOnCharBoundaries() throws IOException {
+		ByteArrayOutputStream socketOut = new ByteArrayOutputStream();
+		try (PrintStream frameOut = new PrintStream(new DaemonProtocol.FrameOutputStream(socketOut, null, 5), false, StandardCharsets.UTF_8)) {
+			frameOut.print("äöü€");
+		}
+
+		// "äöü€" has 9 UTF-8 bytes; frames of at most 5 bytes must not split a character, so each frame can be decoded on its own
+		String expFrames = "<<<FRAME>>> 4\näö" + "<<<FRAME>>> 5\nü€";
+		assertEquals(expFrames, socketOut.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testNoFrameWithoutOutput() throws IOException {
+		ByteArrayOutputStream socketOut = new ByteArrayOutputStream();
+		DaemonProtocol.FrameOutputStream frameOut = new DaemonProtocol.FrameOutputStream(socketOut, null);
+		frameOut.flush();
+		frameOut.close();
+		assertEquals(0, socketOut.size());
+
+		frameOut = new DaemonProtocol.FrameOutputStream(socketOut, null);
+		frameOut.write('x');
+		frameOut.close();
+		assertEquals("<<<FRAME>>> 1\nx", socketOut.toString(StandardCharsets.UTF_8));
+	}
+}
@@ -118,6 +118,97 @@ public class JobTest {
 		assertTrue(StringUtil.contains(errorLog, "Opening command (line 1): DO 5 TIMES."));
 	}
 
+	@Test
+	void testCleanupBatchParallel() {
+		Profile profile = Profile.createDefault();
+		IBatchJob batchJob = new CleanupBatchJob(CleanupParams.createForProfile(profile, false, ABAP.NO_RELEASE_RESTRICTION));
+		Job job = Job.createForBatch(batchJob, codeDir, new String[] { code1Path, code2Path, codeParseErrPath }, 2);
+
+		job.run();
+	
+		assertTrue(job.isDone());
+		assertFalse(job.wasCancelled());
+
+		// expect the same summary as with serial processing
+		String summary = job.getBatchSummary();
+		assertTrue(StringUtil.contains(summary, "Processed 2 files with 12 tokens in 4 commands"));
+		assertTrue(StringUtil.contains(summary, "Parser: 1 exceptions"));
+		assertTrue(StringUtil.contains(summary, "Cleaner: 1 warnings, 2 OK"));
+		assertTrue(StringUtil.contains(summary, "Comparer: 1 exceptions, 2 OK"));
+
+		// expect batch details to mention the code files in the order in which they were supplied
+		String batchDetails = job.getBatchDetails();
+		int code1Pos = batchDetails.indexOf(persistency.getFileNameWithoutExtension(code1File));
+		int code2Pos = batchDetails.indexOf(persistency.getFileNameWithoutExtension(code2File));
+		int codeParseErrPos = batchDetails.indexOf(persistency.getFileNameWithoutExtension(codeParseErrFile));
+		assertTrue(code1Pos >= 0 && code1Pos < code2Pos && code2Pos < codeParseErrPos);
+		assertTrue(StringUtil.contains(batchDetails, "Parse error in line 1: expected ENDDO, but found ENDLOOP."));
+
+		// ensure that the log file written by the worker thread reports the parse error
+		assertTrue(persistency.fileExists(errorLogPath));
+		String errorLog = persistency.readAllTextFromFile(errorLogPath);
+		assertTrue(StringUtil.contains(errorLog, "Parse error in line 1: expected ENDDO, but found ENDLOOP."));
+	}
+
+	@Test
+	void testCleanupBatchParallelCancelled() {
+		Profile profile = Profile.createDefault();
+		IBatchJob batchJob = new CleanupBatchJob(CleanupParams.createForProfile(profile, false, ABAP.NO_RELEASE_RESTRICTION));
+		Job job = Job.createForBatch(batchJob, codeDir, new String[] { code1Path, code2Path }, 2);
+
+		job.cancel();
+		job.run();
+	
+		assertTrue(job.isDone());
+		assertTrue(job.wasCancelled());
+	}
+
+	@Test
+	void testCleanupBatchPipelined() {
+		Profile profile = Profile.createDefault();
+		IBatchJob batchJob = new CleanupBatchJob(CleanupParams.createForProfile(profile, false, ABAP.NO_RELEASE_RESTRICTION));
+		// with a single thread, the files are processed in a pipeline 
+		Job job = Job.createForBatch(batchJob, codeDir, new String[] { code1Path, codeParseErrPath, code2Path }, 1);
+
+		job.run();
+	
+		assertTrue(job.isDone());
+		assertFalse(job.wasCancelled());
+
+		// expect the same summary as with serial processing
+		String summary = job.getBatchSummary();
+		assertTrue(StringUtil.contains(summary, "Processed 2 files with 12 tokens in 4 commands"));
+		assertTrue(StringUtil.contains(summary, "Parser: 1 exceptions"));
+		assertTrue(StringUtil.contains(summary, "Cleaner: 1 warnings, 2 OK"));
+		assertTrue(StringUtil.contains(summary, "Comparer: 1 exceptions, 2 OK"));
+
+		// expect batch details to mention the code files in the order in which they were supplied
+		String batchDetails = job.getBatchDetails();
+		int code1Pos = batchDetails.indexOf(persistency.getFileNameWithoutExtension(code1File));
+		int codeParseErrPos = batchDetails.indexOf(persistency.getFileNameWithoutExtension(codeParseErrFile));
+		int code2Pos = batchDetails.indexOf(persistency.getFileNameWithoutExtension(code2File));
+		assertTrue(code1Pos >= 0 && code1Pos < codeParseErrPos && codeParseErrPos < code2Pos);
+		assertTrue(StringUtil.contains(batchDetails, "Parse error in line 1: expected ENDDO, but found ENDLOOP."));
+
+		// ensure that the log entries collected by the parse stage were written to the log file
+		assertTrue(persistency.fileExists(errorLogPath));
+		String errorLog = persistency.readAllTextFromFile(errorLogPath);
+		assertTrue(StringUtil.contains(errorLog, "Parse error in line 1: expected ENDDO, but found ENDLOOP."));
+	}
+
+	@Test
+	void testCleanupBatchPipelinedCancelled() {
+		Profile profile = Profile.createDefault();
+		IBatchJob batchJob = new CleanupBatchJob(CleanupParams.createForProfile(profile, false, ABAP.NO_RELEASE_RESTRICTION));
+		Job job = Job.createForBatch(batchJob, codeDir, new String[] { code1Path, code2Path }, 1);
+
+		job.cancel();
+		job.run();
+	
+		assertTrue(job.isDone());
+		assertTrue(job.wasCancelled());
+	}
+
 
 	/*
 	// start the job in a separate thread until it is done or cancelled 
@@ -0,0 +1,121 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.JobDouble;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.programbase.Task;
+
+public class CleanupSnapshotsTest {
+	private static final String LINE_SEP = ABAP.LINE_SEPARATOR;
+	private static final String ANY_CODE = "method any_method." + LINE_SEP
+			+ "  data lv_value type i." + LINE_SEP
+			+ "  data lv_other type i." + LINE_SEP
+			+ "  lv_value = lv_value + 1." + LINE_SEP
+			+ "  CALL METHOD any_method( )." + LINE_SEP
+			+ "  IF NOT lv_value IS INITIAL. lv_other = 1. ENDIF." + LINE_SEP
+			+ "endmethod.";
+
+	private Profile profile;
+	private CleanupSnapshots snapshots;
+
+	@BeforeEach
+	void setUp() {
+		Program.setLogForTesting();
+		profile = Profile.createDefault();
+		snapshots = CleanupSnapshots.create(5);
+	}
+
+	private Task runTask(String codeText, Profile profile, CleanupSnapshots snapshots) {
+		ParseParams parseParams = ParseParams.createForWholeCode("anyName", codeText, ABAP.NEWEST_RELEASE);
+		CleanupParams cleanupParams = CleanupParams.createForProfile(profile, false, ABAP.NO_RELEASE_RESTRICTION, snapshots);
+		Task task = Task.create(new JobDouble(0), parseParams);
+		task.run(null, cleanupParams, false);
+		assertTrue(task.getSuccess());
+		return task;
+	}
+
+	private void assertSameResult(Task expTask, Task actTask) {
+		assertEquals(expTask.getResultingCode().toString(), actTask.getResultingCode().toString());
+		assertEquals(expTask.getChangedLineCount(), actTask.getChangedLineCount());
+		assertEquals(expTask.getLineCountInCleanupRange(), actTask.getLineCountInCleanupRange());
+	}
+
+	@Test
+	void testSnapshotsTakenDuringCleanup() {
+		runTask(ANY_CODE, profile, snapshots);
+
+		assertTrue(snapshots.getSnapshotCount() > 1);
+		assertEquals(0, snapshots.getRestoreCount());
+	}
+
+	@Test
+	void testRestoreAfterChangedActivation() {
+		runTask(ANY_CODE, profile, snapshots);
+
+		// deactivate the last active Rule and expect the cleanup to continue from a snapshot with the same result as a full cleanup
+		Rule[] rules = profile.getAllRules();
+		int ruleIndex = rules.length - 1;
+		while (!rules[ruleIndex].isActive)
+			--ruleIndex;
+		rules[ruleIndex].isActive = false;
+
+		Task task = runTask(ANY_CODE, profile, snapshots);
+		assertEquals(1, snapshots.getRestoreCount());
+		assertSameResult(runTask(ANY_CODE, profile, null), task);
+
+		// activate the Rule again and expect the original result
+		rules[ruleIndex].isActive = true;
+		task = runTask(ANY_CODE, profile, snapshots);
+		assertEquals(2, snapshots.getRestoreCount());
+		assertSameResult(runTask(ANY_CODE, profile, null), task);
+	}
+
+	@Test
+	void testRestoreAfterChangedFirstRule() {
+		runTask(ANY_CODE, profile, snapshots);
+
+		// changing the first Rule requires the whole cleanup to be repeated, but the parse result can still be reused
+		Rule firstRule = profile.getAllRules()[0];
+		firstRule.isActive = !firstRule.isActive;
+
+		Task task = runTask(ANY_CODE, profile, snapshots);
+		assertEquals(1, snapshots.getRestoreCount());
+		assertSameResult(runTask(ANY_CODE, profile, null), task);
+	}
+
+	@Test
+	void testNoRestoreAfterChangedCode() {
+		runTask(ANY_CODE, profile, snapshots);
+
+		String changedCode = ANY_CODE.replace("lv_other = 1", "lv_other = 2");
+		Task task = runTask(changedCode, profile, snapshots);
+
+		assertEquals(0, snapshots.getRestoreCount());
+		assertSameResult(runTask(changedCode, profile, null), task);
+	}
+
+	@Test
+	void testNoRestoreAfterChangedCleanupParams() {
+		runTask(ANY_CODE, profile, snapshots);
+
+		ParseParams parseParams = ParseParams.createForWholeCode("anyName", ANY_CODE, ABAP.NEWEST_RELEASE);
+		assertNull(snapshots.restore(parseParams, CleanupParams.createForProfile(profile, true, ABAP.NO_RELEASE_RESTRICTION, snapshots)));
+		assertNull(snapshots.restore(parseParams, CleanupParams.createForProfile(profile, false, 757, snapshots)));
+	}
+
+	@Test
+	void testClear() {
+		runTask(ANY_CODE, profile, snapshots);
+		snapshots.clear();
+
+		assertEquals(0, snapshots.getSnapshotCount());
+		runTask(ANY_CODE, profile, snapshots);
+		assertEquals(0, snapshots.getRestoreCount());
+	}
+}
@@ -0,0 +1,137 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.CleanException;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.rulehelpers.Variables;
+
+public class DeclarationAnalysisTest {
+	private static final String SEP = ABAP.LINE_SEPARATOR;
+
+	private static final String SOURCE_CODE =
+			  "CLASS lcl_any_class DEFINITION." + SEP
+			+ "  PUBLIC SECTION." + SEP
+			+ "    METHODS any_method IMPORTING iv_value TYPE i RETURNING VALUE(rv_result) TYPE i." + SEP
+			+ "    METHODS other_method IMPORTING iv_value TYPE i RETURNING VALUE(rv_result) TYPE i." + SEP
+			+ "ENDCLASS." + SEP
+			+ SEP
+			+ "CLASS lcl_any_class IMPLEMENTATION." + SEP
+			+ "  METHOD any_method." + SEP
+			+ "    DATA lv_unused TYPE i." + SEP
+			+ "    rv_result = iv_value." + SEP
+			+ "  ENDMETHOD." + SEP
+			+ SEP
+			+ "  METHOD other_method." + SEP
+			+ "    rv_result = iv_value + 1." + SEP
+			+ "  ENDMETHOD." + SEP
+			+ "ENDCLASS.";
+
+	private Profile profile;
+
+	@BeforeEach
+	void setUp() {
+		Program.setLogForTesting();
+		profile = Profile.createDefault();
+	}
+
+	private static Code parse(String sourceCode) throws ParseException {
+		return Code.parse(null, ParseParams.createForTest(sourceCode, ABAP.NEWEST_RELEASE));
+	}
+
+	private void execute(RuleID ruleID, Code code) throws CleanException {
+		profile.getRule(ruleID).executeIfAllowedOn(code, ABAP.NO_RELEASE_RESTRICTION);
+	}
+
+	private static ArrayList<DeclarationAnalysis.MethodAnalysis> getMethods(DeclarationAnalysis analysis) {
+		ArrayList<DeclarationAnalysis.MethodAnalysis> methods = new ArrayList<>();
+		for (DeclarationAnalysis.Event event : analysis.getEvents()) {
+			if (event.type == DeclarationAnalysis.EventType.METHOD_END)
+				methods.add(event.method);
+		}
+		return methods;
+	}
+
+	@Test
+	void testAnalysisIsSharedBetweenRules() throws ParseException, CleanException {
+		Code code = parse(SOURCE_CODE);
+		assertNull(code.getRuleAnalysis(DeclarationAnalysis.class));
+
+		execute(RuleID.FINAL_VARIABLE, code);
+		DeclarationAnalysis analysis = code.getRuleAnalysis(DeclarationAnalysis.class);
+		assertNotNull(analysis);
+		assertTrue(analysis.isFrameValid(code));
+		assertEquals(2, getMethods(analysis).size());
+
+		execute(RuleID.NEEDLESS_CLEAR, code);
+		assertSame(analysis, code.getRuleAnalysis(DeclarationAnalysis.class));
+	}
+
+	@Test
+	void testOnlyChangedMethodIsAnalyzedAgain() throws ParseException, CleanException {
+		Code code = parse(SOURCE_CODE);
+
+		// the UnusedVariablesRule only changes the first method
+		execute(RuleID.UNUSED_VARIABLES, code);
+		DeclarationAnalysis analysis = code.getRuleAnalysis(DeclarationAnalysis.class);
+		assertTrue(analysis.isFrameValid(code));
+		DeclarationAnalysis.MethodAnalysis changedMethod = getMethods(analysis).get(0);
+		DeclarationAnalysis.MethodAnalysis unchangedMethod = getMethods(analysis).get(1);
+		Variables changedVariables = changedMethod.getVariables();
+		Variables unchangedVariables = unchangedMethod.getVariables();
+		assertFalse(changedMethod.isValid());
+		assertTrue(unchangedMethod.isValid());
+
+		execute(RuleID.FINAL_VARIABLE, code);
+		assertSame(analysis, code.getRuleAnalysis(DeclarationAnalysis.class));
+		assertTrue(changedMethod.isValid());
+		assertNotSame(changedVariables, changedMethod.getVariables());
+		assertSame(unchangedVariables, unchangedMethod.getVariables());
+	}
+
+	@Test
+	void testChangedFrameDiscardsAnalysis() throws ParseException, CleanException {
+		Code code = parse(SOURCE_CODE.replace("CLASS lcl_any_class DEFINITION.", "class lcl_any_class definition."));
+
+		execute(RuleID.FINAL_VARIABLE, code);
+		DeclarationAnalysis analysis = code.getRuleAnalysis(DeclarationAnalysis.class);
+
+		// changes to the class definition invalidate the whole analysis
+		execute(RuleID.UPPER_AND_LOWER_CASE, code);
+		assertFalse(analysis.isFrameValid(code));
+
+		execute(RuleID.FINAL_VARIABLE, code);
+		assertNotSame(analysis, code.getRuleAnalysis(DeclarationAnalysis.class));
+	}
+
+	@Test
+	void testResultEqualsResultWithoutSharedAnalysis() throws ParseException, CleanException {
+		RuleID[] ruleIDs = new RuleID[] { RuleID.UNUSED_VARIABLES, RuleID.LOCAL_DECLARATION_ORDER, RuleID.NEEDLESS_CLEAR, RuleID.FINAL_VARIABLE };
+		String sourceCode = SOURCE_CODE.replace("    rv_result = iv_value." + SEP,
+				  "    DATA lv_sum TYPE i." + SEP
+				+ "    CLEAR lv_sum." + SEP
+				+ "    DATA(lv_factor) = iv_value * 2." + SEP
+				+ "    lv_sum = lv_sum + lv_factor." + SEP
+				+ "    rv_result = lv_sum." + SEP);
+
+		Code sharedCode = parse(sourceCode);
+		Code unsharedCode = parse(sourceCode);
+		for (RuleID ruleID : ruleIDs) {
+			execute(ruleID, sharedCode);
+			unsharedCode.setRuleAnalysis(DeclarationAnalysis.class, null);
+			execute(ruleID, unsharedCode);
+		}
+
+		assertNotEquals(sourceCode, sharedCode.toString());
+		assertEquals(unsharedCode.toString(), sharedCode.toString());
+	}
+}
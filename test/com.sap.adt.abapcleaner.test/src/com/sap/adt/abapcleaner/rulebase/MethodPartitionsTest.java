@@ -0,0 +1,162 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.Command;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.CleanException;
+import com.sap.adt.abapcleaner.programbase.IntegrityBrokenException;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.Program;
+import com.sap.adt.abapcleaner.programbase.UnexpectedSyntaxAfterChanges;
+
+public class MethodPartitionsTest {
+	private static final String SEP = ABAP.LINE_SEPARATOR;
+
+	private boolean wasParallelExecutionEnabled;
+	private Profile profile;
+
+	@BeforeEach
+	void setUp() {
+		Program.setLogForTesting();
+		wasParallelExecutionEnabled = MethodPartitions.isParallelExecutionEnabled();
+		profile = Profile.createDefault();
+		profile.getRule(RuleID.LOCAL_DECLARATION_ORDER).isActive = true;
+		profile.getRule(RuleID.FINAL_VARIABLE).isActive = true;
+	}
+
+	@AfterEach
+	void tearDown() {
+		MethodPartitions.setParallelExecutionEnabled(wasParallelExecutionEnabled);
+	}
+
+	private static String buildClass(int methodCount) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("CLASS lcl_any_class DEFINITION.").append(SEP);
+		sb.append("  PUBLIC SECTION.").append(SEP);
+		for (int i = 0; i < methodCount; ++i)
+			sb.append("    METHODS any_method_" + String.valueOf(i) + " IMPORTING iv_value TYPE i RETURNING VALUE(rv_result) TYPE i.").append(SEP);
+		sb.append("ENDCLASS.").append(SEP);
+		sb.append(SEP);
+		sb.append("CLASS lcl_any_class IMPLEMENTATION.").append(SEP);
+		for (int i = 0; i < methodCount; ++i) {
+			sb.append("  METHOD any_method_" + String.valueOf(i) + ".").append(SEP);
+			sb.append("    DATA lv_unused TYPE i.").append(SEP);
+			sb.append("    DATA lv_sum TYPE i.").append(SEP);
+			sb.append("    CLEAR lv_sum.").append(SEP);
+			sb.append("    DATA(lv_factor) = iv_value * " + String.valueOf(i) + ".").append(SEP);
+			sb.append("    lv_sum = lv_sum + lv_factor.").append(SEP);
+			sb.append("    IF lv_sum GT 10 AND iv_value EQ 1.").append(SEP);
+			sb.append("      lv_sum = lv_sum - 1.").append(SEP);
+			sb.append("    ENDIF.").append(SEP);
+			sb.append("    rv_result = lv_sum.").append(SEP);
+			sb.append("  ENDMETHOD.").append(SEP);
+			sb.append(SEP);
+		}
+		sb.append("ENDCLASS.");
+		return sb.toString();
+	}
+
+	private Code cleanUp(String sourceCode, boolean parallel) throws ParseException, CleanException {
+		MethodPartitions.setParallelExecutionEnabled(parallel);
+		Code code = Code.parse(null, ParseParams.createForTest(sourceCode, ABAP.NEWEST_RELEASE));
+		profile.executeRules(code, ABAP.NO_RELEASE_RESTRICTION);
+		return code;
+	}
+
+	@Test
+	void testGetMethodStarts() throws ParseException {
+		MethodPartitions.setParallelExecutionEnabled(true);
+		int methodCount = MethodPartitions.MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION;
+		Code code = Code.parse(null, ParseParams.createForTest(buildClass(methodCount), ABAP.NEWEST_RELEASE));
+
+		ArrayList<Command> methodStarts = MethodPartitions.getMethodStarts(profile.getRule(RuleID.UNUSED_VARIABLES), code);
+		assertNotNull(methodStarts);
+		assertEquals(methodCount, methodStarts.size());
+		for (Command methodStart : methodStarts) 
+			assertTrue(methodStart.isMethodStart());
+
+		// Rules that are not method-local are always executed sequentially
+		assertNull(MethodPartitions.getMethodStarts(profile.getRule(RuleID.ALIGN_DECLARATIONS), code));
+
+		// with too few methods, or if parallel execution is disabled, method-local Rules are executed sequentially, too
+		Code smallCode = Code.parse(null, ParseParams.createForTest(buildClass(methodCount - 1), ABAP.NEWEST_RELEASE));
+		assertNull(MethodPartitions.getMethodStarts(profile.getRule(RuleID.UNUSED_VARIABLES), smallCode));
+		MethodPartitions.setParallelExecutionEnabled(false);
+		assertNull(MethodPartitions.getMethodStarts(profile.getRule(RuleID.UNUSED_VARIABLES), code));
+	}
+
+	@Test
+	void testWillExecuteAllBodiesInParallel() throws ParseException {
+		MethodPartitions.setParallelExecutionEnabled(true);
+		int methodCount = MethodPartitions.MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION;
+		Rule rule = profile.getRule(RuleID.FINAL_VARIABLE);
+		Code code = Code.parse(null, ParseParams.createForTest(buildClass(methodCount), ABAP.NEWEST_RELEASE));
+		assertTrue(MethodPartitions.willExecuteAllBodiesInParallel(rule, code));
+		assertFalse(MethodPartitions.willExecuteAllBodiesInParallel(profile.getRule(RuleID.ALIGN_DECLARATIONS), code));
+
+		// with too few methods, or if one of the methods has an empty body, the methods are processed sequentially
+		Code smallCode = Code.parse(null, ParseParams.createForTest(buildClass(methodCount - 1), ABAP.NEWEST_RELEASE));
+		assertFalse(MethodPartitions.willExecuteAllBodiesInParallel(rule, smallCode));
+		String emptyMethod = "CLASS lcl_other_class IMPLEMENTATION." + SEP + "  METHOD other_method." + SEP + "  ENDMETHOD." + SEP + "ENDCLASS.";
+		Code codeWithEmptyMethod = Code.parse(null, ParseParams.createForTest(buildClass(methodCount) + SEP + emptyMethod, ABAP.NEWEST_RELEASE));
+		assertFalse(MethodPartitions.willExecuteAllBodiesInParallel(rule, codeWithEmptyMethod));
+
+		MethodPartitions.setParallelExecutionEnabled(false);
+		assertFalse(MethodPartitions.willExecuteAllBodiesInParallel(rule, code));
+	}
+
+	@Test
+	void testParallelResultEqualsSequentialResult() throws ParseException, CleanException, IntegrityBrokenException {
+		String sourceCode = buildClass(3 * MethodPartitions.MIN_BODY_COUNT_FOR_PARALLEL_EXECUTION);
+
+		Code sequentialCode = cleanUp(sourceCode, false);
+		Code parallelCode = cleanUp(sourceCode, true);
+
+		assertEquals(sequentialCode.toString(), parallelCode.toString());
+		assertEquals(sequentialCode.commandCount, parallelCode.commandCount);
+		parallelCode.testReferentialIntegrity(true);
+
+		// ensure that the rules were used in the same Commands
+		Command sequentialCommand = sequentialCode.firstCommand;
+		Command parallelCommand = parallelCode.firstCommand;
+		while (sequentialCommand != null) {
+			int[] sequentialRuleUseCount = new int[Rule.RULE_COUNT];
+			int[] parallelRuleUseCount = new int[Rule.RULE_COUNT];
+			sequentialCommand.getChangeControl().addToRuleStats(sequentialRuleUseCount, new int[Rule.RULE_COUNT]);
+			parallelCommand.getChangeControl().addToRuleStats(parallelRuleUseCount, new int[Rule.RULE_COUNT]);
+			assertArrayEquals(sequentialRuleUseCount, parallelRuleUseCount);
+			sequentialCommand = sequentialCommand.getNext();
+			parallelCommand = parallelCommand.getNext();
+		}
+		assertNull(parallelCommand);
+
+		// ensure that the method-local rules changed something in each method
+		assertTrue(parallelCode.toString().contains("FINAL(lv_factor)"));
+		assertFalse(parallelCode.toString().contains("lv_unused"));
+	}
+
+	@Test
+	void testExceptionOfFirstBodyIsThrown() throws ParseException {
+		Rule rule = profile.getRule(RuleID.UNUSED_VARIABLES);
+		Code code = Code.parse(null, ParseParams.createForTest("DATA lv_any TYPE i.", ABAP.NEWEST_RELEASE));
+		try {
+			MethodPartitions.setParallelExecutionEnabled(true);
+			MethodPartitions.execute(20, bodyIndex -> {
+				if (bodyIndex % 5 == 3)
+					throw new UnexpectedSyntaxAfterChanges(rule, code.firstCommand, "error in body " + String.valueOf(bodyIndex));
+			});
+			fail();
+		} catch (UnexpectedSyntaxAfterChanges e) {
+			assertTrue(e.getMessage().contains("error in body 3"));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ISettingsWriter;
+import com.sap.adt.abapcleaner.base.StringUtil;
+import com.sap.adt.abapcleaner.base.TextSettingsWriter;
+import com.sap.adt.abapcleaner.programbase.PersistencyDouble;
+import com.sap.adt.abapcleaner.programbase.Program;
+
+public class ProfileCacheTest {
+	private final String anyWorkspaceDir = "any_workspace";
+	private final String otherWorkspaceDir = "other_workspace";
+
+	private String defaultProfileData;
+	private String changedProfileData;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Program.initialize(PersistencyDouble.create(), "");
+
+		Profile profile = Profile.createDefault();
+		defaultProfileData = getProfileData(profile);
+		Rule anyRule = profile.getRule(RuleID.ALIGN_ALIASES_FOR);
+		anyRule.isActive = !anyRule.isActive;
+		changedProfileData = getProfileData(profile);
+	}
+
+	private String getProfileData(Profile profile) throws IOException {
+		ISettingsWriter writer = TextSettingsWriter.createForString(Program.TECHNICAL_VERSION, Profile.REQUIRED_VERSION);
+		profile.save(writer);
+		writer.close();
+		return ((TextSettingsWriter)writer).getStringResult();
+	}
+
+	@Test
+	void testKeyDependsOnProfileDataAndWorkspace() {
+		String key = ProfileCache.getKey(defaultProfileData, anyWorkspaceDir);
+		
+		assertEquals(key, ProfileCache.getKey(defaultProfileData, anyWorkspaceDir));
+		assertNotEquals(key, ProfileCache.getKey(changedProfileData, anyWorkspaceDir));
+		assertNotEquals(key, ProfileCache.getKey(defaultProfileData, otherWorkspaceDir));
+		assertNotEquals(key, ProfileCache.getKey(defaultProfileData, null));
+	}
+
+	@Test
+	void testAcquireAndRelease() throws IOException {
+		ProfileCache cache = ProfileCache.create(ProfileCache.DEFAULT_CAPACITY);
+		String key = ProfileCache.getKey(defaultProfileData, anyWorkspaceDir);
+
+		// expect the first request to build a new Profile
+		Profile profile1 = cache.acquire(key, defaultProfileData);
+		assertNotNull(profile1);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// expect a concurrent request to get its own Profile, because profile1 was not yet released
+		Profile profile2 = cache.acquire(key, defaultProfileData);
+		assertNotSame(profile1, profile2);
+		assertEquals(2, cache.getMissCount());
+
+		// expect the released Profile to be reused
+		cache.release(key, profile1);
+		assertEquals(1, cache.getSize());
+		Profile profile3 = cache.acquire(key, defaultProfileData);
+		assertSame(profile1, profile3);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	void testChangedProfileDataNotReused() throws IOException {
+		ProfileCache cache = ProfileCache.create(ProfileCache.DEFAULT_CAPACITY);
+		String defaultKey = ProfileCache.getKey(defaultProfileData, anyWorkspaceDir);
+		String changedKey = ProfileCache.getKey(changedProfileData, anyWorkspaceDir);
+
+		Profile defaultProfile = cache.acquire(defaultKey, defaultProfileData);
+		cache.release(defaultKey, defaultProfile);
+
+		// expect the changed profile data to be used, rather than the cached Profile
+		Profile changedProfile = cache.acquire(changedKey, changedProfileData);
+		assertNotSame(defaultProfile, changedProfile);
+		assertNotEquals(defaultProfile.getRule(RuleID.ALIGN_ALIASES_FOR).isActive, changedProfile.getRule(RuleID.ALIGN_ALIASES_FOR).isActive);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	void testLeastRecentlyUsedEvicted() throws IOException {
+		ProfileCache cache = ProfileCache.create(2);
+		String key1 = ProfileCache.getKey(defaultProfileData, anyWorkspaceDir);
+		String key2 = ProfileCache.getKey(defaultProfileData, otherWorkspaceDir);
+		String key3 = ProfileCache.getKey(changedProfileData, anyWorkspaceDir);
+
+		cache.release(key1, cache.acquire(key1, defaultProfileData));
+		cache.release(key2, cache.acquire(key2, defaultProfileData));
+		cache.release(key3, cache.acquire(key3, changedProfileData));
+
+		// expect the entry for key1 to be evicted
+		assertEquals(2, cache.getSize());
+		cache.acquire(key1, defaultProfileData);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	void testStatistics() throws IOException {
+		ProfileCache cache = ProfileCache.create(ProfileCache.DEFAULT_CAPACITY);
+		String key = ProfileCache.getKey(defaultProfileData, null);
+
+		cache.release(key, cache.acquire(key, defaultProfileData));
+		cache.release(key, cache.acquire(key, defaultProfileData));
+
+		String statistics = cache.getStatistics();
+		assertTrue(StringUtil.contains(statistics, "1 hits"));
+		assertTrue(StringUtil.contains(statistics, "1 misses"));
+		assertTrue(StringUtil.contains(statistics, "1 of 16 entries"));
+
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+}
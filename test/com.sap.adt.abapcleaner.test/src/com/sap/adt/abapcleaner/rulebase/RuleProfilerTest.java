@@ -0,0 +1,147 @@
+package com.sap.adt.abapcleaner.rulebase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sap.adt.abapcleaner.base.ABAP;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.CleanException;
+import com.sap.adt.abapcleaner.programbase.ParseException;
+import com.sap.adt.abapcleaner.programbase.Program;
+
+public class RuleProfilerTest {
+	private static final String LINE_SEP = ABAP.LINE_SEPARATOR;
+
+	private Profile profile;
+	private RuleProfiler ruleProfiler;
+
+	@BeforeEach
+	void setUp() {
+		Program.setLogForTesting();
+		profile = Profile.createDefault();
+		ruleProfiler = RuleProfiler.create();
+	}
+
+	private RuleProfiler.RuleProfile getRuleProfile(RuleID ruleID) {
+		for (RuleProfiler.RuleProfile ruleProfile : ruleProfiler.getRuleProfiles()) {
+			if (ruleProfile.ruleID == ruleID)
+				return ruleProfile;
+		}
+		return null;
+	}
+
+	@Test
+	void testEmptyProfiler() {
+		assertEquals(0, ruleProfiler.getCodeCount());
+		assertEquals(0, ruleProfiler.getRuleProfiles().length);
+		assertEquals(0, ruleProfiler.getTotalDuration_ns());
+		assertTrue(ruleProfiler.toTable(LINE_SEP).startsWith("Rule profile for 0 code documents:"));
+		assertTrue(ruleProfiler.toJson().contains("\"rules\": []"));
+	}
+
+	@Test
+	void testExecuteRules() throws ParseException, CleanException {
+		Code code = Code.parse(null, ParseParams.createForTest("IF a EQ b. ENDIF. IF c NE d. ENDIF.", ABAP.NEWEST_RELEASE));
+		profile.executeRules(code, ABAP.NO_RELEASE_RESTRICTION, false, null, 0, null, ruleProfiler);
+
+		assertEquals(1, ruleProfiler.getCodeCount());
+		assertEquals(profile.getActiveRuleCount(), ruleProfiler.getRuleProfiles().length);
+
+		// the comparison operators in both IF statements are changed
+		RuleProfiler.RuleProfile comparisonProfile = getRuleProfile(RuleID.COMPARISON_OPERATOR);
+		assertNotNull(comparisonProfile);
+		assertEquals(1, comparisonProfile.getExecutionCount());
+		assertEquals(4, comparisonProfile.getVisitedCommandCount());
+		assertEquals(2, comparisonProfile.getChangedCommandCount());
+		if (ruleProfiler.measuresAllocation()) {
+			assertTrue(comparisonProfile.getAllocatedBytes() >= 0);
+		} else {
+			assertEquals(RuleProfiler.NOT_MEASURED, comparisonProfile.getAllocatedBytes());
+		}
+
+		// rule profiles are sorted by descending duration
+		RuleProfiler.RuleProfile[] ruleProfiles = ruleProfiler.getRuleProfiles();
+		for (int i = 1; i < ruleProfiles.length; ++i)
+			assertTrue(ruleProfiles[i - 1].getDuration_ns() >= ruleProfiles[i].getDuration_ns());
+	}
+
+	@Test
+	void testAggregateOverCodeDocuments() throws ParseException, CleanException {
+		for (int i = 0; i < 2; ++i) {
+			Code code = Code.parse(null, ParseParams.createForTest("IF a EQ b. ENDIF.", ABAP.NEWEST_RELEASE));
+			profile.executeRules(code, ABAP.NO_RELEASE_RESTRICTION, false, null, 0, null, ruleProfiler);
+		}
+
+		assertEquals(2, ruleProfiler.getCodeCount());
+		RuleProfiler.RuleProfile comparisonProfile = getRuleProfile(RuleID.COMPARISON_OPERATOR);
+		assertEquals(2, comparisonProfile.getExecutionCount());
+		assertEquals(2, comparisonProfile.getChangedCommandCount());
+	}
+
+	@Test
+	void testNoChanges() throws ParseException, CleanException {
+		Code code = Code.parse(null, ParseParams.createForTest("IF a = b. ENDIF.", ABAP.NEWEST_RELEASE));
+		profile.executeRules(code, ABAP.NO_RELEASE_RESTRICTION, false, null, 0, null, ruleProfiler);
+
+		assertEquals(0, getRuleProfile(RuleID.COMPARISON_OPERATOR).getChangedCommandCount());
+	}
+
+	@Test
+	void testRepeatedExecutionVisitsAllCommands() throws ParseException, CleanException {
+		Code code = Code.parse(null, ParseParams.createForTest("IF a EQ b. ENDIF.", ABAP.NEWEST_RELEASE));
+		Rule rule = profile.getRule(RuleID.COMPARISON_OPERATOR);
+
+		ruleProfiler.execute(rule, code, ABAP.NO_RELEASE_RESTRICTION);
+		ruleProfiler.execute(rule, code, ABAP.NO_RELEASE_RESTRICTION);
+
+		// both executions visit the IF and ENDIF statements, but only the first one changes the IF statement 
+		RuleProfiler.RuleProfile comparisonProfile = getRuleProfile(RuleID.COMPARISON_OPERATOR);
+		assertEquals(2, comparisonProfile.getExecutionCount());
+		assertEquals(4, comparisonProfile.getVisitedCommandCount());
+		assertEquals(1, comparisonProfile.getChangedCommandCount());
+	}
+
+	@Test
+	void testWhitespaceOnlyChangesAreCounted() throws ParseException, CleanException {
+		Code code = Code.parse(null, ParseParams.createForTest("lv_any = 1 . lv_other = 2.", ABAP.NEWEST_RELEASE));
+		Rule rule = profile.getRule(RuleID.SPACE_BEFORE_PERIOD);
+
+		ruleProfiler.execute(rule, code, ABAP.NO_RELEASE_RESTRICTION);
+
+		// only the space before the first period is removed, which does not change the modification epoch
+		RuleProfiler.RuleProfile spaceProfile = getRuleProfile(RuleID.SPACE_BEFORE_PERIOD);
+		assertEquals(2, spaceProfile.getVisitedCommandCount());
+		assertEquals(1, spaceProfile.getChangedCommandCount());
+	}
+
+	@Test
+	void testTableAndJson() throws ParseException, CleanException {
+		Code code = Code.parse(null, ParseParams.createForTest("IF a EQ b. ENDIF.", ABAP.NEWEST_RELEASE));
+		profile.executeRules(code, ABAP.NO_RELEASE_RESTRICTION, false, null, 0, null, ruleProfiler);
+		String ruleName = profile.getRule(RuleID.COMPARISON_OPERATOR).getDisplayName();
+
+		String table = ruleProfiler.toTable(LINE_SEP);
+		assertTrue(table.startsWith("Rule profile for 1 code document:" + LINE_SEP));
+		assertTrue(table.contains(ruleName + LINE_SEP));
+		assertTrue(table.endsWith("  total" + LINE_SEP));
+
+		String json = ruleProfiler.toJson();
+		assertTrue(json.contains("\"codeCount\": 1,"));
+		assertTrue(json.contains("\"ruleId\": \"COMPARISON_OPERATOR\""));
+		assertTrue(json.contains("\"ruleName\": \"" + ruleName + "\""));
+		assertTrue(json.contains("\"changedCommands\": 1"));
+	}
+
+	@Test
+	void testWorkerCopySharesProfiler() {
+		CleanupParams cleanupParams = CleanupParams.createForProfile(profile, false, ABAP.NO_RELEASE_RESTRICTION, null, ruleProfiler);
+		CleanupParams workerParams = cleanupParams.createCopyForWorker();
+
+		assertNotSame(cleanupParams.profile, workerParams.profile);
+		assertSame(ruleProfiler, workerParams.ruleProfiler);
+		assertNull(CleanupParams.createForProfile(profile, false).ruleProfiler);
+	}
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.BufferedReader;
+import java.nio.ByteBuffer;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -67,6 +68,44 @@ public class CamelCaseNamesTest {
 		assertEquals(0, viewNames.getEntryCount());
 	}
 
+	@Test
+	public void testBinaryImageRoundTrip() {
+		CamelCaseNames fieldNames = CamelCaseNames.getFieldNames();
+		CamelCaseNames binaryNames = CamelCaseNames.createFromBinaryImage(CamelCaseNameType.FIELD, fieldNames.toBinaryImage());
+
+		assertNotNull(binaryNames);
+		assertEquals(CamelCaseNamesSource.BINARY_RESOURCE, binaryNames.source);
+		assertEquals(fieldNames.getEntryCount(), binaryNames.getEntryCount());
+		assertEquals("CompanyCode", binaryNames.applyCamelCaseTo("companycode", true, true, null));
+		assertEquals(null, binaryNames.applyCamelCaseTo("currency", true, false, null));
+		assertEquals(fieldNames.applyCamelCaseTo("fiscalyear", false, false, null), binaryNames.applyCamelCaseTo("fiscalyear", false, false, null));
+	}
+
+	@Test
+	public void testBinaryImageInvalid() {
+		assertNull(CamelCaseNames.createFromBinaryImage(CamelCaseNameType.VIEW, ByteBuffer.allocate(0)));
+		assertNull(CamelCaseNames.createFromBinaryImage(CamelCaseNameType.VIEW, ByteBuffer.allocate(64)));
+
+		// valid header, but too few entries
+		ByteBuffer truncatedImage = ByteBuffer.allocate(32);
+		truncatedImage.put(CamelCaseNames.getViewNames().toBinaryImage().array(), 0, 32);
+		assertNull(CamelCaseNames.createFromBinaryImage(CamelCaseNameType.VIEW, truncatedImage));
+	}
+
+	@Test
+	public void testBinaryResourceName() {
+		assertEquals("camel_case_field_names.bin", CamelCaseNames.getBinaryResourceName(CamelCaseNames.FIELD_NAMES_RESOURCE));
+		assertEquals("any_name.bin", CamelCaseNames.getBinaryResourceName("any_name"));
+		assertNull(CamelCaseNames.createFromBinaryResource(CamelCaseNameType.FIELD, "non_existing_resource.bin"));
+	}
+
+	@Test
+	public void testLoadSummary() {
+		String summary = CamelCaseNames.getViewNames().getLoadSummary();
+		assertTrue(summary.startsWith("CamelCase view names: "));
+		assertTrue(summary.indexOf(" entries loaded from ") > 0);
+	}
+
 	// -------------------------------------------------------------------------
 	
 	private void addLine(String camelCaseName) {
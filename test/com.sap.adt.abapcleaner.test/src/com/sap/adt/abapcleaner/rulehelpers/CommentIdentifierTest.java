@@ -14,6 +14,9 @@ import org.junit.jupiter.api.Test;
 import com.sap.adt.abapcleaner.base.ABAP;
 import com.sap.adt.abapcleaner.base.Language;
 import com.sap.adt.abapcleaner.base.StringUtil;
+import com.sap.adt.abapcleaner.parser.Code;
+import com.sap.adt.abapcleaner.parser.ParseParams;
+import com.sap.adt.abapcleaner.programbase.ParseException;
 
 class CommentIdentifierTest {
 	private static CommentIdentifier commentIdentifier;
@@ -590,5 +593,77 @@ class CommentIdentifierTest {
 		testIdentifyWithOutput(code, CommentIdentifierMode.LINE_START_COMMENTS, 1);
 		testIdentifyWithOutput(code, CommentIdentifierMode.ALL_COMMENT_LINES, 4);
 	}
-	
+
+	private static void assertSameIdentification(CommentIdentification exp, CommentIdentification act) {
+		assertEquals(exp.canDecide(), act.canDecide());
+		assertEquals(exp.getCodeProbabilityPercent(), act.getCodeProbabilityPercent());
+		assertEquals(exp.isCode(), act.isCode());
+		assertEquals(exp.isEnglish(), act.isEnglish());
+		assertEquals(exp.indent, act.indent);
+		assertEquals(exp.isAutoGenerated, act.isAutoGenerated);
+	}
+
+	@Test
+	void testIdentifyCommentBlock() {
+		buildSrc("* this is a comment");
+		buildSrc("*  IF lv_value IS INITIAL.");
+		buildSrc("*    lv_value = 1.");
+		buildSrc("*");
+		buildSrc("*  ENDIF.");
+		buildSrc("* <SIGNATURE>---------------------------------------------------------------------------------------+");
+		String nextLine = "* and some more text";
+
+		CommentIdentification[] results = commentIdentifier.identifyCommentBlock(null, lines, nextLine, false, Language.ABAP);
+
+		// expect the same results as if each line was identified with its previous and next line as context
+		assertEquals(lines.size(), results.length);
+		for (int i = 0; i < lines.size(); ++i) {
+			String prevLine = (i == 0) ? null : lines.get(i - 1);
+			String nextLineOfLine = (i + 1 == lines.size()) ? nextLine : lines.get(i + 1);
+			assertSameIdentification(commentIdentifier.identifyComment(lines.get(i), false, prevLine, nextLineOfLine, false, Language.ABAP), results[i]);
+		}
+		assertFalse(results[0].isCode());
+		assertTrue(results[1].isCode());
+		assertTrue(results[5].isAutoGenerated);
+	}
+
+	@Test
+	void testIdentifyCommentBlockEmpty() {
+		assertEquals(0, commentIdentifier.identifyCommentBlock("* any", lines, "* any", false, Language.ABAP).length);
+	}
+
+	@Test
+	void testSharedIdentifierForCode() throws ParseException {
+		Code code = Code.parse(null, ParseParams.createForTest("* lv_value = 1.", ABAP.NEWEST_RELEASE));
+		Code otherCode = Code.parse(null, ParseParams.createForTest("* lv_value = 1.", ABAP.NEWEST_RELEASE));
+
+		CommentIdentifier shared = CommentIdentifier.getFor(code);
+		assertSame(shared, CommentIdentifier.getFor(code));
+		assertNotSame(shared, CommentIdentifier.getFor(otherCode));
+
+		// the shared instance caches its results without changing them
+		String[] lineTexts = new String[] { "*   lv_text = 'text'.", "* This is a comment.", "\" this is an inner comment", "// DDL comment" };
+		for (String lineText : lineTexts) {
+			for (boolean analyzeInnerComments : new boolean[] { false, true }) {
+				for (Language language : new Language[] { Language.ABAP, Language.DDL }) {
+					CommentIdentification result = shared.identifyComment(lineText, analyzeInnerComments, language);
+					assertSame(result, shared.identifyComment(lineText, analyzeInnerComments, language));
+					assertSameIdentification(commentIdentifier.identifyComment(lineText, analyzeInnerComments, language), result);
+				}
+			}
+		}
+
+		// the context of the previous and next line is part of the cache key
+		String lineText = "* ...";
+		CommentIdentification withoutContext = shared.identifyComment(lineText, false, Language.ABAP);
+		CommentIdentification withContext = shared.identifyComment(lineText, false, "* lv_value = 1.", null, false, Language.ABAP);
+		assertNotSame(withoutContext, withContext);
+		assertSameIdentification(commentIdentifier.identifyComment(lineText, false, "* lv_value = 1.", null, false, Language.ABAP), withContext);
+
+		// reasons are not cached
+		lineText = "* This is a comment.";
+		CommentIdentification withReasons = shared.identifyComment(lineText, false, null, null, true, Language.ABAP);
+		assertNotSame(shared.identifyComment(lineText, false, Language.ABAP), withReasons);
+		assertTrue(withReasons.getReasonsWithSep(" ").length() > 0);
+	}
 }